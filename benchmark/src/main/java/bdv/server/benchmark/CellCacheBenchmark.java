@@ -0,0 +1,134 @@
+package bdv.server.benchmark;
+
+import bdv.model.DataSet;
+import bdv.server.CellHandler;
+import bdv.server.CellRequest;
+import org.eclipse.jetty.server.LocalConnector;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.handler.ContextHandlerCollection;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cell requests of {@link CellHandler} against the synthetic dataset: a hit takes the cell from the
+ * cache, a miss reads it from the HDF5 file. The requests are sent to an in-memory {@link LocalConnector}, so both
+ * include the admission, the encoding and the response of the server path without the network.
+ *
+ * The cache warm-up is disabled, the miss path empties the cache before every request.
+ *
+ * Author: HongKee Moon (moon@mpi-cbg.de), Scientific Computing Facility
+ * Organization: MPI-CBG Dresden
+ * Date: October 2026
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@Warmup( iterations = 5, time = 1 )
+@Measurement( iterations = 10, time = 1 )
+@Fork( value = 2, jvmArgsAppend = { "-Dbdv.warmup.levels=0", "-Dbdv.warmup.cells=0" } )
+public class CellCacheBenchmark
+{
+	@Param( { "0", "2" } )
+	public int level;
+
+	private Server server;
+
+	private LocalConnector connector;
+
+	private CellHandler handler;
+
+	private final List< String > requests = new ArrayList<>();
+
+	private int next;
+
+	@Setup( Level.Trial )
+	public void setup() throws Exception
+	{
+		final String xml = SyntheticDataset.get().getAbsolutePath();
+
+		server = new Server();
+		connector = new LocalConnector( server );
+		server.addConnector( connector );
+
+		final String thumbnails = Files.createTempDirectory( "thumbnails" ).toString();
+		handler = new CellHandler( "http://localhost/synthetic/", new DataSet( 0, "synthetic", xml, "", "" ), thumbnails );
+		handler.setContextPath( "/synthetic" );
+
+		final ContextHandlerCollection handlers = new ContextHandlerCollection();
+		handlers.addHandler( handler );
+		server.setHandler( handlers );
+		server.start();
+
+		for ( CellRequest cell : SyntheticDataset.getCells( 0, 0, level ) )
+			requests.add( "GET /synthetic/?p=" + SyntheticDataset.getCellPath( cell ) + " HTTP/1.1\r\n"
+					+ "Host: localhost\r\n"
+					+ "Connection: close\r\n"
+					+ "\r\n" );
+
+		// Fill the cache for the hit path
+		for ( String request : requests )
+			send( request );
+	}
+
+	@TearDown( Level.Trial )
+	public void tearDown() throws Exception
+	{
+		server.stop();
+	}
+
+	/**
+	 * Empty the cache before every request of the miss path
+	 */
+	@State( Scope.Thread )
+	public static class EmptyCache
+	{
+		@Setup( Level.Invocation )
+		public void empty( final CellCacheBenchmark benchmark )
+		{
+			benchmark.handler.clearCache();
+		}
+	}
+
+	private String nextRequest()
+	{
+		final String request = requests.get( next );
+		next = ( next + 1 ) % requests.size();
+		return request;
+	}
+
+	private String send( final String request ) throws Exception
+	{
+		final String response = connector.getResponses( request );
+		if ( !response.startsWith( "HTTP/1.1 200" ) )
+			throw new IllegalStateException( "Unexpected response " + response.split( "\r\n", 2 )[ 0 ] + " for " + request );
+		return response;
+	}
+
+	@Benchmark
+	public String hit() throws Exception
+	{
+		return send( nextRequest() );
+	}
+
+	@Benchmark
+	public String miss( final EmptyCache emptyCache ) throws Exception
+	{
+		return send( nextRequest() );
+	}
+}
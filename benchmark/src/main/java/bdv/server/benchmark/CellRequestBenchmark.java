@@ -0,0 +1,66 @@
+package bdv.server.benchmark;
+
+import bdv.server.CellRequest;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the parsing of "p=cell/..." parameters and the encoding of cell data as big-endian shorts
+ *
+ * Author: HongKee Moon (moon@mpi-cbg.de), Scientific Computing Facility
+ * Organization: MPI-CBG Dresden
+ * Date: October 2026
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.NANOSECONDS )
+@Warmup( iterations = 5, time = 1 )
+@Measurement( iterations = 10, time = 1 )
+@Fork( 2 )
+public class CellRequestBenchmark
+{
+	/**
+	 * Edge length of the cubic cell
+	 */
+	@Param( { "16", "32", "64" } )
+	public int cellSize;
+
+	private String cellString;
+
+	private short[] data;
+
+	@Setup
+	public void setup()
+	{
+		cellString = "cell/1234/3/1/0/" + cellSize + "/" + cellSize + "/" + cellSize + "/512/1024/96";
+
+		final Random random = new Random( 42 );
+		data = new short[ cellSize * cellSize * cellSize ];
+		for ( int i = 0; i < data.length; i++ )
+			data[ i ] = ( short ) random.nextInt( 1 << 16 );
+	}
+
+	@Benchmark
+	public CellRequest parse()
+	{
+		return CellRequest.parse( cellString );
+	}
+
+	@Benchmark
+	public byte[] encode()
+	{
+		return CellRequest.encode( data );
+	}
+}
@@ -0,0 +1,142 @@
+package bdv.server.benchmark;
+
+import bdv.model.DataSet;
+import bdv.server.AdmissionControl;
+import bdv.server.CellHandler;
+import bdv.server.CellRequest;
+import org.eclipse.jetty.client.HttpClient;
+import org.eclipse.jetty.client.api.ContentResponse;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.ServerConnector;
+import org.eclipse.jetty.server.handler.ContextHandlerCollection;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Measures the end-to-end throughput of cell requests through Jetty and {@link CellHandler} on the loopback interface.
+ * The requests cycle through all the cells of the synthetic dataset, so the first pass includes cache misses.
+ * The server uses the thread pool of {@link AdmissionControl}, cell requests answered with 503 or 429 are counted as
+ * shed in {@link Outcomes} instead of failing the run.
+ *
+ * Author: HongKee Moon (moon@mpi-cbg.de), Scientific Computing Facility
+ * Organization: MPI-CBG Dresden
+ * Date: October 2026
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.SECONDS )
+@Warmup( iterations = 5, time = 2 )
+@Measurement( iterations = 10, time = 2 )
+@Fork( 1 )
+@Threads( 8 )
+public class JettyThroughputBenchmark
+{
+	private Server server;
+
+	private HttpClient client;
+
+	private final List< String > urls = new ArrayList<>();
+
+	private final AtomicInteger next = new AtomicInteger();
+
+	@Setup( Level.Trial )
+	public void setup() throws Exception
+	{
+		final String xml = SyntheticDataset.get().getAbsolutePath();
+
+		server = new Server( AdmissionControl.getInstance().createThreadPool( 200, 8 ) );
+		final ServerConnector connector = new ServerConnector( server );
+		connector.setHost( "localhost" );
+		connector.setPort( 0 );
+		server.addConnector( connector );
+
+		final String thumbnails = Files.createTempDirectory( "thumbnails" ).toString();
+		final CellHandler handler = new CellHandler( "http://localhost/synthetic/", new DataSet( 0, "synthetic", xml, "", "" ), thumbnails );
+		handler.setContextPath( "/synthetic" );
+
+		final ContextHandlerCollection handlers = new ContextHandlerCollection();
+		handlers.addHandler( handler );
+		server.setHandler( handlers );
+		server.start();
+
+		final String base = "http://localhost:" + connector.getLocalPort() + "/synthetic/?p=";
+		for ( int t = 0; t < SyntheticDataset.TIMEPOINTS; t++ )
+			for ( int s = 0; s < SyntheticDataset.SETUPS; s++ )
+				for ( int level = 0; level < SyntheticDataset.RESOLUTIONS.length; level++ )
+					for ( CellRequest cell : SyntheticDataset.getCells( t, s, level ) )
+						urls.add( base + SyntheticDataset.getCellPath( cell ) );
+
+		client = new HttpClient();
+		client.setMaxConnectionsPerDestination( 64 );
+		client.start();
+	}
+
+	@TearDown( Level.Trial )
+	public void tearDown() throws Exception
+	{
+		client.stop();
+		server.stop();
+	}
+
+	/**
+	 * Outcomes of the cell requests of a thread, reported as throughput next to the score
+	 */
+	@State( Scope.Thread )
+	@AuxCounters( AuxCounters.Type.OPERATIONS )
+	public static class Outcomes
+	{
+		/**
+		 * Cells sent
+		 */
+		public long served;
+
+		/**
+		 * Cell requests shed by the admission control or throttled by the fair-share scheduler
+		 */
+		public long shed;
+
+		@Setup( Level.Iteration )
+		public void reset()
+		{
+			served = 0;
+			shed = 0;
+		}
+	}
+
+	@Benchmark
+	public byte[] cell( final Outcomes outcomes ) throws Exception
+	{
+		final String url = urls.get( Math.floorMod( next.getAndIncrement(), urls.size() ) );
+		final ContentResponse response = client.GET( url );
+		switch ( response.getStatus() )
+		{
+		case 200:
+			++outcomes.served;
+			return response.getContent();
+		case 429:
+		case 503:
+			++outcomes.shed;
+			return null;
+		default:
+			throw new IllegalStateException( "Unexpected status " + response.getStatus() + " for " + url );
+		}
+	}
+}
@@ -0,0 +1,204 @@
+package bdv.server.benchmark;
+
+import bdv.export.ExportMipmapInfo;
+import bdv.export.ProgressWriterConsole;
+import bdv.export.WriteSequenceToHdf5;
+import bdv.img.hdf5.Hdf5ImageLoader;
+import bdv.server.CellRequest;
+import bdv.spimdata.SequenceDescriptionMinimal;
+import bdv.spimdata.SpimDataMinimal;
+import bdv.spimdata.XmlIoSpimDataMinimal;
+import mpicbg.spim.data.SpimDataException;
+import mpicbg.spim.data.generic.sequence.BasicImgLoader;
+import mpicbg.spim.data.generic.sequence.BasicSetupImgLoader;
+import mpicbg.spim.data.generic.sequence.BasicViewSetup;
+import mpicbg.spim.data.generic.sequence.ImgLoaderHint;
+import mpicbg.spim.data.registration.ViewRegistration;
+import mpicbg.spim.data.registration.ViewRegistrations;
+import mpicbg.spim.data.sequence.FinalVoxelDimensions;
+import mpicbg.spim.data.sequence.TimePoint;
+import mpicbg.spim.data.sequence.TimePoints;
+import net.imglib2.Cursor;
+import net.imglib2.FinalDimensions;
+import net.imglib2.RandomAccessibleInterval;
+import net.imglib2.img.array.ArrayImg;
+import net.imglib2.img.array.ArrayImgs;
+import net.imglib2.img.basictypeaccess.array.ShortArray;
+import net.imglib2.type.numeric.integer.UnsignedShortType;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * SyntheticDataset writes a deterministic XML/HDF5 dataset used by the benchmarks,
+ * so that results of different commits are measured on identical data.
+ *
+ * The dataset has {@link #SETUPS} setups and {@link #TIMEPOINTS} timepoints of {@link #DIMENSIONS} voxels
+ * with the mipmap levels {@link #RESOLUTIONS} split into cells of {@link #SUBDIVISIONS}.
+ *
+ * Author: HongKee Moon (moon@mpi-cbg.de), Scientific Computing Facility
+ * Organization: MPI-CBG Dresden
+ * Date: October 2026
+ */
+public class SyntheticDataset
+{
+	public static final String DATA_PROPERTY = "bdv.benchmark.data";
+
+	public static final String DEFAULT_DIRECTORY = "target/benchmark-data";
+
+	public static final int SETUPS = 2;
+
+	public static final int TIMEPOINTS = 2;
+
+	public static final long[] DIMENSIONS = new long[] { 256, 256, 64 };
+
+	public static final int[][] RESOLUTIONS = new int[][] { { 1, 1, 1 }, { 2, 2, 1 }, { 4, 4, 2 } };
+
+	public static final int[][] SUBDIVISIONS = new int[][] { { 32, 32, 32 }, { 32, 32, 32 }, { 32, 32, 32 } };
+
+	public static void main( final String[] args ) throws Exception
+	{
+		final File xml = create( new File( args.length > 0 ? args[ 0 ] : DEFAULT_DIRECTORY ) );
+		System.out.println( "Synthetic dataset: " + xml.getAbsolutePath() );
+	}
+
+	/**
+	 * Get the dataset XML from the directory given by the system property {@link #DATA_PROPERTY}, creating it if it does not exist
+	 */
+	public static File get() throws SpimDataException, IOException
+	{
+		return create( new File( System.getProperty( DATA_PROPERTY, DEFAULT_DIRECTORY ) ) );
+	}
+
+	/**
+	 * Create the dataset in the directory unless it already exists
+	 * @param directory the directory of "synthetic.xml" and "synthetic.h5"
+	 * @return the XML file
+	 */
+	public static synchronized File create( final File directory ) throws SpimDataException, IOException
+	{
+		final File xml = new File( directory, "synthetic.xml" );
+		final File h5 = new File( directory, "synthetic.h5" );
+		if ( xml.isFile() && h5.isFile() )
+			return xml;
+
+		if ( !directory.isDirectory() && !directory.mkdirs() )
+			throw new IOException( "Cannot create " + directory );
+
+		final HashMap< Integer, BasicViewSetup > setups = new HashMap<>();
+		final Map< Integer, ExportMipmapInfo > perSetupMipmapInfo = new HashMap<>();
+		for ( int s = 0; s < SETUPS; s++ )
+		{
+			setups.put( s, new BasicViewSetup( s, "setup " + s, new FinalDimensions( DIMENSIONS ), new FinalVoxelDimensions( "um", 1, 1, 1 ) ) );
+			perSetupMipmapInfo.put( s, new ExportMipmapInfo( RESOLUTIONS, SUBDIVISIONS ) );
+		}
+
+		final List< TimePoint > timepoints = new ArrayList<>();
+		for ( int t = 0; t < TIMEPOINTS; t++ )
+			timepoints.add( new TimePoint( t ) );
+
+		final SequenceDescriptionMinimal seq = new SequenceDescriptionMinimal( new TimePoints( timepoints ), setups, new SyntheticImgLoader(), null );
+
+		WriteSequenceToHdf5.writeHdf5File( seq, perSetupMipmapInfo, true, h5, null, null, Runtime.getRuntime().availableProcessors(), new ProgressWriterConsole() );
+
+		final SequenceDescriptionMinimal hdf5Seq = new SequenceDescriptionMinimal( seq, new Hdf5ImageLoader( h5, null, null ) );
+		final ArrayList< ViewRegistration > registrations = new ArrayList<>();
+		for ( int t = 0; t < TIMEPOINTS; t++ )
+			for ( int s = 0; s < SETUPS; s++ )
+				registrations.add( new ViewRegistration( t, s ) );
+
+		final SpimDataMinimal spimData = new SpimDataMinimal( directory, hdf5Seq, new ViewRegistrations( registrations ) );
+		new XmlIoSpimDataMinimal().save( spimData, xml.getAbsolutePath() );
+
+		return xml;
+	}
+
+	/**
+	 * Get the requests of all the cells of a mipmap level
+	 */
+	public static List< CellRequest > getCells( final int timepoint, final int setup, final int level )
+	{
+		final long[] dims = new long[ 3 ];
+		final int[] numCells = new int[ 3 ];
+		for ( int d = 0; d < 3; d++ )
+		{
+			dims[ d ] = Math.max( 1, DIMENSIONS[ d ] / RESOLUTIONS[ level ][ d ] );
+			numCells[ d ] = ( int ) ( ( dims[ d ] + SUBDIVISIONS[ level ][ d ] - 1 ) / SUBDIVISIONS[ level ][ d ] );
+		}
+
+		final List< CellRequest > cells = new ArrayList<>();
+		for ( int z = 0; z < numCells[ 2 ]; z++ )
+			for ( int y = 0; y < numCells[ 1 ]; y++ )
+				for ( int x = 0; x < numCells[ 0 ]; x++ )
+				{
+					final int[] grid = new int[] { x, y, z };
+					final int[] cellDims = new int[ 3 ];
+					final long[] cellMin = new long[ 3 ];
+					for ( int d = 0; d < 3; d++ )
+					{
+						cellMin[ d ] = ( long ) grid[ d ] * SUBDIVISIONS[ level ][ d ];
+						cellDims[ d ] = ( int ) Math.min( SUBDIVISIONS[ level ][ d ], dims[ d ] - cellMin[ d ] );
+					}
+					final int index = x + numCells[ 0 ] * ( y + numCells[ 1 ] * z );
+					cells.add( new CellRequest( index, timepoint, setup, level, cellDims, cellMin ) );
+				}
+
+		return cells;
+	}
+
+	/**
+	 * Get the "p" parameter requesting the cell from the server
+	 */
+	public static String getCellPath( final CellRequest cell )
+	{
+		return "cell/" + cell.index + "/" + cell.timepoint + "/" + cell.setup + "/" + cell.level + "/"
+				+ cell.cellDims[ 0 ] + "/" + cell.cellDims[ 1 ] + "/" + cell.cellDims[ 2 ] + "/"
+				+ cell.cellMin[ 0 ] + "/" + cell.cellMin[ 1 ] + "/" + cell.cellMin[ 2 ];
+	}
+
+	/**
+	 * Provides the synthetic volumes: a smooth pattern with deterministic noise, so that compression behaves like on real data
+	 */
+	private static class SyntheticImgLoader implements BasicImgLoader
+	{
+		@Override
+		public BasicSetupImgLoader< ? > getSetupImgLoader( final int setupId )
+		{
+			return new BasicSetupImgLoader< UnsignedShortType >()
+			{
+				@Override
+				public RandomAccessibleInterval< UnsignedShortType > getImage( final int timepointId, final ImgLoaderHint... hints )
+				{
+					return createImage( timepointId, setupId );
+				}
+
+				@Override
+				public UnsignedShortType getImageType()
+				{
+					return new UnsignedShortType();
+				}
+			};
+		}
+
+		private static ArrayImg< UnsignedShortType, ShortArray > createImage( final int timepoint, final int setup )
+		{
+			final ArrayImg< UnsignedShortType, ShortArray > img = ArrayImgs.unsignedShorts( DIMENSIONS );
+			final Cursor< UnsignedShortType > c = img.localizingCursor();
+			final long[] pos = new long[ 3 ];
+			while ( c.hasNext() )
+			{
+				c.fwd();
+				c.localize( pos );
+				final double r = Math.sin( pos[ 0 ] * 0.05 + timepoint ) * Math.cos( pos[ 1 ] * 0.07 + setup ) * Math.sin( pos[ 2 ] * 0.1 );
+				long h = ( pos[ 0 ] * 73856093 ) ^ ( pos[ 1 ] * 19349663 ) ^ ( pos[ 2 ] * 83492791 ) ^ ( timepoint * 2654435761L ) ^ setup;
+				h ^= h >>> 13;
+				c.get().set( ( int ) ( 2000 + 1500 * r + ( h & 0xff ) ) );
+			}
+			return img;
+		}
+	}
+}
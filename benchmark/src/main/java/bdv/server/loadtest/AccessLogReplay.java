@@ -0,0 +1,148 @@
+package bdv.server.loadtest;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * AccessLogReplay replays the GET requests of a recorded access log in the NCSA common or combined format.
+ *
+ * The requests of every remote host are replayed in order by one client, keeping the recorded time offsets
+ * divided by the speed factor, so the load shape of the recording is reproduced.
+ *
+ * Author: HongKee Moon (moon@mpi-cbg.de), Scientific Computing Facility
+ * Organization: MPI-CBG Dresden
+ * Date: October 2026
+ */
+public class AccessLogReplay
+{
+	private static final Pattern LINE = Pattern.compile( "^(\\S+) \\S+ \\S+ \\[([^\\]]+)\\] \"GET (\\S+)[^\"]*\" .*" );
+
+	/**
+	 * Recorded requests per remote host, each with its offset from the first recorded request
+	 */
+	private final Map< String, List< Entry > > hosts = new LinkedHashMap<>();
+
+	private int size;
+
+	public AccessLogReplay( final Path log ) throws IOException
+	{
+		final SimpleDateFormat format = new SimpleDateFormat( "dd/MMM/yyyy:HH:mm:ss Z", Locale.US );
+		long first = -1;
+
+		try ( BufferedReader reader = Files.newBufferedReader( log, StandardCharsets.UTF_8 ) )
+		{
+			String line;
+			while ( null != ( line = reader.readLine() ) )
+			{
+				final Matcher m = LINE.matcher( line );
+				if ( !m.matches() )
+					continue;
+
+				final long time;
+				try
+				{
+					time = format.parse( m.group( 2 ) ).getTime();
+				}
+				catch ( ParseException e )
+				{
+					continue;
+				}
+
+				if ( first < 0 )
+					first = time;
+
+				hosts.computeIfAbsent( m.group( 1 ), k -> new ArrayList<>() ).add( new Entry( time - first, m.group( 3 ) ) );
+				size++;
+			}
+		}
+	}
+
+	/**
+	 * @return the number of replayed requests
+	 */
+	public int size()
+	{
+		return size;
+	}
+
+	/**
+	 * Create one client per recorded host
+	 * @param requester sends the requests
+	 * @param target the server url the recorded paths are appended to
+	 * @param speed the speed factor, 2 replays the log in half the recorded time
+	 * @param startMillis the time corresponding to the first recorded request
+	 * @return the clients to be run
+	 */
+	public List< Runnable > createClients( final Requester requester, final String target, final double speed, final long startMillis )
+	{
+		final String base = target.endsWith( "/" ) ? target.substring( 0, target.length() - 1 ) : target;
+		final List< Runnable > clients = new ArrayList<>();
+
+		for ( List< Entry > entries : hosts.values() )
+		{
+			clients.add( () -> {
+				try
+				{
+					for ( Entry entry : entries )
+					{
+						final long wait = startMillis + ( long ) ( entry.offsetMillis / speed ) - System.currentTimeMillis();
+						if ( wait > 0 )
+							Thread.sleep( wait );
+
+						requester.get( base + entry.path, getType( entry.path ) );
+					}
+				}
+				catch ( InterruptedException e )
+				{
+					Thread.currentThread().interrupt();
+				}
+			} );
+		}
+
+		return clients;
+	}
+
+	/**
+	 * Classify the request by its path for the statistics
+	 */
+	static String getType( final String path )
+	{
+		if ( path.contains( "p=cell" ) )
+			return "cell";
+		else if ( path.contains( "p=init" ) )
+			return "init";
+		else if ( path.endsWith( "/settings" ) )
+			return "settings";
+		else if ( path.endsWith( "/png" ) )
+			return "png";
+		else if ( path.endsWith( ".xml" ) || path.endsWith( "/" ) )
+			return "xml";
+		else
+			return "other";
+	}
+
+	private static class Entry
+	{
+		final long offsetMillis;
+
+		final String path;
+
+		Entry( final long offsetMillis, final String path )
+		{
+			this.offsetMillis = offsetMillis;
+			this.path = path;
+		}
+	}
+}
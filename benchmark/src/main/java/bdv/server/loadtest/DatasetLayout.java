@@ -0,0 +1,111 @@
+package bdv.server.loadtest;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * DatasetLayout holds the image sizes and the cell sizes of a dataset parsed from the "p=init" metadata
+ * (the JSON form of {@link bdv.img.remote.RemoteImageLoaderMetaData})
+ *
+ * Author: HongKee Moon (moon@mpi-cbg.de), Scientific Computing Facility
+ * Organization: MPI-CBG Dresden
+ * Date: October 2026
+ */
+public class DatasetLayout
+{
+	private final int numTimepoints;
+
+	private final int[] setups;
+
+	/**
+	 * Setup id to the cell size of each level
+	 */
+	private final Map< Integer, int[][] > subdivisions = new HashMap<>();
+
+	/**
+	 * Setup id to the image size of each level, taken from the first timepoint
+	 */
+	private final Map< Integer, long[][] > dimensions = new HashMap<>();
+
+	public DatasetLayout( final String metadataJson )
+	{
+		final JsonObject root = new JsonParser().parse( metadataJson ).getAsJsonObject();
+
+		numTimepoints = root.get( "maxNumTimepoints" ).getAsInt();
+
+		final TreeSet< Integer > setupIds = new TreeSet<>();
+		for ( Map.Entry< String, JsonElement > entry : root.getAsJsonObject( "perSetupMipmapInfo" ).entrySet() )
+		{
+			final int setup = Integer.parseInt( entry.getKey() );
+			final JsonArray levels = entry.getValue().getAsJsonObject().getAsJsonArray( "subdivisions" );
+			final int[][] cells = new int[ levels.size() ][];
+			for ( int l = 0; l < cells.length; l++ )
+				cells[ l ] = toIntArray( levels.get( l ).getAsJsonArray() );
+
+			setupIds.add( setup );
+			subdivisions.put( setup, cells );
+			dimensions.put( setup, new long[ cells.length ][] );
+		}
+
+		setups = setupIds.stream().mapToInt( Integer::intValue ).toArray();
+
+		// The map keys are objects, so Gson writes the map as an array of [key, value] pairs
+		for ( JsonElement pair : root.getAsJsonArray( "dimsAndExistence" ) )
+		{
+			final JsonObject key = pair.getAsJsonArray().get( 0 ).getAsJsonObject();
+			final JsonObject value = pair.getAsJsonArray().get( 1 ).getAsJsonObject();
+
+			final int setup = key.get( "setup" ).getAsInt();
+			final int level = key.get( "level" ).getAsInt();
+			final long[][] dims = dimensions.get( setup );
+
+			if ( key.get( "timepoint" ).getAsInt() == 0 && null != dims && level < dims.length && value.get( "exists" ).getAsBoolean() )
+			{
+				final JsonArray d = value.getAsJsonArray( "dimensions" );
+				dims[ level ] = new long[] { d.get( 0 ).getAsLong(), d.get( 1 ).getAsLong(), d.get( 2 ).getAsLong() };
+			}
+		}
+	}
+
+	public int getNumTimepoints()
+	{
+		return numTimepoints;
+	}
+
+	public int[] getSetups()
+	{
+		return setups;
+	}
+
+	public int getNumLevels( final int setup )
+	{
+		return subdivisions.get( setup ).length;
+	}
+
+	/**
+	 * @return the image size of the level or null if the level does not exist
+	 */
+	public long[] getDimensions( final int setup, final int level )
+	{
+		return dimensions.get( setup )[ level ];
+	}
+
+	public int[] getCellSize( final int setup, final int level )
+	{
+		return subdivisions.get( setup )[ level ];
+	}
+
+	private static int[] toIntArray( final JsonArray array )
+	{
+		final int[] values = new int[ array.size() ];
+		for ( int i = 0; i < values.length; i++ )
+			values[ i ] = array.get( i ).getAsInt();
+		return values;
+	}
+}
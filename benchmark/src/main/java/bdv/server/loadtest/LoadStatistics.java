@@ -0,0 +1,82 @@
+package bdv.server.loadtest;
+
+import bdv.metrics.LatencyHistogram;
+
+import java.io.PrintStream;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * LoadStatistics collects the latencies, the errors and the received bytes of the load test per request type
+ *
+ * Author: HongKee Moon (moon@mpi-cbg.de), Scientific Computing Facility
+ * Organization: MPI-CBG Dresden
+ * Date: October 2026
+ */
+public class LoadStatistics
+{
+	private final ConcurrentHashMap< String, Entry > entries = new ConcurrentHashMap<>();
+
+	private final long startNanos = System.nanoTime();
+
+	/**
+	 * Record a completed request
+	 * @param type the request type, e.g. "xml", "init" or "cell"
+	 * @param nanos the latency in nanoseconds
+	 * @param bytes the received bytes
+	 * @param failed true if the request failed or was not answered with 200
+	 */
+	public void record( final String type, final long nanos, final long bytes, final boolean failed )
+	{
+		final Entry entry = entries.computeIfAbsent( type, k -> new Entry() );
+		entry.latency.recordNanos( nanos );
+		entry.bytes.addAndGet( bytes );
+		if ( failed )
+			entry.errors.incrementAndGet();
+	}
+
+	/**
+	 * Print the throughput, the latency percentiles and the error rate of every request type and of all requests
+	 */
+	public void report( final PrintStream out )
+	{
+		final double seconds = ( System.nanoTime() - startNanos ) / 1e9;
+
+		out.println( String.format( Locale.ROOT, "%-8s %10s %10s %10s %9s %9s %9s %9s %9s %8s",
+				"type", "requests", "req/s", "MB/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms", "errors" ) );
+
+		long requests = 0;
+		long bytes = 0;
+		long errors = 0;
+
+		for ( Map.Entry< String, Entry > e : new TreeMap<>( entries ).entrySet() )
+		{
+			final Entry entry = e.getValue();
+			final LatencyHistogram h = entry.latency;
+			requests += h.getCount();
+			bytes += entry.bytes.get();
+			errors += entry.errors.get();
+
+			out.println( String.format( Locale.ROOT, "%-8s %10d %10.1f %10.2f %9.2f %9.2f %9.2f %9.2f %9.2f %7.2f%%",
+					e.getKey(), h.getCount(), h.getCount() / seconds, entry.bytes.get() / seconds / ( 1 << 20 ),
+					h.getValueAtQuantile( 0.5 ) / 1e3, h.getValueAtQuantile( 0.9 ) / 1e3, h.getValueAtQuantile( 0.99 ) / 1e3,
+					h.getValueAtQuantile( 0.999 ) / 1e3, h.getValueAtQuantile( 1 ) / 1e3,
+					h.getCount() == 0 ? 0 : 100.0 * entry.errors.get() / h.getCount() ) );
+		}
+
+		out.println( String.format( Locale.ROOT, "total: %d requests in %.1f s, %.1f req/s, %.2f MB/s, %.2f%% errors",
+				requests, seconds, requests / seconds, bytes / seconds / ( 1 << 20 ), requests == 0 ? 0 : 100.0 * errors / requests ) );
+	}
+
+	private static class Entry
+	{
+		final LatencyHistogram latency = new LatencyHistogram();
+
+		final AtomicLong bytes = new AtomicLong();
+
+		final AtomicLong errors = new AtomicLong();
+	}
+}
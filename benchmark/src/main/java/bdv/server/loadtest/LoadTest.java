@@ -0,0 +1,179 @@
+package bdv.server.loadtest;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+import org.apache.commons.cli.BasicParser;
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.HelpFormatter;
+import org.apache.commons.cli.OptionBuilder;
+import org.apache.commons.cli.Options;
+import org.apache.commons.cli.ParseException;
+import org.eclipse.jetty.client.HttpClient;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Load generator simulating many BigDataViewer clients against a running BigDataServer or SimpleBigDataServer.
+ *
+ * <pre>
+ * usage: LoadTest [OPTIONS]
+ *  -u &lt;URLS&gt;     Comma separated dataset urls, e.g. http://host:8080/dataset/synthetic/
+ *  -l &lt;URL&gt;      Dataset list url to discover the datasets, e.g. http://host:8080/json/
+ *  -a &lt;FILE&gt;     Access log (NCSA common or combined format) to be replayed instead of simulated sessions
+ *  -t &lt;URL&gt;      Server url the paths of the access log are sent to, e.g. http://host:8080
+ *  -c &lt;CLIENTS&gt;  Number of simulated clients (default: 100)
+ *  -d &lt;SECONDS&gt;  Duration of the simulated sessions (default: 60)
+ *  -r &lt;SECONDS&gt;  Ramp-up time until all clients are started (default: 10)
+ *  -f &lt;FETCHERS&gt; Concurrent cell requests per client (default: 4)
+ *  -w &lt;MILLIS&gt;   Mean think time between two bursts (default: 500)
+ *  -x &lt;FACTOR&gt;   Replay speed of the access log (default: 1)
+ *  -s &lt;SEED&gt;     Seed of the simulated sessions (default: 42)
+ * </pre>
+ *
+ * A synthetic dataset can be created with {@code bdv.server.benchmark.SyntheticDataset} and served with
+ * {@code SimpleBigDataServer synthetic target/benchmark-data/synthetic.xml}.
+ *
+ * Author: HongKee Moon (moon@mpi-cbg.de), Scientific Computing Facility
+ * Organization: MPI-CBG Dresden
+ * Date: October 2026
+ */
+public class LoadTest
+{
+	private static final int REPORT_SECONDS = 10;
+
+	@SuppressWarnings( "static-access" )
+	public static void main( final String[] args ) throws Exception
+	{
+		final Options options = new Options();
+
+		options.addOption( OptionBuilder.withDescription( "Comma separated dataset urls" ).hasArg().withArgName( "URLS" ).create( "u" ) );
+		options.addOption( OptionBuilder.withDescription( "Dataset list url to discover the datasets" ).hasArg().withArgName( "URL" ).create( "l" ) );
+		options.addOption( OptionBuilder.withDescription( "Access log to be replayed" ).hasArg().withArgName( "FILE" ).create( "a" ) );
+		options.addOption( OptionBuilder.withDescription( "Server url for the access log replay" ).hasArg().withArgName( "URL" ).create( "t" ) );
+		options.addOption( OptionBuilder.withDescription( "Number of simulated clients (default: 100)" ).hasArg().withArgName( "CLIENTS" ).create( "c" ) );
+		options.addOption( OptionBuilder.withDescription( "Duration in seconds (default: 60)" ).hasArg().withArgName( "SECONDS" ).create( "d" ) );
+		options.addOption( OptionBuilder.withDescription( "Ramp-up in seconds (default: 10)" ).hasArg().withArgName( "SECONDS" ).create( "r" ) );
+		options.addOption( OptionBuilder.withDescription( "Concurrent cell requests per client (default: 4)" ).hasArg().withArgName( "FETCHERS" ).create( "f" ) );
+		options.addOption( OptionBuilder.withDescription( "Mean think time in milliseconds (default: 500)" ).hasArg().withArgName( "MILLIS" ).create( "w" ) );
+		options.addOption( OptionBuilder.withDescription( "Replay speed factor (default: 1)" ).hasArg().withArgName( "FACTOR" ).create( "x" ) );
+		options.addOption( OptionBuilder.withDescription( "Seed of the sessions (default: 42)" ).hasArg().withArgName( "SEED" ).create( "s" ) );
+
+		final CommandLine cmd;
+		try
+		{
+			cmd = new BasicParser().parse( options, args );
+			if ( !cmd.hasOption( "u" ) && !cmd.hasOption( "l" ) && !( cmd.hasOption( "a" ) && cmd.hasOption( "t" ) ) )
+				throw new ParseException( "Either -u, -l or -a with -t is required." );
+		}
+		catch ( final ParseException e )
+		{
+			System.err.println( e.getMessage() );
+			new HelpFormatter().printHelp( "LoadTest [OPTIONS]", options );
+			return;
+		}
+
+		final int clients = Integer.parseInt( cmd.getOptionValue( "c", "100" ) );
+		final long durationMillis = Long.parseLong( cmd.getOptionValue( "d", "60" ) ) * 1000;
+		final long rampUpMillis = Long.parseLong( cmd.getOptionValue( "r", "10" ) ) * 1000;
+		final int fetchers = Integer.parseInt( cmd.getOptionValue( "f", "4" ) );
+		final long thinkMillis = Long.parseLong( cmd.getOptionValue( "w", "500" ) );
+		final double speed = Double.parseDouble( cmd.getOptionValue( "x", "1" ) );
+		final long seed = Long.parseLong( cmd.getOptionValue( "s", "42" ) );
+
+		final QueuedThreadPool clientThreads = new QueuedThreadPool( 200, 8 );
+		clientThreads.setName( "LoadTestClient" );
+		final HttpClient httpClient = new HttpClient();
+		httpClient.setExecutor( clientThreads );
+		httpClient.setMaxConnectionsPerDestination( clients * fetchers );
+		httpClient.setMaxRequestsQueuedPerDestination( clients * fetchers * 4 );
+		httpClient.start();
+
+		final LoadStatistics statistics = new LoadStatistics();
+		final Requester requester = new Requester( httpClient, statistics );
+
+		final long start = System.currentTimeMillis() + 100;
+		final List< Runnable > sessions = new ArrayList<>();
+		final List< Long > startDelays = new ArrayList<>();
+
+		if ( cmd.hasOption( "a" ) )
+		{
+			final AccessLogReplay replay = new AccessLogReplay( Paths.get( cmd.getOptionValue( "a" ) ) );
+			System.out.println( "Replaying " + replay.size() + " requests" );
+			for ( Runnable client : replay.createClients( requester, cmd.getOptionValue( "t" ), speed, start ) )
+			{
+				sessions.add( client );
+				startDelays.add( 0L );
+			}
+		}
+		else
+		{
+			final List< String > datasets = cmd.hasOption( "u" ) ?
+					Arrays.asList( cmd.getOptionValue( "u" ).split( "," ) ) :
+					discover( httpClient, cmd.getOptionValue( "l" ) );
+			System.out.println( "Simulating " + clients + " clients on " + datasets );
+
+			for ( int i = 0; i < clients; i++ )
+			{
+				final long delay = rampUpMillis * i / clients;
+				sessions.add( new ViewerSession( requester, datasets.get( i % datasets.size() ), seed + i, start + delay + durationMillis, fetchers, thinkMillis ) );
+				startDelays.add( delay );
+			}
+		}
+
+		final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool( 1 );
+		scheduler.scheduleAtFixedRate( () -> statistics.report( System.out ), REPORT_SECONDS, REPORT_SECONDS, TimeUnit.SECONDS );
+
+		final ExecutorService executor = Executors.newFixedThreadPool( sessions.size() );
+		for ( int i = 0; i < sessions.size(); i++ )
+		{
+			final Runnable session = sessions.get( i );
+			final long delay = start + startDelays.get( i );
+			executor.execute( () -> {
+				try
+				{
+					Thread.sleep( Math.max( 0, delay - System.currentTimeMillis() ) );
+					session.run();
+				}
+				catch ( InterruptedException e )
+				{
+					Thread.currentThread().interrupt();
+				}
+			} );
+		}
+
+		executor.shutdown();
+		executor.awaitTermination( Long.MAX_VALUE, TimeUnit.MILLISECONDS );
+		scheduler.shutdownNow();
+		httpClient.stop();
+
+		System.out.println( "Final results:" );
+		statistics.report( System.out );
+	}
+
+	/**
+	 * Get the dataset urls from a dataset list provided by JsonDatasetListHandler
+	 */
+	private static List< String > discover( final HttpClient httpClient, final String listUrl ) throws Exception
+	{
+		final String url = listUrl + ( listUrl.contains( "?" ) ? "&" : "?" ) + "offset=0&limit=1000&fields=datasetUrl";
+		final String json = new String( httpClient.GET( url ).getContent(), StandardCharsets.UTF_8 );
+
+		final List< String > datasets = new ArrayList<>();
+		for ( JsonElement ds : new JsonParser().parse( json ).getAsJsonObject().getAsJsonArray( "datasets" ) )
+			datasets.add( ds.getAsJsonObject().get( "datasetUrl" ).getAsString() );
+
+		if ( datasets.isEmpty() )
+			throw new IllegalArgumentException( "No datasets found at " + listUrl );
+
+		return datasets;
+	}
+}
@@ -0,0 +1,84 @@
+package bdv.server.loadtest;
+
+import org.eclipse.jetty.client.HttpClient;
+import org.eclipse.jetty.client.api.ContentResponse;
+import org.eclipse.jetty.client.api.Result;
+import org.eclipse.jetty.client.util.BufferingResponseListener;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Requester sends the requests of the simulated clients and records them in the {@link LoadStatistics}
+ *
+ * Author: HongKee Moon (moon@mpi-cbg.de), Scientific Computing Facility
+ * Organization: MPI-CBG Dresden
+ * Date: October 2026
+ */
+public class Requester
+{
+	private static final long TIMEOUT_SECONDS = 60;
+
+	private static final int MAX_CONTENT_LENGTH = 64 * 1024 * 1024;
+
+	private final HttpClient client;
+
+	private final LoadStatistics statistics;
+
+	public Requester( final HttpClient client, final LoadStatistics statistics )
+	{
+		this.client = client;
+		this.statistics = statistics;
+	}
+
+	/**
+	 * Send the request and wait for the response
+	 * @param url the requested url
+	 * @param type the request type recorded in the statistics
+	 * @return the content or null if the request failed
+	 */
+	public byte[] get( final String url, final String type ) throws InterruptedException
+	{
+		final long start = System.nanoTime();
+		try
+		{
+			final ContentResponse response = client.newRequest( url ).timeout( TIMEOUT_SECONDS, TimeUnit.SECONDS ).send();
+			final boolean failed = response.getStatus() != 200;
+			statistics.record( type, System.nanoTime() - start, response.getContent().length, failed );
+			return failed ? null : response.getContent();
+		}
+		catch ( ExecutionException | TimeoutException e )
+		{
+			statistics.record( type, System.nanoTime() - start, 0, true );
+			return null;
+		}
+	}
+
+	/**
+	 * Send the request without waiting for the response.
+	 * A permit is acquired before sending and released when the response is complete,
+	 * which bounds the number of concurrent requests of a client.
+	 * @param url the requested url
+	 * @param type the request type recorded in the statistics
+	 * @param permits the concurrent requests of the client
+	 */
+	public void getAsync( final String url, final String type, final Semaphore permits ) throws InterruptedException
+	{
+		permits.acquire();
+
+		final long start = System.nanoTime();
+		client.newRequest( url ).timeout( TIMEOUT_SECONDS, TimeUnit.SECONDS ).send( new BufferingResponseListener( MAX_CONTENT_LENGTH )
+		{
+			@Override
+			public void onComplete( final Result result )
+			{
+				final boolean failed = result.isFailed() || result.getResponse().getStatus() != 200;
+				final byte[] content = getContent();
+				statistics.record( type, System.nanoTime() - start, null != content ? content.length : 0, failed );
+				permits.release();
+			}
+		} );
+	}
+}
@@ -0,0 +1,176 @@
+package bdv.server.loadtest;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.Semaphore;
+
+/**
+ * ViewerSession simulates a BigDataViewer client browsing a dataset.
+ *
+ * The session fetches the dataset XML and the "p=init" metadata, then it repeats bursts of cell requests with a think time
+ * in between. A burst loads the cells around the current focus from the coarsest to the finest level, like the viewer
+ * refining its display. Between bursts the user pans, zooms, switches the timepoint or the setup.
+ * All the decisions are drawn from a seeded {@link Random}, so a session is reproducible.
+ *
+ * Author: HongKee Moon (moon@mpi-cbg.de), Scientific Computing Facility
+ * Organization: MPI-CBG Dresden
+ * Date: October 2026
+ */
+public class ViewerSession implements Runnable
+{
+	private final Requester requester;
+
+	private final String datasetUrl;
+
+	private final Random random;
+
+	private final long deadlineMillis;
+
+	private final int fetchers;
+
+	private final long thinkMillis;
+
+	private final Semaphore permits;
+
+	private DatasetLayout layout;
+
+	private int timepoint;
+
+	private int setup;
+
+	/**
+	 * Focus of the view in relative coordinates of the image
+	 */
+	private final double[] focus = new double[ 3 ];
+
+	/**
+	 * Number of cells along x and y loaded around the focus at the finest level
+	 */
+	private int viewCells = 4;
+
+	/**
+	 * @param requester sends the requests
+	 * @param datasetUrl the dataset url ending with "/"
+	 * @param seed the seed of the session
+	 * @param deadlineMillis the time when the session stops
+	 * @param fetchers the maximum number of concurrent cell requests
+	 * @param thinkMillis the mean time between two bursts
+	 */
+	public ViewerSession( final Requester requester, final String datasetUrl, final long seed, final long deadlineMillis, final int fetchers, final long thinkMillis )
+	{
+		this.requester = requester;
+		this.datasetUrl = datasetUrl.endsWith( "/" ) ? datasetUrl : datasetUrl + "/";
+		this.random = new Random( seed );
+		this.deadlineMillis = deadlineMillis;
+		this.fetchers = fetchers;
+		this.thinkMillis = thinkMillis;
+		this.permits = new Semaphore( fetchers );
+	}
+
+	@Override
+	public void run()
+	{
+		try
+		{
+			if ( null == requester.get( datasetUrl, "xml" ) )
+				return;
+
+			final byte[] metadata = requester.get( datasetUrl + "?p=init", "init" );
+			if ( null == metadata )
+				return;
+
+			layout = new DatasetLayout( new String( metadata, StandardCharsets.UTF_8 ) );
+			timepoint = random.nextInt( layout.getNumTimepoints() );
+			setup = layout.getSetups()[ random.nextInt( layout.getSetups().length ) ];
+			for ( int d = 0; d < 3; d++ )
+				focus[ d ] = random.nextDouble();
+
+			while ( System.currentTimeMillis() < deadlineMillis )
+			{
+				burst();
+				Thread.sleep( ( long ) ( -Math.log( 1 - random.nextDouble() ) * thinkMillis ) );
+				move();
+			}
+		}
+		catch ( InterruptedException e )
+		{
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Request the cells around the focus from the coarsest to the finest level and wait for all of them
+	 */
+	private void burst() throws InterruptedException
+	{
+		for ( int level = layout.getNumLevels( setup ) - 1; level >= 0; level-- )
+		{
+			final long[] dims = layout.getDimensions( setup, level );
+			if ( null == dims )
+				continue;
+
+			final int[] cellSize = layout.getCellSize( setup, level );
+			final long[] numCells = new long[ 3 ];
+			final long[] first = new long[ 3 ];
+			final long[] last = new long[ 3 ];
+
+			for ( int d = 0; d < 3; d++ )
+			{
+				numCells[ d ] = ( dims[ d ] + cellSize[ d ] - 1 ) / cellSize[ d ];
+
+				// The view is a slab: viewCells wide in x and y, one cell deep in z
+				final long half = d < 2 ? viewCells / 2 : 0;
+				final long center = Math.min( numCells[ d ] - 1, ( long ) ( focus[ d ] * numCells[ d ] ) );
+				first[ d ] = Math.max( 0, center - half );
+				last[ d ] = Math.min( numCells[ d ] - 1, center + half );
+			}
+
+			for ( long z = first[ 2 ]; z <= last[ 2 ]; z++ )
+				for ( long y = first[ 1 ]; y <= last[ 1 ]; y++ )
+					for ( long x = first[ 0 ]; x <= last[ 0 ]; x++ )
+						requester.getAsync( datasetUrl + "?p=" + cellPath( level, new long[] { x, y, z }, numCells, dims, cellSize ), "cell", permits );
+		}
+
+		// Wait until all the requests of the burst are answered
+		permits.acquire( fetchers );
+		permits.release( fetchers );
+	}
+
+	private String cellPath( final int level, final long[] grid, final long[] numCells, final long[] dims, final int[] cellSize )
+	{
+		final long index = grid[ 0 ] + numCells[ 0 ] * ( grid[ 1 ] + numCells[ 1 ] * grid[ 2 ] );
+		final StringBuilder sb = new StringBuilder( "cell/" ).append( index ).append( '/' ).append( timepoint ).append( '/' ).append( setup ).append( '/' ).append( level );
+
+		final long[] min = new long[ 3 ];
+		for ( int d = 0; d < 3; d++ )
+		{
+			min[ d ] = grid[ d ] * cellSize[ d ];
+			sb.append( '/' ).append( Math.min( cellSize[ d ], dims[ d ] - min[ d ] ) );
+		}
+		for ( int d = 0; d < 3; d++ )
+			sb.append( '/' ).append( min[ d ] );
+
+		return sb.toString();
+	}
+
+	/**
+	 * Change the view between two bursts
+	 */
+	private void move()
+	{
+		final double action = random.nextDouble();
+
+		if ( action < 0.6 )
+		{
+			// Pan and scroll through the stack
+			for ( int d = 0; d < 3; d++ )
+				focus[ d ] = Math.min( 0.999, Math.max( 0, focus[ d ] + ( random.nextDouble() - 0.5 ) * 0.1 ) );
+		}
+		else if ( action < 0.8 )
+			timepoint = ( timepoint + 1 ) % layout.getNumTimepoints();
+		else if ( action < 0.9 )
+			setup = layout.getSetups()[ random.nextInt( layout.getSetups().length ) ];
+		else
+			viewCells = 2 + random.nextInt( 6 );
+	}
+}
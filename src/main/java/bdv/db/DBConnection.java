@@ -1,5 +1,6 @@
 package bdv.db;
 
+import bdv.model.ClusterNode;
 import bdv.model.DataSet;
 import bdv.model.User;
 
@@ -16,6 +17,7 @@ import javax.security.auth.Subject;
 import java.security.Principal;
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -27,6 +29,16 @@ import java.util.Optional;
  */
 public class DBConnection
 {
+	/**
+	 * JDBC url of the catalogue. Several BigDataServer nodes on one host share it with
+	 * "jdbc:h2:./etc/BigDataServer;AUTO_SERVER=TRUE", nodes on different hosts with an H2 TCP server url.
+	 */
+	private static final String URL = System.getProperty( "bdv.db.url", "jdbc:h2:./etc/BigDataServer" );
+
+	private static final String USER = System.getProperty( "bdv.db.user", "sa" );
+
+	private static final String PASSWORD = System.getProperty( "bdv.db.password", "" );
+
 	private Optional< JdbcConnectionPool > cp = Optional.empty();
 	private IdentityService _identityService = new DefaultIdentityService();
 
@@ -62,7 +74,7 @@ public class DBConnection
 		if ( !cp.isPresent() )
 		{
 			cp = Optional.of(
-					JdbcConnectionPool.create( "jdbc:h2:./etc/BigDataServer", "sa", "" )
+					JdbcConnectionPool.create( URL, USER, PASSWORD )
 			);
 		}
 
@@ -1162,8 +1174,9 @@ public class DBConnection
 			{
 				Statement stat = conn.createStatement();
 
-				String sql = String.format( "SELECT ID, NAME, XMLPATH, DESCRIPTION, OWNER_ID, PUBLIC, DATASET.UPDATED_TIME from DATASET "
-						+ "JOIN TAG_DATASET ON DATASET.ID = TAG_DATASET.DATASET_ID where TAG_DATASET.TITLE = '%s'", tag );
+				String sql = String.format( "SELECT DATASET.ID, NAME, XMLPATH, DESCRIPTION, OWNER_ID, PUBLIC, DATASET.UPDATED_TIME from DATASET "
+						+ "JOIN TAG_DATASET ON DATASET.ID = TAG_DATASET.DATASET_ID JOIN TAG ON TAG.ID = TAG_DATASET.TAG_ID "
+						+ "where TAG.TITLE = '%s' and PUBLIC = TRUE", tag );
 
 				ResultSet rs = stat.executeQuery( sql );
 
@@ -1302,6 +1315,100 @@ public class DBConnection
 		close( conn );
 	}
 
+	/**
+	 * Register the node or renew its heartbeat
+	 * @param node the node of this server
+	 */
+	public void updateNode( ClusterNode node )
+	{
+		Connection conn = getConnection();
+		{
+			try
+			{
+				Statement stat = conn.createStatement();
+
+				String sql = String.format( "MERGE INTO NODE ( ID, HTTP_URL, HTTPS_URL, HEARTBEAT ) KEY ( ID ) VALUES('%s', '%s', '%s', CURRENT_TIMESTAMP() )",
+						node.getId(), node.getHttpUrl(), node.getHttpsUrl() );
+
+				stat.executeUpdate( sql );
+
+				stat.close();
+			}
+			catch ( SQLException e )
+			{
+				System.err.println( e.getMessage() );
+			}
+		}
+
+		close( conn );
+	}
+
+	/**
+	 * Remove the node, e.g. when it shuts down
+	 * @param nodeId the node id
+	 */
+	public void removeNode( String nodeId )
+	{
+		Connection conn = getConnection();
+		{
+			try
+			{
+				Statement stat = conn.createStatement();
+
+				stat.executeUpdate( String.format( "DELETE FROM NODE WHERE ID = '%s'", nodeId ) );
+
+				stat.close();
+			}
+			catch ( SQLException e )
+			{
+				System.err.println( e.getMessage() );
+			}
+		}
+
+		close( conn );
+	}
+
+	/**
+	 * Get the nodes with a recent heartbeat
+	 * @param timeoutSeconds the maximum age of the heartbeat
+	 * @return the alive nodes, null if the database cannot be reached
+	 */
+	public ArrayList< ClusterNode > getLiveNodes( int timeoutSeconds )
+	{
+		ArrayList< ClusterNode > list = null;
+
+		Connection conn = getConnection();
+		{
+			try
+			{
+				Statement stat = conn.createStatement();
+
+				String sql = String.format( "SELECT ID, HTTP_URL, HTTPS_URL, HEARTBEAT from NODE where HEARTBEAT > DATEADD( 'SECOND', -%d, CURRENT_TIMESTAMP() )", timeoutSeconds );
+
+				ResultSet rs = stat.executeQuery( sql );
+
+				list = new ArrayList<>();
+				while ( rs.next() )
+				{
+					list.add( new ClusterNode( rs.getString( "ID" ),
+							rs.getString( "HTTP_URL" ),
+							rs.getString( "HTTPS_URL" ),
+							rs.getTimestamp( "HEARTBEAT" ) ) );
+				}
+
+				stat.close();
+			}
+			catch ( SQLException e )
+			{
+				System.err.println( e.getMessage() );
+			}
+		}
+
+		close( conn );
+
+		return list;
+	}
+
 	/**
 	 * Initialize the H2 database at the first time
 	 * All the queries use "IF NOT EXISTS" so that it keeps the original database structure for safety
@@ -1397,6 +1504,9 @@ public class DBConnection
 						+ "    CONSTRAINT ANNOTATION_USER_DATASET_DATASET_ID_fk FOREIGN KEY (DATASET_ID) REFERENCES DATASET (ID)"
 						+ ");" );
 
+				// Bring the schema up to the latest version
+				migrateDatabase( stat );
+
 				stat.close();
 			}
 			catch ( SQLException e )
@@ -1407,4 +1517,124 @@ public class DBConnection
 
 		close( conn );
 	}
+
+	/**
+	 * Schema migrations applied on top of the tables created by {@link #initializeDatabase()}.
+	 * The n-th entry upgrades the schema from version n to version n + 1. New migrations are only
+	 * appended to the end so that existing databases are upgraded step by step.
+	 */
+	private static final String[][] MIGRATIONS = new String[][] {
+			// Version 1: indexes for the predicates used by the dataset listing queries.
+			// H2 indexes foreign key columns implicitly, but other databases do not.
+			// USER_ID lookups on USER_DATASET_PERMISSION are covered by the leading column of its primary key.
+			{
+					"CREATE INDEX IF NOT EXISTS DATASET_OWNER_ID_index ON DATASET (OWNER_ID);",
+					"CREATE INDEX IF NOT EXISTS DATASET_PUBLIC_index ON DATASET (PUBLIC);",
+					"CREATE INDEX IF NOT EXISTS USER_DATASET_PERMISSION_DATASET_ID_index ON USER_DATASET_PERMISSION (DATASET_ID);",
+					"CREATE INDEX IF NOT EXISTS TAG_DATASET_DATASET_ID_index ON TAG_DATASET (DATASET_ID);"
+			},
+			// Version 2: BigDataServer nodes sharing the catalogue in cluster mode, alive while their heartbeat is recent.
+			{
+					"CREATE TABLE IF NOT EXISTS NODE"
+							+ "("
+							+ "  ID VARCHAR PRIMARY KEY NOT NULL,"
+							+ "  HTTP_URL VARCHAR NOT NULL,"
+							+ "  HTTPS_URL VARCHAR NOT NULL,"
+							+ "  HEARTBEAT TIMESTAMP NOT NULL"
+							+ ");"
+			}
+	};
+
+	/**
+	 * Apply all the migrations which are newer than the version stored in SCHEMA_VERSION table
+	 * @param stat the statement used for the migration
+	 */
+	private void migrateDatabase( Statement stat ) throws SQLException
+	{
+		stat.execute( "CREATE TABLE IF NOT EXISTS SCHEMA_VERSION"
+				+ "("
+				+ "  VERSION INT NOT NULL,"
+				+ "  UPDATED_TIME TIMESTAMP NOT NULL"
+				+ ");" );
+
+		int version = 0;
+
+		ResultSet rs = stat.executeQuery( "SELECT MAX(VERSION) from SCHEMA_VERSION" );
+		if ( rs.next() )
+			version = rs.getInt( 1 );
+		rs.close();
+
+		for ( int i = version; i < MIGRATIONS.length; i++ )
+		{
+			for ( String sql : MIGRATIONS[ i ] )
+				stat.execute( sql );
+
+			stat.execute( String.format( "INSERT INTO SCHEMA_VERSION ( VERSION, UPDATED_TIME ) VALUES( %d, CURRENT_TIMESTAMP() )", i + 1 ) );
+
+			System.err.println( "Database schema is migrated to version " + ( i + 1 ) );
+		}
+	}
+
+	/**
+	 * Get the schema version of the current database
+	 * @return the latest applied migration version, 0 if no migration is applied
+	 */
+	public int getSchemaVersion()
+	{
+		int version = 0;
+
+		Connection conn = getConnection();
+		{
+			try
+			{
+				Statement stat = conn.createStatement();
+
+				ResultSet rs = stat.executeQuery( "SELECT MAX(VERSION) from SCHEMA_VERSION" );
+				if ( rs.next() )
+					version = rs.getInt( 1 );
+
+				stat.close();
+			}
+			catch ( SQLException e )
+			{
+				System.err.println( e.getMessage() );
+			}
+		}
+
+		close( conn );
+
+		return version;
+	}
+
+	/**
+	 * Get the names of the indexes of the given table
+	 * @param table the table name in upper case
+	 * @return the index names in upper case as stored by H2
+	 */
+	List< String > getIndexNames( String table )
+	{
+		final List< String > names = new ArrayList<>();
+
+		Connection conn = getConnection();
+		{
+			try
+			{
+				Statement stat = conn.createStatement();
+
+				ResultSet rs = stat.executeQuery( String.format( "SELECT INDEX_NAME from INFORMATION_SCHEMA.INDEXES where TABLE_NAME = '%s'", table ) );
+				while ( rs.next() )
+					names.add( rs.getString( 1 ) );
+
+				stat.close();
+			}
+			catch ( SQLException e )
+			{
+				System.err.println( e.getMessage() );
+			}
+		}
+
+		close( conn );
+
+		return names;
+	}
 }
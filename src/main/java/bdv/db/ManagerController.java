@@ -1,5 +1,6 @@
 package bdv.db;
 
+import bdv.model.ClusterNode;
 import bdv.model.DataSet;
 import bdv.model.User;
 
@@ -81,4 +82,28 @@ public class ManagerController extends UserController
 	{
 		conn.removeDataSet( dsId );
 	}
+
+	/**
+	 * Register the node or renew its heartbeat
+	 * @param node
+	 */
+	public static void updateNode( ClusterNode node )
+	{
+		conn.updateNode( node );
+	}
+
+	public static void removeNode( String nodeId )
+	{
+		conn.removeNode( nodeId );
+	}
+
+	/**
+	 * Get the nodes with a recent heartbeat
+	 * @param timeoutSeconds
+	 * @return the alive nodes, null if the database cannot be reached
+	 */
+	public static List< ClusterNode > getLiveNodes( int timeoutSeconds )
+	{
+		return conn.getLiveNodes( timeoutSeconds );
+	}
 }
@@ -0,0 +1,146 @@
+package bdv.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * LatencyHistogram records latencies in microseconds into log-linear buckets, similar to HdrHistogram.
+ *
+ * Every power of two is split into {@link #SUB_BUCKETS} linear buckets, which keeps the relative error of
+ * a reported quantile below 1 / {@link #SUB_BUCKETS} from one microsecond up to {@link #MAX_VALUE}.
+ * Recording is lock-free and can be called from any number of request threads.
+ *
+ * Author: HongKee Moon (moon@mpi-cbg.de), Scientific Computing Facility
+ * Organization: MPI-CBG Dresden
+ * Date: October 2026
+ */
+public class LatencyHistogram
+{
+	/**
+	 * Number of linear buckets per power of two
+	 */
+	private static final int SUB_BUCKET_BITS = 3;
+
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+	/**
+	 * Largest recorded value in microseconds (about 19 hours), larger values are clamped
+	 */
+	public static final long MAX_VALUE = ( 1L << 36 ) - 1;
+
+	private static final int BUCKETS = bucketIndex( MAX_VALUE ) + 1;
+
+	private final AtomicLongArray counts = new AtomicLongArray( BUCKETS );
+
+	private final AtomicLong count = new AtomicLong();
+
+	private final AtomicLong sum = new AtomicLong();
+
+	/**
+	 * Record the latency
+	 * @param nanos the latency in nanoseconds
+	 */
+	public void recordNanos( final long nanos )
+	{
+		record( nanos / 1000 );
+	}
+
+	/**
+	 * Record the latency
+	 * @param micros the latency in microseconds
+	 */
+	public void record( final long micros )
+	{
+		final long value = Math.min( Math.max( micros, 0 ), MAX_VALUE );
+
+		counts.incrementAndGet( bucketIndex( value ) );
+		count.incrementAndGet();
+		sum.addAndGet( value );
+	}
+
+	/**
+	 * @return the number of the recorded latencies
+	 */
+	public long getCount()
+	{
+		return count.get();
+	}
+
+	/**
+	 * @return the sum of the recorded latencies in microseconds
+	 */
+	public long getSum()
+	{
+		return sum.get();
+	}
+
+	/**
+	 * Get the number of the recorded latencies less than or equal to the given value.
+	 * The value is rounded down to the nearest bucket boundary.
+	 * @param micros the upper bound in microseconds
+	 * @return the cumulative count
+	 */
+	public long getCountAtOrBelow( final long micros )
+	{
+		long c = 0;
+		for ( int i = 0; i < BUCKETS && upperBound( i ) <= micros + 1; i++ )
+			c += counts.get( i );
+		return c;
+	}
+
+	/**
+	 * Get the quantile of the recorded latencies
+	 * @param quantile the quantile between 0 and 1
+	 * @return the upper bound of the bucket holding the quantile in microseconds, 0 if nothing is recorded
+	 */
+	public long getValueAtQuantile( final double quantile )
+	{
+		final long[] snapshot = new long[ BUCKETS ];
+		long total = 0;
+		for ( int i = 0; i < BUCKETS; i++ )
+		{
+			snapshot[ i ] = counts.get( i );
+			total += snapshot[ i ];
+		}
+
+		if ( total == 0 )
+			return 0;
+
+		final long rank = Math.max( 1, ( long ) Math.ceil( quantile * total ) );
+		long c = 0;
+		for ( int i = 0; i < BUCKETS; i++ )
+		{
+			c += snapshot[ i ];
+			if ( c >= rank )
+				return upperBound( i ) - 1;
+		}
+		return MAX_VALUE;
+	}
+
+	/**
+	 * Bucket of the value: values below {@link #SUB_BUCKETS} have their own bucket,
+	 * larger values are split by their highest bit and the following {@link #SUB_BUCKET_BITS} bits.
+	 */
+	static int bucketIndex( final long value )
+	{
+		if ( value < SUB_BUCKETS )
+			return ( int ) value;
+
+		final int exponent = 63 - Long.numberOfLeadingZeros( value );
+		final int subBucket = ( int ) ( value >> ( exponent - SUB_BUCKET_BITS ) ) & ( SUB_BUCKETS - 1 );
+		return ( exponent - SUB_BUCKET_BITS + 1 ) * SUB_BUCKETS + subBucket;
+	}
+
+	/**
+	 * Exclusive upper bound of the bucket
+	 */
+	static long upperBound( final int index )
+	{
+		if ( index < SUB_BUCKETS )
+			return index + 1;
+
+		final int exponent = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+		final int subBucket = index % SUB_BUCKETS;
+		return ( long ) ( SUB_BUCKETS + subBucket + 1 ) << ( exponent - SUB_BUCKET_BITS );
+	}
+}
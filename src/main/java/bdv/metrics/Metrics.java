@@ -0,0 +1,150 @@
+package bdv.metrics;
+
+import java.io.PrintWriter;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Supplier;
+
+/**
+ * Metrics holds the telemetry of this server and writes it in the Prometheus text exposition format.
+ *
+ * Request latencies are kept in a {@link LatencyHistogram} per endpoint class, dataset and cache outcome.
+ * Other components can register gauges and counters which are evaluated when the metrics are written.
+ *
+ * Author: HongKee Moon (moon@mpi-cbg.de), Scientific Computing Facility
+ * Organization: MPI-CBG Dresden
+ * Date: October 2026
+ */
+public class Metrics
+{
+	public static final String LATENCY_NAME = "bdv_request_duration_seconds";
+
+	public static final String CACHE_HIT = "hit";
+
+	public static final String CACHE_MISS = "miss";
+
+	/**
+	 * Bucket bounds exposed for the latency histograms in seconds
+	 */
+	private static final double[] BUCKET_BOUNDS = new double[] {
+			0.0005, 0.001, 0.0025, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10 };
+
+	private static final double[] QUANTILES = new double[] { 0.5, 0.9, 0.99, 0.999 };
+
+	/**
+	 * Rendered label set to the latency histogram, sorted for a stable output
+	 */
+	private static final ConcurrentSkipListMap< String, LatencyHistogram > latencies = new ConcurrentSkipListMap<>();
+
+	private static final ConcurrentSkipListMap< String, Gauge > gauges = new ConcurrentSkipListMap<>();
+
+	/**
+	 * Get the latency histogram of the endpoint
+	 * @param endpoint the endpoint class, e.g. "cell", "init", "xml", "settings", "png", "list" or "manager"
+	 * @param dataset the dataset index, empty if it does not apply
+	 * @param cache {@link #CACHE_HIT}, {@link #CACHE_MISS} or empty if it does not apply
+	 * @return the shared {@link LatencyHistogram}
+	 */
+	public static LatencyHistogram getLatency( final String endpoint, final String dataset, final String cache )
+	{
+		final String labels = "endpoint=\"" + escape( endpoint ) + "\",dataset=\"" + escape( dataset ) + "\",cache=\"" + escape( cache ) + "\"";
+		return latencies.computeIfAbsent( labels, k -> new LatencyHistogram() );
+	}
+
+	/**
+	 * Record the latency of a request started at the given time
+	 * @param startNanos the {@link System#nanoTime()} when the request was started
+	 */
+	public static void recordLatency( final String endpoint, final String dataset, final String cache, final long startNanos )
+	{
+		getLatency( endpoint, dataset, cache ).recordNanos( System.nanoTime() - startNanos );
+	}
+
+	/**
+	 * Register a gauge evaluated whenever the metrics are written. A gauge registered with the same name replaces the former one.
+	 * @param name the metric name
+	 * @param help the description of the metric
+	 * @param value provides the current value
+	 */
+	public static void registerGauge( final String name, final String help, final Supplier< Number > value )
+	{
+		gauges.put( name, new Gauge( "gauge", help, value ) );
+	}
+
+	/**
+	 * Register a monotonically increasing counter evaluated whenever the metrics are written, see {@link #registerGauge(String, String, Supplier)}
+	 */
+	public static void registerCounter( final String name, final String help, final Supplier< Number > value )
+	{
+		gauges.put( name, new Gauge( "counter", help, value ) );
+	}
+
+	/**
+	 * Write all the metrics in the Prometheus text exposition format
+	 * @param out the writer
+	 */
+	public static void write( final PrintWriter out )
+	{
+		out.println( "# HELP " + LATENCY_NAME + " Request latency by endpoint, dataset and cache outcome." );
+		out.println( "# TYPE " + LATENCY_NAME + " histogram" );
+
+		for ( Map.Entry< String, LatencyHistogram > entry : latencies.entrySet() )
+		{
+			final String labels = entry.getKey();
+			final LatencyHistogram histogram = entry.getValue();
+
+			for ( double bound : BUCKET_BOUNDS )
+				out.println( LATENCY_NAME + "_bucket{" + labels + ",le=\"" + format( bound ) + "\"} " + histogram.getCountAtOrBelow( ( long ) ( bound * 1e6 ) ) );
+
+			out.println( LATENCY_NAME + "_bucket{" + labels + ",le=\"+Inf\"} " + histogram.getCount() );
+			out.println( LATENCY_NAME + "_sum{" + labels + "} " + format( histogram.getSum() / 1e6 ) );
+			out.println( LATENCY_NAME + "_count{" + labels + "} " + histogram.getCount() );
+		}
+
+		// Prometheus cannot derive exact quantiles from the coarse buckets above, so they are exposed separately
+		final String quantileName = "bdv_request_duration_quantile_seconds";
+		out.println( "# HELP " + quantileName + " Request latency quantiles by endpoint, dataset and cache outcome." );
+		out.println( "# TYPE " + quantileName + " gauge" );
+
+		for ( Map.Entry< String, LatencyHistogram > entry : latencies.entrySet() )
+			for ( double quantile : QUANTILES )
+				out.println( quantileName + "{" + entry.getKey() + ",quantile=\"" + format( quantile ) + "\"} " + format( entry.getValue().getValueAtQuantile( quantile ) / 1e6 ) );
+
+		for ( Map.Entry< String, Gauge > entry : gauges.entrySet() )
+		{
+			out.println( "# HELP " + entry.getKey() + " " + entry.getValue().help );
+			out.println( "# TYPE " + entry.getKey() + " " + entry.getValue().type );
+			out.println( entry.getKey() + " " + entry.getValue().value.get() );
+		}
+	}
+
+	private static String format( final double value )
+	{
+		return String.format( Locale.ROOT, "%s", value );
+	}
+
+	private static String escape( final String value )
+	{
+		if ( null == value )
+			return "";
+
+		return value.replace( "\\", "\\\\" ).replace( "\"", "\\\"" ).replace( "\n", "\\n" );
+	}
+
+	private static class Gauge
+	{
+		final String type;
+
+		final String help;
+
+		final Supplier< Number > value;
+
+		Gauge( final String type, final String help, final Supplier< Number > value )
+		{
+			this.type = type;
+			this.help = help;
+			this.value = value;
+		}
+	}
+}
@@ -0,0 +1,160 @@
+package bdv.metrics;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * TrafficCounter is a lock-free ring of counters for a fixed time resolution.
+ *
+ * Every slot covers {@code slotMillis} and holds one counter per metric. A slot is stamped with the epoch
+ * (time / slotMillis) it belongs to and is cleared by the first writer of a newer epoch,
+ * so stale slots never have to be swept. Concurrent writers may lose an increment while a slot is being
+ * recycled, which is acceptable for traffic statistics.
+ *
+ * Author: HongKee Moon (moon@mpi-cbg.de), Scientific Computing Facility
+ * Organization: MPI-CBG Dresden
+ * Date: October 2026
+ */
+public class TrafficCounter
+{
+	private final long slotMillis;
+
+	private final int slots;
+
+	private final int metrics;
+
+	/**
+	 * Epoch of each slot
+	 */
+	private final AtomicLongArray epochs;
+
+	/**
+	 * Counter of the metric m in the slot i at i * metrics + m
+	 */
+	private final AtomicLongArray values;
+
+	/**
+	 * @param slotMillis the time resolution in milliseconds
+	 * @param slots the number of kept slots
+	 * @param metrics the number of counters per slot
+	 */
+	public TrafficCounter( final long slotMillis, final int slots, final int metrics )
+	{
+		this.slotMillis = slotMillis;
+		this.slots = slots;
+		this.metrics = metrics;
+		this.epochs = new AtomicLongArray( slots );
+		this.values = new AtomicLongArray( slots * metrics );
+	}
+
+	public long getSlotMillis()
+	{
+		return slotMillis;
+	}
+
+	public int getSlots()
+	{
+		return slots;
+	}
+
+	/**
+	 * Add the delta to the metric counter of the slot holding the given time
+	 * @param now the time in milliseconds
+	 * @param metric the metric index
+	 * @param delta the value to be added
+	 */
+	public void add( final long now, final int metric, final long delta )
+	{
+		final int slot = slot( now / slotMillis );
+		if ( slot >= 0 )
+			values.addAndGet( slot * metrics + metric, delta );
+	}
+
+	/**
+	 * Get the metric counters of the latest completed slots, the slot of the given time is not included
+	 * @param now the time in milliseconds
+	 * @param metric the metric index
+	 * @param count the number of slots, at most {@link #getSlots()} - 1
+	 * @return the counters from the oldest to the newest slot, 0 for slots without traffic
+	 */
+	public long[] get( final long now, final int metric, final int count )
+	{
+		final int n = Math.max( 0, Math.min( count, slots - 1 ) );
+		final long current = now / slotMillis;
+		final long[] result = new long[ n ];
+
+		for ( int k = 0; k < n; k++ )
+		{
+			final long epoch = current - n + k;
+			final int i = ( int ) Math.floorMod( epoch, ( long ) slots );
+			if ( epochs.get( i ) == epoch )
+				result[ k ] = values.get( i * metrics + metric );
+		}
+
+		return result;
+	}
+
+	/**
+	 * Get the slot of the epoch, recycling it if it still holds an older epoch
+	 * @return the slot index or -1 if the slot was already taken by a newer epoch
+	 */
+	private int slot( final long epoch )
+	{
+		final int i = ( int ) Math.floorMod( epoch, ( long ) slots );
+
+		long e = epochs.get( i );
+		while ( e < epoch )
+		{
+			if ( epochs.compareAndSet( i, e, epoch ) )
+			{
+				for ( int m = 0; m < metrics; m++ )
+					values.set( i * metrics + m, 0 );
+				return i;
+			}
+			e = epochs.get( i );
+		}
+
+		return e == epoch ? i : -1;
+	}
+
+	void write( final DataOutput out ) throws IOException
+	{
+		out.writeLong( slotMillis );
+		out.writeInt( slots );
+		out.writeInt( metrics );
+
+		for ( int i = 0; i < slots; i++ )
+		{
+			out.writeLong( epochs.get( i ) );
+			for ( int m = 0; m < metrics; m++ )
+				out.writeLong( values.get( i * metrics + m ) );
+		}
+	}
+
+	/**
+	 * Read the counters written by {@link #write(DataOutput)}, the stored slots are skipped if the layout differs
+	 */
+	void read( final DataInput in ) throws IOException
+	{
+		final long storedSlotMillis = in.readLong();
+		final int storedSlots = in.readInt();
+		final int storedMetrics = in.readInt();
+		final boolean matching = storedSlotMillis == slotMillis && storedSlots == slots && storedMetrics == metrics;
+
+		for ( int i = 0; i < storedSlots; i++ )
+		{
+			final long epoch = in.readLong();
+			if ( matching )
+				epochs.set( i, epoch );
+
+			for ( int m = 0; m < storedMetrics; m++ )
+			{
+				final long value = in.readLong();
+				if ( matching )
+					values.set( i * metrics + m, value );
+			}
+		}
+	}
+}
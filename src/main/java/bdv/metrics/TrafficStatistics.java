@@ -0,0 +1,283 @@
+package bdv.metrics;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * TrafficStatistics keeps the sent bytes, the number of requests and the number of cells served by this server.
+ *
+ * The whole server traffic is kept at every resolution in {@link #RESOLUTIONS}, the traffic per dataset and per user
+ * only at the hourly and the daily resolution. The counters can be stored in a gzip file so that the history
+ * survives a restart.
+ *
+ * Author: HongKee Moon (moon@mpi-cbg.de), Scientific Computing Facility
+ * Organization: MPI-CBG Dresden
+ * Date: October 2026
+ */
+public class TrafficStatistics
+{
+	public static final int BYTES = 0;
+
+	public static final int REQUESTS = 1;
+
+	public static final int CELLS = 2;
+
+	private static final int METRICS = 3;
+
+	public static final long SECOND = 1000;
+
+	public static final long MINUTE = 60 * SECOND;
+
+	public static final long HOUR = 60 * MINUTE;
+
+	public static final long DAY = 24 * HOUR;
+
+	/**
+	 * Kept resolutions: 5 seconds for an hour, 1 minute for a day, 1 hour for a month and 1 day for a year
+	 */
+	public static final long[] RESOLUTIONS = new long[] { 5 * SECOND, MINUTE, HOUR, DAY };
+
+	private static final int[] SLOTS = new int[] { 12 * 60 + 1, 24 * 60 + 1, 30 * 24 + 1, 365 + 1 };
+
+	/**
+	 * Index of the first resolution kept per dataset and per user
+	 */
+	private static final int COARSE = 2;
+
+	/**
+	 * Request attribute holding the index of the served dataset
+	 */
+	public static final String DATASET_ATTRIBUTE = "bdv.dataset";
+
+	/**
+	 * Request attribute holding the number of served cells
+	 */
+	public static final String CELLS_ATTRIBUTE = "bdv.cells";
+
+	private static final int FILE_VERSION = 1;
+
+	private static final TrafficStatistics instance = new TrafficStatistics();
+
+	private final TrafficCounter[] total = createCounters( 0 );
+
+	private final ConcurrentHashMap< String, TrafficCounter[] > dataSets = new ConcurrentHashMap<>();
+
+	private final ConcurrentHashMap< String, TrafficCounter[] > users = new ConcurrentHashMap<>();
+
+	private ScheduledExecutorService saver;
+
+	public static TrafficStatistics getInstance()
+	{
+		return instance;
+	}
+
+	/**
+	 * Record a served request
+	 * @param dataSet the dataset index or null if the request did not serve a dataset
+	 * @param user the user id or null for anonymous requests
+	 * @param bytes the sent bytes
+	 * @param cells the number of served cells
+	 */
+	public void record( final String dataSet, final String user, final long bytes, final long cells )
+	{
+		final long now = System.currentTimeMillis();
+
+		add( total, now, bytes, cells );
+
+		if ( null != dataSet )
+			add( dataSets.computeIfAbsent( dataSet, k -> createCounters( COARSE ) ), now, bytes, cells );
+
+		if ( null != user )
+			add( users.computeIfAbsent( user, k -> createCounters( COARSE ) ), now, bytes, cells );
+	}
+
+	/**
+	 * Get the latest completed slots of the whole server traffic
+	 * @param resolution one of {@link #RESOLUTIONS}
+	 * @param metric {@link #BYTES}, {@link #REQUESTS} or {@link #CELLS}
+	 * @param count the number of slots
+	 * @return the counters from the oldest to the newest slot or null if the resolution is not kept
+	 */
+	public long[] getTotal( final long resolution, final int metric, final int count )
+	{
+		return get( total, resolution, metric, count );
+	}
+
+	/**
+	 * Get the latest completed slots of the dataset traffic, see {@link #getTotal(long, int, int)}
+	 */
+	public long[] getDataSet( final String dataSet, final long resolution, final int metric, final int count )
+	{
+		return get( dataSets.getOrDefault( dataSet, createCounters( COARSE ) ), resolution, metric, count );
+	}
+
+	/**
+	 * Get the latest completed slots of the user traffic, see {@link #getTotal(long, int, int)}
+	 */
+	public long[] getUser( final String user, final long resolution, final int metric, final int count )
+	{
+		return get( users.getOrDefault( user, createCounters( COARSE ) ), resolution, metric, count );
+	}
+
+	private static void add( final TrafficCounter[] counters, final long now, final long bytes, final long cells )
+	{
+		for ( TrafficCounter counter : counters )
+		{
+			counter.add( now, BYTES, bytes );
+			counter.add( now, REQUESTS, 1 );
+			if ( cells > 0 )
+				counter.add( now, CELLS, cells );
+		}
+	}
+
+	private static long[] get( final TrafficCounter[] counters, final long resolution, final int metric, final int count )
+	{
+		for ( TrafficCounter counter : counters )
+			if ( counter.getSlotMillis() == resolution )
+				return counter.get( System.currentTimeMillis(), metric, count );
+
+		return null;
+	}
+
+	private static TrafficCounter[] createCounters( final int first )
+	{
+		final TrafficCounter[] counters = new TrafficCounter[ RESOLUTIONS.length - first ];
+		for ( int i = first; i < RESOLUTIONS.length; i++ )
+			counters[ i - first ] = new TrafficCounter( RESOLUTIONS[ i ], SLOTS[ i ], METRICS );
+		return counters;
+	}
+
+	/**
+	 * Load the stored statistics if the file exists, then store them every 5 minutes and on shutdown
+	 * @param file the gzip file
+	 */
+	public synchronized void persist( final Path file )
+	{
+		if ( null != saver )
+			return;
+
+		if ( Files.exists( file ) )
+		{
+			try
+			{
+				load( file );
+			}
+			catch ( IOException e )
+			{
+				System.err.println( "Failed to load the traffic statistics from " + file + ": " + e.getMessage() );
+			}
+		}
+
+		saver = Executors.newSingleThreadScheduledExecutor( r -> {
+			final Thread t = new Thread( r, "TrafficStatisticsSaver" );
+			t.setDaemon( true );
+			return t;
+		} );
+		saver.scheduleWithFixedDelay( () -> saveQuietly( file ), 5, 5, TimeUnit.MINUTES );
+
+		Runtime.getRuntime().addShutdownHook( new Thread( () -> saveQuietly( file ) ) );
+	}
+
+	private void saveQuietly( final Path file )
+	{
+		try
+		{
+			save( file );
+		}
+		catch ( IOException e )
+		{
+			System.err.println( "Failed to store the traffic statistics to " + file + ": " + e.getMessage() );
+		}
+	}
+
+	/**
+	 * Store the statistics, the file is replaced atomically
+	 * @param file the gzip file
+	 */
+	public void save( final Path file ) throws IOException
+	{
+		if ( null != file.getParent() )
+			Files.createDirectories( file.getParent() );
+
+		final Path tmp = file.resolveSibling( file.getFileName() + ".tmp" );
+
+		try ( DataOutputStream out = new DataOutputStream( new BufferedOutputStream( new GZIPOutputStream( Files.newOutputStream( tmp ) ) ) ) )
+		{
+			out.writeInt( FILE_VERSION );
+
+			writeCounters( total, out );
+			writeMap( dataSets, out );
+			writeMap( users, out );
+		}
+
+		Files.move( tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE );
+	}
+
+	/**
+	 * Load the statistics stored by {@link #save(Path)}
+	 * @param file the gzip file
+	 */
+	public void load( final Path file ) throws IOException
+	{
+		try ( DataInputStream in = new DataInputStream( new BufferedInputStream( new GZIPInputStream( Files.newInputStream( file ) ) ) ) )
+		{
+			if ( in.readInt() != FILE_VERSION )
+				throw new IOException( "Unknown file version" );
+
+			readCounters( total, in );
+			readMap( dataSets, in );
+			readMap( users, in );
+		}
+	}
+
+	private static void writeMap( final Map< String, TrafficCounter[] > map, final DataOutputStream out ) throws IOException
+	{
+		// Take a snapshot since new keys can be added while writing
+		final Map< String, TrafficCounter[] > snapshot = new HashMap<>( map );
+
+		out.writeInt( snapshot.size() );
+		for ( Map.Entry< String, TrafficCounter[] > entry : snapshot.entrySet() )
+		{
+			out.writeUTF( entry.getKey() );
+			writeCounters( entry.getValue(), out );
+		}
+	}
+
+	private static void readMap( final Map< String, TrafficCounter[] > map, final DataInputStream in ) throws IOException
+	{
+		final int size = in.readInt();
+		for ( int i = 0; i < size; i++ )
+			readCounters( map.computeIfAbsent( in.readUTF(), k -> createCounters( COARSE ) ), in );
+	}
+
+	private static void writeCounters( final TrafficCounter[] counters, final DataOutputStream out ) throws IOException
+	{
+		out.writeInt( counters.length );
+		for ( TrafficCounter counter : counters )
+			counter.write( out );
+	}
+
+	private static void readCounters( final TrafficCounter[] counters, final DataInputStream in ) throws IOException
+	{
+		final int length = in.readInt();
+		if ( length != counters.length )
+			throw new IOException( "Unexpected number of resolutions: " + length );
+
+		for ( TrafficCounter counter : counters )
+			counter.read( in );
+	}
+}
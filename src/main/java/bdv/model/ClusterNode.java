@@ -0,0 +1,60 @@
+package bdv.model;
+
+import java.sql.Timestamp;
+
+/**
+ * ClusterNode is a BigDataServer instance sharing the catalogue with other instances in cluster mode
+ *
+ * Author: HongKee Moon (moon@mpi-cbg.de), Scientific Computing Facility
+ * Organization: MPI-CBG Dresden
+ * Date: October 2026
+ */
+public class ClusterNode
+{
+	private final String id;
+
+	private final String httpUrl;
+
+	private final String httpsUrl;
+
+	private java.sql.Timestamp heartbeat;
+
+	public ClusterNode( String id, String httpUrl, String httpsUrl, Timestamp heartbeat )
+	{
+		this.id = id;
+		this.httpUrl = httpUrl;
+		this.httpsUrl = httpsUrl;
+		this.heartbeat = heartbeat;
+	}
+
+	public String getId()
+	{
+		return id;
+	}
+
+	/**
+	 * @return the base url of the public datasets, e.g. "http://host:8080"
+	 */
+	public String getHttpUrl()
+	{
+		return httpUrl;
+	}
+
+	/**
+	 * @return the base url of the private datasets, e.g. "https://host:8443"
+	 */
+	public String getHttpsUrl()
+	{
+		return httpsUrl;
+	}
+
+	public Timestamp getHeartbeat()
+	{
+		return heartbeat;
+	}
+
+	public void setHeartbeat( Timestamp heartbeat )
+	{
+		this.heartbeat = heartbeat;
+	}
+}
@@ -11,6 +11,7 @@ import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
 import java.sql.Timestamp;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.TreeSet;
 
 /**
@@ -295,6 +296,39 @@ public class DataSet
 		sharedUsers.add( userId );
 	}
 
+	/**
+	 * Gets the comparator for sorting datasets by the given field.
+	 * Datasets with the same field value are ordered by their index.
+	 *
+	 * @param field one of "index", "name", "owner", "description", "size" or "updated"
+	 * @return the comparator, or null if the field is not sortable
+	 */
+	public static Comparator< DataSet > getComparator( final String field )
+	{
+		final Comparator< DataSet > byIndex = Comparator.comparingLong( DataSet::getIndex );
+
+		if ( null == field || field.equals( "index" ) )
+			return byIndex;
+
+		final Comparator< String > strings = Comparator.nullsLast( String.CASE_INSENSITIVE_ORDER );
+
+		switch ( field )
+		{
+		case "name":
+			return Comparator.comparing( DataSet::getName, strings ).thenComparing( byIndex );
+		case "owner":
+			return Comparator.comparing( DataSet::getOwner, strings ).thenComparing( byIndex );
+		case "description":
+			return Comparator.comparing( DataSet::getDescription, strings ).thenComparing( byIndex );
+		case "size":
+			return Comparator.comparingLong( DataSet::getSize ).thenComparing( byIndex );
+		case "updated":
+			return Comparator.comparing( DataSet::getUpdatedTime, Comparator.nullsLast( Comparator.< Timestamp >naturalOrder() ) ).thenComparing( byIndex );
+		default:
+			return null;
+		}
+	}
+
 	/**
 	 * Store datasets
 	 * @param list the dataset list
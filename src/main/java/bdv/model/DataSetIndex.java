@@ -0,0 +1,379 @@
+package bdv.model;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+
+/**
+ * DataSetIndex is an in-memory inverted index over the served {@link DataSet}s.
+ *
+ * The name, the description, the tags and the owner of a {@link DataSet} are split into lower case terms.
+ * A query matches a {@link DataSet} when every query term is a prefix of one of its terms.
+ * The index must be updated whenever a served {@link DataSet} is added, changed or removed,
+ * and it notifies its {@link Listener}s about these changes.
+ *
+ * Author: HongKee Moon (moon@mpi-cbg.de), Scientific Computing Facility
+ * Organization: MPI-CBG Dresden
+ * Date: October 2026
+ */
+public class DataSetIndex
+{
+	private static final DataSetIndex instance = new DataSetIndex();
+
+	private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+	private final HashMap< Long, DataSet > dataSets = new HashMap<>();
+
+	/**
+	 * Term to the dataset ids, sorted for the prefix lookup
+	 */
+	private final TreeMap< String, Set< Long > > terms = new TreeMap<>();
+
+	/**
+	 * Exact tag to the dataset ids
+	 */
+	private final HashMap< String, Set< Long > > tags = new HashMap<>();
+
+	/**
+	 * Indexed terms and tags of each dataset, kept for removing the dataset after it was changed
+	 */
+	private final HashMap< Long, Set< String > > termsOf = new HashMap<>();
+
+	private final HashMap< Long, Set< String > > tagsOf = new HashMap<>();
+
+	private final CopyOnWriteArrayList< Listener > listeners = new CopyOnWriteArrayList<>();
+
+	/**
+	 * Listener notified after a dataset is added, changed or removed
+	 */
+	public interface Listener
+	{
+		/**
+		 * @param id the index of the added, changed or removed dataset
+		 */
+		void dataSetChanged( long id );
+	}
+
+	/**
+	 * Get the index of the served datasets
+	 * @return the shared {@link DataSetIndex}
+	 */
+	public static DataSetIndex getInstance()
+	{
+		return instance;
+	}
+
+	/**
+	 * Add the dataset to the index or re-index it if it is already indexed
+	 * @param dataSet the {@link DataSet} to be indexed
+	 */
+	public void add( final DataSet dataSet )
+	{
+		final long id = dataSet.getIndex();
+
+		final Set< String > dataSetTerms = new HashSet<>();
+		tokenize( dataSet.getName(), dataSetTerms );
+		tokenize( dataSet.getDescription(), dataSetTerms );
+		tokenize( dataSet.getOwner(), dataSetTerms );
+		for ( String tag : dataSet.getTags() )
+			tokenize( tag, dataSetTerms );
+
+		final Set< String > dataSetTags = new HashSet<>( dataSet.getTags() );
+
+		lock.writeLock().lock();
+		try
+		{
+			removeEntries( id );
+
+			dataSets.put( id, dataSet );
+			termsOf.put( id, dataSetTerms );
+			tagsOf.put( id, dataSetTags );
+
+			for ( String term : dataSetTerms )
+				terms.computeIfAbsent( term, k -> new HashSet<>() ).add( id );
+
+			for ( String tag : dataSetTags )
+				tags.computeIfAbsent( tag, k -> new HashSet<>() ).add( id );
+		}
+		finally
+		{
+			lock.writeLock().unlock();
+		}
+
+		notifyListeners( id );
+	}
+
+	/**
+	 * Re-index the changed dataset
+	 * @param dataSet the changed {@link DataSet}
+	 */
+	public void update( final DataSet dataSet )
+	{
+		add( dataSet );
+	}
+
+	/**
+	 * Remove the dataset from the index
+	 * @param id the dataset index
+	 */
+	public void remove( final long id )
+	{
+		lock.writeLock().lock();
+		try
+		{
+			removeEntries( id );
+		}
+		finally
+		{
+			lock.writeLock().unlock();
+		}
+
+		notifyListeners( id );
+	}
+
+	public void addListener( final Listener listener )
+	{
+		listeners.add( listener );
+	}
+
+	public void removeListener( final Listener listener )
+	{
+		listeners.remove( listener );
+	}
+
+	private void notifyListeners( final long id )
+	{
+		for ( Listener listener : listeners )
+			listener.dataSetChanged( id );
+	}
+
+	/**
+	 * Get the indexed dataset
+	 * @param id the dataset index
+	 * @return the {@link DataSet} or null if it is not indexed
+	 */
+	public DataSet get( final long id )
+	{
+		lock.readLock().lock();
+		try
+		{
+			return dataSets.get( id );
+		}
+		finally
+		{
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Get the indexed datasets
+	 * @param filter the filter for the datasets to be returned
+	 * @return the datasets accepted by the filter in no particular order
+	 */
+	public List< DataSet > getDataSets( final Predicate< DataSet > filter )
+	{
+		lock.readLock().lock();
+		try
+		{
+			final List< DataSet > list = new ArrayList<>();
+
+			for ( DataSet ds : dataSets.values() )
+				if ( filter.test( ds ) )
+					list.add( ds );
+
+			return list;
+		}
+		finally
+		{
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Get the indexed datasets with the tag from the tag postings
+	 * @param tag the tag to be matched exactly
+	 * @param filter the filter for the datasets to be returned
+	 * @return the datasets with the tag accepted by the filter in no particular order
+	 */
+	public List< DataSet > getDataSets( final String tag, final Predicate< DataSet > filter )
+	{
+		lock.readLock().lock();
+		try
+		{
+			final List< DataSet > list = new ArrayList<>();
+
+			for ( Long id : tags.getOrDefault( tag, Collections.emptySet() ) )
+			{
+				final DataSet ds = dataSets.get( id );
+				if ( filter.test( ds ) )
+					list.add( ds );
+			}
+
+			return list;
+		}
+		finally
+		{
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Search the datasets
+	 * @param query the terms to be matched by prefix, all of them should match. Null or empty matches everything.
+	 * @param tagFilter the tags to be matched exactly. Null or empty matches everything.
+	 * @param allTags true if all the tags should match, false if any of them is enough
+	 * @param visible the filter for the datasets which the requester can access
+	 * @return the matching datasets sorted by their index and the tag counts of them
+	 */
+	public Result search( final String query, final Collection< String > tagFilter, final boolean allTags, final Predicate< DataSet > visible )
+	{
+		final Set< String > queryTerms = new HashSet<>();
+		tokenize( query, queryTerms );
+
+		lock.readLock().lock();
+		try
+		{
+			Set< Long > ids = null;
+
+			for ( String term : queryTerms )
+			{
+				final Set< Long > matches = new HashSet<>();
+				for ( Set< Long > termIds : prefixMap( term ).values() )
+					matches.addAll( termIds );
+
+				ids = intersect( ids, matches );
+			}
+
+			if ( null != tagFilter && !tagFilter.isEmpty() )
+			{
+				Set< Long > tagIds = null;
+
+				for ( String tag : tagFilter )
+				{
+					final Set< Long > matches = tags.getOrDefault( tag, Collections.emptySet() );
+
+					if ( allTags )
+						tagIds = intersect( tagIds, matches );
+					else
+					{
+						if ( null == tagIds )
+							tagIds = new HashSet<>();
+						tagIds.addAll( matches );
+					}
+				}
+
+				ids = intersect( ids, tagIds );
+			}
+
+			final List< DataSet > list = new ArrayList<>();
+			final TreeMap< String, Integer > facets = new TreeMap<>();
+
+			for ( Long id : null == ids ? dataSets.keySet() : ids )
+			{
+				final DataSet ds = dataSets.get( id );
+
+				if ( visible.test( ds ) )
+				{
+					list.add( ds );
+
+					for ( String tag : tagsOf.get( id ) )
+						facets.merge( tag, 1, Integer::sum );
+				}
+			}
+
+			list.sort( DataSet.getComparator( "index" ) );
+
+			return new Result( list, facets );
+		}
+		finally
+		{
+			lock.readLock().unlock();
+		}
+	}
+
+	private SortedMap< String, Set< Long > > prefixMap( final String prefix )
+	{
+		return terms.subMap( prefix, prefix + Character.MAX_VALUE );
+	}
+
+	private void removeEntries( final long id )
+	{
+		if ( null == dataSets.remove( id ) )
+			return;
+
+		for ( String term : termsOf.remove( id ) )
+			removeId( terms, term, id );
+
+		for ( String tag : tagsOf.remove( id ) )
+			removeId( tags, tag, id );
+	}
+
+	private static void removeId( final Map< String, Set< Long > > map, final String key, final long id )
+	{
+		final Set< Long > ids = map.get( key );
+		if ( null != ids )
+		{
+			ids.remove( id );
+			if ( ids.isEmpty() )
+				map.remove( key );
+		}
+	}
+
+	/**
+	 * Intersect the set with the other, null stands for the set of everything
+	 */
+	private static Set< Long > intersect( final Set< Long > ids, final Set< Long > other )
+	{
+		if ( null == ids )
+			return new HashSet<>( other );
+
+		ids.retainAll( other );
+		return ids;
+	}
+
+	private static void tokenize( final String text, final Set< String > tokens )
+	{
+		if ( null == text )
+			return;
+
+		for ( String token : text.toLowerCase().split( "[^\\p{L}\\p{N}]+" ) )
+			if ( !token.isEmpty() )
+				tokens.add( token );
+	}
+
+	/**
+	 * Search result holding the matching datasets and the number of the matching datasets per tag
+	 */
+	public static class Result
+	{
+		private final List< DataSet > dataSets;
+
+		private final Map< String, Integer > facets;
+
+		Result( final List< DataSet > dataSets, final Map< String, Integer > facets )
+		{
+			this.dataSets = dataSets;
+			this.facets = facets;
+		}
+
+		public List< DataSet > getDataSets()
+		{
+			return dataSets;
+		}
+
+		public Map< String, Integer > getFacets()
+		{
+			return facets;
+		}
+	}
+}
@@ -0,0 +1,182 @@
+package bdv.server;
+
+import bdv.metrics.Metrics;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+
+import javax.servlet.http.HttpServletResponse;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * AdmissionControl bounds the number of cell requests processed at once and sheds the rest with a fast
+ * "503 Service Unavailable" and a Retry-After header, instead of letting them queue up behind each other.
+ *
+ * Cheap requests are preferred: metadata requests (XML, init, settings, thumbnails) are always admitted and coarse-level
+ * cells may use the whole capacity, while fine-level cells only get a share of it and are shed first when the thread pool
+ * runs low on threads.
+ *
+ * Every admitted cell holds a server thread until it is written, so the capacity is derived from the thread pool: its
+ * maximum number of threads less those reserved for the acceptors, the selectors and the metadata requests. A larger
+ * capacity could never be reached, and the fine-level share would never be enforced.
+ *
+ * The thresholds are read from system properties:
+ * <ul>
+ * <li>bdv.server.maxPendingCells: maximum number of cell requests processed at once (default: derived from the thread
+ * pool)</li>
+ * <li>bdv.server.reservedThreads: threads of the pool not used for cells when the capacity is derived (default 24)</li>
+ * <li>bdv.server.fineCellShare: percentage of maxPendingCells available to fine-level cells (default 75)</li>
+ * <li>bdv.server.coarseLevel: first mipmap level which is considered coarse (default 1)</li>
+ * <li>bdv.server.retryAfter: seconds sent in the Retry-After header (default 1)</li>
+ * </ul>
+ *
+ * Author: HongKee Moon (moon@mpi-cbg.de), Scientific Computing Facility
+ * Organization: MPI-CBG Dresden
+ * Date: October 2026
+ */
+public class AdmissionControl
+{
+	private static final int RESERVED_THREADS = Integer.getInteger( "bdv.server.reservedThreads", 24 );
+
+	private static final AdmissionControl instance = new AdmissionControl(
+			Integer.getInteger( "bdv.server.maxPendingCells", 0 ),
+			Integer.getInteger( "bdv.server.fineCellShare", 75 ),
+			Integer.getInteger( "bdv.server.coarseLevel", 1 ),
+			Integer.getInteger( "bdv.server.retryAfter", 1 ) );
+
+	/**
+	 * True if the capacity is derived from the thread pool
+	 */
+	private final boolean derived;
+
+	private final int fineCellShare;
+
+	private volatile int maxPendingCells;
+
+	private volatile int maxPendingFineCells;
+
+	private final int coarseLevel;
+
+	private final String retryAfter;
+
+	private final AtomicInteger pendingCells = new AtomicInteger();
+
+	private final AtomicLong shedFineCells = new AtomicLong();
+
+	private final AtomicLong shedCoarseCells = new AtomicLong();
+
+	private volatile QueuedThreadPool threadPool;
+
+	public static AdmissionControl getInstance()
+	{
+		return instance;
+	}
+
+	/**
+	 * @param maxPendingCells the capacity, 0 to derive it from the thread pool set by {@link #setThreadPool(QueuedThreadPool)}
+	 */
+	AdmissionControl( final int maxPendingCells, final int fineCellShare, final int coarseLevel, final int retryAfterSeconds )
+	{
+		this.derived = maxPendingCells <= 0;
+		this.fineCellShare = fineCellShare;
+		// Until the thread pool is set, the capacity of the default pool of 200 threads
+		setCapacity( derived ? 200 - RESERVED_THREADS : maxPendingCells );
+		this.coarseLevel = coarseLevel;
+		this.retryAfter = Integer.toString( retryAfterSeconds );
+
+		Metrics.registerGauge( "bdv_admission_pending_cells", "Cell requests being processed.", pendingCells::get );
+		Metrics.registerCounter( "bdv_admission_shed_fine_cells_total", "Fine-level cell requests answered with 503.", shedFineCells::get );
+		Metrics.registerCounter( "bdv_admission_shed_coarse_cells_total", "Coarse-level cell requests answered with 503.", shedCoarseCells::get );
+		Metrics.registerGauge( "bdv_threadpool_queue_size", "Jobs waiting for a thread of the server thread pool.", () -> null != threadPool ? threadPool.getQueueSize() : 0 );
+		Metrics.registerGauge( "bdv_threadpool_idle_threads", "Idle threads of the server thread pool.", () -> null != threadPool ? threadPool.getIdleThreads() : 0 );
+	}
+
+	/**
+	 * Create the server thread pool and register it by {@link #setThreadPool(QueuedThreadPool)}.
+	 * The job queue stays unbounded: Jetty closes the connection of a job rejected by a full queue, so the requests are
+	 * shed here with a 503 once they reach a handler.
+	 */
+	public QueuedThreadPool createThreadPool( final int maxThreads, final int minThreads )
+	{
+		final QueuedThreadPool pool = new QueuedThreadPool( maxThreads, minThreads );
+		setThreadPool( pool );
+		return pool;
+	}
+
+	/**
+	 * Set the server thread pool, fine-level cells are shed while it is low on threads
+	 */
+	public void setThreadPool( final QueuedThreadPool threadPool )
+	{
+		this.threadPool = threadPool;
+		if ( derived )
+			setCapacity( threadPool.getMaxThreads() - RESERVED_THREADS );
+	}
+
+	private void setCapacity( final int capacity )
+	{
+		maxPendingCells = Math.max( 1, capacity );
+		maxPendingFineCells = Math.max( 1, maxPendingCells * fineCellShare / 100 );
+	}
+
+	/**
+	 * Try to admit a cell request, {@link #release()} must be called after an admitted request is processed
+	 * @param level the requested mipmap level
+	 * @return true if the request is admitted, false if it should be shed
+	 */
+	public boolean tryAcquireCell( final int level )
+	{
+		final boolean fine = level < coarseLevel;
+		final int limit = fine ? maxPendingFineCells : maxPendingCells;
+
+		if ( fine && null != threadPool && threadPool.isLowOnThreads() )
+		{
+			shedFineCells.incrementAndGet();
+			return false;
+		}
+
+		int pending;
+		do
+		{
+			pending = pendingCells.get();
+			if ( pending >= limit )
+			{
+				( fine ? shedFineCells : shedCoarseCells ).incrementAndGet();
+				return false;
+			}
+		}
+		while ( !pendingCells.compareAndSet( pending, pending + 1 ) );
+
+		return true;
+	}
+
+	/**
+	 * Release an admitted cell request
+	 */
+	public void release()
+	{
+		pendingCells.decrementAndGet();
+	}
+
+	/**
+	 * Answer a shed request with "503 Service Unavailable" and the Retry-After header
+	 */
+	public void reject( final Request baseRequest, final HttpServletResponse response )
+	{
+		response.setStatus( HttpServletResponse.SC_SERVICE_UNAVAILABLE );
+		response.setHeader( "Retry-After", retryAfter );
+		response.setContentLength( 0 );
+		baseRequest.setHandled( true );
+	}
+
+	public int getPendingCells()
+	{
+		return pendingCells.get();
+	}
+
+	public int getMaxPendingCells()
+	{
+		return maxPendingCells;
+	}
+}
@@ -2,6 +2,8 @@ package bdv.server;
 
 import bdv.db.UserController;
 import bdv.model.DataSet;
+import bdv.model.DataSetIndex;
+import bdv.server.jfr.DataSetLifecycleEvent;
 import mpicbg.spim.data.SpimDataException;
 import org.eclipse.jetty.server.Handler;
 import org.eclipse.jetty.server.Request;
@@ -79,6 +81,8 @@ public class BaseContextHandler extends ContextHandler
 				else
 					dataSet.getTags().remove( tagString );
 
+				DataSetIndex.getInstance().update( dataSet );
+
 				break;
 			}
 		}
@@ -90,11 +94,16 @@ public class BaseContextHandler extends ContextHandler
 
 	final CellHandler getCellHandler( DataSet ds, boolean isPublic, String context ) throws IOException
 	{
+		final DataSetLifecycleEvent event = new DataSetLifecycleEvent();
+		event.begin();
+
 		CellHandler ctx = null;
 
 		try
 		{
-			if ( isPublic )
+			if ( ProxyCellHandler.isRemote( ds.getXmlPath() ) )
+				ctx = new ProxyCellHandler( ( isPublic ? PublicCellHandler.baseUrl : PrivateCellHandler.baseUrl ) + context + "/", ds, thumbnailsDirectoryName );
+			else if ( isPublic )
 				ctx = new PublicCellHandler( context + "/", ds, thumbnailsDirectoryName );
 			else
 				ctx = new PrivateCellHandler( context + "/", ds, thumbnailsDirectoryName );
@@ -110,12 +119,18 @@ public class BaseContextHandler extends ContextHandler
 		else
 			privateDatasetHandlers.addHandler( ctx );
 
+		commit( event, ds, DataSetLifecycleEvent.DEPLOY, null != ctx );
+
 		return ctx;
 	}
 
 	final boolean removeCellHandler( long index )
 	{
+		final DataSetLifecycleEvent event = new DataSetLifecycleEvent();
+		event.begin();
+
 		boolean ret = false;
+		DataSet removed = null;
 
 		for ( final Handler handler : server.getChildHandlersByClass( CellHandler.class ) )
 		{
@@ -134,16 +149,34 @@ public class BaseContextHandler extends ContextHandler
 
 				contextHandler.destroy();
 
+				DataSetIndex.getInstance().remove( index );
+
 				if ( contextHandler.getDataSet().isPublic() )
 					publicDatasetHandlers.removeHandler( contextHandler );
 				else
 					privateDatasetHandlers.removeHandler( contextHandler );
 
+				removed = contextHandler.getDataSet();
 				ret = true;
 				break;
 			}
 		}
 
+		if ( ret )
+			commit( event, removed, DataSetLifecycleEvent.UNDEPLOY, true );
+
 		return ret;
 	}
+
+	private static void commit( final DataSetLifecycleEvent event, final DataSet ds, final String action, final boolean succeeded )
+	{
+		if ( event.shouldCommit() )
+		{
+			event.dataSet = ds.getIndex();
+			event.dataSetName = ds.getName();
+			event.action = action;
+			event.succeeded = succeeded;
+			event.commit();
+		}
+	}
 }
@@ -2,8 +2,11 @@ package bdv.server;
 
 import bdv.db.DBConnection;
 import bdv.db.ManagerController;
+import bdv.model.ClusterNode;
 import bdv.model.DataSet;
 import bdv.db.DBLoginService;
+import bdv.metrics.TrafficStatistics;
+import bdv.server.cache.CellAccessHistory;
 import bdv.util.Keystore;
 
 import mpicbg.spim.data.SpimDataException;
@@ -17,7 +20,6 @@ import org.eclipse.jetty.server.handler.*;
 import org.eclipse.jetty.util.log.Log;
 import org.eclipse.jetty.util.security.Constraint;
 import org.eclipse.jetty.util.ssl.SslContextFactory;
-import org.eclipse.jetty.util.thread.QueuedThreadPool;
 
 import java.io.IOException;
 import java.net.InetAddress;
@@ -41,12 +43,31 @@ import java.util.Map;
  *                  per line. Each line is formatted as "NAME &lt;TAB&gt; XML".
  *  -m &lt;SECURE_PORT&gt;Manager context HTTPS port. The manager context is automatically enabled.
  *                  (default: 8443)
+ *  -n &lt;NODE_ID&gt;    Cluster node id. Runs the server as one node of a cluster sharing the
+ *                  database given by -Dbdv.db.url.
  *  -p &lt;PORT&gt;       Listening port.
  *                  (default: 8080)
  *  -s &lt;HOSTNAME&gt;   Hostname of the server.
  *  -t &lt;DIRECTORY&gt;  Directory to store thumbnails. (new temporary directory
  *                  by default.)
  * </pre>
+ * Cell requests, cell loads, thumbnails and dataset changes are reported as Flight Recorder events
+ * (see {@link bdv.server.jfr}), which can be recorded continuously with
+ * {@code -XX:StartFlightRecording=disk=true,maxage=1h,settings=default}.
+ * <p>
+ * A dataset whose XML path is the url of a dataset on another BigDataServer, e.g. "http://central:8080/public/dataset/id/5/",
+ * is served through a caching {@link ProxyCellHandler}.
+ * <p>
+ * In cluster mode the datasets are distributed over the nodes by {@link ClusterHandler}. Several nodes can be run on
+ * one host with different ports, node ids and thumbnail directories, sharing one H2 database in the AUTO_SERVER mode:
+ * <pre>
+ * java -Dbdv.db.url="jdbc:h2:./etc/BigDataServer;AUTO_SERVER=TRUE" bdv.server.BigDataServer -n node1 -p 8080 -m 8443 -t thumbnails1
+ * java -Dbdv.db.url="jdbc:h2:./etc/BigDataServer;AUTO_SERVER=TRUE" bdv.server.BigDataServer -n node2 -p 8081 -m 8444 -t thumbnails2
+ * </pre>
+ * The state a node keeps over restarts is suffixed with its node id, e.g. "etc/traffic-node1.gz", so nodes sharing a
+ * directory keep it apart. The paths can be set by the system properties bdv.traffic.file, bdv.accessHistory.file and
+ * bdv.proxy.cacheDir.
+ *
  * @author Tobias Pietzsch <tobias.pietzsch@gmail.com>
  * @author HongKee Moon <moon@mpi-cbg.de>
  */
@@ -68,7 +89,8 @@ public class BigDataServer
 			hostname = "localhost";
 		}
 		final String thumbnailDirectory = null;
-		return new Parameters( port, sslPort, hostname, new HashMap< String, DataSet >(), thumbnailDirectory );
+		final String nodeId = null;
+		return new Parameters( port, sslPort, hostname, new HashMap< String, DataSet >(), thumbnailDirectory, nodeId );
 	}
 
 	public static void main( final String[] args ) throws Exception
@@ -82,7 +104,7 @@ public class BigDataServer
 		final String thumbnailsDirectoryName = getThumbnailDirectoryPath( params );
 
 		// Threadpool for multiple connections
-		final Server server = new Server( new QueuedThreadPool( 200, 8 ) );
+		final Server server = new Server( AdmissionControl.getInstance().createThreadPool( 200, 8 ) );
 
 		// HTTP Configuration
 		HttpConfiguration httpConfig = new HttpConfiguration();
@@ -123,7 +145,14 @@ public class BigDataServer
 		// Public dataset handlers
 		final HandlerCollection handlers = new HandlerCollection();
 
-		ContextHandlerCollection publicDatasetHandlers = createPublicHandlers( thumbnailsDirectoryName );
+		// In cluster mode the datasets are deployed by the ClusterHandler on their owning node
+		final boolean clusterMode = null != params.getNodeId();
+
+		// Nodes sharing a directory keep their state apart
+		final String nodeSuffix = clusterMode ? "-" + params.getNodeId() : "";
+		ProxyCellHandler.setCacheDirectory( System.getProperty( "bdv.proxy.cacheDir", "etc/proxy-cache" + nodeSuffix ) );
+
+		ContextHandlerCollection publicDatasetHandlers = clusterMode ? new ContextHandlerCollection() : createPublicHandlers( thumbnailsDirectoryName );
 
 		DataSetContextHandler dataSetContextHandler = new DataSetContextHandler( publicDatasetHandlers, "/" + Constants.PUBLIC_DATASET_CONTEXT_NAME, true );
 
@@ -131,11 +160,13 @@ public class BigDataServer
 
 		handlers.addHandler( dataSetContextHandler );
 
-		handlers.addHandler( new JsonDatasetListHandler( server, "/" + Constants.PUBLIC_DATASET_TAG_CONTEXT_NAME ) );
+		handlers.addHandler( new JsonDatasetListHandler( "/" + Constants.PUBLIC_DATASET_TAG_CONTEXT_NAME ) );
+
+		handlers.addHandler( new SearchHandler( "/" + Constants.PUBLIC_DATASET_SEARCH_CONTEXT_NAME ) );
 
 		// Private dataset handlers
 
-		ContextHandlerCollection privateDatasetHandlers = createPrivateHandlers( thumbnailsDirectoryName );
+		ContextHandlerCollection privateDatasetHandlers = clusterMode ? new ContextHandlerCollection() : createPrivateHandlers( thumbnailsDirectoryName );
 
 		dataSetContextHandler = new DataSetContextHandler( privateDatasetHandlers, "/" + Constants.PRIVATE_DATASET_CONTEXT_NAME, false );
 
@@ -143,7 +174,9 @@ public class BigDataServer
 
 		handlers.addHandler( dataSetContextHandler );
 
-		handlers.addHandler( new JsonDatasetListHandler( server, "/" + Constants.PRIVATE_DATASET_TAG_CONTEXT_NAME ) );
+		handlers.addHandler( new JsonDatasetListHandler( "/" + Constants.PRIVATE_DATASET_TAG_CONTEXT_NAME ) );
+
+		handlers.addHandler( new SearchHandler( "/" + Constants.PRIVATE_DATASET_SEARCH_CONTEXT_NAME ) );
 
 		handlers.addHandler( new UserPageHandler( server, publicDatasetHandlers, privateDatasetHandlers, thumbnailsDirectoryName ) );
 
@@ -192,7 +225,29 @@ public class BigDataServer
 			// create StatisticsHandler wrapper and ManagerHandler
 			final StatisticsHandler statHandler = new StatisticsHandler();
 			handlers.addHandler( new ManagerHandler( server, connectorStats, statHandler, publicDatasetHandlers, privateDatasetHandlers, thumbnailsDirectoryName ) );
-			statHandler.setHandler( handlers );
+			handlers.addHandler( new MetricsHandler( "/" + Constants.METRICS_CONTEXT_NAME ) );
+
+			// Traffic per dataset and per user, kept over restarts
+			TrafficStatistics.getInstance().persist( Paths.get( System.getProperty( "bdv.traffic.file", "etc/traffic" + nodeSuffix + ".gz" ) ) );
+
+			// Most requested cells, loaded ahead by the cache warm-up after a restart
+			CellAccessHistory.getInstance().persist( Paths.get( System.getProperty( "bdv.accessHistory.file", "etc/access-history" + nodeSuffix + ".gz" ) ) );
+			final TrafficHandler trafficHandler = new TrafficHandler();
+			if ( clusterMode )
+			{
+				final ClusterNode self = new ClusterNode( params.getNodeId(), PublicCellHandler.baseUrl, PrivateCellHandler.baseUrl, null );
+				final ClusterHandler clusterHandler = new ClusterHandler( server, publicDatasetHandlers, privateDatasetHandlers, thumbnailsDirectoryName, self );
+				handlers.addHandler( clusterHandler );
+
+				final ClusterRedirectHandler redirectHandler = new ClusterRedirectHandler( clusterHandler );
+				redirectHandler.setHandler( handlers );
+				trafficHandler.setHandler( redirectHandler );
+			}
+			else
+			{
+				trafficHandler.setHandler( handlers );
+			}
+			statHandler.setHandler( trafficHandler );
 
 			// For the manager constraint
 			final Constraint constraint = new Constraint();
@@ -206,6 +261,11 @@ public class BigDataServer
 			managerConstraintMapping.setPathSpec( "/" + Constants.MANAGER_CONTEXT_NAME + "/*" );
 			managerConstraintMapping.setConstraint( constraint );
 
+			// The metrics carry the ids and the traffic of the private datasets
+			final ConstraintMapping metricsConstraintMapping = new ConstraintMapping();
+			metricsConstraintMapping.setPathSpec( "/" + Constants.METRICS_CONTEXT_NAME + "/*" );
+			metricsConstraintMapping.setConstraint( constraint );
+
 			final DBLoginService loginService = new DBLoginService( "BigDataServerRealm" );
 			server.addBean( loginService );
 
@@ -224,6 +284,7 @@ public class BigDataServer
 			sh.setLoginService( loginService );
 			sh.setAuthenticator( new BasicAuthenticator() );
 			sh.addConstraintMapping( managerConstraintMapping );
+			sh.addConstraintMapping( metricsConstraintMapping );
 			sh.addConstraintMapping( userConstraintMapping );
 			sh.setHandler( statHandler );
 
@@ -233,7 +294,7 @@ public class BigDataServer
 			handler = handlerList;
 		}
 
-		handlers.addHandler( new IndexPageHandler( server ) );
+		handlers.addHandler( new IndexPageHandler() );
 
 		LOG.info( "Set handler: " + handler );
 		server.setHandler( handler );
@@ -262,13 +323,24 @@ public class BigDataServer
 
 		private final String thumbnailDirectory;
 
+		/**
+		 * cluster node id, null if the server does not run in cluster mode.
+		 */
+		private final String nodeId;
+
 		Parameters( final int port, final int sslPort, final String hostname, final Map< String, DataSet > datasetNameToDataSet, final String thumbnailDirectory )
+		{
+			this( port, sslPort, hostname, datasetNameToDataSet, thumbnailDirectory, null );
+		}
+
+		Parameters( final int port, final int sslPort, final String hostname, final Map< String, DataSet > datasetNameToDataSet, final String thumbnailDirectory, final String nodeId )
 		{
 			this.port = port;
 			this.sslPort = sslPort;
 			this.hostname = hostname;
 			this.datasetNameToDataSet = datasetNameToDataSet;
 			this.thumbnailDirectory = thumbnailDirectory;
+			this.nodeId = nodeId;
 		}
 
 		public int getPort()
@@ -291,6 +363,11 @@ public class BigDataServer
 			return thumbnailDirectory;
 		}
 
+		public String getNodeId()
+		{
+			return nodeId;
+		}
+
 		/**
 		 * Get datasets.
 		 * @return datasets as a map from dataset name to dataset xml path.
@@ -337,6 +414,12 @@ public class BigDataServer
 				.withArgName( "SECURE_PORT" )
 				.create( "m" ) );
 
+		options.addOption( OptionBuilder
+				.withDescription( "Cluster node id. Runs the server as one node of a cluster sharing the database given by -Dbdv.db.url." )
+				.hasArg()
+				.withArgName( "NODE_ID" )
+				.create( "n" ) );
+
 		try
 		{
 			final CommandLineParser parser = new BasicParser();
@@ -362,7 +445,10 @@ public class BigDataServer
 				sslPort = Integer.parseInt( securePortString );
 			}
 
-			return new Parameters( port, sslPort, serverName, datasets, thumbnailDirectory );
+			// Getting cluster node id option
+			final String nodeId = cmd.getOptionValue( "n", defaultParameters.getNodeId() );
+
+			return new Parameters( port, sslPort, serverName, datasets, thumbnailDirectory, nodeId );
 		}
 		catch ( final ParseException | IllegalArgumentException e )
 		{
@@ -413,7 +499,11 @@ public class BigDataServer
 		for ( final DataSet ds : ManagerController.getPrivateDataSets() )
 		{
 			final String context = "/" + Constants.PRIVATE_DATASET_CONTEXT_NAME + "/id/" + ds.getIndex();
-			final PrivateCellHandler ctx = new PrivateCellHandler( context + "/", ds, thumbnailsDirectoryName );
+			final CellHandler ctx = ProxyCellHandler.isRemote( ds.getXmlPath() ) ?
+					ProxyCellHandler.tryCreate( PrivateCellHandler.baseUrl + context + "/", ds, thumbnailsDirectoryName ) :
+					new PrivateCellHandler( context + "/", ds, thumbnailsDirectoryName );
+			if ( null == ctx )
+				continue;
 			ctx.setContextPath( context );
 			handlers.addHandler( ctx );
 		}
@@ -428,7 +518,11 @@ public class BigDataServer
 		for ( final DataSet ds : ManagerController.getPublicDataSets() )
 		{
 			final String context = "/" + Constants.PUBLIC_DATASET_CONTEXT_NAME + "/id/" + ds.getIndex();
-			final PublicCellHandler ctx = new PublicCellHandler( context + "/", ds, thumbnailsDirectoryName );
+			final CellHandler ctx = ProxyCellHandler.isRemote( ds.getXmlPath() ) ?
+					ProxyCellHandler.tryCreate( PublicCellHandler.baseUrl + context + "/", ds, thumbnailsDirectoryName ) :
+					new PublicCellHandler( context + "/", ds, thumbnailsDirectoryName );
+			if ( null == ctx )
+				continue;
 			ctx.setContextPath( context );
 			handlers.addHandler( ctx );
 		}
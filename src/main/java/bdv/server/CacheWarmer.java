@@ -0,0 +1,186 @@
+package bdv.server;
+
+import bdv.img.cache.VolatileGlobalCellCache;
+import bdv.metrics.Metrics;
+import bdv.server.cache.CellAccessHistory;
+import org.eclipse.jetty.util.log.Log;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * CacheWarmer loads the cells of a dataset into the cache when its {@link CellHandler} is started or activated, so
+ * the first users after a restart or a redeploy do not pay the HDF5 reads of every coarse cell.
+ *
+ * The warm-up loads all cells of the coarsest levels, then the most requested cells of the {@link CellAccessHistory}.
+ * The datasets are warmed up one after another by a single background thread, and a cell is only loaded while the
+ * {@link PriorityGate} is idle, so the warm-up never delays the requests of the users.
+ *
+ * The warm-up is configured by system properties:
+ * <ul>
+ * <li>bdv.warmup.levels: coarsest levels loaded completely (default 2)</li>
+ * <li>bdv.warmup.cells: most requested cells loaded from the history (default 1000)</li>
+ * <li>bdv.warmup.time: time budget per dataset in seconds (default 60)</li>
+ * <li>bdv.warmup.bytes: byte budget per dataset in MB (default 512)</li>
+ * </ul>
+ *
+ * Author: HongKee Moon (moon@mpi-cbg.de), Scientific Computing Facility
+ * Organization: MPI-CBG Dresden
+ * Date: October 2026
+ */
+public class CacheWarmer
+{
+	private static final org.eclipse.jetty.util.log.Logger LOG = Log.getLogger( CacheWarmer.class );
+
+	/**
+	 * Wait between the checks of the {@link PriorityGate} while it is busy
+	 */
+	private static final long IDLE_POLL_MILLIS = 20;
+
+	private static final CacheWarmer instance = new CacheWarmer(
+			Integer.getInteger( "bdv.warmup.levels", 2 ),
+			Integer.getInteger( "bdv.warmup.cells", 1000 ),
+			Long.getLong( "bdv.warmup.time", 60 ),
+			Long.getLong( "bdv.warmup.bytes", 512 ) );
+
+	private final int levels;
+
+	private final int historyCells;
+
+	private final long timeNanos;
+
+	private final long maxBytes;
+
+	/**
+	 * Handlers submitted and not yet started warming up
+	 */
+	private final Set< CellHandler > pending = ConcurrentHashMap.newKeySet();
+
+	private final AtomicLong warmedCells = new AtomicLong();
+
+	private final AtomicLong warmedBytes = new AtomicLong();
+
+	private final ExecutorService executor = Executors.newSingleThreadExecutor( r -> {
+		final Thread t = new Thread( r, "CacheWarmer" );
+		t.setDaemon( true );
+		return t;
+	} );
+
+	public static CacheWarmer getInstance()
+	{
+		return instance;
+	}
+
+	CacheWarmer( final int levels, final int historyCells, final long seconds, final long megaBytes )
+	{
+		this.levels = levels;
+		this.historyCells = historyCells;
+		this.timeNanos = TimeUnit.SECONDS.toNanos( seconds );
+		this.maxBytes = megaBytes << 20;
+
+		Metrics.registerCounter( "bdv_warmup_cells_total", "Cells loaded by the cache warm-up.", warmedCells::get );
+		Metrics.registerCounter( "bdv_warmup_bytes_total", "Bytes loaded by the cache warm-up.", warmedBytes::get );
+	}
+
+	/**
+	 * Warm up the cache of the handler in the background, unless it is waiting for its warm-up already
+	 */
+	public void submit( final CellHandler handler )
+	{
+		if ( ( levels > 0 || historyCells > 0 ) && pending.add( handler ) )
+			executor.submit( () -> warmUp( handler ) );
+	}
+
+	private void warmUp( final CellHandler handler )
+	{
+		pending.remove( handler );
+
+		final long start = System.nanoTime();
+		final long dataSet = handler.getDataSet().getIndex();
+		final PriorityGate gate = PriorityGate.getInstance();
+
+		long bytes = 0;
+		int loaded = 0;
+
+		try
+		{
+			for ( final CellRequest cell : getCells( handler ) )
+			{
+				if ( bytes >= maxBytes || System.nanoTime() - start > timeNanos || !handler.isActive() || !handler.isStarted() )
+					break;
+
+				boolean acquired;
+				while ( !( acquired = gate.tryAcquireIdle() ) && System.nanoTime() - start <= timeNanos )
+					Thread.sleep( IDLE_POLL_MILLIS );
+				if ( !acquired )
+					break;
+
+				final long cellBytes;
+				try
+				{
+					cellBytes = handler.warmUp( cell );
+				}
+				finally
+				{
+					gate.release();
+				}
+
+				if ( cellBytes > 0 )
+				{
+					bytes += cellBytes;
+					loaded++;
+					warmedCells.incrementAndGet();
+					warmedBytes.addAndGet( cellBytes );
+				}
+			}
+		}
+		catch ( final InterruptedException e )
+		{
+			Thread.currentThread().interrupt();
+		}
+		catch ( final RuntimeException e )
+		{
+			// The image loader was closed by a deactivation in the meantime
+			LOG.warn( "Cache warm-up of dataset " + dataSet + " stopped: " + e );
+		}
+
+		LOG.info( "Cache warm-up of dataset " + dataSet + " loaded " + loaded + " cells (" + bytes + " bytes) in "
+				+ TimeUnit.NANOSECONDS.toMillis( System.nanoTime() - start ) + " ms" );
+	}
+
+	/**
+	 * The cells of the coarsest levels, then the most requested cells not among them
+	 */
+	private List< CellRequest > getCells( final CellHandler handler )
+	{
+		final List< CellRequest > cells = new ArrayList<>();
+		final Set< VolatileGlobalCellCache.Key > keys = new HashSet<>();
+
+		for ( final CellRequest cell : handler.getCoarseCells( levels ) )
+			if ( keys.add( cell.getKey() ) )
+				cells.add( cell );
+
+		for ( final String recorded : CellAccessHistory.getInstance().getTopCells( handler.getDataSet().getIndex(), historyCells ) )
+		{
+			try
+			{
+				final CellRequest cell = CellRequest.parse( "cell/" + recorded );
+				if ( keys.add( cell.getKey() ) )
+					cells.add( cell );
+			}
+			catch ( final RuntimeException e )
+			{
+				// Not a cell of the current dataset layout
+			}
+		}
+
+		return cells;
+	}
+}
@@ -0,0 +1,110 @@
+package bdv.server;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * CellDelta encodes a cell as the difference to the same cell at another timepoint, requested with the parameter
+ * "delta={timepoint}" of a cell request by a client holding the cell of that timepoint. Consecutive timepoints of
+ * time-lapse datasets are highly correlated, so the differences are small and compress well.
+ *
+ * For every uint16 pixel, the difference d = (value - reference) mod 65536 is taken as a signed short and zigzag
+ * encoded, z = (d &lt;&lt; 1) ^ (d &gt;&gt; 15), so small negative differences become small numbers as well. The high
+ * bytes of all z are followed by their low bytes, and the result is compressed as a zlib stream (RFC 1950). A delta
+ * response carries the reference timepoint in the header "X-Cell-Delta", a response without it is the full cell.
+ *
+ * Author: HongKee Moon (moon@mpi-cbg.de), Scientific Computing Facility
+ * Organization: MPI-CBG Dresden
+ * Date: October 2026
+ */
+public class CellDelta
+{
+	/**
+	 * @param reference the big-endian uint16 pixels of the cell at the reference timepoint
+	 * @param cell the big-endian uint16 pixels of the cell
+	 * @return the compressed delta
+	 */
+	public static byte[] encode( final byte[] reference, final byte[] cell )
+	{
+		final int numPixels = cell.length / 2;
+		final byte[] planes = new byte[ 2 * numPixels ];
+		for ( int i = 0; i < numPixels; i++ )
+		{
+			final short d = ( short ) ( getValue( cell, i ) - getValue( reference, i ) );
+			final int z = ( ( d << 1 ) ^ ( d >> 15 ) ) & 0xffff;
+			planes[ i ] = ( byte ) ( z >>> 8 );
+			planes[ numPixels + i ] = ( byte ) z;
+		}
+
+		final Deflater deflater = new Deflater( Deflater.BEST_SPEED );
+		try
+		{
+			deflater.setInput( planes );
+			deflater.finish();
+			final ByteArrayOutputStream out = new ByteArrayOutputStream( planes.length / 4 + 64 );
+			final byte[] buffer = new byte[ 64 * 1024 ];
+			while ( !deflater.finished() )
+				out.write( buffer, 0, deflater.deflate( buffer ) );
+			return out.toByteArray();
+		}
+		finally
+		{
+			deflater.end();
+		}
+	}
+
+	/**
+	 * Apply a delta, as a client does
+	 * @param reference the big-endian uint16 pixels of the cell at the reference timepoint
+	 * @param delta the compressed delta
+	 * @return the big-endian uint16 pixels of the cell
+	 * @throws IOException if the delta is corrupt or does not fit the reference
+	 */
+	public static byte[] decode( final byte[] reference, final byte[] delta ) throws IOException
+	{
+		final int numPixels = reference.length / 2;
+		final byte[] planes = new byte[ 2 * numPixels ];
+		final Inflater inflater = new Inflater();
+		try
+		{
+			inflater.setInput( delta );
+			int n = 0;
+			while ( n < planes.length && !inflater.finished() )
+			{
+				final int read = inflater.inflate( planes, n, planes.length - n );
+				if ( read == 0 && ( inflater.needsInput() || inflater.needsDictionary() ) )
+					break;
+				n += read;
+			}
+			if ( n != planes.length || !inflater.finished() )
+				throw new IOException( "Delta does not fit the reference cell" );
+		}
+		catch ( final DataFormatException e )
+		{
+			throw new IOException( e );
+		}
+		finally
+		{
+			inflater.end();
+		}
+
+		final byte[] cell = new byte[ 2 * numPixels ];
+		for ( int i = 0; i < numPixels; i++ )
+		{
+			final int z = ( ( planes[ i ] & 0xff ) << 8 ) | ( planes[ numPixels + i ] & 0xff );
+			final int d = ( z >>> 1 ) ^ -( z & 1 );
+			final int value = getValue( reference, i ) + d;
+			cell[ 2 * i ] = ( byte ) ( value >>> 8 );
+			cell[ 2 * i + 1 ] = ( byte ) value;
+		}
+		return cell;
+	}
+
+	private static int getValue( final byte[] uint16, final int i )
+	{
+		return ( ( uint16[ 2 * i ] & 0xff ) << 8 ) | ( uint16[ 2 * i + 1 ] & 0xff );
+	}
+}
@@ -0,0 +1,195 @@
+package bdv.server;
+
+import org.jdom2.Document;
+import org.jdom2.Element;
+import org.jdom2.JDOMException;
+import org.jdom2.filter.Filters;
+import org.jdom2.input.SAXBuilder;
+
+import bdv.server.store.DataType;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * CellEncoding is a lossy delivery mode of the cells, requested with the "enc" parameter of a cell request for
+ * interactive browsing over slow links. The uint16 pixels of the cell are sent as
+ * <ul>
+ * <li>enc=display: 8 bits linear over the display range of the setup in the settings.xml of the dataset, or over the
+ * range of the cell if the dataset has no settings</li>
+ * <li>enc=minmax: 8 bits linear over the range of the cell</li>
+ * <li>enc=bits{n}: the n most significant bits (1..15), packed most significant bit first</li>
+ * </ul>
+ * An 8-bit pixel q of the first two modes stands for the value min + q * (max - min) / 255, where min and max are sent
+ * in the response headers "X-Cell-Min" and "X-Cell-Max". These modes quantize the values of the {@link DataType} of the
+ * setup, e.g. float32 values in 0..1, while the "bits" mode takes the bits of the uint16 pixels sent without "enc".
+ * A cell request without "enc" is answered without loss.
+ *
+ * Author: HongKee Moon (moon@mpi-cbg.de), Scientific Computing Facility
+ * Organization: MPI-CBG Dresden
+ * Date: October 2026
+ */
+public class CellEncoding
+{
+	/**
+	 * Values of the "enc" parameter, listed in the "encodings" of the metadata JSON
+	 */
+	public static final List< String > NAMES = Collections.unmodifiableList( Arrays.asList( "display", "minmax", "bits{n}" ) );
+
+	private final String name;
+
+	/**
+	 * Bits per pixel of the "bits" mode, 8 otherwise
+	 */
+	private final int bits;
+
+	private CellEncoding( final String name, final int bits )
+	{
+		this.name = name;
+		this.bits = bits;
+	}
+
+	/**
+	 * @param enc the "enc" parameter of the request, may be null
+	 * @return the encoding, null if the cell is requested without loss
+	 * @throws IllegalArgumentException if the encoding is unknown
+	 */
+	public static CellEncoding fromParameter( final String enc )
+	{
+		if ( null == enc )
+			return null;
+
+		if ( enc.equals( "display" ) || enc.equals( "minmax" ) )
+			return new CellEncoding( enc, 8 );
+
+		if ( enc.startsWith( "bits" ) )
+		{
+			try
+			{
+				final int bits = Integer.parseInt( enc.substring( "bits".length() ) );
+				if ( bits >= 1 && bits <= 15 )
+					return new CellEncoding( "bits", bits );
+			}
+			catch ( final NumberFormatException e )
+			{
+				// Reported below
+			}
+		}
+		throw new IllegalArgumentException( "Unknown cell encoding " + enc );
+	}
+
+	/**
+	 * Encode the cell and set the headers of the encoding
+	 * @param pixels the big-endian pixels of the cell
+	 * @param dataType the type of the pixels
+	 * @param displayRange the display range of the setup, null if the dataset has no settings
+	 * @return the encoded cell
+	 */
+	public byte[] encode( final byte[] pixels, final DataType dataType, final int numPixels, final double[] displayRange, final HttpServletResponse response )
+	{
+		if ( name.equals( "bits" ) )
+		{
+			final byte[] uint16 = dataType.toUint16( pixels, numPixels );
+			final int[] values = new int[ numPixels ];
+			for ( int i = 0; i < numPixels; i++ )
+				values[ i ] = ( ( uint16[ 2 * i ] & 0xff ) << 8 ) | ( uint16[ 2 * i + 1 ] & 0xff );
+			return pack( values, bits );
+		}
+
+		// Quantized from the native values, which the conversion to uint16 would round and clamp
+		final double[] values = new double[ numPixels ];
+		for ( int i = 0; i < numPixels; i++ )
+			values[ i ] = dataType.getValue( pixels, i );
+
+		final double[] range = name.equals( "display" ) && null != displayRange ? displayRange : getRange( values );
+		response.setHeader( "X-Cell-Min", Double.toString( range[ 0 ] ) );
+		response.setHeader( "X-Cell-Max", Double.toString( range[ 1 ] ) );
+		return quantize( values, range[ 0 ], range[ 1 ] );
+	}
+
+	/**
+	 * @return the min and max of the values, 0 and 0 if there are none
+	 */
+	static double[] getRange( final double[] values )
+	{
+		double min = Double.POSITIVE_INFINITY;
+		double max = Double.NEGATIVE_INFINITY;
+		for ( final double value : values )
+		{
+			// NaN pixels, e.g. outside of the sample of a float32 dataset, are ignored
+			if ( value < min )
+				min = value;
+			if ( value > max )
+				max = value;
+		}
+		return min <= max ? new double[] { min, max } : new double[] { 0, 0 };
+	}
+
+	/**
+	 * Quantize the values linearly to 8 bits, values outside of the range are clamped and NaN becomes 0
+	 */
+	static byte[] quantize( final double[] values, final double min, final double max )
+	{
+		final byte[] bytes = new byte[ values.length ];
+		if ( max <= min )
+			return bytes;
+
+		for ( int i = 0; i < values.length; i++ )
+			bytes[ i ] = ( byte ) Math.max( 0, Math.min( 255, Math.round( ( values[ i ] - min ) * 255 / ( max - min ) ) ) );
+		return bytes;
+	}
+
+	/**
+	 * Pack the most significant bits of the values, most significant bit first
+	 */
+	static byte[] pack( final int[] values, final int bits )
+	{
+		final byte[] bytes = new byte[ ( values.length * bits + 7 ) / 8 ];
+		long bitPosition = 0;
+		for ( final int value : values )
+		{
+			final int v = value >>> ( 16 - bits );
+			for ( int b = bits - 1; b >= 0; b--, bitPosition++ )
+				if ( ( v >>> b & 1 ) != 0 )
+					bytes[ ( int ) ( bitPosition >>> 3 ) ] |= 0x80 >>> ( bitPosition & 7 );
+		}
+		return bytes;
+	}
+
+	/**
+	 * Read the display ranges of the setups from a settings.xml
+	 * @param settingsXml the settings, may be null
+	 * @return setup id to its min and max, empty if there are no settings
+	 */
+	public static Map< Integer, double[] > readDisplayRanges( final String settingsXml )
+	{
+		final Map< Integer, double[] > ranges = new HashMap<>();
+		if ( null == settingsXml )
+			return ranges;
+
+		try
+		{
+			final Document doc = new SAXBuilder().build( new StringReader( settingsXml ) );
+			for ( final Element setup : doc.getRootElement().getDescendants( Filters.element( "ConverterSetup" ) ) )
+			{
+				final String id = setup.getChildText( "id" );
+				final String min = setup.getChildText( "min" );
+				final String max = setup.getChildText( "max" );
+				if ( null != id && null != min && null != max )
+					ranges.put( Integer.parseInt( id.trim() ), new double[] { Double.parseDouble( min.trim() ), Double.parseDouble( max.trim() ) } );
+			}
+		}
+		catch ( final JDOMException | IOException | NumberFormatException e )
+		{
+			// Served without display ranges, the cells are quantized over their own range
+			ranges.clear();
+		}
+		return ranges;
+	}
+}
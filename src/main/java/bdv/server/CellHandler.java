@@ -1,6 +1,8 @@
 package bdv.server;
 
+import java.awt.Graphics2D;
 import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.OutputStream;
@@ -9,6 +11,16 @@ import java.io.StringWriter;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
 
 import javax.imageio.ImageIO;
 import javax.servlet.http.HttpServletRequest;
@@ -23,28 +35,50 @@ import org.jdom2.input.SAXBuilder;
 import org.jdom2.output.Format;
 import org.jdom2.output.XMLOutputter;
 
+import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
 import com.google.gson.stream.JsonWriter;
 
 import bdv.BigDataViewer;
 import bdv.cache.CacheHints;
 import bdv.cache.LoadingStrategy;
+import bdv.img.cache.CacheArrayLoader;
 import bdv.img.cache.VolatileCell;
 import bdv.img.cache.VolatileGlobalCellCache;
 import bdv.img.cache.VolatileGlobalCellCache.Key;
 import bdv.img.cache.VolatileGlobalCellCache.VolatileCellLoader;
-import bdv.img.hdf5.Hdf5ImageLoader;
-import bdv.img.hdf5.Hdf5VolatileShortArrayLoader;
-import bdv.img.hdf5.Partition;
+import bdv.img.hdf5.DimsAndExistence;
+import bdv.img.hdf5.MipmapInfo;
+import bdv.img.hdf5.ViewLevelId;
 import bdv.img.remote.AffineTransform3DJsonSerializer;
 import bdv.img.remote.RemoteImageLoader;
 import bdv.img.remote.RemoteImageLoaderMetaData;
+import bdv.metrics.Metrics;
+import bdv.metrics.TrafficStatistics;
 import bdv.model.DataSet;
+import bdv.model.DataSetIndex;
+import bdv.server.cache.DiskCachedArrayLoader;
+import bdv.server.cache.CellAccessHistory;
+import bdv.server.cache.DeltaCache;
+import bdv.server.cache.DiskCellCache;
+import bdv.server.cache.PinnedCells;
+import bdv.server.cache.RenderCache;
+import bdv.server.store.CellStore;
+import bdv.server.store.DataType;
+import bdv.server.store.StoredCell;
+import bdv.server.jfr.CellRequestEvent;
+import bdv.server.jfr.DataSetLifecycleEvent;
+import bdv.server.jfr.ThumbnailEvent;
+import bdv.server.jfr.TimedArrayLoader;
 import bdv.spimdata.SequenceDescriptionMinimal;
 import bdv.spimdata.SpimDataMinimal;
 import bdv.spimdata.XmlIoSpimDataMinimal;
-import bdv.util.ThumbnailGenerator;
 import mpicbg.spim.data.SpimDataException;
+import mpicbg.spim.data.generic.sequence.BasicViewSetup;
+import mpicbg.spim.data.sequence.TimePoint;
 import net.imglib2.img.basictypeaccess.volatiles.array.VolatileShortArray;
 import net.imglib2.realtransform.AffineTransform3D;
 
@@ -52,9 +86,30 @@ public class CellHandler extends ContextHandler
 {
 	private static final org.eclipse.jetty.util.log.Logger LOG = Log.getLogger( CellHandler.class );
 
-	private VolatileGlobalCellCache cache;
+	/**
+	 * Member of the metadata JSON giving the {@link DataType} name of every setup
+	 */
+	public static final String DATA_TYPES = "dataTypes";
+
+	/**
+	 * Member of the metadata JSON listing the {@link CellEncoding}s
+	 */
+	public static final String ENCODINGS = "encodings";
+
+	private volatile VolatileGlobalCellCache cache;
 
-	private final Hdf5VolatileShortArrayLoader loader;
+	private final CacheArrayLoader< VolatileShortArray > loader;
+
+	/**
+	 * Loader of the cache warm-up, which does not pass the {@link PriorityGate} since the warm-up only loads while
+	 * the gate is idle
+	 */
+	private final CacheArrayLoader< VolatileShortArray > warmUpLoader;
+
+	/**
+	 * Cells of the pinned levels, which are never evicted
+	 */
+	private final PinnedCells pinnedCells = new PinnedCells();
 
 	private final CacheHints cacheHints;
 
@@ -76,22 +131,40 @@ public class CellHandler extends ContextHandler
 	 */
 	private final String metadataJson;
 
+	/**
+	 * ETag sent with the metadata, it changes with the files of the store, null if the store has no cheap validator
+	 */
+	private final String etag;
+
 	/**
 	 * Cached dataset.settings XML to be send to clients. May be null if no
 	 * settings file exists for the dataset.
 	 */
 	private final String settingsXmlString;
 
+	/**
+	 * Display ranges of the setups in the settings XML, used by {@link CellEncoding}
+	 */
+	private final Map< Integer, double[] > displayRanges;
+
+	/**
+	 * Number of timepoints declared in the metadata, used to validate the reference timepoint of a delta
+	 */
+	private final int maxNumTimepoints;
+
 	/**
 	 * Full path to thumbnail png.
 	 */
 	private final String thumbnailFilename;
 
-	private boolean active = false;
+	private volatile boolean active = false;
 
 	private final SequenceDescriptionMinimal seq;
 
-	private Hdf5ImageLoader imgLoader;
+	/**
+	 * Storage backend of the dataset, null if it is not served from local files
+	 */
+	private final CellStore store;
 
 	private final String baseUrl;
 
@@ -106,13 +179,11 @@ public class CellHandler extends ContextHandler
 		this.baseUrl = baseUrl;
 		this.dataSet = dataSet;
 
-		final XmlIoSpimDataMinimal io = new XmlIoSpimDataMinimal();
-		final SpimDataMinimal spimData = io.load( dataSet.getXmlPath() );
+		store = CellStore.open( dataSet.getXmlPath() );
+		final SpimDataMinimal spimData = store.getSpimData();
 		seq = spimData.getSequenceDescription();
-		imgLoader = ( Hdf5ImageLoader ) seq.getImgLoader();
 
-		cache = imgLoader.getCacheControl();
-		loader = imgLoader.getShortArrayLoader();
+		cache = store.getCacheControl();
 		cacheHints = new CacheHints( LoadingStrategy.BLOCKING, 0, false );
 
 		// dataSetURL property is used for providing the XML file by replace
@@ -121,21 +192,65 @@ public class CellHandler extends ContextHandler
 		baseFilename = xmlFilename.endsWith( ".xml" ) ? xmlFilename.substring( 0, xmlFilename.length() - ".xml".length() ) : xmlFilename;
 		dataSet.setDatasetUrl( baseUrl );
 
-		datasetXmlString = buildRemoteDatasetXML( io, spimData, baseUrl );
-		metadataJson = buildMetadataJsonString( imgLoader, seq );
+		datasetXmlString = buildRemoteDatasetXML( new XmlIoSpimDataMinimal(), spimData, baseUrl );
+		metadataJson = buildMetadataJsonString( store.getMetaData(), store, seq );
+		maxNumTimepoints = readMaxNumTimepoints( metadataJson );
 		settingsXmlString = buildSettingsXML( baseFilename );
-		thumbnailFilename = createThumbnail( spimData, baseFilename, dataSet.getName(), thumbnailsDirectory );
+		displayRanges = CellEncoding.readDisplayRanges( settingsXmlString );
+		thumbnailFilename = createThumbnail( store, dataSet.getName(), thumbnailsDirectory );
+
+		dataSet.setSize( store.getSize() );
+
+		// Cells found in the disk cache bypass the load scheduling of the store reads
+		final CacheArrayLoader< VolatileShortArray > storeLoader = new TimedArrayLoader<>( store.getShortArrayLoader(), dataSet.getIndex() );
+		final CacheArrayLoader< VolatileShortArray > prioritizedLoader = new PrioritizedArrayLoader<>( storeLoader, PriorityGate.getInstance() );
+		final long fingerprint = store.isDiskCached() ? DiskCellCache.fingerprint( store.getFiles() ) : 0;
+		etag = store.isDiskCached() ? "\"" + Long.toHexString( fingerprint ) + "\"" : null;
+		final DiskCellCache diskCache = DiskCellCache.getInstance();
+		if ( null != diskCache && store.isDiskCached() )
+		{
+			loader = new DiskCachedArrayLoader( prioritizedLoader, diskCache, dataSet.getIndex(), fingerprint );
+			warmUpLoader = new DiskCachedArrayLoader( storeLoader, diskCache, dataSet.getIndex(), fingerprint );
+		}
+		else
+		{
+			loader = prioritizedLoader;
+			warmUpLoader = storeLoader;
+		}
 
-		// Calculate dataset size based on the partitions
-		long size = new File( xmlFilename.replace( ".xml", ".h5" ) ).length();
+		// Pin the coarsest levels fitting into bdv.pin.bytes (MB, default 16), they are loaded by the warm-up
+		pinnedCells.setLevels( chooseLevels( Long.getLong( "bdv.pin.bytes", 16 ) << 20 ) );
 
-		if ( imgLoader.getPartitions().size() > 0 )
-			for ( final Partition partition : imgLoader.getPartitions() )
-			{
-				size += new File( partition.getPath() ).length();
-			}
+		DataSetIndex.getInstance().add( dataSet );
+	}
+
+	/**
+	 * Constructor for subclasses serving a dataset which is not stored locally.
+	 * They provide the metadata and override {@link #provideCell(String[], Request, HttpServletResponse)}.
+	 */
+	protected CellHandler( final String baseUrl, final DataSet dataSet, final String datasetXmlString, final String metadataJson, final String settingsXmlString, final String thumbnailFilename )
+	{
+		active = true;
+		this.baseUrl = baseUrl;
+		this.dataSet = dataSet;
+		this.datasetXmlString = datasetXmlString;
+		this.metadataJson = metadataJson;
+		this.etag = null;
+		this.maxNumTimepoints = readMaxNumTimepoints( metadataJson );
+		this.settingsXmlString = settingsXmlString;
+		this.displayRanges = CellEncoding.readDisplayRanges( settingsXmlString );
+		this.thumbnailFilename = thumbnailFilename;
+
+		seq = null;
+		store = null;
+		loader = null;
+		warmUpLoader = null;
+		cacheHints = null;
+		baseFilename = null;
 
-		dataSet.setSize( size );
+		dataSet.setDatasetUrl( baseUrl );
+
+		DataSetIndex.getInstance().add( dataSet );
 	}
 
 	@Override
@@ -144,79 +259,623 @@ public class CellHandler extends ContextHandler
 		if ( !active )
 			return;
 
-		if ( target.equals( "/settings" ) )
+		final long start = System.nanoTime();
+		String endpoint = null;
+		String cacheOutcome = "";
+
+		request.setAttribute( TrafficStatistics.DATASET_ATTRIBUTE, dataSet.getIndex() );
+
+		try
 		{
-			if ( settingsXmlString != null )
-				respondWithString( baseRequest, response, "application/xml", settingsXmlString );
-			return;
+			if ( target.equals( "/settings" ) )
+			{
+				endpoint = "settings";
+				if ( settingsXmlString != null )
+					respondWithString( baseRequest, response, "application/xml", settingsXmlString );
+				return;
+			}
+
+			if ( target.startsWith( "/json" ) )
+			{
+				endpoint = "json";
+				provideJson( baseRequest, response );
+				return;
+			}
+
+			if ( target.equals( "/png" ) )
+			{
+				endpoint = "png";
+				provideThumbnail( baseRequest, response );
+				return;
+			}
+
+			if ( target.equals( "/render" ) )
+			{
+				endpoint = "render";
+				cacheOutcome = provideRender( baseRequest, request, response ) ? Metrics.CACHE_HIT : Metrics.CACHE_MISS;
+				return;
+			}
+
+			final String cellString = request.getParameter( "p" );
+
+			if ( cellString == null )
+			{
+				endpoint = "xml";
+				respondWithString( baseRequest, response, "application/xml", datasetXmlString );
+				return;
+			}
+
+			final String[] parts = cellString.split( "/" );
+			if ( parts[ 0 ].equals( "cell" ) )
+			{
+				// Malformed cells are answered before a client or admission slot is taken
+				final CellRequest cellRequest;
+				try
+				{
+					cellRequest = CellRequest.parse( parts );
+				}
+				catch ( final NumberFormatException | ArrayIndexOutOfBoundsException e )
+				{
+					response.sendError( HttpServletResponse.SC_BAD_REQUEST, "Malformed cell " + cellString );
+					baseRequest.setHandled( true );
+					return;
+				}
+
+				final FairShareScheduler.Client client = FairShareScheduler.getInstance().getClient( request );
+				final long retryAfter = client.tryAcquire();
+				if ( retryAfter > 0 )
+				{
+					FairShareScheduler.getInstance().reject( baseRequest, response, retryAfter );
+					return;
+				}
+
+				final AdmissionControl admission = AdmissionControl.getInstance();
+				if ( !admission.tryAcquireCell( cellRequest.level ) )
+				{
+					client.release( 0 );
+					admission.reject( baseRequest, response );
+					return;
+				}
+
+				try
+				{
+					endpoint = "cell";
+					request.setAttribute( TrafficStatistics.CELLS_ATTRIBUTE, 1 );
+					cacheOutcome = provideCell( parts, baseRequest, response ) ? Metrics.CACHE_HIT : Metrics.CACHE_MISS;
+					CellAccessHistory.getInstance().record( dataSet.getIndex(), cellString.substring( "cell/".length() ) );
+				}
+				finally
+				{
+					admission.release();
+					client.release( baseRequest.getResponse().getHttpChannel().getBytesWritten() );
+				}
+			}
+			else if ( parts[ 0 ].equals( "init" ) )
+			{
+				endpoint = "init";
+				// Proxies revalidate their cached cells by the ETag
+				if ( null != etag )
+					response.setHeader( "ETag", etag );
+				respondWithString( baseRequest, response, "application/json", metadataJson );
+			}
 		}
+		finally
+		{
+			if ( null != endpoint )
+				Metrics.recordLatency( endpoint, Long.toString( dataSet.getIndex() ), cacheOutcome, start );
+		}
+	}
 
-		if ( target.startsWith( "/json" ) )
+	/**
+	 * Send the requested cell as big-endian pixels of the {@link DataType} of its setup if the request has the parameter
+	 * "type=native", otherwise as big-endian uint16. With an "enc" parameter, the pixels are sent in the lossy
+	 * {@link CellEncoding}, with a "delta" parameter as {@link CellDelta} of the uint16 pixels.
+	 *
+	 * A cell which is neither cached nor pinned is sent as stored if the {@link CellStore} keeps it as one chunk of
+	 * these pixels, compressed with a content coding accepted by the client. It is neither decompressed nor cached
+	 * then.
+	 * @return true if the cell was found in the cache, false if it had to be loaded
+	 */
+	protected boolean provideCell( final String[] parts, final Request baseRequest, final HttpServletResponse response ) throws IOException
+	{
+		final CellRequestEvent event = new CellRequestEvent();
+		event.begin();
+
+		final CellRequest cellRequest = CellRequest.parse( parts );
+		final CellEncoding encoding;
+		final int reference;
+		try
 		{
-			provideJson( baseRequest, response );
-			return;
+			encoding = CellEncoding.fromParameter( baseRequest.getParameter( "enc" ) );
+			reference = getDeltaReference( baseRequest, cellRequest, encoding );
+		}
+		catch ( final IllegalArgumentException e )
+		{
+			response.sendError( HttpServletResponse.SC_BAD_REQUEST, e.getMessage() );
+			baseRequest.setHandled( true );
+			return false;
 		}
 
-		if ( target.equals( "/png" ) )
+		if ( reference >= 0 )
 		{
-			provideThumbnail( baseRequest, response );
-			return;
+			final String deltaKey = getDeltaKey( cellRequest, reference );
+			byte[] delta = DeltaCache.getInstance().get( dataSet.getIndex(), deltaKey );
+			final boolean hit = null != delta;
+			if ( null == delta )
+			{
+				delta = CellDelta.encode( getUint16Cell( cellRequest.withTimepoint( reference ) ), getUint16Cell( cellRequest ) );
+				DeltaCache.getInstance().put( dataSet.getIndex(), deltaKey, delta );
+			}
+			writeDelta( baseRequest, response, reference, delta );
+			return hit;
 		}
 
-		final String cellString = request.getParameter( "p" );
+		final Key key = cellRequest.getKey();
+		final DataType dataType = null == store ? DataType.UINT16 : store.getDataType( cellRequest.setup );
+		final boolean nativeType = null == encoding && ( dataType == DataType.UINT16 || "native".equals( baseRequest.getParameter( "type" ) ) );
+		byte[] buf = pinnedCells.get( cellRequest.level, key );
+		boolean hit = buf != null;
+		StoredCell stored = null;
+		if ( buf == null )
+		{
+			VolatileCell< ? > cell = cache.getLoadingVolatileCache().getIfPresent( key, cacheHints );
+			hit = cell != null;
+			if ( cell == null && nativeType && null != store && !pinnedCells.isPinned( cellRequest.level ) )
+				stored = store.readStoredCell( cellRequest.timepoint, cellRequest.setup, cellRequest.level, cellRequest.cellDims, cellRequest.cellMin, getAcceptedCodings( baseRequest ) );
 
-		if ( cellString == null )
+			if ( null != stored )
+				buf = stored.bytes;
+			else
+			{
+				if ( cell == null )
+					cell = cache.getLoadingVolatileCache().get( key, cacheHints, new VolatileCellLoader<>( loader, cellRequest.timepoint, cellRequest.setup, cellRequest.level, cellRequest.cellDims, cellRequest.cellMin ) );
+
+				@SuppressWarnings( "unchecked" )
+				final short[] data = ( ( VolatileCell< VolatileShortArray > ) cell ).getData().getCurrentStorageArray();
+				buf = CellRequest.encode( data );
+				pinnedCells.put( cellRequest.level, key, buf );
+				if ( !hit )
+					MemoryGovernor.getInstance().charge( this, data );
+			}
+		}
+
+		MemoryGovernor.getInstance().touch( this );
+
+		final int numPixels = cellRequest.cellDims[ 0 ] * cellRequest.cellDims[ 1 ] * cellRequest.cellDims[ 2 ];
+		if ( null != encoding )
+			buf = encoding.encode( buf, dataType, numPixels, getDisplayRange( cellRequest.setup ), response );
+		else if ( null == stored && dataType != DataType.UINT16 )
 		{
-			respondWithString( baseRequest, response, "application/xml", datasetXmlString );
-			return;
+			if ( !nativeType )
+				buf = dataType.toUint16( buf, numPixels );
+			else if ( buf.length != numPixels * dataType.getBytesPerPixel() )
+				// The padding of an odd number of uint8 pixels
+				buf = Arrays.copyOf( buf, numPixels * dataType.getBytesPerPixel() );
 		}
 
-		final String[] parts = cellString.split( "/" );
-		if ( parts[ 0 ].equals( "cell" ) )
+		response.setContentType( "application/octet-stream" );
+		response.setHeader( "Vary", "Accept-Encoding" );
+		if ( null != stored && null != stored.contentCoding )
+			response.setHeader( "Content-Encoding", stored.contentCoding );
+		response.setContentLength( buf.length );
+		response.setStatus( HttpServletResponse.SC_OK );
+		baseRequest.setHandled( true );
+		final OutputStream os = response.getOutputStream();
+		os.write( buf );
+		os.close();
+
+		if ( event.shouldCommit() )
+		{
+			event.dataSet = dataSet.getIndex();
+			event.timepoint = cellRequest.timepoint;
+			event.setup = cellRequest.setup;
+			event.level = cellRequest.level;
+			event.cacheHit = hit;
+			event.stored = null != stored;
+			event.bytes = buf.length;
+			event.commit();
+		}
+
+		return hit;
+	}
+
+	/**
+	 * Get the cell from the pinned cells or the cache, load it into the cache on a miss
+	 * @return the big-endian uint16 pixels of the cell
+	 */
+	private byte[] getUint16Cell( final CellRequest cellRequest )
+	{
+		final Key key = cellRequest.getKey();
+		byte[] buf = pinnedCells.get( cellRequest.level, key );
+		if ( null == buf )
 		{
-			final int index = Integer.parseInt( parts[ 1 ] );
-			final int timepoint = Integer.parseInt( parts[ 2 ] );
-			final int setup = Integer.parseInt( parts[ 3 ] );
-			final int level = Integer.parseInt( parts[ 4 ] );
-			final Key key = new VolatileGlobalCellCache.Key( timepoint, setup, level, index );
 			VolatileCell< ? > cell = cache.getLoadingVolatileCache().getIfPresent( key, cacheHints );
+			final boolean hit = cell != null;
 			if ( cell == null )
-			{
-				final int[] cellDims = new int[] {
-						Integer.parseInt( parts[ 5 ] ),
-						Integer.parseInt( parts[ 6 ] ),
-						Integer.parseInt( parts[ 7 ] ) };
-				final long[] cellMin = new long[] {
-						Long.parseLong( parts[ 8 ] ),
-						Long.parseLong( parts[ 9 ] ),
-						Long.parseLong( parts[ 10 ] ) };
-				cell = cache.getLoadingVolatileCache().get( key, cacheHints, new VolatileCellLoader<>( loader, timepoint, setup, level, cellDims, cellMin ) );
-			}
+				cell = cache.getLoadingVolatileCache().get( key, cacheHints, new VolatileCellLoader<>( loader, cellRequest.timepoint, cellRequest.setup, cellRequest.level, cellRequest.cellDims, cellRequest.cellMin ) );
 
 			@SuppressWarnings( "unchecked" )
 			final short[] data = ( ( VolatileCell< VolatileShortArray > ) cell ).getData().getCurrentStorageArray();
-			final byte[] buf = new byte[ 2 * data.length ];
-			for ( int i = 0, j = 0; i < data.length; i++ )
+			buf = CellRequest.encode( data );
+			pinnedCells.put( cellRequest.level, key, buf );
+			if ( !hit )
+				MemoryGovernor.getInstance().charge( this, data );
+		}
+		MemoryGovernor.getInstance().touch( this );
+
+		final int numPixels = cellRequest.cellDims[ 0 ] * cellRequest.cellDims[ 1 ] * cellRequest.cellDims[ 2 ];
+		return store.getDataType( cellRequest.setup ).toUint16( buf, numPixels );
+	}
+
+	/**
+	 * Get the reference timepoint of the "delta" parameter
+	 * @return the timepoint, -1 if the cell is not requested as delta
+	 * @throws IllegalArgumentException if the parameter is invalid, combined with an encoding or with "type=native" of a
+	 * setup which is not uint16, since the deltas are computed from the uint16 pixels
+	 */
+	protected int getDeltaReference( final Request baseRequest, final CellRequest cellRequest, final CellEncoding encoding )
+	{
+		final String delta = baseRequest.getParameter( "delta" );
+		if ( null == delta )
+			return -1;
+
+		final int reference;
+		try
+		{
+			reference = Integer.parseInt( delta );
+		}
+		catch ( final NumberFormatException e )
+		{
+			throw new IllegalArgumentException( "Invalid delta timepoint " + delta );
+		}
+
+		// The metadata declares the timepoints of the datasets served without a sequence, e.g. by a proxy
+		if ( reference < 0 || reference == cellRequest.timepoint || reference >= maxNumTimepoints
+				|| null != seq && !seq.getTimePoints().getTimePoints().containsKey( reference ) )
+			throw new IllegalArgumentException( "Invalid delta timepoint " + delta );
+		if ( null != encoding )
+			throw new IllegalArgumentException( "A delta cannot be combined with an encoding" );
+		if ( null != store && "native".equals( baseRequest.getParameter( "type" ) ) && store.getDataType( cellRequest.setup ) != DataType.UINT16 )
+			throw new IllegalArgumentException( "A delta is sent as uint16, it cannot be combined with type=native" );
+		return reference;
+	}
+
+	/**
+	 * @return the "maxNumTimepoints" of the metadata JSON, {@link Integer#MAX_VALUE} if it is not given
+	 */
+	static int readMaxNumTimepoints( final String metadataJson )
+	{
+		try
+		{
+			final JsonElement max = new JsonParser().parse( metadataJson ).getAsJsonObject().get( "maxNumTimepoints" );
+			return null == max ? Integer.MAX_VALUE : max.getAsInt();
+		}
+		catch ( final RuntimeException e )
+		{
+			return Integer.MAX_VALUE;
+		}
+	}
+
+	/**
+	 * @return the key of the delta of the cell to the reference timepoint in the {@link DeltaCache}
+	 */
+	protected static String getDeltaKey( final CellRequest cellRequest, final int reference )
+	{
+		return cellRequest.timepoint + "/" + cellRequest.setup + "/" + cellRequest.level + "/" + cellRequest.index + "/" + reference;
+	}
+
+	/**
+	 * Send a {@link CellDelta}, the reference timepoint is given in the header "X-Cell-Delta"
+	 */
+	protected static void writeDelta( final Request baseRequest, final HttpServletResponse response, final int reference, final byte[] delta ) throws IOException
+	{
+		response.setContentType( "application/octet-stream" );
+		response.setHeader( "X-Cell-Delta", Integer.toString( reference ) );
+		response.setContentLength( delta.length );
+		response.setStatus( HttpServletResponse.SC_OK );
+		baseRequest.setHandled( true );
+		final OutputStream os = response.getOutputStream();
+		os.write( delta );
+		os.close();
+	}
+
+	/**
+	 * Send a 2D slice of the dataset for a {@link RenderRequest}. The slices are rendered on the {@link RenderPool}
+	 * and kept in the {@link RenderCache}; a full pool is answered with 503 and a dataset which cannot be rendered
+	 * with 501.
+	 * @return true if the image was cached
+	 */
+	private boolean provideRender( final Request baseRequest, final HttpServletRequest request, final HttpServletResponse response ) throws IOException
+	{
+		final RenderRequest renderRequest;
+		try
+		{
+			renderRequest = RenderRequest.parse( request );
+		}
+		catch ( final IllegalArgumentException e )
+		{
+			response.sendError( HttpServletResponse.SC_BAD_REQUEST, e.getMessage() );
+			baseRequest.setHandled( true );
+			return false;
+		}
+
+		final String query = renderRequest.getQuery();
+		byte[] image = RenderCache.getInstance().get( dataSet.getIndex(), query );
+		final boolean hit = null != image;
+		if ( !hit )
+		{
+			try
 			{
-				final short s = data[ i ];
-				buf[ j++ ] = ( byte ) ( ( s >> 8 ) & 0xff );
-				buf[ j++ ] = ( byte ) ( s & 0xff );
+				image = RenderPool.getInstance().render( () -> render( renderRequest ) );
+			}
+			catch ( final RejectedExecutionException | InterruptedException e )
+			{
+				RenderPool.getInstance().reject( baseRequest, response );
+				return false;
+			}
+			catch ( final ExecutionException e )
+			{
+				if ( e.getCause() instanceof IllegalArgumentException )
+				{
+					response.sendError( HttpServletResponse.SC_BAD_REQUEST, e.getCause().getMessage() );
+				}
+				else
+				{
+					LOG.warn( "Could not render " + query + " of dataset \"" + dataSet.getName() + "\"", e.getCause() );
+					response.sendError( HttpServletResponse.SC_INTERNAL_SERVER_ERROR );
+				}
+				baseRequest.setHandled( true );
+				return false;
 			}
 
-			response.setContentType( "application/octet-stream" );
-			response.setContentLength( buf.length );
-			response.setStatus( HttpServletResponse.SC_OK );
-			baseRequest.setHandled( true );
-			final OutputStream os = response.getOutputStream();
-			os.write( buf );
-			os.close();
+			if ( null == image )
+			{
+				response.sendError( HttpServletResponse.SC_NOT_IMPLEMENTED, "The dataset cannot be rendered" );
+				baseRequest.setHandled( true );
+				return false;
+			}
+			RenderCache.getInstance().put( dataSet.getIndex(), query, image );
+		}
+
+		response.setContentType( renderRequest.getContentType() );
+		response.setContentLength( image.length );
+		response.setStatus( HttpServletResponse.SC_OK );
+		baseRequest.setHandled( true );
+		final OutputStream os = response.getOutputStream();
+		os.write( image );
+		os.close();
+		return hit;
+	}
+
+	/**
+	 * Render and encode the slice of a {@link RenderRequest}, called on the {@link RenderPool}
+	 * @return the PNG or JPEG bytes, null if the dataset cannot be rendered
+	 * @throws IllegalArgumentException if the timepoint or a setup does not exist
+	 */
+	protected byte[] render( final RenderRequest renderRequest ) throws IOException
+	{
+		BufferedImage image = store.renderSlice( renderRequest.getViewerTransform(), renderRequest.timepoint, renderRequest.setups, renderRequest.width, renderRequest.height );
+		if ( null == image )
+			return null;
+
+		// JPEG has no alpha channel
+		if ( renderRequest.format.equals( "jpeg" ) && image.getType() != BufferedImage.TYPE_INT_RGB )
+		{
+			final BufferedImage rgb = new BufferedImage( image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_RGB );
+			final Graphics2D g = rgb.createGraphics();
+			g.drawImage( image, 0, 0, null );
+			g.dispose();
+			image = rgb;
+		}
+
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ImageIO.write( image, renderRequest.format, out );
+		return out.toByteArray();
+	}
+
+	/**
+	 * @return the display range of the setup in the settings XML, null if there is none
+	 */
+	protected double[] getDisplayRange( final int setup )
+	{
+		return displayRanges.get( setup );
+	}
+
+	/**
+	 * @return the content codings of the Accept-Encoding header of the request, except those refused with "q=0"
+	 */
+	static Set< String > getAcceptedCodings( final HttpServletRequest request )
+	{
+		final Set< String > codings = new HashSet<>();
+		final String acceptEncoding = request.getHeader( "Accept-Encoding" );
+		if ( null == acceptEncoding )
+			return codings;
+
+		for ( final String element : acceptEncoding.split( "," ) )
+		{
+			final String[] params = element.split( ";" );
+			boolean refused = false;
+			for ( int i = 1; i < params.length; i++ )
+			{
+				final String param = params[ i ].trim();
+				if ( param.startsWith( "q=" ) )
+				{
+					try
+					{
+						refused = Double.parseDouble( param.substring( 2 ) ) <= 0;
+					}
+					catch ( final NumberFormatException e )
+					{
+						refused = true;
+					}
+				}
+			}
+			if ( !refused )
+				codings.add( params[ 0 ].trim().toLowerCase() );
 		}
-		else if ( parts[ 0 ].equals( "init" ) )
+		return codings;
+	}
+
+	@Override
+	protected void doStart() throws Exception
+	{
+		super.doStart();
+
+		if ( null != seq )
 		{
-			respondWithString( baseRequest, response, "application/json", metadataJson );
+			MemoryGovernor.getInstance().register( this );
+			if ( active )
+				CacheWarmer.getInstance().submit( this );
 		}
 	}
 
+	@Override
+	protected void doStop() throws Exception
+	{
+		MemoryGovernor.getInstance().unregister( this );
+		DeltaCache.getInstance().remove( dataSet.getIndex() );
+		RenderCache.getInstance().remove( dataSet.getIndex() );
+		super.doStop();
+	}
+
+	/**
+	 * Get the cells of the coarsest mipmap levels and of the pinned levels of all setups and timepoints, coarsest
+	 * level first
+	 * @param levels the number of coarsest levels
+	 * @return the cells, empty if the dataset is not stored locally
+	 */
+	List< CellRequest > getCoarseCells( final int levels )
+	{
+		final List< CellRequest > cells = new ArrayList<>();
+		if ( null == store || null == cache )
+			return cells;
+
+		int numLevels = 0;
+		for ( final BasicViewSetup setup : seq.getViewSetupsOrdered() )
+			numLevels = Math.max( numLevels, store.getSetupMipmapInfo( setup.getId() ).getNumLevels() );
+
+		for ( int l = 0; l < numLevels; l++ )
+			for ( final TimePoint timepoint : seq.getTimePoints().getTimePointsOrdered() )
+				for ( final BasicViewSetup setup : seq.getViewSetupsOrdered() )
+				{
+					final MipmapInfo mipmapInfo = store.getSetupMipmapInfo( setup.getId() );
+					final int level = mipmapInfo.getNumLevels() - 1 - l;
+					if ( level < 0 || ( l >= levels && !pinnedCells.isPinned( level ) ) )
+						continue;
+
+					final DimsAndExistence dimsAndExistence = store.getDimsAndExistence( new ViewLevelId( timepoint.getId(), setup.getId(), level ) );
+					if ( !dimsAndExistence.exists() )
+						continue;
+
+					final long[] dims = dimsAndExistence.getDimensions();
+					final int[] cellSize = mipmapInfo.getSubdivisions()[ level ];
+					final int[] numCells = new int[ 3 ];
+					for ( int d = 0; d < 3; d++ )
+						numCells[ d ] = ( int ) ( ( dims[ d ] + cellSize[ d ] - 1 ) / cellSize[ d ] );
+
+					// The cell index is the position in the cell grid with x running fastest, as in the RemoteImageLoader
+					int index = 0;
+					for ( int z = 0; z < numCells[ 2 ]; z++ )
+						for ( int y = 0; y < numCells[ 1 ]; y++ )
+							for ( int x = 0; x < numCells[ 0 ]; x++ )
+							{
+								final long[] min = new long[] { ( long ) x * cellSize[ 0 ], ( long ) y * cellSize[ 1 ], ( long ) z * cellSize[ 2 ] };
+								final int[] cellDims = new int[ 3 ];
+								for ( int d = 0; d < 3; d++ )
+									cellDims[ d ] = ( int ) Math.min( cellSize[ d ], dims[ d ] - min[ d ] );
+								cells.add( new CellRequest( index++, timepoint.getId(), setup.getId(), level, cellDims, min ) );
+							}
+				}
+
+		return cells;
+	}
+
+	/**
+	 * Load the cell into the cache unless it is cached already
+	 * @return the bytes of the loaded cell, 0 if it was cached or the handler is inactive
+	 */
+	long warmUp( final CellRequest cellRequest ) throws InterruptedException
+	{
+		final VolatileGlobalCellCache cache = this.cache;
+		if ( null == cache || null == warmUpLoader )
+			return 0;
+
+		final Key key = cellRequest.getKey();
+		if ( null != pinnedCells.get( cellRequest.level, key ) )
+			return 0;
+
+		VolatileCell< ? > cell = cache.getLoadingVolatileCache().getIfPresent( key, cacheHints );
+		final boolean loaded = null == cell;
+		if ( loaded )
+			cell = cache.getLoadingVolatileCache().get( key, cacheHints, new VolatileCellLoader<>( warmUpLoader, cellRequest.timepoint, cellRequest.setup, cellRequest.level, cellRequest.cellDims, cellRequest.cellMin ) );
+
+		@SuppressWarnings( "unchecked" )
+		final short[] data = ( ( VolatileCell< VolatileShortArray > ) cell ).getData().getCurrentStorageArray();
+		if ( pinnedCells.isPinned( cellRequest.level ) )
+			pinnedCells.put( cellRequest.level, key, CellRequest.encode( data ) );
+
+		if ( !loaded )
+			return 0;
+
+		MemoryGovernor.getInstance().charge( this, data );
+		return 2L * data.length;
+	}
+
+	/**
+	 * Remove all loaded cells from the cache, the pinned cells are kept
+	 */
+	public void clearCache()
+	{
+		final VolatileGlobalCellCache cache = this.cache;
+		if ( null != cache )
+			cache.clearCache();
+	}
+
+	/**
+	 * Get the cells kept in memory regardless of the cache eviction
+	 */
+	public PinnedCells getPinnedCells()
+	{
+		return pinnedCells;
+	}
+
+	/**
+	 * Choose the coarsest levels fitting into the byte budget together
+	 * @param maxBytes the byte budget
+	 * @return the levels, empty if the dataset is not stored locally
+	 */
+	private Set< Integer > chooseLevels( final long maxBytes )
+	{
+		final Set< Integer > levels = new HashSet<>();
+		if ( null == store || null == cache || maxBytes <= 0 )
+			return levels;
+
+		// Bytes of every level over all setups and timepoints
+		final Map< Integer, Long > levelBytes = new TreeMap<>( Collections.reverseOrder() );
+		for ( final TimePoint timepoint : seq.getTimePoints().getTimePointsOrdered() )
+			for ( final BasicViewSetup setup : seq.getViewSetupsOrdered() )
+				for ( int level = 0; level < store.getSetupMipmapInfo( setup.getId() ).getNumLevels(); level++ )
+				{
+					final DimsAndExistence dimsAndExistence = store.getDimsAndExistence( new ViewLevelId( timepoint.getId(), setup.getId(), level ) );
+					if ( dimsAndExistence.exists() )
+					{
+						final long[] dims = dimsAndExistence.getDimensions();
+						levelBytes.merge( level, ( long ) store.getDataType( setup.getId() ).getBytesPerPixel() * dims[ 0 ] * dims[ 1 ] * dims[ 2 ], Long::sum );
+					}
+				}
+
+		long bytes = 0;
+		for ( final Map.Entry< Integer, Long > entry : levelBytes.entrySet() )
+		{
+			bytes += entry.getValue();
+			if ( bytes > maxBytes )
+				break;
+			levels.add( entry.getKey() );
+		}
+
+		return levels;
+	}
+
 	private void provideThumbnail( final Request baseRequest, final HttpServletResponse response ) throws IOException
 	{
 		final Path path = Paths.get( thumbnailFilename );
@@ -254,16 +913,23 @@ public class CellHandler extends ContextHandler
 
 	/**
 	 * Create a JSON representation of the {@link RemoteImageLoaderMetaData}
-	 * (image sizes and resolutions) provided by the given
-	 * {@link Hdf5ImageLoader}.
+	 * (image sizes and resolutions) provided by the given {@link CellStore}.
 	 */
-	private static String buildMetadataJsonString( final Hdf5ImageLoader imgLoader, final SequenceDescriptionMinimal seq )
+	private static String buildMetadataJsonString( final Object metadata, final CellStore store, final SequenceDescriptionMinimal seq )
 	{
-		final RemoteImageLoaderMetaData metadata = new RemoteImageLoaderMetaData( imgLoader, seq );
 		final GsonBuilder gsonBuilder = new GsonBuilder();
 		gsonBuilder.registerTypeAdapter( AffineTransform3D.class, new AffineTransform3DJsonSerializer() );
 		gsonBuilder.enableComplexMapKeySerialization();
-		return gsonBuilder.create().toJson( metadata );
+		final Gson gson = gsonBuilder.create();
+
+		// Pixel type of every setup, the clients reading it request the cells with "type=native"
+		final JsonObject json = gson.toJsonTree( metadata ).getAsJsonObject();
+		final JsonObject dataTypes = new JsonObject();
+		for ( final BasicViewSetup setup : seq.getViewSetupsOrdered() )
+			dataTypes.addProperty( Integer.toString( setup.getId() ), store.getDataType( setup.getId() ).getName() );
+		json.add( DATA_TYPES, dataTypes );
+		json.add( ENCODINGS, gson.toJsonTree( CellEncoding.NAMES ) );
+		return gson.toJson( json );
 	}
 
 	/**
@@ -310,24 +976,35 @@ public class CellHandler extends ContextHandler
 	}
 
 	/**
-	 * Create PNG thumbnail file named "{@code <baseFilename>.png}".
+	 * Create PNG thumbnail file named "{@code <datasetName>.png}".
 	 */
-	private static String createThumbnail( final SpimDataMinimal spimData, final String baseFilename, final String datasetName, final String thumbnailsDirectory )
+	private static String createThumbnail( final CellStore store, final String datasetName, final String thumbnailsDirectory )
 	{
 		final String thumbnailFileName = thumbnailsDirectory + "/" + datasetName + ".png";
 		final File thumbnailFile = new File( thumbnailFileName );
 		if ( !thumbnailFile.isFile() ) // do not recreate thumbnail if it already exists
 		{
-			final BufferedImage bi = ThumbnailGenerator.makeThumbnail( spimData, baseFilename, Constants.THUMBNAIL_WIDTH, Constants.THUMBNAIL_HEIGHT );
+			final ThumbnailEvent event = new ThumbnailEvent();
+			event.begin();
+
+			final BufferedImage bi = store.makeThumbnail( Constants.THUMBNAIL_WIDTH, Constants.THUMBNAIL_HEIGHT );
 			try
 			{
 				ImageIO.write( bi, "png", thumbnailFile );
 			}
 			catch ( final IOException e )
 			{
-				LOG.warn( "Could not create thumbnail png for dataset \"" + baseFilename + "\"" );
+				LOG.warn( "Could not create thumbnail png for dataset \"" + datasetName + "\"" );
 				LOG.warn( e.getMessage() );
 			}
+
+			if ( event.shouldCommit() )
+			{
+				event.dataSetName = datasetName;
+				event.width = Constants.THUMBNAIL_WIDTH;
+				event.height = Constants.THUMBNAIL_HEIGHT;
+				event.commit();
+			}
 		}
 		return thumbnailFileName;
 	}
@@ -335,7 +1012,7 @@ public class CellHandler extends ContextHandler
 	/**
 	 * Handle request by sending a UTF-8 string.
 	 */
-	private static void respondWithString( final Request baseRequest, final HttpServletResponse response, final String contentType, final String string ) throws IOException
+	protected static void respondWithString( final Request baseRequest, final HttpServletResponse response, final String contentType, final String string ) throws IOException
 	{
 		response.setContentType( contentType );
 		response.setCharacterEncoding( "UTF-8" );
@@ -370,18 +1047,37 @@ public class CellHandler extends ContextHandler
 	 */
 	public void setActive( final boolean active ) throws SpimDataException
 	{
+		final DataSetLifecycleEvent event = new DataSetLifecycleEvent();
+		event.begin();
+
 		this.active = active;
 
-		if ( active )
+		if ( null == store )
+		{
+			// Not served from local files, there is no store to be opened or closed
+		}
+		else if ( active )
 		{
-			imgLoader = ( Hdf5ImageLoader ) seq.getImgLoader();
-			cache = imgLoader.getCacheControl();
+			cache = store.getCacheControl();
+			CacheWarmer.getInstance().submit( this );
 		}
 		else
 		{
-			imgLoader.close();
-			imgLoader = null;
+			store.close();
 			cache = null;
+			pinnedCells.clear();
+			MemoryGovernor.getInstance().cleared( this );
+			DeltaCache.getInstance().remove( dataSet.getIndex() );
+			RenderCache.getInstance().remove( dataSet.getIndex() );
+		}
+
+		if ( event.shouldCommit() )
+		{
+			event.dataSet = dataSet.getIndex();
+			event.dataSetName = dataSet.getName();
+			event.action = active ? DataSetLifecycleEvent.ACTIVATE : DataSetLifecycleEvent.DEACTIVATE;
+			event.succeeded = true;
+			event.commit();
 		}
 	}
 
@@ -436,7 +1132,9 @@ public class CellHandler extends ContextHandler
 
 	public void handleXml( final Request baseRequest, final HttpServletResponse response ) throws IOException
 	{
+		final long start = System.nanoTime();
 		respondWithString( baseRequest, response, "application/xml", datasetXmlString );
+		Metrics.recordLatency( "xml", Long.toString( dataSet.getIndex() ), "", start );
 	}
 
 	public void handleBdv( final Request baseRequest, final HttpServletResponse response ) throws IOException
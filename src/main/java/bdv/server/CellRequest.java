@@ -0,0 +1,103 @@
+package bdv.server;
+
+import bdv.img.cache.VolatileGlobalCellCache;
+
+/**
+ * Cell requested by a {@link bdv.img.remote.RemoteImageLoader} client in the form
+ * "cell/index/timepoint/setup/level/dimX/dimY/dimZ/minX/minY/minZ"
+ *
+ * Author: HongKee Moon (moon@mpi-cbg.de), Scientific Computing Facility
+ * Organization: MPI-CBG Dresden
+ * Date: October 2026
+ */
+public class CellRequest
+{
+	public final int index;
+
+	public final int timepoint;
+
+	public final int setup;
+
+	public final int level;
+
+	public final int[] cellDims;
+
+	public final long[] cellMin;
+
+	public CellRequest( final int index, final int timepoint, final int setup, final int level, final int[] cellDims, final long[] cellMin )
+	{
+		this.index = index;
+		this.timepoint = timepoint;
+		this.setup = setup;
+		this.level = level;
+		this.cellDims = cellDims;
+		this.cellMin = cellMin;
+	}
+
+	/**
+	 * Parse the split "p" parameter of a cell request
+	 * @param parts the parameter split by "/", starting with "cell"
+	 * @return the {@link CellRequest}
+	 * @throws NumberFormatException if a part is not a number
+	 * @throws ArrayIndexOutOfBoundsException if a part is missing
+	 */
+	public static CellRequest parse( final String[] parts )
+	{
+		return new CellRequest(
+				Integer.parseInt( parts[ 1 ] ),
+				Integer.parseInt( parts[ 2 ] ),
+				Integer.parseInt( parts[ 3 ] ),
+				Integer.parseInt( parts[ 4 ] ),
+				new int[] {
+						Integer.parseInt( parts[ 5 ] ),
+						Integer.parseInt( parts[ 6 ] ),
+						Integer.parseInt( parts[ 7 ] ) },
+				new long[] {
+						Long.parseLong( parts[ 8 ] ),
+						Long.parseLong( parts[ 9 ] ),
+						Long.parseLong( parts[ 10 ] ) } );
+	}
+
+	/**
+	 * Parse the "p" parameter of a cell request
+	 * @param cellString the parameter starting with "cell/"
+	 * @return the {@link CellRequest}
+	 */
+	public static CellRequest parse( final String cellString )
+	{
+		return parse( cellString.split( "/" ) );
+	}
+
+	/**
+	 * @return the same cell at another timepoint
+	 */
+	public CellRequest withTimepoint( final int timepoint )
+	{
+		return new CellRequest( index, timepoint, setup, level, cellDims, cellMin );
+	}
+
+	/**
+	 * @return the key of the cell in the {@link VolatileGlobalCellCache}
+	 */
+	public VolatileGlobalCellCache.Key getKey()
+	{
+		return new VolatileGlobalCellCache.Key( timepoint, setup, level, index );
+	}
+
+	/**
+	 * Encode the cell data as big-endian shorts, the format expected by the clients
+	 * @param data the cell data
+	 * @return the bytes to be sent
+	 */
+	public static byte[] encode( final short[] data )
+	{
+		final byte[] buf = new byte[ 2 * data.length ];
+		for ( int i = 0, j = 0; i < data.length; i++ )
+		{
+			final short s = data[ i ];
+			buf[ j++ ] = ( byte ) ( ( s >> 8 ) & 0xff );
+			buf[ j++ ] = ( byte ) ( s & 0xff );
+		}
+		return buf;
+	}
+}
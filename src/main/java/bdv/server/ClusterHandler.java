@@ -0,0 +1,374 @@
+package bdv.server;
+
+import bdv.db.ManagerController;
+import bdv.model.ClusterNode;
+import bdv.model.DataSet;
+import bdv.model.DataSetIndex;
+import bdv.util.ConsistentHashRing;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonWriter;
+import org.eclipse.jetty.server.Handler;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.handler.ContextHandlerCollection;
+import org.eclipse.jetty.util.log.Log;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.io.Reader;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ClusterHandler runs a BigDataServer as one node of a cluster sharing the dataset catalogue in the database.
+ *
+ * Every node renews its heartbeat in the NODE table after checking that it still answers on its own
+ * {@link Constants#CLUSTER_CONTEXT_NAME} context. The nodes with a recent heartbeat form a {@link ConsistentHashRing},
+ * which assigns each dataset to one owning node. Each node periodically reconciles its CellHandlers with the ring:
+ * it deploys the datasets it owns and removes the ones it lost. When a node stops answering, its heartbeat expires
+ * and its datasets are taken over by the remaining nodes.
+ *
+ * Datasets owned by other nodes stay listed and searchable with their dataset urls pointing to the owner, and
+ * {@link ClusterRedirectHandler} redirects the requests for them. A node losing a dataset keeps serving it until the
+ * new owner reports the dataset in the "datasets" of its cluster context, so the dataset stays available during the
+ * hand over.
+ *
+ * GET on the context provides the nodes and the dataset owners as JSON.
+ *
+ * The timing is read from system properties:
+ * <ul>
+ * <li>bdv.cluster.heartbeat: seconds between two heartbeats (default 5)</li>
+ * <li>bdv.cluster.timeout: seconds after which a node without heartbeat is dropped (default 15)</li>
+ * </ul>
+ *
+ * Author: HongKee Moon (moon@mpi-cbg.de), Scientific Computing Facility
+ * Organization: MPI-CBG Dresden
+ * Date: October 2026
+ */
+public class ClusterHandler extends BaseContextHandler
+{
+	private static final org.eclipse.jetty.util.log.Logger LOG = Log.getLogger( ClusterHandler.class );
+
+	private static final int HEARTBEAT_SECONDS = Integer.getInteger( "bdv.cluster.heartbeat", 5 );
+
+	private static final int TIMEOUT_SECONDS = Integer.getInteger( "bdv.cluster.timeout", 15 );
+
+	private final ClusterNode self;
+
+	private volatile ConsistentHashRing ring = new ConsistentHashRing( Collections.emptyList() );
+
+	private volatile Map< String, ClusterNode > nodes = Collections.emptyMap();
+
+	/**
+	 * Dataset urls of the datasets owned by other nodes, as published in the {@link DataSetIndex}
+	 */
+	private final Map< Long, String > remoteDataSets = new HashMap<>();
+
+	/**
+	 * Indexes of the datasets served by this node
+	 */
+	private final Set< Long > served = ConcurrentHashMap.newKeySet();
+
+	private ScheduledExecutorService scheduler;
+
+	public ClusterHandler(
+			final Server server,
+			final ContextHandlerCollection publicDatasetHandlers,
+			final ContextHandlerCollection privateDatasetHandlers,
+			final String thumbnailsDirectoryName,
+			final ClusterNode self )
+	{
+		super( server, publicDatasetHandlers, privateDatasetHandlers, thumbnailsDirectoryName );
+
+		this.self = self;
+		setContextPath( "/" + Constants.CLUSTER_CONTEXT_NAME );
+	}
+
+	@Override
+	protected void doStart() throws Exception
+	{
+		super.doStart();
+
+		scheduler = Executors.newSingleThreadScheduledExecutor( r -> {
+			final Thread t = new Thread( r, "ClusterHeartbeat" );
+			t.setDaemon( true );
+			return t;
+		} );
+		scheduler.scheduleWithFixedDelay( this::update, 0, HEARTBEAT_SECONDS, TimeUnit.SECONDS );
+	}
+
+	@Override
+	protected void doStop() throws Exception
+	{
+		scheduler.shutdownNow();
+		ManagerController.removeNode( self.getId() );
+
+		super.doStop();
+	}
+
+	public ClusterNode getSelf()
+	{
+		return self;
+	}
+
+	/**
+	 * @param dataSetIndex the index of the dataset
+	 * @return the node owning the dataset, null if no node is alive
+	 */
+	public ClusterNode getOwner( final long dataSetIndex )
+	{
+		final String owner = ring.getOwner( dataSetIndex );
+		return null != owner ? nodes.get( owner ) : null;
+	}
+
+	/**
+	 * @param dataSetIndex the index of the dataset
+	 * @return true if this node serves the dataset, also while handing it over to its new owner
+	 */
+	public boolean serves( final long dataSetIndex )
+	{
+		return served.contains( dataSetIndex );
+	}
+
+	@Override
+	public void doHandle( final String target, final Request baseRequest, final HttpServletRequest request, final HttpServletResponse response ) throws IOException, ServletException
+	{
+		response.setContentType( "application/json" );
+		response.setStatus( HttpServletResponse.SC_OK );
+		baseRequest.setHandled( true );
+
+		final PrintWriter ow = response.getWriter();
+		final JsonWriter writer = new JsonWriter( ow );
+
+		writer.setIndent( "\t" );
+
+		writer.beginObject();
+
+		writer.name( "node" ).value( self.getId() );
+
+		writer.name( "nodes" );
+		writer.beginArray();
+		for ( final ClusterNode node : nodes.values() )
+		{
+			writer.beginObject();
+			writer.name( "id" ).value( node.getId() );
+			writer.name( "httpUrl" ).value( node.getHttpUrl() );
+			writer.name( "httpsUrl" ).value( node.getHttpsUrl() );
+			writer.name( "heartbeat" ).value( node.getHeartbeat().getTime() );
+			writer.endObject();
+		}
+		writer.endArray();
+
+		writer.name( "datasets" );
+		writer.beginArray();
+		for ( final Handler handler : server.getChildHandlersByClass( CellHandler.class ) )
+			writer.value( ( ( CellHandler ) handler ).getDataSet().getIndex() );
+		writer.endArray();
+
+		writer.endObject();
+
+		writer.flush();
+
+		writer.close();
+	}
+
+	/**
+	 * Renew the heartbeat, rebuild the ring from the alive nodes and reconcile the datasets
+	 */
+	private void update()
+	{
+		try
+		{
+			if ( isServing() )
+				ManagerController.updateNode( self );
+
+			final List< ClusterNode > alive = ManagerController.getLiveNodes( TIMEOUT_SECONDS );
+			if ( null == alive )
+				return;
+
+			final Map< String, ClusterNode > map = new HashMap<>();
+			for ( final ClusterNode node : alive )
+				map.put( node.getId(), node );
+
+			if ( !map.keySet().equals( ring.getNodes() ) )
+			{
+				LOG.info( "Cluster nodes: " + map.keySet() );
+				ring = new ConsistentHashRing( map.keySet() );
+			}
+			nodes = map;
+
+			reconcile();
+		}
+		catch ( final Exception e )
+		{
+			// Keep the heartbeat running
+			LOG.warn( "Cluster update failed", e );
+		}
+	}
+
+	/**
+	 * Check that this server answers on its cluster context, a node which cannot serve stops its heartbeat
+	 */
+	private boolean isServing()
+	{
+		if ( !server.isStarted() )
+			return false;
+
+		try
+		{
+			final HttpURLConnection connection = ( HttpURLConnection ) new URL( self.getHttpUrl() + "/" + Constants.CLUSTER_CONTEXT_NAME ).openConnection();
+			connection.setConnectTimeout( 2000 );
+			connection.setReadTimeout( 2000 );
+			final int status = connection.getResponseCode();
+			connection.disconnect();
+			return status == HttpServletResponse.SC_OK;
+		}
+		catch ( final IOException e )
+		{
+			LOG.warn( "Health check failed: " + e.getMessage() );
+			return false;
+		}
+	}
+
+	private void reconcile() throws IOException
+	{
+		final List< DataSet > dataSets = new ArrayList<>( ManagerController.getPublicDataSets() );
+		dataSets.addAll( ManagerController.getPrivateDataSets() );
+
+		final Map< Long, CellHandler > deployed = new HashMap<>();
+		for ( final Handler handler : server.getChildHandlersByClass( CellHandler.class ) )
+			deployed.put( ( ( CellHandler ) handler ).getDataSet().getIndex(), ( CellHandler ) handler );
+
+		final Set< Long > catalogue = new HashSet<>();
+
+		// Datasets reported by the other nodes, requested once per reconciliation
+		final Map< String, Set< Long > > reported = new HashMap<>();
+
+		for ( final DataSet ds : dataSets )
+		{
+			catalogue.add( ds.getIndex() );
+
+			final ClusterNode owner = getOwner( ds.getIndex() );
+			if ( null == owner )
+				continue;
+
+			final String context = "/" + ( ds.isPublic() ? Constants.PUBLIC_DATASET_CONTEXT_NAME : Constants.PRIVATE_DATASET_CONTEXT_NAME ) + "/id/" + ds.getIndex();
+
+			if ( owner.getId().equals( self.getId() ) )
+			{
+				remoteDataSets.remove( ds.getIndex() );
+
+				if ( !deployed.containsKey( ds.getIndex() ) )
+				{
+					LOG.info( "Take over dataset " + ds.getIndex() + " on " + context );
+
+					final CellHandler ctx = getCellHandler( ds, ds.isPublic(), context );
+					if ( null == ctx )
+						continue;
+
+					ctx.setContextPath( context );
+					try
+					{
+						ctx.start();
+					}
+					catch ( Exception e )
+					{
+						LOG.warn( "Failed to start CellHandler", e );
+					}
+				}
+
+				served.add( ds.getIndex() );
+			}
+			else
+			{
+				if ( deployed.containsKey( ds.getIndex() ) )
+				{
+					// Keep serving the dataset until its new owner has deployed it
+					if ( !reported.computeIfAbsent( owner.getId(), id -> getDataSets( owner ) ).contains( ds.getIndex() ) )
+					{
+						served.add( ds.getIndex() );
+						continue;
+					}
+
+					LOG.info( "Hand over dataset " + ds.getIndex() + " to " + owner.getId() );
+					served.remove( ds.getIndex() );
+					removeCellHandler( ds.getIndex() );
+				}
+
+				// List the dataset with the url of its owner
+				final String url = ( ds.isPublic() ? owner.getHttpUrl() : owner.getHttpsUrl() ) + context + "/";
+				if ( !url.equals( remoteDataSets.get( ds.getIndex() ) ) )
+				{
+					ds.setDatasetUrl( url );
+					DataSetIndex.getInstance().add( ds );
+					remoteDataSets.put( ds.getIndex(), url );
+				}
+			}
+		}
+
+		// Datasets removed from the catalogue by a manager on another node
+		for ( final Long index : deployed.keySet() )
+			if ( !catalogue.contains( index ) )
+			{
+				served.remove( index );
+				removeCellHandler( index );
+			}
+
+		remoteDataSets.keySet().removeIf( index -> {
+			if ( catalogue.contains( index ) )
+				return false;
+			DataSetIndex.getInstance().remove( index );
+			return true;
+		} );
+	}
+
+	/**
+	 * Get the datasets reported by the cluster context of a node
+	 * @return the indexes of the datasets served by the node, empty if the node does not answer
+	 */
+	private static Set< Long > getDataSets( final ClusterNode node )
+	{
+		final Set< Long > dataSets = new HashSet<>();
+
+		try
+		{
+			final HttpURLConnection connection = ( HttpURLConnection ) new URL( node.getHttpUrl() + "/" + Constants.CLUSTER_CONTEXT_NAME ).openConnection();
+			connection.setConnectTimeout( 2000 );
+			connection.setReadTimeout( 2000 );
+
+			try ( final Reader reader = new InputStreamReader( connection.getInputStream(), StandardCharsets.UTF_8 ) )
+			{
+				for ( final JsonElement index : new JsonParser().parse( reader ).getAsJsonObject().getAsJsonArray( "datasets" ) )
+					dataSets.add( index.getAsLong() );
+			}
+			finally
+			{
+				connection.disconnect();
+			}
+		}
+		catch ( final IOException | RuntimeException e )
+		{
+			LOG.warn( "Failed to get the datasets of " + node.getId() + ": " + e.getMessage() );
+		}
+
+		return dataSets;
+	}
+}
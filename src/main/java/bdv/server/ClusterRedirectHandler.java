@@ -0,0 +1,78 @@
+package bdv.server;
+
+import bdv.model.ClusterNode;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.handler.HandlerWrapper;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.net.URLEncoder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Redirects the requests for datasets owned by another node of the cluster with "307 Temporary Redirect",
+ * all the other requests are passed to the wrapped handler
+ *
+ * The redirect carries the query parameter {@link #HOP_PARAMETER}. While the nodes disagree on the cluster members,
+ * a redirected request may arrive at a node which does not serve the dataset either. It is answered with
+ * "503 Service Unavailable" and a Retry-After header instead of being redirected again.
+ *
+ * Author: HongKee Moon (moon@mpi-cbg.de), Scientific Computing Facility
+ * Organization: MPI-CBG Dresden
+ * Date: October 2026
+ */
+public class ClusterRedirectHandler extends HandlerWrapper
+{
+	private static final Pattern DATASET_PATH = Pattern.compile(
+			"^/(" + Pattern.quote( Constants.PUBLIC_DATASET_CONTEXT_NAME ) + "|" + Pattern.quote( Constants.PRIVATE_DATASET_CONTEXT_NAME ) + ")/id/(\\d+)(/.*)?$" );
+
+	/**
+	 * Query parameter marking a request redirected by another node
+	 */
+	public static final String HOP_PARAMETER = "clusterHop";
+
+	private final ClusterHandler cluster;
+
+	public ClusterRedirectHandler( final ClusterHandler cluster )
+	{
+		this.cluster = cluster;
+	}
+
+	@Override
+	public void handle( final String target, final Request baseRequest, final HttpServletRequest request, final HttpServletResponse response ) throws IOException, ServletException
+	{
+		final Matcher m = DATASET_PATH.matcher( target );
+		if ( m.matches() )
+		{
+			final long index = Long.parseLong( m.group( 2 ) );
+			final ClusterNode owner = cluster.getOwner( index );
+			if ( null != owner && !owner.getId().equals( cluster.getSelf().getId() ) && !cluster.serves( index ) )
+			{
+				if ( null != request.getParameter( HOP_PARAMETER ) )
+				{
+					// Redirected already, the nodes do not agree on the owner yet
+					response.setStatus( HttpServletResponse.SC_SERVICE_UNAVAILABLE );
+					response.setHeader( "Retry-After", "5" );
+				}
+				else
+				{
+					final boolean isPublic = m.group( 1 ).equals( Constants.PUBLIC_DATASET_CONTEXT_NAME );
+					final String query = request.getQueryString();
+
+					response.setStatus( HttpServletResponse.SC_TEMPORARY_REDIRECT );
+					response.setHeader( "Location", ( isPublic ? owner.getHttpUrl() : owner.getHttpsUrl() ) + target
+							+ "?" + ( null != query ? query + "&" : "" ) + HOP_PARAMETER + "=" + URLEncoder.encode( cluster.getSelf().getId(), "UTF-8" ) );
+				}
+				response.setContentLength( 0 );
+				baseRequest.setHandled( true );
+				return;
+			}
+		}
+
+		super.handle( target, baseRequest, request, response );
+	}
+}
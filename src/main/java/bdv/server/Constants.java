@@ -8,10 +8,19 @@ public class Constants
 
 	public static final String DATASET_CONTEXT_NAME = "dataset";
 
+	public static final String SEARCH_CONTEXT_NAME = "search";
+
+	public static final String METRICS_CONTEXT_NAME = "metrics";
+
+	public static final String CLUSTER_CONTEXT_NAME = "cluster";
+
 	public static final String[] RESERVED_CONTEXT_NAMES = new String[]
 			{
 					DATASETLIST_CONTEXT_NAME,
-					MANAGER_CONTEXT_NAME
+					MANAGER_CONTEXT_NAME,
+					SEARCH_CONTEXT_NAME,
+					METRICS_CONTEXT_NAME,
+					CLUSTER_CONTEXT_NAME
 			};
 
 	public static final int THUMBNAIL_WIDTH = 100;
@@ -23,10 +32,14 @@ public class Constants
 
 	public static final String PUBLIC_DATASET_CONTEXT_NAME = "public/dataset";
 
+	public static final String PUBLIC_DATASET_SEARCH_CONTEXT_NAME = "public/" + SEARCH_CONTEXT_NAME;
+
 	// PRIVATE context
 	public static final String PRIVATE_DOMAIN = "private";
 
 	public static final String PRIVATE_DATASET_TAG_CONTEXT_NAME = PRIVATE_DOMAIN + "/tag";
 
 	public static final String PRIVATE_DATASET_CONTEXT_NAME = PRIVATE_DOMAIN + "/dataset";
+
+	public static final String PRIVATE_DATASET_SEARCH_CONTEXT_NAME = PRIVATE_DOMAIN + "/" + SEARCH_CONTEXT_NAME;
 }
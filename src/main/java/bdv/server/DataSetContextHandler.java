@@ -72,11 +72,11 @@ public class DataSetContextHandler extends ServletContextHandler
 	private CellHandler findCellHandler( final String datasetName )
 	{
 		CellHandler found = null;
-		for ( final Handler handler : datasetHandlers.getChildHandlersByClass( isPublic ? PublicCellHandler.class : PrivateCellHandler.class ) )
+		for ( final Handler handler : datasetHandlers.getChildHandlersByClass( CellHandler.class ) )
 		{
 			final CellHandler contextHandler = ( CellHandler ) handler;
 
-			if ( contextHandler.getContextPath().equals( getContextPath() + datasetName ) )
+			if ( contextHandler.getDataSet().isPublic() == isPublic && contextHandler.getContextPath().equals( getContextPath() + datasetName ) )
 			{
 				found = contextHandler;
 				break;
@@ -0,0 +1,315 @@
+package bdv.server;
+
+import bdv.metrics.Metrics;
+import org.eclipse.jetty.server.Request;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import java.security.Principal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * FairShareScheduler shares the cell serving capacity between the clients of the server, so a client downloading
+ * full-resolution cells in bulk cannot starve the interactive viewers.
+ *
+ * A client is identified by its authenticated principal or, for anonymous requests, by its remote address. Every client
+ * has a weight, a request rate and a bandwidth:
+ * <ul>
+ * <li>While the server is busy, i.e. more than half of {@link AdmissionControl#getMaxPendingCells()} are in use, a client
+ * may only have its weighted share of the pending cells in flight. The capacity is the number of server threads available
+ * for cells, e.g. 176 of the default 200 threads, so the share engages from 88 pending cells on.</li>
+ * <li>The request rate and the bandwidth are token buckets holding a burst of a few seconds. A client exceeding them is
+ * answered with "429 Too Many Requests" and a Retry-After header until the buckets are refilled.</li>
+ * </ul>
+ *
+ * The defaults are read from system properties, 0 disables the limit:
+ * <ul>
+ * <li>bdv.server.clientRequestRate: cell requests per second (default 0)</li>
+ * <li>bdv.server.clientBandwidth: bytes per second (default 0)</li>
+ * <li>bdv.server.clientBurst: seconds of rate and bandwidth a client may burst (default 2)</li>
+ * </ul>
+ * They can be overridden per client through {@link #setLimit(String, Limit)} by the manager.
+ *
+ * Author: HongKee Moon (moon@mpi-cbg.de), Scientific Computing Facility
+ * Organization: MPI-CBG Dresden
+ * Date: October 2026
+ */
+public class FairShareScheduler
+{
+	private static final FairShareScheduler instance = new FairShareScheduler(
+			new Limit( 1, Long.getLong( "bdv.server.clientRequestRate", 0 ), Long.getLong( "bdv.server.clientBandwidth", 0 ) ),
+			Integer.getInteger( "bdv.server.clientBurst", 2 ) );
+
+	/**
+	 * Clients without any request for this time are forgotten
+	 */
+	private static final long IDLE_NANOS = TimeUnit.MINUTES.toNanos( 10 );
+
+	private final Limit defaultLimit;
+
+	private final int burstSeconds;
+
+	private final Map< String, Limit > overrides = new ConcurrentHashMap<>();
+
+	private final Map< String, Client > clients = new ConcurrentHashMap<>();
+
+	/**
+	 * Sum of the weights of the clients having cells in flight
+	 */
+	private final AtomicLong activeWeight = new AtomicLong();
+
+	private final AtomicLong lastSweep = new AtomicLong( System.nanoTime() );
+
+	private final AtomicLong throttled = new AtomicLong();
+
+	public static FairShareScheduler getInstance()
+	{
+		return instance;
+	}
+
+	FairShareScheduler( final Limit defaultLimit, final int burstSeconds )
+	{
+		this.defaultLimit = defaultLimit;
+		this.burstSeconds = burstSeconds;
+
+		Metrics.registerGauge( "bdv_fairshare_clients", "Clients seen during the last 10 minutes.", clients::size );
+		Metrics.registerCounter( "bdv_fairshare_throttled_total", "Cell requests answered with 429.", throttled::get );
+	}
+
+	/**
+	 * @return the client sending the request
+	 */
+	public Client getClient( final HttpServletRequest request )
+	{
+		final long now = System.nanoTime();
+		sweep( now );
+
+		final Principal user = request.getUserPrincipal();
+		final String id = null != user ? user.getName() : request.getRemoteAddr();
+		// Marked as seen atomically with the sweep, which would otherwise remove a client being handed out
+		return clients.compute( id, ( k, c ) -> {
+			if ( null == c )
+				return new Client( k, now );
+			c.seen( now );
+			return c;
+		} );
+	}
+
+	/**
+	 * Override the limits of a client
+	 * @param id the principal name or the remote address of the client
+	 * @param limit the limits, or null to use the defaults again
+	 */
+	public void setLimit( final String id, final Limit limit )
+	{
+		if ( null == limit )
+			overrides.remove( id );
+		else
+			overrides.put( id, limit );
+	}
+
+	public Limit getLimit( final String id )
+	{
+		return overrides.getOrDefault( id, defaultLimit );
+	}
+
+	public Map< String, Limit > getOverrides()
+	{
+		return overrides;
+	}
+
+	public List< Client > getClients()
+	{
+		return new ArrayList<>( clients.values() );
+	}
+
+	/**
+	 * Answer a throttled request with "429 Too Many Requests" and the Retry-After header
+	 */
+	public void reject( final Request baseRequest, final HttpServletResponse response, final long retryAfterSeconds )
+	{
+		throttled.incrementAndGet();
+		response.setStatus( 429 );
+		response.setHeader( "Retry-After", Long.toString( retryAfterSeconds ) );
+		response.setContentLength( 0 );
+		baseRequest.setHandled( true );
+	}
+
+	private void sweep( final long now )
+	{
+		final long last = lastSweep.get();
+		if ( now - last < TimeUnit.MINUTES.toNanos( 1 ) || !lastSweep.compareAndSet( last, now ) )
+			return;
+
+		// Idleness is checked again under the lock of the entry, so a client handed out meanwhile keeps its buckets
+		for ( final String id : clients.keySet() )
+			clients.computeIfPresent( id, ( k, c ) -> c.isIdle( now ) ? null : c );
+	}
+
+	/**
+	 * Limits of a client
+	 */
+	public static class Limit
+	{
+		final int weight;
+
+		final long requestRate;
+
+		final long bandwidth;
+
+		/**
+		 * @param weight the relative share of the pending cells
+		 * @param requestRate cell requests per second, 0 for unlimited
+		 * @param bandwidth bytes per second, 0 for unlimited
+		 */
+		public Limit( final int weight, final long requestRate, final long bandwidth )
+		{
+			this.weight = Math.max( 1, weight );
+			this.requestRate = requestRate;
+			this.bandwidth = bandwidth;
+		}
+
+		public int getWeight()
+		{
+			return weight;
+		}
+
+		public long getRequestRate()
+		{
+			return requestRate;
+		}
+
+		public long getBandwidth()
+		{
+			return bandwidth;
+		}
+	}
+
+	/**
+	 * State of a client, the token buckets are refilled lazily whenever the client is accessed
+	 */
+	public class Client
+	{
+		private final String id;
+
+		private long lastAccess;
+
+		private long lastSeen;
+
+		private double requestTokens;
+
+		private double byteTokens;
+
+		private int inFlight;
+
+		/**
+		 * Weight added to activeWeight while cells are in flight
+		 */
+		private int appliedWeight;
+
+		Client( final String id, final long now )
+		{
+			this.id = id;
+			this.lastAccess = now;
+			this.lastSeen = now;
+			final Limit limit = getLimit( id );
+			this.requestTokens = limit.requestRate * burstSeconds;
+			this.byteTokens = limit.bandwidth * burstSeconds;
+		}
+
+		public String getId()
+		{
+			return id;
+		}
+
+		public synchronized int getInFlight()
+		{
+			return inFlight;
+		}
+
+		/**
+		 * Try to admit a cell request of this client, {@link #release(long)} must be called after an admitted request is processed
+		 * @return 0 if the request is admitted, otherwise the number of seconds the client should wait
+		 */
+		public synchronized long tryAcquire()
+		{
+			final long now = System.nanoTime();
+			final Limit limit = getLimit( id );
+			refill( limit, now );
+
+			if ( limit.requestRate > 0 && requestTokens < 1 )
+				return secondsUntil( 1 - requestTokens, limit.requestRate );
+
+			if ( limit.bandwidth > 0 && byteTokens < 0 )
+				return secondsUntil( -byteTokens, limit.bandwidth );
+
+			// The capacity is the thread budget for cells, which bounds the pending cells
+			final AdmissionControl admission = AdmissionControl.getInstance();
+			final int capacity = admission.getMaxPendingCells();
+			if ( admission.getPendingCells() > capacity / 2 )
+			{
+				final long total = Math.max( activeWeight.get(), limit.weight );
+				final long share = Math.max( 1, capacity * limit.weight / total );
+				if ( inFlight >= share )
+					return 1;
+			}
+
+			if ( limit.requestRate > 0 )
+				requestTokens -= 1;
+
+			if ( inFlight++ == 0 )
+			{
+				appliedWeight = limit.weight;
+				activeWeight.addAndGet( appliedWeight );
+			}
+
+			return 0;
+		}
+
+		/**
+		 * Release an admitted cell request
+		 * @param bytes the number of bytes sent, charged to the bandwidth bucket
+		 */
+		public synchronized void release( final long bytes )
+		{
+			if ( getLimit( id ).bandwidth > 0 )
+				byteTokens -= bytes;
+
+			if ( --inFlight == 0 )
+			{
+				activeWeight.addAndGet( -appliedWeight );
+				appliedWeight = 0;
+			}
+		}
+
+		synchronized void seen( final long now )
+		{
+			lastSeen = now;
+		}
+
+		synchronized boolean isIdle( final long now )
+		{
+			return inFlight == 0 && now - lastAccess > IDLE_NANOS && now - lastSeen > IDLE_NANOS;
+		}
+
+		private void refill( final Limit limit, final long now )
+		{
+			final double seconds = ( now - lastAccess ) / 1e9;
+			lastAccess = now;
+
+			requestTokens = Math.min( limit.requestRate * burstSeconds, requestTokens + seconds * limit.requestRate );
+			byteTokens = Math.min( limit.bandwidth * burstSeconds, byteTokens + seconds * limit.bandwidth );
+		}
+
+		private long secondsUntil( final double missing, final long rate )
+		{
+			return Math.max( 1, ( long ) Math.ceil( missing / rate ) );
+		}
+	}
+}
@@ -1,124 +1,287 @@
 package bdv.server;
 
+import bdv.metrics.Metrics;
 import bdv.model.DataSet;
+import bdv.model.DataSetIndex;
+import bdv.util.Paging;
 import bdv.util.Render;
-import org.eclipse.jetty.server.Handler;
 import org.eclipse.jetty.server.Request;
-import org.eclipse.jetty.server.Server;
 import org.eclipse.jetty.server.handler.ContextHandler;
+import org.eclipse.jetty.util.log.Log;
 import org.stringtemplate.v4.ST;
-import org.stringtemplate.v4.STGroup;
-import org.stringtemplate.v4.STRawGroupDir;
 
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.PrintWriter;
 import java.net.URISyntaxException;
-import java.util.ArrayList;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+import java.util.zip.GZIPOutputStream;
 
 /**
  * Provides the default index page of available datasets on this {@link BigDataServer}
+ * The page shows the first {@link #PAGE_SIZE} datasets, the following rows are provided by "/?offset=N&amp;limit=M".
+ *
+ * The page is the same for every visitor until a public dataset is changed. It is rendered once per catalogue version,
+ * in the background right after the change, and kept as UTF-8 and gzip bytes served with an ETag.
  * @author HongKee Moon <moon@mpi-cbg.de>
  */
 public class IndexPageHandler extends ContextHandler
 {
-	private final Server server;
+	private static final org.eclipse.jetty.util.log.Logger LOG = Log.getLogger( IndexPageHandler.class );
 
-	public IndexPageHandler( final Server server ) throws IOException, URISyntaxException
+	/**
+	 * Number of datasets rendered at once in the index page
+	 */
+	private static final int PAGE_SIZE = 50;
+
+	/**
+	 * Pre-rendered table row of each dataset, dropped when the dataset is changed
+	 */
+	private final ConcurrentHashMap< Long, String > rows = new ConcurrentHashMap<>();
+
+	/**
+	 * Catalogue version increased by every change of the served datasets
+	 */
+	private final AtomicLong version = new AtomicLong();
+
+	/**
+	 * The index page rendered for the latest version, null before the first rendering
+	 */
+	private volatile Page page;
+
+	private final AtomicBoolean renderScheduled = new AtomicBoolean();
+
+	private final ExecutorService renderer = Executors.newSingleThreadExecutor( r -> {
+		final Thread t = new Thread( r, "IndexPageRenderer" );
+		t.setDaemon( true );
+		return t;
+	} );
+
+	public IndexPageHandler() throws IOException, URISyntaxException
 	{
-		this.server = server;
 		setContextPath( "/" );
+
+		DataSetIndex.getInstance().addListener( id -> {
+			rows.remove( id );
+			version.incrementAndGet();
+			scheduleRendering();
+		} );
 	}
 
 	@Override
 	public void doHandle( final String target, final Request baseRequest, final HttpServletRequest request, final HttpServletResponse response ) throws IOException, ServletException
 	{
-		if ( target.equals( "/" ) )
-			list( baseRequest, response );
-		else
-			super.doHandle( target, baseRequest, request, response );
+		final long start = System.nanoTime();
+
+		try
+		{
+			if ( target.equals( "/" ) )
+			{
+				if ( null == request.getParameter( "offset" ) )
+					list( baseRequest, request, response );
+				else
+					listRows( Paging.getIntParameter( request, "offset", 0 ), Paging.getIntParameter( request, "limit", PAGE_SIZE ), baseRequest, response );
+			}
+			else
+				super.doHandle( target, baseRequest, request, response );
+		}
+		finally
+		{
+			if ( target.equals( "/" ) )
+				Metrics.recordLatency( "index", "", "", start );
+		}
+	}
+
+	private void list( final Request baseRequest, final HttpServletRequest request, final HttpServletResponse response ) throws IOException
+	{
+		final Page p = getPage();
+
+		final String acceptEncoding = request.getHeader( "Accept-Encoding" );
+		final boolean gzip = null != acceptEncoding && acceptEncoding.contains( "gzip" );
+		final String etag = gzip ? p.gzipEtag : p.etag;
+
+		response.setHeader( "ETag", etag );
+		response.setHeader( "Vary", "Accept-Encoding" );
+		// Browsers should revalidate the page with the ETag every time
+		response.setHeader( "Cache-Control", "no-cache" );
+		baseRequest.setHandled( true );
+
+		final String ifNoneMatch = request.getHeader( "If-None-Match" );
+		if ( null != ifNoneMatch && ( ifNoneMatch.contains( etag ) || ifNoneMatch.trim().equals( "*" ) ) )
+		{
+			response.setStatus( HttpServletResponse.SC_NOT_MODIFIED );
+			return;
+		}
+
+		final byte[] content = gzip ? p.gzip : p.utf8;
+
+		response.setContentType( "text/html" );
+		response.setCharacterEncoding( "UTF-8" );
+		if ( gzip )
+			response.setHeader( "Content-Encoding", "gzip" );
+		response.setContentLength( content.length );
+		response.setStatus( HttpServletResponse.SC_OK );
+
+		final OutputStream os = response.getOutputStream();
+		os.write( content );
+		os.close();
 	}
 
-	private void list( final Request baseRequest, final HttpServletResponse response ) throws IOException
+	/**
+	 * Provides the table rows of the requested page which are appended to the index page by the "Load more" button.
+	 */
+	private void listRows( final int offset, final int limit, final Request baseRequest, final HttpServletResponse response ) throws IOException
 	{
 		response.setContentType( "text/html" );
 		response.setStatus( HttpServletResponse.SC_OK );
 		baseRequest.setHandled( true );
 
 		final PrintWriter ow = response.getWriter();
-		getHtmlDatasetList( ow );
+		ow.write( getHtmlRows( Paging.page( getDataSets(), offset, limit ) ) );
 		ow.close();
 	}
 
-	private void getHtmlDatasetList( final PrintWriter out ) throws IOException
+	/**
+	 * Get the active public datasets sorted by their names
+	 */
+	private List< DataSet > getDataSets()
 	{
-		final ArrayList< DataSet > list = new ArrayList<>();
+		final List< DataSet > list = DataSetIndex.getInstance().getDataSets( DataSet::isPublic );
 
-		for ( final Handler handler : server.getChildHandlersByClass( PublicCellHandler.class ) )
-		{
-			CellHandler contextHandler = null;
-			if ( handler instanceof CellHandler )
-			{
-				contextHandler = ( CellHandler ) handler;
+		list.sort( DataSet.getComparator( "name" ) );
 
-				if ( contextHandler.isActive() )
+		return list;
+	}
+
+	/**
+	 * Render the index page in the background unless the rendering is already scheduled
+	 */
+	private void scheduleRendering()
+	{
+		if ( renderScheduled.compareAndSet( false, true ) )
+		{
+			renderer.execute( () -> {
+				renderScheduled.set( false );
+				try
 				{
-					list.add( contextHandler.getDataSet() );
+					getPage();
 				}
+				catch ( IOException e )
+				{
+					LOG.warn( "Failed to render the index page", e );
+				}
+			} );
+		}
+	}
+
+	/**
+	 * Get the index page of the current version, rendering it if the catalogue has changed
+	 */
+	private Page getPage() throws IOException
+	{
+		Page p = page;
+		if ( null != p && p.version == version.get() )
+			return p;
+
+		synchronized ( this )
+		{
+			p = page;
+			final long v = version.get();
+			if ( null == p || p.version != v )
+			{
+				p = new Page( v, getHtmlDatasetList() );
+				page = p;
 			}
+			return p;
 		}
+	}
+
+	private String getHtmlDatasetList()
+	{
+		final List< DataSet > list = getDataSets();
+
+		final ST indexPage = Render.getTemplates().getInstanceOf( "indexPage" );
 
-		// Sort the list by Category and Index
-		//		Collections.sort( list, new Comparator< DataSet >()
-		//		{
-		//			@Override
-		//			public int compare( final DataSet lhs, DataSet rhs )
-		//			{
-		//				// return 1 if rhs should be before lhs
-		//				// return -1 if lhs should be before rhs
-		//				// return 0 otherwise
-		//				if ( lhs.getCategory().equals( rhs.getCategory() ) )
-		//				{
-		//					return (int) (lhs.getIndex() - rhs.getIndex());
-		//				}
-		//				else
-		//				{
-		//					return lhs.getCategory().compareToIgnoreCase( rhs.getCategory() );
-		//				}
-		//			}
-		//		} );
-
-		final STGroup g = new STRawGroupDir( "templates", '$', '$' );
-
-		final ST indexPage = g.getInstanceOf( "indexPage" );
-
-		// Build html table for dataset list
+		// Only the first page is rendered, the rest is loaded on demand
+		indexPage.add( "dataSetTable", getHtmlRows( Paging.page( list, 0, PAGE_SIZE ) ) );
+		indexPage.add( "total", list.size() );
+		indexPage.add( "pageSize", PAGE_SIZE );
+
+		return indexPage.render();
+	}
+
+	private String getHtmlRows( final List< DataSet > list )
+	{
+		// Build html table for dataset list from the pre-rendered rows
 		final StringBuilder sb = new StringBuilder();
 
 		for ( DataSet ds : list )
-		{
-			final ST dataSetTr = g.getInstanceOf( "publicDataSetTr" );
+			sb.append( rows.computeIfAbsent( ds.getIndex(), id -> renderRow( ds ) ) );
 
-			dataSetTr.add( "thumbnailUrl", ds.getThumbnailUrl() );
-			dataSetTr.add( "dataSetTags", Render.createTagsLabel( ds ) );
-			dataSetTr.add( "dataSetName", ds.getName() );
-			dataSetTr.add( "dataSetDescription", ds.getDescription() );
+		return sb.toString();
+	}
 
-			String url = ds.getDatasetUrl();
-			if ( url.endsWith( "/" ) )
-				url = url.substring( 0, url.lastIndexOf( "/" ) );
+	private static String renderRow( final DataSet ds )
+	{
+		final ST dataSetTr = Render.getTemplates().getInstanceOf( "publicDataSetTr" );
 
-			dataSetTr.add( "dataSetUrl", url );
+		dataSetTr.add( "thumbnailUrl", ds.getThumbnailUrl() );
+		dataSetTr.add( "dataSetTags", Render.createTagsLabel( ds ) );
+		dataSetTr.add( "dataSetName", ds.getName() );
+		dataSetTr.add( "dataSetDescription", ds.getDescription() );
 
-			sb.append( dataSetTr.render() );
-		}
+		String url = ds.getDatasetUrl();
+		if ( url.endsWith( "/" ) )
+			url = url.substring( 0, url.lastIndexOf( "/" ) );
+
+		dataSetTr.add( "dataSetUrl", url );
+
+		return dataSetTr.render();
+	}
+
+	/**
+	 * Rendered index page of a catalogue version
+	 */
+	private static class Page
+	{
+		final long version;
+
+		final byte[] utf8;
+
+		final byte[] gzip;
+
+		final String etag;
 
-		indexPage.add( "dataSetTable", sb.toString() );
+		final String gzipEtag;
 
-		out.write( indexPage.render() );
-		out.close();
+		Page( final long version, final String html ) throws IOException
+		{
+			this.version = version;
+			this.utf8 = html.getBytes( StandardCharsets.UTF_8 );
+
+			final ByteArrayOutputStream bos = new ByteArrayOutputStream( utf8.length / 4 );
+			final GZIPOutputStream gos = new GZIPOutputStream( bos );
+			gos.write( utf8 );
+			gos.close();
+			this.gzip = bos.toByteArray();
+
+			// The ETag is derived from the content so that it stays valid across restarts
+			final CRC32 crc = new CRC32();
+			crc.update( utf8 );
+			this.etag = "\"" + Long.toHexString( crc.getValue() ) + "-" + utf8.length + "\"";
+			this.gzipEtag = "\"" + Long.toHexString( crc.getValue() ) + "-" + utf8.length + "-gzip\"";
+		}
 	}
-}
\ No newline at end of file
+}
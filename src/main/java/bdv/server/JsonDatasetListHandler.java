@@ -1,11 +1,12 @@
 package bdv.server;
 
+import bdv.metrics.Metrics;
 import bdv.model.DataSet;
+import bdv.model.DataSetIndex;
+import bdv.util.Paging;
 import com.google.gson.stream.JsonWriter;
 import org.apache.commons.lang.StringUtils;
-import org.eclipse.jetty.server.Handler;
 import org.eclipse.jetty.server.Request;
-import org.eclipse.jetty.server.Server;
 import org.eclipse.jetty.server.handler.ContextHandler;
 import org.eclipse.jetty.util.log.Log;
 
@@ -16,11 +17,21 @@ import java.io.IOException;
 import java.io.PrintWriter;
 import java.net.URISyntaxException;
 import java.security.Principal;
-import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 /**
- * Provides a list of available datasets on this {@link BigDataServer}
+ * Provides a list of available datasets on this {@link BigDataServer}, in cluster mode including the datasets
+ * served by the other nodes
+ *
+ * The list can be sorted with "sort" (index, name, owner, description, size or updated) and "order" (asc or desc),
+ * and reduced to the fields given in "fields" as a comma separated list. When "offset" or "limit" is given,
+ * the datasets are returned as a page with the total number of datasets and the offset of the next page.
  *
  * @author HongKee Moon &lt;moon@mpi-cbg.de&gt;
  */
@@ -28,67 +39,114 @@ public class JsonDatasetListHandler extends ContextHandler
 {
 	private static final org.eclipse.jetty.util.log.Logger LOG = Log.getLogger( JsonDatasetListHandler.class );
 
-	private final Server server;
+	private static final int DEFAULT_PAGE_SIZE = 100;
 
-	public JsonDatasetListHandler( final Server server, final String contextPath ) throws IOException, URISyntaxException
+	public JsonDatasetListHandler( final String contextPath ) throws IOException, URISyntaxException
 	{
-		this.server = server;
 		setContextPath( contextPath );
 	}
 
 	@Override
 	public void doHandle( final String target, final Request baseRequest, final HttpServletRequest request, final HttpServletResponse response ) throws IOException, ServletException
 	{
-		Principal user = request.getUserPrincipal();
-
-		if ( null != user )
-			LOG.info( user.getName() );
+		final long start = System.nanoTime();
 
-		final String tag = request.getParameter( "tag" );
-		if ( StringUtils.isEmpty( tag ) )
+		try
 		{
-			if ( user != null )
-				list( user.getName(), baseRequest, response );
+			Principal user = request.getUserPrincipal();
+
+			if ( null != user )
+				LOG.info( user.getName() );
+
+			final String userId = null != user ? user.getName() : null;
+			final String tag = request.getParameter( "tag" );
+
+			response.setContentType( "application/json" );
+			response.setStatus( HttpServletResponse.SC_OK );
+			baseRequest.setHandled( true );
+
+			final List< DataSet > list = getContexts( userId, StringUtils.isEmpty( tag ) ? null : tag );
+
+			// Sort the list by the requested field, by index by default
+			final Comparator< DataSet > comparator = DataSet.getComparator( request.getParameter( "sort" ) );
+			if ( null != comparator )
+				list.sort( "desc".equals( request.getParameter( "order" ) ) ? comparator.reversed() : comparator );
+
+			// Only the requested fields are written when "fields" is given
+			final String fieldsParam = request.getParameter( "fields" );
+			final Set< String > fields = StringUtils.isEmpty( fieldsParam ) ? null : new HashSet<>( Arrays.asList( fieldsParam.split( "," ) ) );
+
+			final PrintWriter ow = response.getWriter();
+
+			if ( null == request.getParameter( "offset" ) && null == request.getParameter( "limit" ) )
+			{
+				// Keep the original object keyed by the dataset index for the existing clients
+				getJsonDatasetList( userId, list, fields, ow );
+			}
 			else
-				list( null, baseRequest, response );
+			{
+				final int offset = Paging.getIntParameter( request, "offset", 0 );
+				final int limit = Paging.getIntParameter( request, "limit", DEFAULT_PAGE_SIZE );
+				getJsonDatasetPage( userId, list, offset, limit, fields, ow );
+			}
+
+			ow.close();
 		}
-		else
+		finally
 		{
-			listCategory( user.getName(), tag, baseRequest, response );
+			Metrics.recordLatency( "list", "", "", start );
 		}
 	}
 
-	private void listCategory( final String userId, String tag, Request baseRequest, HttpServletResponse response ) throws IOException
+	private void getJsonDatasetList( final String userId, final List< DataSet > list, final Set< String > fields, final PrintWriter out ) throws IOException
 	{
-		response.setContentType( "application/json" );
-		response.setStatus( HttpServletResponse.SC_OK );
-		baseRequest.setHandled( true );
+		final JsonWriter writer = new JsonWriter( out );
 
-		final PrintWriter ow = response.getWriter();
-		getJsonDatasetList( userId, tag, ow );
-		ow.close();
-	}
+		writer.setIndent( "\t" );
 
-	private void list( final String userId, final Request baseRequest, final HttpServletResponse response ) throws IOException
-	{
-		response.setContentType( "application/json" );
-		response.setStatus( HttpServletResponse.SC_OK );
-		baseRequest.setHandled( true );
+		writer.beginObject();
+
+		for ( DataSet ds : list )
+		{
+			writer.name( ds.getIndex() + "" );
+			writeDataSet( userId, ds, fields, writer );
+		}
 
-		final PrintWriter ow = response.getWriter();
-		getJsonDatasetList( userId, null, ow );
-		ow.close();
+		writer.endObject();
+
+		writer.flush();
+
+		writer.close();
 	}
 
-	private void getJsonDatasetList( final String userId, String tag, final PrintWriter out ) throws IOException
+	private void getJsonDatasetPage( final String userId, final List< DataSet > list, final int offset, final int limit, final Set< String > fields, final PrintWriter out ) throws IOException
 	{
+		final List< DataSet > page = Paging.page( list, offset, limit );
+
 		final JsonWriter writer = new JsonWriter( out );
 
 		writer.setIndent( "\t" );
 
 		writer.beginObject();
 
-		getContexts( userId, tag, writer );
+		writer.name( "total" ).value( list.size() );
+
+		writer.name( "offset" ).value( offset );
+
+		writer.name( "limit" ).value( Math.min( limit, Paging.MAX_LIMIT ) );
+
+		// Offset of the next page, null for the last page
+		if ( offset + page.size() < list.size() )
+			writer.name( "next" ).value( offset + page.size() );
+		else
+			writer.name( "next" ).nullValue();
+
+		writer.name( "datasets" ).beginArray();
+
+		for ( DataSet ds : page )
+			writeDataSet( userId, ds, fields, writer );
+
+		writer.endArray();
 
 		writer.endObject();
 
@@ -97,80 +155,49 @@ public class JsonDatasetListHandler extends ContextHandler
 		writer.close();
 	}
 
-	private String getContexts( final String userId, final String tag, final JsonWriter writer ) throws IOException
+	private List< DataSet > getContexts( final String userId, final String tag )
 	{
-		final ArrayList<DataSet> list = new ArrayList<>();
+		// The index holds the active datasets of this node and, in cluster mode, the ones served by the other nodes
+		final DataSetIndex index = DataSetIndex.getInstance();
+		final Predicate< DataSet > shared = ds -> !ds.isPublic() && null != userId && ( ds.getOwner().equals( userId ) || ds.getSharedUsers().contains( userId ) );
 
-		for ( final Handler handler : server.getChildHandlersByClass( CellHandler.class ) )
-		{
-			CellHandler contextHandler = null;
-			if ( handler instanceof CellHandler )
-			{
-				contextHandler = ( CellHandler ) handler;
-
-				if ( contextHandler.isActive() )
-				{
-					DataSet ds = contextHandler.getDataSet();
-					if ( ds.isPublic() )
-					{
-						if ( null == tag || tag.isEmpty() ||
-								( null != tag && ds.getTags().contains( tag ) ) )
-							list.add( ds );
-					}
-					else
-					{
-						if ( null != userId && ( ds.getOwner().equals( userId ) || ds.getSharedUsers().contains( userId ) ) )
-							list.add( ds );
-					}
-				}
-			}
-		}
+		if ( null == tag )
+			return index.getDataSets( ds -> ds.isPublic() || shared.test( ds ) );
 
-		// Sort the list by Category and Index
-		//		Collections.sort( list, new Comparator< DataSet >()
-		//		{
-		//			@Override
-		//			public int compare( final DataSet lhs, DataSet rhs )
-		//			{
-		//				// return 1 if rhs should be before lhs
-		//				// return -1 if lhs should be before rhs
-		//				// return 0 otherwise
-		//				if( lhs.getCategory().equals( rhs.getCategory() ))
-		//				{
-		//					return (int) (lhs.getIndex() - rhs.getIndex());
-		//				}
-		//				else
-		//				{
-		//					return lhs.getCategory().compareToIgnoreCase( rhs.getCategory() );
-		//				}
-		//			}
-		//		} );
-
-		// Build json list
-		final StringBuilder sb = new StringBuilder();
-		for(DataSet ds : list)
-		{
-			writer.name( ds.getIndex() + "" ).beginObject();
+		// The tag selects the public datasets from the tag postings, the shared datasets are always listed
+		final List< DataSet > list = index.getDataSets( tag, DataSet::isPublic );
+		list.addAll( index.getDataSets( shared ) );
+		return list;
+	}
 
+	static void writeDataSet( final String userId, final DataSet ds, final Set< String > fields, final JsonWriter writer ) throws IOException
+	{
+		writer.beginObject();
+
+		if ( null == fields || fields.contains( "name" ) )
 			writer.name( "name" ).value( ds.getName() );
 
+		if ( null == fields || fields.contains( "tags" ) )
 			writer.name( "tags" ).value( ds.getTags().stream().collect( Collectors.joining( "," ) ) );
 
+		if ( null == fields || fields.contains( "description" ) )
 			writer.name( "description" ).value( ds.getDescription() );
 
+		if ( null == fields || fields.contains( "index" ) )
 			writer.name( "index" ).value( ds.getIndex() );
 
+		if ( null == fields || fields.contains( "thumbnailUrl" ) )
 			writer.name( "thumbnailUrl" ).value( ds.getThumbnailUrl() );
 
+		if ( null == fields || fields.contains( "datasetUrl" ) )
 			writer.name( "datasetUrl" ).value( ds.getDatasetUrl() );
 
-			writer.name( "sharedBy" ).value( !ds.getOwner().equals( userId ) ? ds.getOwner() : "" );
+		if ( null == fields || fields.contains( "sharedBy" ) )
+			writer.name( "sharedBy" ).value( null != ds.getOwner() && !ds.getOwner().equals( userId ) ? ds.getOwner() : "" );
 
+		if ( null == fields || fields.contains( "isPublic" ) )
 			writer.name( "isPublic" ).value( ds.isPublic() );
 
-			writer.endObject();
-		}
-
-		return sb.toString();
+		writer.endObject();
 	}
 }
@@ -2,14 +2,16 @@ package bdv.server;
 
 import bdv.db.ManagerController;
 import bdv.db.UserController;
+import bdv.metrics.Metrics;
+import bdv.metrics.TrafficStatistics;
 import bdv.model.DataSet;
+import bdv.model.DataSetIndex;
 import bdv.model.User;
+import bdv.server.cache.PinnedCells;
+import bdv.util.Render;
 import com.google.gson.stream.JsonWriter;
 import mpicbg.spim.data.SpimDataException;
 
-import org.apache.commons.collections.Buffer;
-import org.apache.commons.collections.BufferUtils;
-import org.apache.commons.collections.buffer.CircularFifoBuffer;
 import org.eclipse.jetty.server.ConnectorStatistics;
 import org.eclipse.jetty.server.Handler;
 import org.eclipse.jetty.server.Request;
@@ -20,8 +22,6 @@ import org.eclipse.jetty.server.handler.StatisticsHandler;
 import org.eclipse.jetty.util.log.Log;
 import org.eclipse.jetty.util.resource.Resource;
 import org.stringtemplate.v4.ST;
-import org.stringtemplate.v4.STGroup;
-import org.stringtemplate.v4.STRawGroupDir;
 
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
@@ -32,9 +32,9 @@ import java.io.PrintWriter;
 import java.net.URISyntaxException;
 import java.text.DecimalFormat;
 import java.text.SimpleDateFormat;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.TimeUnit;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 /**
@@ -51,10 +51,7 @@ public class ManagerHandler extends BaseContextHandler
 
 	private long sizeDataSets = 0;
 
-	private long totalSentBytes = 0;
-
-	// Buffer holds 1-hour period bandwidth information
-	private Buffer fifo = BufferUtils.synchronizedBuffer( new CircularFifoBuffer( 12 * 60 ) );
+	private final StatisticsHandler statHandler;
 
 	public ManagerHandler(
 			final Server server,
@@ -68,6 +65,7 @@ public class ManagerHandler extends BaseContextHandler
 		super( server, publicDatasetHandlers, privateDatasetHandlers, thumbnailsDirectoryName );
 
 		this.connectorStats = connectorStats;
+		this.statHandler = statHandler;
 		setContextPath( "/" + Constants.MANAGER_CONTEXT_NAME );
 
 		ResourceHandler resHandler = new ResourceHandler();
@@ -75,26 +73,30 @@ public class ManagerHandler extends BaseContextHandler
 		setHandler( resHandler );
 		setWelcomeFiles( new String[] { "index.html" } );
 
-		// Setup the statCollector for collecting statistics in every 5 seconds
-		// Adding the data formed as byte/second
-		final ScheduledExecutorService statCollector = Executors.newSingleThreadScheduledExecutor();
-		statCollector.scheduleAtFixedRate( new Runnable()
-		{
-			@Override public void run()
-			{
-				totalSentBytes += statHandler.getResponsesBytesTotal();
-				fifo.add( new Long( statHandler.getResponsesBytesTotal() / 5 ) );
-				statHandler.statsReset();
-			}
-		}, 0, 5, TimeUnit.SECONDS );
-
+		Metrics.registerGauge( "bdv_connections_open", "Number of open connections.", connectorStats::getConnectionsOpen );
+		Metrics.registerGauge( "bdv_connections_open_max", "Maximum number of open connections.", connectorStats::getConnectionsOpenMax );
+		Metrics.registerGauge( "bdv_messages_out_per_second", "Messages sent per second.", connectorStats::getMessagesOutPerSecond );
 	}
 
 	@Override
 	public void doHandle( final String target, final Request baseRequest, final HttpServletRequest request, final HttpServletResponse response ) throws IOException, ServletException
 	{
 		final String op = request.getParameter( "op" );
+		final long start = System.nanoTime();
+
+		try
+		{
+			dispatch( op, target, baseRequest, request, response );
+		}
+		finally
+		{
+			if ( null != op )
+				Metrics.recordLatency( "manager", "", "", start );
+		}
+	}
 
+	private void dispatch( final String op, final String target, final Request baseRequest, final HttpServletRequest request, final HttpServletResponse response ) throws IOException, ServletException
+	{
 		if ( null != op )
 		{
 			//			System.out.println( request.getParameterMap() );
@@ -124,10 +126,10 @@ public class ManagerHandler extends BaseContextHandler
 			}
 			else if ( op.equals( "getTrafficData" ) )
 			{
-				// Provide json type of one hour traffic information
+				// Provide json type of traffic information
 				final String tf = request.getParameter( "tf" );
 				final int timeFrame = Integer.parseInt( tf );
-				getTraffic( timeFrame, baseRequest, response );
+				getTraffic( timeFrame, request, baseRequest, response );
 			}
 			else if ( op.equals( "getDatasets" ) )
 			{
@@ -150,6 +152,81 @@ public class ManagerHandler extends BaseContextHandler
 			{
 				getUsers( baseRequest, response );
 			}
+			else if ( op.equals( "getClientLimits" ) )
+			{
+				// Provide json type of client limits and the clients seen recently
+				getClientLimits( baseRequest, response );
+			}
+			else if ( op.equals( "setClientLimit" ) )
+			{
+				// Override the limits of a client, without weight the override is removed
+				// Without rate or bandwidth, the client is not limited by them
+				final String client = request.getParameter( "client" );
+				final String weight = request.getParameter( "weight" );
+				final String rate = request.getParameter( "rate" );
+				final String bandwidth = request.getParameter( "bandwidth" );
+
+				final FairShareScheduler.Limit limit;
+				try
+				{
+					if ( null == client )
+						throw new IllegalArgumentException( "no client" );
+
+					limit = null == weight ? null : new FairShareScheduler.Limit(
+							Integer.parseInt( weight ),
+							null == rate ? 0 : Long.parseLong( rate ),
+							null == bandwidth ? 0 : Long.parseLong( bandwidth ) );
+					if ( null != limit && ( limit.getRequestRate() < 0 || limit.getBandwidth() < 0 ) )
+						throw new IllegalArgumentException( "negative rate or bandwidth" );
+				}
+				catch ( final IllegalArgumentException e )
+				{
+					response.sendError( HttpServletResponse.SC_BAD_REQUEST, "Error: invalid client limit, " + e.getMessage() );
+					baseRequest.setHandled( true );
+					return;
+				}
+				FairShareScheduler.getInstance().setLimit( client, limit );
+
+				response.setContentType( "text/html" );
+				response.setStatus( HttpServletResponse.SC_OK );
+				baseRequest.setHandled( true );
+
+				final PrintWriter ow = response.getWriter();
+				ow.write( "Success: " + client + ( null == limit ? " uses the default limits." : " limits updated." ) );
+				ow.close();
+			}
+			else if ( op.equals( "pinLevels" ) )
+			{
+				// Pin the comma separated levels of the dataset in memory, without levels nothing is pinned
+				final String dataset = request.getParameter( "dataset" );
+				final String levels = request.getParameter( "levels" );
+
+				final long datasetId;
+				final Set< Integer > pinned = new HashSet<>();
+				try
+				{
+					if ( null == dataset )
+						throw new IllegalArgumentException( "no dataset" );
+
+					datasetId = Long.parseLong( dataset );
+					if ( null != levels )
+						for ( final String level : levels.split( "," ) )
+							if ( !level.trim().isEmpty() )
+							{
+								final int value = Integer.parseInt( level.trim() );
+								if ( value < 0 )
+									throw new IllegalArgumentException( "negative level " + value );
+								pinned.add( value );
+							}
+				}
+				catch ( final IllegalArgumentException e )
+				{
+					response.sendError( HttpServletResponse.SC_BAD_REQUEST, "Error: invalid pinned levels, " + e.getMessage() );
+					baseRequest.setHandled( true );
+					return;
+				}
+				pinLevels( datasetId, pinned, baseRequest, response );
+			}
 			else if ( op.equals( "updateDS" ) )
 			{
 				// UpdateDS uses x-editable
@@ -324,18 +401,63 @@ public class ManagerHandler extends BaseContextHandler
 		ow.close();
 	}
 
-	private void getTraffic( final int tf, final Request baseRequest, final HttpServletResponse response ) throws IOException
+	/**
+	 * Provide the latest traffic as a json array from the oldest to the newest value.
+	 *
+	 * Parameters:
+	 * <ul>
+	 * <li>tf: the number of values</li>
+	 * <li>res: the resolution "5s" (default), "1m", "1h" or "1d". Datasets and users are kept at "1h" and "1d" only.</li>
+	 * <li>metric: "bytes" (default) given as bytes per second, "requests" or "cells" given as counts per resolution</li>
+	 * <li>dataset or user: the dataset index or the user id, the whole server traffic if neither is given</li>
+	 * </ul>
+	 */
+	private void getTraffic( final int tf, final HttpServletRequest request, final Request baseRequest, final HttpServletResponse response ) throws IOException
 	{
+		final long resolution = getResolution( request.getParameter( "res" ) );
+		final String metricParam = request.getParameter( "metric" );
+		final int metric = "requests".equals( metricParam ) ? TrafficStatistics.REQUESTS : "cells".equals( metricParam ) ? TrafficStatistics.CELLS : TrafficStatistics.BYTES;
+
+		final String dataSet = request.getParameter( "dataset" );
+		final String userId = request.getParameter( "user" );
+
+		final long[] values;
+		if ( null != dataSet )
+			values = TrafficStatistics.getInstance().getDataSet( dataSet, resolution, metric, tf );
+		else if ( null != userId )
+			values = TrafficStatistics.getInstance().getUser( userId, resolution, metric, tf );
+		else
+			values = TrafficStatistics.getInstance().getTotal( resolution, metric, tf );
+
+		baseRequest.setHandled( true );
+
+		if ( null == values )
+		{
+			response.sendError( HttpServletResponse.SC_BAD_REQUEST, "The resolution is not kept for datasets and users" );
+			return;
+		}
+
 		response.setContentType( "application/json" );
 		response.setStatus( HttpServletResponse.SC_OK );
-		baseRequest.setHandled( true );
 
 		final PrintWriter ow = response.getWriter();
-		getJsonTrafficData( tf, ow );
+		getJsonTrafficData( values, metric == TrafficStatistics.BYTES ? resolution / 1000 : 1, ow );
 		ow.close();
 	}
 
-	private void getJsonTrafficData( final int tf, final PrintWriter out ) throws IOException
+	private static long getResolution( final String res )
+	{
+		if ( "1m".equals( res ) )
+			return TrafficStatistics.MINUTE;
+		else if ( "1h".equals( res ) )
+			return TrafficStatistics.HOUR;
+		else if ( "1d".equals( res ) )
+			return TrafficStatistics.DAY;
+		else
+			return TrafficStatistics.RESOLUTIONS[ 0 ];
+	}
+
+	private void getJsonTrafficData( final long[] values, final long divisor, final PrintWriter out ) throws IOException
 	{
 		final JsonWriter writer = new JsonWriter( out );
 
@@ -343,26 +465,8 @@ public class ManagerHandler extends BaseContextHandler
 
 		writer.beginArray();
 
-		Long[] dest = new Long[ tf ];
-
-		Long[] src = ( Long[] ) fifo.toArray( new Long[ 1 ] );
-
-		if ( dest.length > src.length )
-		{
-			System.arraycopy( src, 0, dest, dest.length - src.length, src.length );
-		}
-		else
-		{
-			System.arraycopy( src, src.length - dest.length, dest, 0, dest.length );
-		}
-
-		for ( int i = 0; i < dest.length; i++ )
-		{
-			if ( null == dest[ i ] )
-				writer.value( 0 );
-			else
-				writer.value( dest[ i ] );
-		}
+		for ( long value : values )
+			writer.value( value / divisor );
 
 		writer.endArray();
 
@@ -428,16 +532,37 @@ public class ManagerHandler extends BaseContextHandler
 
 		final PrintWriter ow = response.getWriter();
 
-		final STGroup g = new STRawGroupDir( "templates", '$', '$' );
-		final ST t = g.getInstanceOf( "serverInfo" );
+		final ST t = Render.getTemplates().getInstanceOf( "serverInfo" );
 
-		t.add( "bytesSent", getByteSizeString( totalSentBytes ) );
+		t.add( "bytesSent", getByteSizeString( statHandler.getResponsesBytesTotal() ) );
 		t.add( "msgPerSec", connectorStats.getMessagesOutPerSecond() );
 		t.add( "openConnections", connectorStats.getConnectionsOpen() );
 		t.add( "maxOpenConnections", connectorStats.getConnectionsOpenMax() );
 		t.add( "noDataSets", noDataSets );
 		t.add( "sizeDataSets", getByteSizeString( sizeDataSets ) );
 
+		// Memory of the cell caches and the pinned levels per dataset
+		final MemoryGovernor governor = MemoryGovernor.getInstance();
+		long pinnedBytes = 0;
+		for ( final Handler handler : server.getChildHandlersByClass( CellHandler.class ) )
+		{
+			final CellHandler contextHandler = ( CellHandler ) handler;
+			final PinnedCells pinned = contextHandler.getPinnedCells();
+			final long cacheBytes = governor.getBytes( contextHandler );
+			if ( cacheBytes > 0 || pinned.getBytes() > 0 )
+			{
+				t.addAggr( "memory.{name, cache, levels, pinned}", contextHandler.getDataSet().getName(),
+						getByteSizeString( cacheBytes ),
+						pinned.getLevels().stream().map( String::valueOf ).collect( Collectors.joining( "," ) ),
+						getByteSizeString( pinned.getBytes() ) );
+			}
+			pinnedBytes += pinned.getBytes();
+		}
+		t.add( "cacheSize", getByteSizeString( governor.getBytes() ) );
+		t.add( "cacheBudget", getByteSizeString( governor.getBudget() ) );
+		t.add( "cacheEvictions", governor.getEvictions() );
+		t.add( "pinnedSize", getByteSizeString( pinnedBytes ) );
+
 		ow.write( t.render() );
 		ow.close();
 	}
@@ -457,6 +582,12 @@ public class ManagerHandler extends BaseContextHandler
 				try
 				{
 					contextHandler.setActive( activated.equals( "true" ) );
+
+					// Inactive datasets are not searchable
+					if ( contextHandler.isActive() )
+						DataSetIndex.getInstance().add( contextHandler.getDataSet() );
+					else
+						DataSetIndex.getInstance().remove( contextHandler.getDataSet().getIndex() );
 				}
 				catch ( SpimDataException e )
 				{
@@ -491,9 +622,87 @@ public class ManagerHandler extends BaseContextHandler
 
 				ManagerController.updateDataSet( dataSet );
 
+				DataSetIndex.getInstance().update( dataSet );
+
+				break;
+			}
+		}
+	}
+
+	private void pinLevels( final long datasetId, final Set< Integer > pinned, final Request baseRequest, final HttpServletResponse response ) throws IOException
+	{
+		response.setContentType( "text/html" );
+		response.setStatus( HttpServletResponse.SC_OK );
+		baseRequest.setHandled( true );
+
+		String result = "Error: no dataset " + datasetId;
+		for ( final Handler handler : server.getChildHandlersByClass( CellHandler.class ) )
+		{
+			final CellHandler contextHandler = ( CellHandler ) handler;
+			if ( contextHandler.getDataSet().getIndex() == datasetId )
+			{
+				contextHandler.getPinnedCells().setLevels( pinned );
+
+				// Load the newly pinned levels
+				if ( contextHandler.isActive() )
+					CacheWarmer.getInstance().submit( contextHandler );
+
+				result = "Success: pinned levels " + contextHandler.getPinnedCells().getLevels() + " of " + contextHandler.getDataSet().getName();
 				break;
 			}
 		}
+
+		final PrintWriter ow = response.getWriter();
+		ow.write( result );
+		ow.close();
+	}
+
+	private void getClientLimits( final Request baseRequest, final HttpServletResponse response ) throws IOException
+	{
+		response.setContentType( "application/json" );
+		response.setStatus( HttpServletResponse.SC_OK );
+		baseRequest.setHandled( true );
+
+		final PrintWriter ow = response.getWriter();
+		final JsonWriter writer = new JsonWriter( ow );
+
+		writer.setIndent( "\t" );
+
+		writer.beginObject();
+
+		writer.name( "overrides" );
+		writer.beginArray();
+		for ( final Map.Entry< String, FairShareScheduler.Limit > entry : FairShareScheduler.getInstance().getOverrides().entrySet() )
+		{
+			writer.beginObject();
+			writer.name( "client" ).value( entry.getKey() );
+			writer.name( "weight" ).value( entry.getValue().getWeight() );
+			writer.name( "rate" ).value( entry.getValue().getRequestRate() );
+			writer.name( "bandwidth" ).value( entry.getValue().getBandwidth() );
+			writer.endObject();
+		}
+		writer.endArray();
+
+		writer.name( "clients" );
+		writer.beginArray();
+		for ( final FairShareScheduler.Client client : FairShareScheduler.getInstance().getClients() )
+		{
+			final FairShareScheduler.Limit limit = FairShareScheduler.getInstance().getLimit( client.getId() );
+			writer.beginObject();
+			writer.name( "client" ).value( client.getId() );
+			writer.name( "inFlight" ).value( client.getInFlight() );
+			writer.name( "weight" ).value( limit.getWeight() );
+			writer.name( "rate" ).value( limit.getRequestRate() );
+			writer.name( "bandwidth" ).value( limit.getBandwidth() );
+			writer.endObject();
+		}
+		writer.endArray();
+
+		writer.endObject();
+
+		writer.flush();
+
+		writer.close();
 	}
 
 	private void getUsers( final Request baseRequest, final HttpServletResponse response ) throws IOException
@@ -0,0 +1,353 @@
+package bdv.server;
+
+import bdv.metrics.Metrics;
+import org.eclipse.jetty.util.log.Log;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * MemoryGovernor keeps the cell caches of all {@link CellHandler}s within one server-wide memory budget.
+ *
+ * Every handler has its own cache, so the governor accounts the bytes of the cells resident in each of them. A loaded
+ * cell is charged to its handler and weakly referenced; when the cache releases the softly referenced cell and the
+ * garbage collector takes it, its bytes are returned. When the caches and the pinned cells exceed the budget together,
+ * the cache of the coldest other dataset is cleared, until the budget is kept again. The coldness combines recency and
+ * frequency: every request adds one to the score of its dataset, and the score halves every half-life without requests.
+ * Only the requests of the clients are scored, the cells loaded by the warm-up or in the background are charged without
+ * making their dataset look hot.
+ * The cache of the dataset being charged is never cleared for its own cells, it is left to the garbage collector.
+ *
+ * The governor is configured by system properties:
+ * <ul>
+ * <li>bdv.memory.budget: the budget in MB (default half of the maximum heap)</li>
+ * <li>bdv.memory.halfLife: the half-life of the dataset scores in seconds (default 60)</li>
+ * </ul>
+ *
+ * Author: HongKee Moon (moon@mpi-cbg.de), Scientific Computing Facility
+ * Organization: MPI-CBG Dresden
+ * Date: October 2026
+ */
+public class MemoryGovernor
+{
+	private static final org.eclipse.jetty.util.log.Logger LOG = Log.getLogger( MemoryGovernor.class );
+
+	private static final MemoryGovernor instance = new MemoryGovernor(
+			Long.getLong( "bdv.memory.budget", Runtime.getRuntime().maxMemory() >> 21 ) << 20,
+			Long.getLong( "bdv.memory.halfLife", 60 ) );
+
+	private final long budget;
+
+	private final double halfLifeNanos;
+
+	private final Map< CellHandler, Usage > usages = new ConcurrentHashMap<>();
+
+	/**
+	 * Bytes of the cells resident in all caches
+	 */
+	private final AtomicLong bytes = new AtomicLong();
+
+	/**
+	 * The charged cells, until the garbage collector takes them
+	 */
+	private final Set< CellReference > cells = Collections.newSetFromMap( new ConcurrentHashMap<>() );
+
+	private final ReferenceQueue< short[] > released = new ReferenceQueue<>();
+
+	/**
+	 * Bytes of the pinned cells of all datasets, refreshed every second
+	 */
+	private volatile long pinnedBytes;
+
+	private final ReentrantLock evicting = new ReentrantLock();
+
+	private final AtomicLong evictions = new AtomicLong();
+
+	public static MemoryGovernor getInstance()
+	{
+		return instance;
+	}
+
+	MemoryGovernor( final long budget, final long halfLifeSeconds )
+	{
+		this.budget = budget;
+		this.halfLifeNanos = TimeUnit.SECONDS.toNanos( halfLifeSeconds );
+
+		final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor( r -> {
+			final Thread t = new Thread( r, "MemoryGovernor" );
+			t.setDaemon( true );
+			return t;
+		} );
+		scheduler.scheduleWithFixedDelay( () -> {
+			pollReleased();
+			updatePinnedBytes();
+		}, 1, 1, TimeUnit.SECONDS );
+
+		Metrics.registerGauge( "bdv_cache_bytes", "Bytes of the cells resident in the cell caches of all datasets.", bytes::get );
+		Metrics.registerGauge( "bdv_cache_budget_bytes", "Memory budget of the cell caches.", this::getBudget );
+		Metrics.registerCounter( "bdv_cache_evictions_total", "Cell caches cleared to keep the memory budget.", evictions::get );
+	}
+
+	/**
+	 * Start accounting the cache of the handler
+	 */
+	public void register( final CellHandler handler )
+	{
+		usages.putIfAbsent( handler, new Usage() );
+	}
+
+	/**
+	 * Stop accounting the cache of the handler, e.g. when it is removed
+	 */
+	public void unregister( final CellHandler handler )
+	{
+		final Usage usage = usages.remove( handler );
+		if ( null != usage )
+			bytes.addAndGet( -usage.reset() );
+	}
+
+	/**
+	 * Score a cell request of a client to the handler, whether it is served from the cache or loaded
+	 */
+	public void touch( final CellHandler handler )
+	{
+		final Usage usage = usages.get( handler );
+		if ( null != usage )
+			usage.touch();
+	}
+
+	/**
+	 * Account a cell loaded into the cache of the handler until the garbage collector takes it, and evict the coldest
+	 * caches of the other handlers if the budget is exceeded. The charge does not score the handler, the requests are
+	 * scored by {@link #touch(CellHandler)}.
+	 * @param data the pixels of the cell as held by the cache
+	 */
+	public void charge( final CellHandler handler, final short[] data )
+	{
+		final Usage usage = usages.get( handler );
+		if ( null == usage )
+			return;
+
+		pollReleased();
+
+		final long cellBytes = 2L * data.length;
+		cells.add( new CellReference( data, usage, cellBytes, usage.charge( cellBytes ), released ) );
+		if ( this.bytes.addAndGet( cellBytes ) + pinnedBytes > budget )
+			evict( handler );
+	}
+
+	/**
+	 * Account a change of a cache which evicts on its own, e.g. the memory cache of a {@link ProxyCellHandler}, and
+	 * evict the coldest caches of the other handlers if the budget is exceeded
+	 * @param change the bytes added to the cache, negative if it evicted more than it added
+	 */
+	public void account( final CellHandler handler, final long change )
+	{
+		final Usage usage = usages.get( handler );
+		if ( null == usage )
+			return;
+
+		usage.charge( change );
+		if ( this.bytes.addAndGet( change ) + pinnedBytes > budget && change > 0 )
+			evict( handler );
+	}
+
+	/**
+	 * Account that the cache of the handler was emptied, e.g. by a deactivation
+	 */
+	public void cleared( final CellHandler handler )
+	{
+		final Usage usage = usages.get( handler );
+		if ( null != usage )
+			bytes.addAndGet( -usage.reset() );
+	}
+
+	public long getBudget()
+	{
+		return budget;
+	}
+
+	/**
+	 * @return the bytes of the cells resident in all caches
+	 */
+	public long getBytes()
+	{
+		return bytes.get();
+	}
+
+	/**
+	 * @return the bytes of the cells resident in the cache of the handler
+	 */
+	public long getBytes( final CellHandler handler )
+	{
+		final Usage usage = usages.get( handler );
+		return null == usage ? 0 : usage.getBytes();
+	}
+
+	public long getEvictions()
+	{
+		return evictions.get();
+	}
+
+	/**
+	 * Clear the caches of the coldest datasets until the budget is kept, unless another thread does already
+	 * @param charged the handler being charged, whose cache is not cleared
+	 */
+	private void evict( final CellHandler charged )
+	{
+		if ( !evicting.tryLock() )
+			return;
+
+		try
+		{
+			final long now = System.nanoTime();
+			while ( bytes.get() + pinnedBytes > budget )
+			{
+				CellHandler coldest = null;
+				double coldestScore = Double.MAX_VALUE;
+				for ( final Map.Entry< CellHandler, Usage > entry : usages.entrySet() )
+				{
+					final Usage usage = entry.getValue();
+					if ( usage.getBytes() == 0 || entry.getKey() == charged )
+						continue;
+
+					final double score = usage.getScore( now );
+					if ( score < coldestScore )
+					{
+						coldest = entry.getKey();
+						coldestScore = score;
+					}
+				}
+
+				if ( null == coldest )
+					break;
+
+				coldest.clearCache();
+				cleared( coldest );
+				evictions.incrementAndGet();
+				LOG.info( "Cleared the cell cache of dataset " + coldest.getDataSet().getIndex() + " to keep the memory budget" );
+			}
+		}
+		finally
+		{
+			evicting.unlock();
+		}
+	}
+
+	/**
+	 * Return the bytes of the cells taken by the garbage collector
+	 */
+	void pollReleased()
+	{
+		CellReference cell;
+		while ( null != ( cell = ( CellReference ) released.poll() ) )
+		{
+			cells.remove( cell );
+			if ( cell.usage.release( cell.bytes, cell.generation ) )
+				bytes.addAndGet( -cell.bytes );
+		}
+	}
+
+	private void updatePinnedBytes()
+	{
+		long sum = 0;
+		for ( final CellHandler handler : usages.keySet() )
+			sum += handler.getPinnedCells().getBytes();
+		pinnedBytes = sum;
+	}
+
+	/**
+	 * Weak reference to the pixels of a charged cell
+	 */
+	private static class CellReference extends WeakReference< short[] >
+	{
+		final Usage usage;
+
+		final long bytes;
+
+		/**
+		 * The cell is not returned to a usage reset after it was charged
+		 */
+		final long generation;
+
+		CellReference( final short[] data, final Usage usage, final long bytes, final long generation, final ReferenceQueue< short[] > queue )
+		{
+			super( data, queue );
+			this.usage = usage;
+			this.bytes = bytes;
+			this.generation = generation;
+		}
+	}
+
+	/**
+	 * Bytes and score of one cache
+	 */
+	private class Usage
+	{
+		private long bytes;
+
+		private long generation;
+
+		private double score;
+
+		private long lastAccess = System.nanoTime();
+
+		synchronized void touch()
+		{
+			final long now = System.nanoTime();
+			score = getScore( now ) + 1;
+			lastAccess = now;
+		}
+
+		/**
+		 * @return the generation of the charged cell
+		 */
+		synchronized long charge( final long loaded )
+		{
+			bytes += loaded;
+			return generation;
+		}
+
+		/**
+		 * Return the bytes of a cell taken by the garbage collector
+		 * @return false if the usage was reset after the cell was charged
+		 */
+		synchronized boolean release( final long released, final long cellGeneration )
+		{
+			if ( cellGeneration != generation )
+				return false;
+			bytes -= released;
+			return true;
+		}
+
+		synchronized double getScore( final long now )
+		{
+			return score * Math.pow( 0.5, ( now - lastAccess ) / halfLifeNanos );
+		}
+
+		synchronized long getBytes()
+		{
+			return bytes;
+		}
+
+		/**
+		 * @return the bytes before the reset
+		 */
+		synchronized long reset()
+		{
+			final long b = bytes;
+			bytes = 0;
+			++generation;
+			return b;
+		}
+	}
+}
@@ -0,0 +1,43 @@
+package bdv.server;
+
+import bdv.metrics.Metrics;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.handler.ContextHandler;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+
+/**
+ * Provides the {@link Metrics} of this {@link BigDataServer} in the Prometheus text exposition format
+ *
+ * The metrics are labeled with the dataset ids, including the private ones. {@link BigDataServer} requires the
+ * manager credentials over HTTPS for this context like for the manager context, so the scraper needs basic_auth.
+ *
+ * Author: HongKee Moon (moon@mpi-cbg.de), Scientific Computing Facility
+ * Organization: MPI-CBG Dresden
+ * Date: October 2026
+ */
+public class MetricsHandler extends ContextHandler
+{
+	public MetricsHandler( final String contextPath )
+	{
+		setContextPath( contextPath );
+	}
+
+	@Override
+	public void doHandle( final String target, final Request baseRequest, final HttpServletRequest request, final HttpServletResponse response ) throws IOException, ServletException
+	{
+		response.setContentType( "text/plain; version=0.0.4" );
+		response.setCharacterEncoding( "UTF-8" );
+		response.setStatus( HttpServletResponse.SC_OK );
+		baseRequest.setHandled( true );
+
+		final PrintWriter ow = response.getWriter();
+		Metrics.write( ow );
+		ow.close();
+	}
+}
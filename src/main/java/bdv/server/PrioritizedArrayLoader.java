@@ -0,0 +1,45 @@
+package bdv.server;
+
+import bdv.img.cache.CacheArrayLoader;
+import net.imglib2.img.basictypeaccess.volatiles.VolatileAccess;
+
+/**
+ * CacheArrayLoader wrapper passing every load through the {@link PriorityGate}, so coarse levels are loaded ahead of
+ * queued full-resolution cells
+ *
+ * Author: HongKee Moon (moon@mpi-cbg.de), Scientific Computing Facility
+ * Organization: MPI-CBG Dresden
+ * Date: October 2026
+ */
+public class PrioritizedArrayLoader< A extends VolatileAccess > implements CacheArrayLoader< A >
+{
+	private final CacheArrayLoader< A > loader;
+
+	private final PriorityGate gate;
+
+	public PrioritizedArrayLoader( final CacheArrayLoader< A > loader, final PriorityGate gate )
+	{
+		this.loader = loader;
+		this.gate = gate;
+	}
+
+	@Override
+	public int getBytesPerElement()
+	{
+		return loader.getBytesPerElement();
+	}
+
+	@Override
+	public A loadArray( final int timepoint, final int setup, final int level, final int[] dimensions, final long[] min ) throws InterruptedException
+	{
+		gate.acquire( level );
+		try
+		{
+			return loader.loadArray( timepoint, setup, level, dimensions, min );
+		}
+		finally
+		{
+			gate.release();
+		}
+	}
+}
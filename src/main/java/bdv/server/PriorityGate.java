@@ -0,0 +1,215 @@
+package bdv.server;
+
+import bdv.metrics.Metrics;
+
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * PriorityGate bounds the number of cells loaded from the image files at once and grants the waiting loads in
+ * earliest-deadline-first order.
+ *
+ * The deadline of a load is its arrival time plus a slack which halves with every mipmap level, so coarse levels,
+ * which BigDataViewer needs first to show a usable image, overtake queued full-resolution loads. Since the deadline is
+ * fixed at arrival, a waiting fine-level load eventually precedes newly arriving coarse loads and cannot starve.
+ *
+ * Cells found in the cache and the metadata requests never pass the gate. Background loads, like the cache warm-up,
+ * only start while the gate is idle.
+ *
+ * The gate is configured by system properties:
+ * <ul>
+ * <li>bdv.server.maxConcurrentLoads: cells loaded at once (default: number of processors)</li>
+ * <li>bdv.server.loadSlack: slack of a level-0 load in milliseconds (default 500)</li>
+ * </ul>
+ *
+ * Author: HongKee Moon (moon@mpi-cbg.de), Scientific Computing Facility
+ * Organization: MPI-CBG Dresden
+ * Date: October 2026
+ */
+public class PriorityGate
+{
+	private static final PriorityGate instance = new PriorityGate(
+			Integer.getInteger( "bdv.server.maxConcurrentLoads", Runtime.getRuntime().availableProcessors() ),
+			Long.getLong( "bdv.server.loadSlack", 500 ) );
+
+	private final long slackNanos;
+
+	/**
+	 * Source of the arrival times in nanoseconds
+	 */
+	private final LongSupplier clock;
+
+	private final ReentrantLock lock = new ReentrantLock();
+
+	private final PriorityQueue< Waiter > waiters = new PriorityQueue<>();
+
+	private final int maxPermits;
+
+	private int permits;
+
+	private int active;
+
+	public static PriorityGate getInstance()
+	{
+		return instance;
+	}
+
+	PriorityGate( final int permits, final long slackMillis )
+	{
+		this( permits, slackMillis, System::nanoTime );
+	}
+
+	PriorityGate( final int permits, final long slackMillis, final LongSupplier clock )
+	{
+		this.clock = clock;
+		this.maxPermits = permits;
+		this.permits = permits;
+		this.slackNanos = TimeUnit.MILLISECONDS.toNanos( slackMillis );
+
+		Metrics.registerGauge( "bdv_loads_active", "Cells being loaded from the image files.", this::getActive );
+		Metrics.registerGauge( "bdv_loads_queued", "Cell loads waiting for the priority gate.", this::getQueued );
+	}
+
+	/**
+	 * Wait until the load of a cell of the given level may start, {@link #release()} must be called after the load
+	 */
+	public void acquire( final int level ) throws InterruptedException
+	{
+		lock.lock();
+		try
+		{
+			if ( permits > 0 && waiters.isEmpty() )
+			{
+				permits--;
+				active++;
+				return;
+			}
+
+			final Waiter waiter = new Waiter( clock.getAsLong() + ( slackNanos >> Math.min( level, 30 ) ), lock.newCondition() );
+			waiters.add( waiter );
+
+			try
+			{
+				while ( !waiter.granted )
+					waiter.condition.await();
+			}
+			catch ( InterruptedException e )
+			{
+				if ( waiter.granted )
+					releaseLocked();
+				else
+					waiters.remove( waiter );
+				throw e;
+			}
+		}
+		finally
+		{
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Start a background load only if no load is waiting and a permit is left over for the next request
+	 * @return true if the load may start, {@link #release()} must be called after the load
+	 */
+	public boolean tryAcquireIdle()
+	{
+		lock.lock();
+		try
+		{
+			if ( permits > ( maxPermits > 1 ? 1 : 0 ) && waiters.isEmpty() )
+			{
+				permits--;
+				active++;
+				return true;
+			}
+			return false;
+		}
+		finally
+		{
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Release the gate after a load, the waiter with the earliest deadline may start
+	 */
+	public void release()
+	{
+		lock.lock();
+		try
+		{
+			releaseLocked();
+		}
+		finally
+		{
+			lock.unlock();
+		}
+	}
+
+	public int getActive()
+	{
+		lock.lock();
+		try
+		{
+			return active;
+		}
+		finally
+		{
+			lock.unlock();
+		}
+	}
+
+	public int getQueued()
+	{
+		lock.lock();
+		try
+		{
+			return waiters.size();
+		}
+		finally
+		{
+			lock.unlock();
+		}
+	}
+
+	private void releaseLocked()
+	{
+		final Waiter next = waiters.poll();
+		if ( null == next )
+		{
+			permits++;
+			active--;
+		}
+		else
+		{
+			// The permit is handed over, active stays the same
+			next.granted = true;
+			next.condition.signal();
+		}
+	}
+
+	private static class Waiter implements Comparable< Waiter >
+	{
+		final long deadline;
+
+		final Condition condition;
+
+		boolean granted;
+
+		Waiter( final long deadline, final Condition condition )
+		{
+			this.deadline = deadline;
+			this.condition = condition;
+		}
+
+		@Override
+		public int compareTo( final Waiter o )
+		{
+			return Long.compare( deadline - o.deadline, 0 );
+		}
+	}
+}
@@ -0,0 +1,677 @@
+package bdv.server;
+
+import bdv.model.DataSet;
+import bdv.server.cache.DeltaCache;
+import bdv.server.cache.DiskCellCache;
+import bdv.server.cache.RenderCache;
+import bdv.server.jfr.CellRequestEvent;
+import bdv.server.store.DataType;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.util.log.Log;
+import org.jdom2.Document;
+import org.jdom2.Element;
+import org.jdom2.JDOMException;
+import org.jdom2.filter.Filters;
+import org.jdom2.input.SAXBuilder;
+import org.jdom2.output.Format;
+import org.jdom2.output.XMLOutputter;
+
+import javax.servlet.http.HttpServletResponse;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * ProxyCellHandler serves a dataset of another BigDataServer, so a server at a remote site can act as a caching edge node.
+ *
+ * A dataset is proxied when its XML path is the http(s) url of a dataset on the upstream server, e.g.
+ * "http://central:8080/public/dataset/id/5/". The dataset XML, the metadata, the settings and the thumbnail are fetched
+ * once when the handler is created, and the baseUrl of the XML is rewritten to point to this server. Cells are served as
+ * the upstream encoded them: from a memory LRU cache, then from the disk cache, and only on a miss from the upstream.
+ * Concurrent misses of the same cell share one upstream request. Rendered slices are fetched from the upstream.
+ *
+ * The memory caches are accounted by the {@link MemoryGovernor}. The disk cache is a {@link DiskCellCache} shared by
+ * the proxied datasets. The cached cells are dropped when the upstream dataset changed: its dataset XML, its metadata
+ * or the ETag sent with the metadata, which changes with the files of an HDF5 dataset. The upstream dataset is checked
+ * again by a cell request after the revalidation interval. An upstream without ETag, e.g. of a chunked dataset, cannot
+ * tell whether its cells changed, so they expire at the end of every cell time-to-live period.
+ * A dataset whose upstream cannot be reached when the server starts is skipped, see {@link #tryCreate}.
+ *
+ * The caches are configured by system properties:
+ * <ul>
+ * <li>bdv.proxy.memoryCache: size of the memory cache of every proxied dataset in megabytes (default 256)</li>
+ * <li>bdv.proxy.cacheDir: directory of the disk cache, kept over restarts (default etc/proxy-cache, suffixed with the
+ * node id in cluster mode)</li>
+ * <li>bdv.proxy.cacheSize: size of the disk cache in megabytes (default 10240)</li>
+ * <li>bdv.proxy.revalidate: seconds between the checks of the upstream dataset (default 60)</li>
+ * <li>bdv.proxy.cellTtl: seconds the cells of an upstream without ETag are cached (default 3600)</li>
+ * </ul>
+ *
+ * Author: HongKee Moon (moon@mpi-cbg.de), Scientific Computing Facility
+ * Organization: MPI-CBG Dresden
+ * Date: October 2026
+ */
+public class ProxyCellHandler extends CellHandler
+{
+	private static final org.eclipse.jetty.util.log.Logger LOG = Log.getLogger( ProxyCellHandler.class );
+
+	private static final long MEMORY_CACHE_BYTES = Long.getLong( "bdv.proxy.memoryCache", 256 ) << 20;
+
+	private static String cacheDirectory = System.getProperty( "bdv.proxy.cacheDir", "etc/proxy-cache" );
+
+	private static final long CACHE_BYTES = Long.getLong( "bdv.proxy.cacheSize", 10240 ) << 20;
+
+	private static DiskCellCache diskCache;
+
+	private static boolean diskCacheOpened;
+
+	private static final long REVALIDATE_NANOS = TimeUnit.SECONDS.toNanos( Long.getLong( "bdv.proxy.revalidate", 60 ) );
+
+	private static final long CELL_TTL_MILLIS = Math.max( 1, TimeUnit.SECONDS.toMillis( Long.getLong( "bdv.proxy.cellTtl", 3600 ) ) );
+
+	private static final int TIMEOUT_MILLIS = 30000;
+
+	/**
+	 * Cell paths are forwarded to the upstream and used as file names, so only digits are accepted
+	 */
+	private static final Pattern CELL_PATH = Pattern.compile( "^cell(/\\d+){10}$" );
+
+	/**
+	 * Dataset url of the upstream server ending with "/"
+	 */
+	private final String upstreamUrl;
+
+	private final MemoryCache memoryCache = new MemoryCache( MEMORY_CACHE_BYTES );
+
+	/**
+	 * Fingerprint of the upstream dataset, see {@link UpstreamDataSet#getFingerprint()}. The disk cache drops the cells
+	 * of other fingerprints.
+	 */
+	private volatile long fingerprint;
+
+	private final AtomicLong lastValidation = new AtomicLong( System.nanoTime() );
+
+	private final ConcurrentHashMap< String, CompletableFuture< byte[] > > pending = new ConcurrentHashMap<>();
+
+	/**
+	 * @param baseUrl the url of the dataset on this server, written into the dataset XML
+	 * @param dataSet the dataset, its XML path is the dataset url on the upstream server
+	 * @param thumbnailsDirectory the directory the upstream thumbnail is stored in
+	 */
+	public ProxyCellHandler( final String baseUrl, final DataSet dataSet, final String thumbnailsDirectory ) throws IOException
+	{
+		this( baseUrl, dataSet, thumbnailsDirectory, withSlash( dataSet.getXmlPath() ) );
+	}
+
+	private ProxyCellHandler( final String baseUrl, final DataSet dataSet, final String thumbnailsDirectory, final String upstreamUrl ) throws IOException
+	{
+		this( baseUrl, dataSet, thumbnailsDirectory, upstreamUrl, UpstreamDataSet.fetch( upstreamUrl ) );
+	}
+
+	private ProxyCellHandler( final String baseUrl, final DataSet dataSet, final String thumbnailsDirectory, final String upstreamUrl, final UpstreamDataSet upstream ) throws IOException
+	{
+		super( baseUrl, dataSet,
+				rewriteBaseUrl( upstream.xml, baseUrl ),
+				withoutDataTypes( upstream.metadata ),
+				fetchSettings( upstreamUrl ),
+				fetchThumbnail( upstreamUrl, thumbnailsDirectory + "/" + dataSet.getName() + ".png" ) );
+
+		this.upstreamUrl = upstreamUrl;
+		this.fingerprint = upstream.getFingerprint();
+
+		LOG.info( "Proxy " + upstreamUrl + " on " + baseUrl );
+	}
+
+	/**
+	 * Create the handler of a proxied dataset, so an upstream which cannot be reached does not stop the server from starting
+	 * @return the handler, null if the upstream cannot be reached
+	 */
+	public static ProxyCellHandler tryCreate( final String baseUrl, final DataSet dataSet, final String thumbnailsDirectory )
+	{
+		try
+		{
+			return new ProxyCellHandler( baseUrl, dataSet, thumbnailsDirectory );
+		}
+		catch ( final IOException e )
+		{
+			LOG.warn( "Skipped dataset \"" + dataSet.getName() + "\", its upstream " + dataSet.getXmlPath() + " cannot be reached: " + e.getMessage() );
+			return null;
+		}
+	}
+
+	@Override
+	protected void doStart() throws Exception
+	{
+		super.doStart();
+		MemoryGovernor.getInstance().register( this );
+	}
+
+	/**
+	 * Remove the cells from the memory cache, the disk cache is kept
+	 */
+	@Override
+	public void clearCache()
+	{
+		memoryCache.clear();
+	}
+
+	/**
+	 * @return true if the dataset XML path is the url of a dataset on another server
+	 */
+	public static boolean isRemote( final String xmlPath )
+	{
+		return xmlPath.startsWith( "http://" ) || xmlPath.startsWith( "https://" );
+	}
+
+	@Override
+	protected boolean provideCell( final String[] parts, final Request baseRequest, final HttpServletResponse response ) throws IOException
+	{
+		final CellRequestEvent event = new CellRequestEvent();
+		event.begin();
+
+		final String path = String.join( "/", parts );
+		if ( !CELL_PATH.matcher( path ).matches() )
+		{
+			response.sendError( HttpServletResponse.SC_BAD_REQUEST );
+			baseRequest.setHandled( true );
+			return false;
+		}
+
+		final CellRequest cellRequest = CellRequest.parse( parts );
+		final CellEncoding encoding;
+		final int reference;
+		try
+		{
+			encoding = CellEncoding.fromParameter( baseRequest.getParameter( "enc" ) );
+			reference = getDeltaReference( baseRequest, cellRequest, encoding );
+		}
+		catch ( final IllegalArgumentException e )
+		{
+			response.sendError( HttpServletResponse.SC_BAD_REQUEST, e.getMessage() );
+			baseRequest.setHandled( true );
+			return false;
+		}
+
+		MemoryGovernor.getInstance().touch( this );
+		revalidate();
+
+		boolean hit = true;
+		byte[] buf = getCachedCell( path );
+		byte[] delta = null;
+		try
+		{
+			if ( reference >= 0 )
+			{
+				// The deltas are computed from the cached cells like on the upstream
+				final String deltaKey = getDeltaKey( cellRequest, reference );
+				delta = DeltaCache.getInstance().get( getDataSet().getIndex(), deltaKey );
+				if ( null == delta )
+				{
+					final String[] referenceParts = parts.clone();
+					referenceParts[ 2 ] = Integer.toString( reference );
+					final String referencePath = String.join( "/", referenceParts );
+					final byte[] referenceBuf = getCachedCell( referencePath );
+					hit = null != buf && null != referenceBuf;
+					delta = CellDelta.encode( null == referenceBuf ? fetchCell( referencePath ) : referenceBuf, null == buf ? fetchCell( path ) : buf );
+					DeltaCache.getInstance().put( getDataSet().getIndex(), deltaKey, delta );
+				}
+			}
+			else if ( null == buf )
+			{
+				hit = false;
+				buf = fetchCell( path );
+			}
+		}
+		catch ( final IOException e )
+		{
+			LOG.warn( "Upstream request failed: " + e.getMessage() );
+			response.sendError( HttpServletResponse.SC_BAD_GATEWAY );
+			baseRequest.setHandled( true );
+			return false;
+		}
+
+		if ( null != delta )
+		{
+			writeDelta( baseRequest, response, reference, delta );
+			return hit;
+		}
+
+		// The cells are cached as fetched and encoded for every request
+		if ( null != encoding )
+			buf = encoding.encode( buf, DataType.UINT16, cellRequest.cellDims[ 0 ] * cellRequest.cellDims[ 1 ] * cellRequest.cellDims[ 2 ], getDisplayRange( cellRequest.setup ), response );
+
+		response.setContentType( "application/octet-stream" );
+		response.setContentLength( buf.length );
+		response.setStatus( HttpServletResponse.SC_OK );
+		baseRequest.setHandled( true );
+		final OutputStream os = response.getOutputStream();
+		os.write( buf );
+		os.close();
+
+		if ( event.shouldCommit() )
+		{
+			event.dataSet = getDataSet().getIndex();
+			event.timepoint = cellRequest.timepoint;
+			event.setup = cellRequest.setup;
+			event.level = cellRequest.level;
+			event.cacheHit = hit;
+			event.bytes = buf.length;
+			event.commit();
+		}
+
+		return hit;
+	}
+
+	/**
+	 * Slices are rendered by the upstream, which has the image data
+	 */
+	@Override
+	protected byte[] render( final RenderRequest renderRequest ) throws IOException
+	{
+		return fetch( upstreamUrl + "render?" + renderRequest.getQuery() );
+	}
+
+	/**
+	 * Check the upstream dataset if it was not checked during the revalidation interval
+	 */
+	private void revalidate()
+	{
+		final long now = System.nanoTime();
+		final long last = lastValidation.get();
+		if ( now - last < REVALIDATE_NANOS || !lastValidation.compareAndSet( last, now ) )
+			return;
+
+		try
+		{
+			validate();
+		}
+		catch ( final IOException e )
+		{
+			// The cached cells are served while the upstream cannot be reached
+			LOG.warn( "Could not revalidate " + upstreamUrl + ": " + e.getMessage() );
+		}
+	}
+
+	/**
+	 * Fetch the upstream dataset and drop the cached cells if it changed
+	 * @return true if the upstream dataset changed
+	 */
+	boolean validate() throws IOException
+	{
+		final long current = UpstreamDataSet.fetch( upstreamUrl ).getFingerprint();
+		if ( current == fingerprint )
+			return false;
+
+		// The disk cache drops the cells of the previous fingerprint when they are read
+		fingerprint = current;
+		clearCache();
+		MemoryGovernor.getInstance().cleared( this );
+		DeltaCache.getInstance().remove( getDataSet().getIndex() );
+		RenderCache.getInstance().remove( getDataSet().getIndex() );
+
+		LOG.info( "Upstream " + upstreamUrl + " changed, its cached cells are dropped" );
+		return true;
+	}
+
+	/**
+	 * Get the cell from the memory cache or the disk cache
+	 * @return the cell, null if it is not cached
+	 */
+	byte[] getCachedCell( final String path )
+	{
+		byte[] buf = memoryCache.get( path );
+		if ( null == buf )
+		{
+			buf = readDisk( path );
+			if ( null != buf )
+				putMemory( path, buf );
+		}
+		return buf;
+	}
+
+	/**
+	 * Fetch the cell from the upstream and store it in the caches, concurrent requests of the same cell wait for the first one
+	 */
+	byte[] fetchCell( final String path ) throws IOException
+	{
+		final CompletableFuture< byte[] > future = new CompletableFuture<>();
+		final CompletableFuture< byte[] > running = pending.putIfAbsent( path, future );
+
+		if ( null != running )
+		{
+			try
+			{
+				return running.get();
+			}
+			catch ( InterruptedException e )
+			{
+				Thread.currentThread().interrupt();
+				throw new IOException( e );
+			}
+			catch ( ExecutionException e )
+			{
+				throw new IOException( e.getCause() );
+			}
+		}
+
+		try
+		{
+			final long expected = fingerprint;
+			final byte[] buf = fetch( upstreamUrl + "?p=" + path );
+			// A cell fetched while the upstream dataset changed is not cached
+			if ( expected == fingerprint )
+			{
+				putMemory( path, buf );
+				writeDisk( path, expected, buf );
+			}
+			future.complete( buf );
+			return buf;
+		}
+		catch ( final IOException e )
+		{
+			future.completeExceptionally( e );
+			throw e;
+		}
+		finally
+		{
+			pending.remove( path );
+		}
+	}
+
+	private void putMemory( final String path, final byte[] buf )
+	{
+		MemoryGovernor.getInstance().account( this, memoryCache.put( path, buf ) );
+	}
+
+	private byte[] readDisk( final String path )
+	{
+		final DiskCellCache cache = getDiskCache();
+		return null == cache ? null : cache.get( upstreamUrl + "?p=" + path, fingerprint );
+	}
+
+	private void writeDisk( final String path, final long fingerprint, final byte[] buf )
+	{
+		final DiskCellCache cache = getDiskCache();
+		if ( null != cache )
+			cache.put( upstreamUrl + "?p=" + path, fingerprint, buf );
+	}
+
+	/**
+	 * Set the directory of the disk cache, before the first proxied dataset is created
+	 */
+	public static synchronized void setCacheDirectory( final String directory )
+	{
+		cacheDirectory = directory;
+	}
+
+	/**
+	 * @return the disk cache of the proxied cells, null if it cannot be opened
+	 */
+	private static synchronized DiskCellCache getDiskCache()
+	{
+		if ( !diskCacheOpened )
+		{
+			diskCacheOpened = true;
+			try
+			{
+				diskCache = new DiskCellCache( Paths.get( cacheDirectory ), CACHE_BYTES );
+				diskCache.registerMetrics( "bdv_proxy_disk_cache" );
+			}
+			catch ( final IOException e )
+			{
+				LOG.warn( "Proxy disk cache is disabled: " + e.getMessage() );
+			}
+		}
+		return diskCache;
+	}
+
+	/**
+	 * Replace SequenceDescription>ImageLoader>baseUrl of the upstream dataset XML with the url of this server
+	 */
+	private static String rewriteBaseUrl( final byte[] xml, final String baseUrl ) throws IOException
+	{
+		try
+		{
+			final Document doc = new SAXBuilder().build( new ByteArrayInputStream( xml ) );
+			// Collected first, the descendants cannot be modified while iterating them
+			final List< Element > baseUrls = new ArrayList<>();
+			doc.getRootElement().getDescendants( Filters.element( "baseUrl" ) ).forEach( baseUrls::add );
+			for ( final Element element : baseUrls )
+				element.setText( baseUrl );
+
+			final XMLOutputter xout = new XMLOutputter( Format.getPrettyFormat() );
+			final StringWriter sw = new StringWriter();
+			xout.output( doc, sw );
+			return sw.toString();
+		}
+		catch ( final JDOMException e )
+		{
+			throw new IOException( "Invalid dataset XML from upstream", e );
+		}
+	}
+
+	/**
+	 * Remove the pixel types from the upstream metadata, the cells are fetched and served as uint16
+	 */
+	private static String withoutDataTypes( final byte[] metadata )
+	{
+		final JsonObject json = new JsonParser().parse( new String( metadata, StandardCharsets.UTF_8 ) ).getAsJsonObject();
+		json.remove( DATA_TYPES );
+		return json.toString();
+	}
+
+	private static String fetchSettings( final String upstreamUrl )
+	{
+		try
+		{
+			return new String( fetch( upstreamUrl + "settings" ), StandardCharsets.UTF_8 );
+		}
+		catch ( final IOException e )
+		{
+			// The upstream dataset has no settings
+			return null;
+		}
+	}
+
+	private static String fetchThumbnail( final String upstreamUrl, final String thumbnailFilename )
+	{
+		try
+		{
+			Files.write( Paths.get( thumbnailFilename ), fetch( upstreamUrl + "png" ) );
+		}
+		catch ( final IOException e )
+		{
+			LOG.warn( "Could not fetch thumbnail from " + upstreamUrl + ": " + e.getMessage() );
+		}
+		return thumbnailFilename;
+	}
+
+	/**
+	 * GET the url from the upstream
+	 * @return the response body
+	 * @throws IOException if the upstream cannot be reached or does not answer with 200 OK
+	 */
+	private static byte[] fetch( final String url ) throws IOException
+	{
+		final HttpURLConnection connection = connect( url );
+		try
+		{
+			return read( connection );
+		}
+		finally
+		{
+			connection.disconnect();
+		}
+	}
+
+	/**
+	 * Send the GET request of the url to the upstream
+	 * @throws IOException if the upstream cannot be reached or does not answer with 200 OK
+	 */
+	private static HttpURLConnection connect( final String url ) throws IOException
+	{
+		final HttpURLConnection connection = ( HttpURLConnection ) new URL( url ).openConnection();
+		connection.setConnectTimeout( TIMEOUT_MILLIS );
+		connection.setReadTimeout( TIMEOUT_MILLIS );
+		// The upstream sends the cells of chunked datasets as stored, compressed
+		connection.setRequestProperty( "Accept-Encoding", "gzip, deflate" );
+
+		try
+		{
+			final int status = connection.getResponseCode();
+			if ( status != HttpURLConnection.HTTP_OK )
+				throw new IOException( "Upstream answered " + status + " for " + url );
+			return connection;
+		}
+		catch ( final IOException e )
+		{
+			connection.disconnect();
+			throw e;
+		}
+	}
+
+	/**
+	 * @return the decoded response body
+	 */
+	private static byte[] read( final HttpURLConnection connection ) throws IOException
+	{
+		final String contentEncoding = connection.getContentEncoding();
+		try ( InputStream is = "gzip".equals( contentEncoding ) ? new GZIPInputStream( connection.getInputStream() )
+				: "deflate".equals( contentEncoding ) ? new InflaterInputStream( connection.getInputStream() )
+				: connection.getInputStream() )
+		{
+			final ByteArrayOutputStream bos = new ByteArrayOutputStream( Math.max( 32, connection.getContentLength() ) );
+			final byte[] buffer = new byte[ 64 * 1024 ];
+			int n;
+			while ( ( n = is.read( buffer ) ) != -1 )
+				bos.write( buffer, 0, n );
+			return bos.toByteArray();
+		}
+	}
+
+	private static String withSlash( final String url )
+	{
+		return url.endsWith( "/" ) ? url : url + "/";
+	}
+
+	/**
+	 * Dataset XML, metadata and ETag of the upstream dataset
+	 */
+	private static class UpstreamDataSet
+	{
+		final byte[] xml;
+
+		final byte[] metadata;
+
+		/**
+		 * ETag of the metadata, null if the upstream sends none
+		 */
+		final String etag;
+
+		UpstreamDataSet( final byte[] xml, final byte[] metadata, final String etag )
+		{
+			this.xml = xml;
+			this.metadata = metadata;
+			this.etag = etag;
+		}
+
+		static UpstreamDataSet fetch( final String upstreamUrl ) throws IOException
+		{
+			final byte[] xml = ProxyCellHandler.fetch( upstreamUrl );
+			final HttpURLConnection connection = connect( upstreamUrl + "?p=init" );
+			try
+			{
+				return new UpstreamDataSet( xml, read( connection ), connection.getHeaderField( "ETag" ) );
+			}
+			finally
+			{
+				connection.disconnect();
+			}
+		}
+
+		/**
+		 * The fingerprint of the dataset XML, the metadata and the ETag. Without ETag, the current time-to-live period
+		 * is used instead, so the cells expire at its end, also over restarts.
+		 */
+		long getFingerprint()
+		{
+			final long h = 31L * Arrays.hashCode( xml ) + Arrays.hashCode( metadata );
+			return 31L * h + ( null != etag ? etag.hashCode() : Long.hashCode( System.currentTimeMillis() / CELL_TTL_MILLIS ) );
+		}
+	}
+
+	/**
+	 * LRU cache of encoded cells bounded by their total size
+	 */
+	private static class MemoryCache
+	{
+		private final LinkedHashMap< String, byte[] > cells = new LinkedHashMap<>( 1024, 0.75f, true );
+
+		private final long maxBytes;
+
+		private long bytes;
+
+		MemoryCache( final long maxBytes )
+		{
+			this.maxBytes = maxBytes;
+		}
+
+		synchronized byte[] get( final String path )
+		{
+			return cells.get( path );
+		}
+
+		/**
+		 * @return the change of the cache size
+		 */
+		synchronized long put( final String path, final byte[] buf )
+		{
+			final long before = bytes;
+			final byte[] previous = cells.put( path, buf );
+			bytes += buf.length - ( null != previous ? previous.length : 0 );
+
+			// Evict the least recently used cells
+			final Iterator< Map.Entry< String, byte[] > > it = cells.entrySet().iterator();
+			while ( bytes > maxBytes && it.hasNext() )
+			{
+				final Map.Entry< String, byte[] > eldest = it.next();
+				if ( eldest.getKey().equals( path ) )
+					break;
+				bytes -= eldest.getValue().length;
+				it.remove();
+			}
+			return bytes - before;
+		}
+
+		synchronized void clear()
+		{
+			cells.clear();
+			bytes = 0;
+		}
+	}
+}
@@ -0,0 +1,91 @@
+package bdv.server;
+
+import bdv.metrics.Metrics;
+import org.eclipse.jetty.server.Request;
+
+import javax.servlet.http.HttpServletResponse;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * RenderPool runs the server-side renderings of the "render" endpoint on a fixed number of threads, so rendering
+ * cannot take over the server thread pool serving the cells. Renderings beyond the queue capacity are answered with
+ * "503 Service Unavailable" and a Retry-After header.
+ *
+ * The pool is configured by system properties:
+ * <ul>
+ * <li>bdv.render.threads: number of rendering threads (default: number of processors)</li>
+ * <li>bdv.render.maxQueued: renderings waiting for a thread (default 16)</li>
+ * </ul>
+ *
+ * Author: HongKee Moon (moon@mpi-cbg.de), Scientific Computing Facility
+ * Organization: MPI-CBG Dresden
+ * Date: October 2026
+ */
+public class RenderPool
+{
+	private static final RenderPool instance = new RenderPool(
+			Integer.getInteger( "bdv.render.threads", Runtime.getRuntime().availableProcessors() ),
+			Integer.getInteger( "bdv.render.maxQueued", 16 ) );
+
+	private final ThreadPoolExecutor executor;
+
+	private final AtomicLong rejected = new AtomicLong();
+
+	public static RenderPool getInstance()
+	{
+		return instance;
+	}
+
+	RenderPool( final int threads, final int maxQueued )
+	{
+		executor = new ThreadPoolExecutor( threads, threads, 60, TimeUnit.SECONDS, new ArrayBlockingQueue<>( Math.max( 1, maxQueued ) ), r -> {
+			final Thread thread = new Thread( r, "bdv-render" );
+			thread.setDaemon( true );
+			return thread;
+		} );
+		executor.allowCoreThreadTimeOut( true );
+
+		Metrics.registerGauge( "bdv_render_active", "Renderings in progress.", executor::getActiveCount );
+		Metrics.registerGauge( "bdv_render_queued", "Renderings waiting for a rendering thread.", () -> executor.getQueue().size() );
+		Metrics.registerCounter( "bdv_render_rejected_total", "Renderings answered with 503.", rejected::get );
+	}
+
+	/**
+	 * Run a rendering on the pool and wait for its result
+	 * @throws RejectedExecutionException if the pool is full
+	 * @throws ExecutionException if the rendering failed
+	 */
+	public < T > T render( final Callable< T > rendering ) throws ExecutionException, InterruptedException
+	{
+		final Future< T > future;
+		try
+		{
+			future = executor.submit( rendering );
+		}
+		catch ( final RejectedExecutionException e )
+		{
+			rejected.incrementAndGet();
+			throw e;
+		}
+		return future.get();
+	}
+
+	/**
+	 * Answer a rejected rendering with "503 Service Unavailable" and the Retry-After header
+	 */
+	public void reject( final Request baseRequest, final HttpServletResponse response )
+	{
+		response.setStatus( HttpServletResponse.SC_SERVICE_UNAVAILABLE );
+		response.setHeader( "Retry-After", "1" );
+		response.setContentLength( 0 );
+		baseRequest.setHandled( true );
+	}
+}
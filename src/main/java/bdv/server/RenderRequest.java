@@ -0,0 +1,120 @@
+package bdv.server;
+
+import net.imglib2.realtransform.AffineTransform3D;
+
+import javax.servlet.http.HttpServletRequest;
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
+/**
+ * 2D slice requested from the "render" endpoint by a client which does not load cells itself, e.g. a browser:
+ * "render?transform=m00,m01,m02,m03,m10,...,m23&amp;t=0&amp;setups=0,1&amp;width=512&amp;height=512&amp;format=png"
+ * <ul>
+ * <li>transform: the viewer transform from global coordinates to the screen, row-major 3x4 as in the settings.xml</li>
+ * <li>t: the timepoint id (default: the first timepoint)</li>
+ * <li>setups: the ids of the shown setups (default: the visible sources of the settings.xml)</li>
+ * <li>width, height: the image size in pixels (default 512, at most bdv.render.maxSize)</li>
+ * <li>format: "png" (default) or "jpeg"</li>
+ * </ul>
+ *
+ * Author: HongKee Moon (moon@mpi-cbg.de), Scientific Computing Facility
+ * Organization: MPI-CBG Dresden
+ * Date: October 2026
+ */
+public class RenderRequest
+{
+	private static final int MAX_SIZE = Integer.getInteger( "bdv.render.maxSize", 2048 );
+
+	private static final int DEFAULT_SIZE = 512;
+
+	public final double[] transform;
+
+	/**
+	 * Timepoint id, -1 for the first timepoint
+	 */
+	public final int timepoint;
+
+	/**
+	 * Setup ids, null for the visible sources of the settings
+	 */
+	public final int[] setups;
+
+	public final int width;
+
+	public final int height;
+
+	public final String format;
+
+	public RenderRequest( final double[] transform, final int timepoint, final int[] setups, final int width, final int height, final String format )
+	{
+		this.transform = transform;
+		this.timepoint = timepoint;
+		this.setups = setups;
+		this.width = width;
+		this.height = height;
+		this.format = format;
+	}
+
+	/**
+	 * Parse the parameters of a render request
+	 * @return the {@link RenderRequest}
+	 * @throws IllegalArgumentException if a parameter is missing or invalid
+	 */
+	public static RenderRequest parse( final HttpServletRequest request )
+	{
+		final String transformString = request.getParameter( "transform" );
+		if ( null == transformString )
+			throw new IllegalArgumentException( "Missing transform" );
+
+		final double[] transform = Arrays.stream( transformString.split( "," ) ).mapToDouble( s -> Double.parseDouble( s.trim() ) ).toArray();
+		if ( transform.length != 12 || Arrays.stream( transform ).anyMatch( v -> Double.isNaN( v ) || Double.isInfinite( v ) ) )
+			throw new IllegalArgumentException( "The transform needs 12 finite numbers" );
+
+		final String t = request.getParameter( "t" );
+		final int timepoint = null == t ? -1 : Integer.parseInt( t );
+
+		final String setupsString = request.getParameter( "setups" );
+		final int[] setups = null == setupsString ? null : Arrays.stream( setupsString.split( "," ) ).mapToInt( s -> Integer.parseInt( s.trim() ) ).sorted().distinct().toArray();
+
+		final int width = getSize( request, "width" );
+		final int height = getSize( request, "height" );
+
+		final String format = null == request.getParameter( "format" ) ? "png" : request.getParameter( "format" );
+		if ( !format.equals( "png" ) && !format.equals( "jpeg" ) )
+			throw new IllegalArgumentException( "Unknown format " + format );
+
+		return new RenderRequest( transform, timepoint, setups, width, height, format );
+	}
+
+	private static int getSize( final HttpServletRequest request, final String name )
+	{
+		final String value = request.getParameter( name );
+		final int size = null == value ? DEFAULT_SIZE : Integer.parseInt( value );
+		if ( size < 1 || size > MAX_SIZE )
+			throw new IllegalArgumentException( name + " must be in 1.." + MAX_SIZE );
+		return size;
+	}
+
+	public AffineTransform3D getViewerTransform()
+	{
+		final AffineTransform3D viewerTransform = new AffineTransform3D();
+		viewerTransform.set( transform );
+		return viewerTransform;
+	}
+
+	public String getContentType()
+	{
+		return "image/" + format;
+	}
+
+	/**
+	 * @return the parameters in a canonical form, used as the key of the rendered image and to forward the request
+	 */
+	public String getQuery()
+	{
+		return "transform=" + Arrays.stream( transform ).mapToObj( Double::toString ).collect( Collectors.joining( "," ) )
+				+ ( timepoint < 0 ? "" : "&t=" + timepoint )
+				+ ( null == setups ? "" : "&setups=" + Arrays.stream( setups ).mapToObj( Integer::toString ).collect( Collectors.joining( "," ) ) )
+				+ "&width=" + width + "&height=" + height + "&format=" + format;
+	}
+}
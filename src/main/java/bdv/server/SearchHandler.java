@@ -0,0 +1,120 @@
+package bdv.server;
+
+import bdv.metrics.Metrics;
+import bdv.model.DataSet;
+import bdv.model.DataSetIndex;
+import bdv.util.Paging;
+import com.google.gson.stream.JsonWriter;
+import org.apache.commons.lang.StringUtils;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.handler.ContextHandler;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.security.Principal;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Provides the full-text search over the datasets served by this {@link BigDataServer}
+ *
+ * Parameters:
+ * <ul>
+ * <li>q: terms matched by prefix against the name, the description, the tags and the owner. All terms should match.</li>
+ * <li>tags: comma separated tags matched exactly</li>
+ * <li>tagOp: "and" (default) if all the tags should match, "or" if any of them is enough</li>
+ * <li>offset, limit: the page of the result</li>
+ * </ul>
+ * The result contains the page of the matching datasets and the number of the matching datasets per tag.
+ *
+ * Author: HongKee Moon (moon@mpi-cbg.de), Scientific Computing Facility
+ * Organization: MPI-CBG Dresden
+ * Date: October 2026
+ */
+public class SearchHandler extends ContextHandler
+{
+	private static final int DEFAULT_PAGE_SIZE = 100;
+
+	public SearchHandler( final String contextPath )
+	{
+		setContextPath( contextPath );
+	}
+
+	@Override
+	public void doHandle( final String target, final Request baseRequest, final HttpServletRequest request, final HttpServletResponse response ) throws IOException, ServletException
+	{
+		final long start = System.nanoTime();
+
+		try
+		{
+			final Principal user = request.getUserPrincipal();
+			final String userId = null != user ? user.getName() : null;
+
+			final String query = request.getParameter( "q" );
+			final String tagsParam = request.getParameter( "tags" );
+			final List< String > tags = StringUtils.isEmpty( tagsParam ) ? null :
+					Arrays.stream( tagsParam.split( "," ) ).map( String::trim ).filter( t -> !t.isEmpty() ).collect( Collectors.toList() );
+			final boolean allTags = !"or".equalsIgnoreCase( request.getParameter( "tagOp" ) );
+
+			final DataSetIndex.Result result = DataSetIndex.getInstance().search( query, tags, allTags,
+					ds -> ds.isPublic() || ( null != userId && ( userId.equals( ds.getOwner() ) || ds.getSharedUsers().contains( userId ) ) ) );
+
+			final int offset = Paging.getIntParameter( request, "offset", 0 );
+			final int limit = Paging.getIntParameter( request, "limit", DEFAULT_PAGE_SIZE );
+			final List< DataSet > page = Paging.page( result.getDataSets(), offset, limit );
+
+			response.setContentType( "application/json" );
+			response.setStatus( HttpServletResponse.SC_OK );
+			baseRequest.setHandled( true );
+
+			final PrintWriter ow = response.getWriter();
+
+			final JsonWriter writer = new JsonWriter( ow );
+
+			writer.setIndent( "\t" );
+
+			writer.beginObject();
+
+			writer.name( "total" ).value( result.getDataSets().size() );
+
+			writer.name( "offset" ).value( offset );
+
+			if ( offset + page.size() < result.getDataSets().size() )
+				writer.name( "next" ).value( offset + page.size() );
+			else
+				writer.name( "next" ).nullValue();
+
+			writer.name( "datasets" ).beginArray();
+
+			for ( DataSet ds : page )
+				JsonDatasetListHandler.writeDataSet( userId, ds, null, writer );
+
+			writer.endArray();
+
+			writer.name( "facets" ).beginObject();
+
+			for ( Map.Entry< String, Integer > facet : result.getFacets().entrySet() )
+				writer.name( facet.getKey() ).value( facet.getValue() );
+
+			writer.endObject();
+
+			writer.endObject();
+
+			writer.flush();
+
+			writer.close();
+
+			ow.close();
+		}
+		finally
+		{
+			Metrics.recordLatency( "search", "", "", start );
+		}
+	}
+}
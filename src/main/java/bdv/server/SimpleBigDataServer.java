@@ -20,7 +20,6 @@ import org.eclipse.jetty.server.ServerConnector;
 import org.eclipse.jetty.server.handler.ContextHandlerCollection;
 import org.eclipse.jetty.server.handler.HandlerCollection;
 import org.eclipse.jetty.util.log.Log;
-import org.eclipse.jetty.util.thread.QueuedThreadPool;
 
 import java.io.IOException;
 import java.net.InetAddress;
@@ -38,7 +37,8 @@ import java.util.Map;
  * Serves one or more XML/HDF5 datasets for remote access over HTTP.
  * Provide (NAME XML) pairs on the command line, where
  * NAME is the name under which the dataset should be made accessible and XML
- * is the path to the XML file of the dataset.
+ * is the path to the XML file of the dataset or the url of a dataset on another
+ * BigDataServer, which is then served through a caching proxy.
  *  -p &lt;PORT&gt;       Listening port.
  *                  (default: 8080)
  *  -s &lt;HOSTNAME&gt;   Hostname of the server.
@@ -79,7 +79,7 @@ public class SimpleBigDataServer extends BigDataServer
 		final String thumbnailsDirectoryName = getThumbnailDirectoryPath( params );
 
 		// Threadpool for multiple connections
-		final Server server = new Server( new QueuedThreadPool( 200, 8 ) );
+		final Server server = new Server( AdmissionControl.getInstance().createThreadPool( 200, 8 ) );
 
 		// HTTP Configuration
 		HttpConfiguration httpConfig = new HttpConfiguration();
@@ -109,11 +109,15 @@ public class SimpleBigDataServer extends BigDataServer
 
 		handlers.addHandler( dataSetContextHandler );
 
-		handlers.addHandler( new JsonDatasetListHandler( server, "/" + Constants.DATASETLIST_CONTEXT_NAME ) );
+		handlers.addHandler( new JsonDatasetListHandler( "/" + Constants.DATASETLIST_CONTEXT_NAME ) );
+
+		handlers.addHandler( new SearchHandler( "/" + Constants.SEARCH_CONTEXT_NAME ) );
 
 		Handler handler = handlers;
 
-		handlers.addHandler( new IndexPageHandler( server ) );
+		handlers.addHandler( new MetricsHandler( "/" + Constants.METRICS_CONTEXT_NAME ) );
+
+		handlers.addHandler( new IndexPageHandler() );
 
 		LOG.info( "Set handler: " + handler );
 		server.setHandler( handler );
@@ -135,7 +139,7 @@ public class SimpleBigDataServer extends BigDataServer
 					throw new IllegalArgumentException( "Cannot use dataset name: \"" + name + "\" (reserved for internal use)." );
 			if ( datasetNameToDataSet.containsKey( name ) )
 				throw new IllegalArgumentException( "Duplicate dataset name: \"" + name + "\"" );
-			if ( Files.notExists( Paths.get( xmlpath ) ) )
+			if ( !ProxyCellHandler.isRemote( xmlpath ) && Files.notExists( Paths.get( xmlpath ) ) )
 				throw new IllegalArgumentException( "Dataset file does not exist: \"" + xmlpath + "\"" );
 
 			String category = "";
@@ -148,6 +152,8 @@ public class SimpleBigDataServer extends BigDataServer
 			}
 
 			DataSet ds = new DataSet( index, name, xmlpath, category, desc );
+			// Every dataset given on the command line is publicly accessible
+			ds.setPublic( true );
 			datasetNameToDataSet.put( name, ds );
 			LOG.info( "Dataset added: {" + name + ", " + xmlpath + "}" );
 		}
@@ -237,7 +243,11 @@ public class SimpleBigDataServer extends BigDataServer
 			final String name = entry.getKey();
 			final DataSet ds = entry.getValue();
 			final String context = "/" + Constants.DATASET_CONTEXT_NAME + "/" + name;
-			final PublicCellHandler ctx = new PublicCellHandler( context + "/", ds, thumbnailsDirectoryName );
+			final CellHandler ctx = ProxyCellHandler.isRemote( ds.getXmlPath() ) ?
+					ProxyCellHandler.tryCreate( PublicCellHandler.baseUrl + context + "/", ds, thumbnailsDirectoryName ) :
+					new PublicCellHandler( context + "/", ds, thumbnailsDirectoryName );
+			if ( null == ctx )
+				continue;
 			ctx.setContextPath( context );
 			handlers.addHandler( ctx );
 		}
@@ -0,0 +1,49 @@
+package bdv.server;
+
+import bdv.metrics.TrafficStatistics;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.handler.HandlerWrapper;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.security.Principal;
+
+/**
+ * Records the traffic of every handled request into {@link TrafficStatistics}.
+ *
+ * The served dataset and the number of served cells are taken from the request attributes
+ * {@link TrafficStatistics#DATASET_ATTRIBUTE} and {@link TrafficStatistics#CELLS_ATTRIBUTE} set by {@link CellHandler}.
+ *
+ * Author: HongKee Moon (moon@mpi-cbg.de), Scientific Computing Facility
+ * Organization: MPI-CBG Dresden
+ * Date: October 2026
+ */
+public class TrafficHandler extends HandlerWrapper
+{
+	@Override
+	public void handle( final String target, final Request baseRequest, final HttpServletRequest request, final HttpServletResponse response ) throws IOException, ServletException
+	{
+		try
+		{
+			super.handle( target, baseRequest, request, response );
+		}
+		finally
+		{
+			if ( baseRequest.isHandled() )
+			{
+				final Principal user = request.getUserPrincipal();
+				final Object dataSet = request.getAttribute( TrafficStatistics.DATASET_ATTRIBUTE );
+				final Object cells = request.getAttribute( TrafficStatistics.CELLS_ATTRIBUTE );
+
+				TrafficStatistics.getInstance().record(
+						null != dataSet ? dataSet.toString() : null,
+						null != user ? user.getName() : null,
+						baseRequest.getResponse().getHttpChannel().getBytesWritten(),
+						null != cells ? ( ( Number ) cells ).longValue() : 0 );
+			}
+		}
+	}
+}
@@ -2,6 +2,7 @@ package bdv.server;
 
 import bdv.db.UserController;
 import bdv.model.DataSet;
+import bdv.model.DataSetIndex;
 import bdv.util.Render;
 import org.eclipse.jetty.server.Handler;
 import org.eclipse.jetty.server.Request;
@@ -10,7 +11,6 @@ import org.eclipse.jetty.server.handler.ContextHandlerCollection;
 import org.eclipse.jetty.util.log.Log;
 import org.stringtemplate.v4.ST;
 import org.stringtemplate.v4.STGroup;
-import org.stringtemplate.v4.STRawGroupDir;
 
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
@@ -235,6 +235,8 @@ public class UserPageHandler extends BaseContextHandler
 				dataSet.setName( ds.getName() );
 				dataSet.setDescription( ds.getDescription() );
 
+				DataSetIndex.getInstance().update( dataSet );
+
 				ret = true;
 				dsName = ds.getName();
 
@@ -339,12 +341,11 @@ public class UserPageHandler extends BaseContextHandler
 		final List< DataSet > myDataSetList = dataSets[ 0 ];
 		final List< DataSet > sharedDataSetList = dataSets[ 1 ];
 
-		final STGroup g = new STRawGroupDir( "templates", '$', '$' );
+		final STGroup g = Render.getTemplates();
 
 		final ST userPage = g.getInstanceOf( "userPage" );
 
-		final STGroup g2 = new STRawGroupDir( "templates", '~', '~' );
-		final ST userPageJS = g2.getInstanceOf( "userPageJS" );
+		final ST userPageJS = Render.getJsTemplates().getInstanceOf( "userPageJS" );
 
 		final StringBuilder dsString = new StringBuilder();
 
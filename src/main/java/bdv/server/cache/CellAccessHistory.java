@@ -0,0 +1,234 @@
+package bdv.server.cache;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * CellAccessHistory counts the requests of every cell per dataset, so the most requested cells can be loaded ahead of
+ * the first users after a restart.
+ *
+ * The history of a dataset is trimmed to its {@link #getMaxCells()} most requested cells whenever it is stored, and
+ * the counts are halved, so cells which are no longer requested fade out. The history can be stored in a gzip file so
+ * that it survives a restart.
+ *
+ * Author: HongKee Moon (moon@mpi-cbg.de), Scientific Computing Facility
+ * Organization: MPI-CBG Dresden
+ * Date: October 2026
+ */
+public class CellAccessHistory
+{
+	private static final int FILE_VERSION = 1;
+
+	private static final CellAccessHistory instance = new CellAccessHistory( Integer.getInteger( "bdv.warmup.historySize", 10000 ) );
+
+	/**
+	 * Dataset index to the request counts by cell, the cells are the "p" parameters without the leading "cell/"
+	 */
+	private final Map< Long, Map< String, LongAdder > > dataSets = new ConcurrentHashMap<>();
+
+	private final int maxCells;
+
+	private ScheduledExecutorService saver;
+
+	public static CellAccessHistory getInstance()
+	{
+		return instance;
+	}
+
+	CellAccessHistory( final int maxCells )
+	{
+		this.maxCells = maxCells;
+	}
+
+	public int getMaxCells()
+	{
+		return maxCells;
+	}
+
+	/**
+	 * Count a request of the cell
+	 * @param dataSet the dataset index
+	 * @param cell the "p" parameter of the request without the leading "cell/"
+	 */
+	public void record( final long dataSet, final String cell )
+	{
+		dataSets.computeIfAbsent( dataSet, k -> new ConcurrentHashMap<>() ).computeIfAbsent( cell, k -> new LongAdder() ).increment();
+	}
+
+	/**
+	 * Get the most requested cells of the dataset
+	 * @param dataSet the dataset index
+	 * @param n the maximum number of cells
+	 * @return the cells as recorded, most requested first
+	 */
+	public List< String > getTopCells( final long dataSet, final int n )
+	{
+		final Map< String, LongAdder > cells = dataSets.get( dataSet );
+		if ( null == cells || n <= 0 )
+			return Collections.emptyList();
+
+		final List< Map.Entry< String, Long > > counts = snapshot( cells );
+		final List< String > top = new ArrayList<>( Math.min( n, counts.size() ) );
+		for ( int i = 0; i < counts.size() && i < n; i++ )
+			top.add( counts.get( i ).getKey() );
+		return top;
+	}
+
+	/**
+	 * Forget the history of the dataset, e.g. when it is removed
+	 */
+	public void remove( final long dataSet )
+	{
+		dataSets.remove( dataSet );
+	}
+
+	/**
+	 * Load the stored history if the file exists, then store it every 5 minutes and on shutdown
+	 * @param file the gzip file
+	 */
+	public synchronized void persist( final Path file )
+	{
+		if ( null != saver )
+			return;
+
+		if ( Files.exists( file ) )
+		{
+			try
+			{
+				load( file );
+			}
+			catch ( IOException e )
+			{
+				System.err.println( "Failed to load the cell access history from " + file + ": " + e.getMessage() );
+			}
+		}
+
+		saver = Executors.newSingleThreadScheduledExecutor( r -> {
+			final Thread t = new Thread( r, "CellAccessHistorySaver" );
+			t.setDaemon( true );
+			return t;
+		} );
+		saver.scheduleWithFixedDelay( () -> saveQuietly( file ), 5, 5, TimeUnit.MINUTES );
+
+		Runtime.getRuntime().addShutdownHook( new Thread( () -> saveQuietly( file ) ) );
+	}
+
+	private void saveQuietly( final Path file )
+	{
+		try
+		{
+			save( file );
+		}
+		catch ( IOException e )
+		{
+			System.err.println( "Failed to store the cell access history to " + file + ": " + e.getMessage() );
+		}
+	}
+
+	/**
+	 * Trim and decay the history, then store it, the file is replaced atomically
+	 * @param file the gzip file
+	 */
+	public synchronized void save( final Path file ) throws IOException
+	{
+		if ( null != file.getParent() )
+			Files.createDirectories( file.getParent() );
+
+		final Path tmp = file.resolveSibling( file.getFileName() + ".tmp" );
+
+		try ( DataOutputStream out = new DataOutputStream( new BufferedOutputStream( new GZIPOutputStream( Files.newOutputStream( tmp ) ) ) ) )
+		{
+			out.writeInt( FILE_VERSION );
+
+			// Take a snapshot since new datasets can be added while writing
+			final Map< Long, Map< String, LongAdder > > snapshot = new HashMap<>( dataSets );
+
+			out.writeInt( snapshot.size() );
+			for ( final Map.Entry< Long, Map< String, LongAdder > > entry : snapshot.entrySet() )
+			{
+				final List< Map.Entry< String, Long > > counts = trim( entry.getValue() );
+
+				out.writeLong( entry.getKey() );
+				out.writeInt( counts.size() );
+				for ( final Map.Entry< String, Long > count : counts )
+				{
+					out.writeUTF( count.getKey() );
+					out.writeLong( count.getValue() );
+				}
+			}
+		}
+
+		Files.move( tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE );
+	}
+
+	/**
+	 * Load the history stored by {@link #save(Path)}
+	 * @param file the gzip file
+	 */
+	public void load( final Path file ) throws IOException
+	{
+		try ( DataInputStream in = new DataInputStream( new BufferedInputStream( new GZIPInputStream( Files.newInputStream( file ) ) ) ) )
+		{
+			if ( in.readInt() != FILE_VERSION )
+				throw new IOException( "Unknown file version" );
+
+			final int size = in.readInt();
+			for ( int i = 0; i < size; i++ )
+			{
+				final Map< String, LongAdder > cells = dataSets.computeIfAbsent( in.readLong(), k -> new ConcurrentHashMap<>() );
+				final int count = in.readInt();
+				for ( int j = 0; j < count; j++ )
+					cells.computeIfAbsent( in.readUTF(), k -> new LongAdder() ).add( in.readLong() );
+			}
+		}
+	}
+
+	/**
+	 * Keep the most requested cells and halve their counts
+	 * @return the kept cells with their counts before halving, most requested first
+	 */
+	private List< Map.Entry< String, Long > > trim( final Map< String, LongAdder > cells )
+	{
+		final List< Map.Entry< String, Long > > counts = snapshot( cells );
+
+		for ( int i = 0; i < counts.size(); i++ )
+		{
+			final String cell = counts.get( i ).getKey();
+			final long count = counts.get( i ).getValue();
+			if ( i >= maxCells || count < 2 )
+				cells.remove( cell );
+			else
+				cells.get( cell ).add( -( count / 2 ) );
+		}
+
+		return counts.size() > maxCells ? counts.subList( 0, maxCells ) : counts;
+	}
+
+	private static List< Map.Entry< String, Long > > snapshot( final Map< String, LongAdder > cells )
+	{
+		final List< Map.Entry< String, Long > > counts = new ArrayList<>( cells.size() );
+		for ( final Map.Entry< String, LongAdder > entry : cells.entrySet() )
+			counts.add( new AbstractMap.SimpleImmutableEntry<>( entry.getKey(), entry.getValue().sum() ) );
+		counts.sort( ( a, b ) -> Long.compare( b.getValue(), a.getValue() ) );
+		return counts;
+	}
+}
@@ -0,0 +1,108 @@
+package bdv.server.cache;
+
+import bdv.metrics.Metrics;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * DeltaCache keeps the compressed temporal deltas of the cells of all datasets, so a time-lapse played back by several
+ * clients computes every delta once. The least recently used deltas are evicted beyond the byte budget given in MB
+ * by the system property bdv.delta.cacheSize (default 64, 0 disables the cache).
+ *
+ * Author: HongKee Moon (moon@mpi-cbg.de), Scientific Computing Facility
+ * Organization: MPI-CBG Dresden
+ * Date: October 2026
+ */
+public class DeltaCache
+{
+	private static DeltaCache instance;
+
+	private final LinkedHashMap< String, byte[] > deltas = new LinkedHashMap<>( 1024, 0.75f, true );
+
+	private final long maxBytes;
+
+	private long bytes;
+
+	private final AtomicLong hits = new AtomicLong();
+
+	private final AtomicLong misses = new AtomicLong();
+
+	public static synchronized DeltaCache getInstance()
+	{
+		if ( null == instance )
+		{
+			instance = new DeltaCache( Long.getLong( "bdv.delta.cacheSize", 64 ) << 20 );
+			instance.registerMetrics();
+		}
+		return instance;
+	}
+
+	public DeltaCache( final long maxBytes )
+	{
+		this.maxBytes = maxBytes;
+	}
+
+	public void registerMetrics()
+	{
+		Metrics.registerGauge( "bdv_delta_cache_bytes", "Bytes of the temporal delta cache.", this::getBytes );
+		Metrics.registerCounter( "bdv_delta_cache_hits_total", "Temporal deltas found in the cache.", hits::get );
+		Metrics.registerCounter( "bdv_delta_cache_misses_total", "Temporal deltas computed.", misses::get );
+	}
+
+	/**
+	 * @param dataSet the index of the dataset
+	 * @param key the cell and the reference timepoint of the delta
+	 * @return the delta, null if it is not cached
+	 */
+	public synchronized byte[] get( final long dataSet, final String key )
+	{
+		final byte[] delta = deltas.get( dataSet + "/" + key );
+		if ( null == delta )
+			misses.incrementAndGet();
+		else
+			hits.incrementAndGet();
+		return delta;
+	}
+
+	public synchronized void put( final long dataSet, final String key, final byte[] delta )
+	{
+		if ( delta.length > maxBytes )
+			return;
+
+		final byte[] previous = deltas.put( dataSet + "/" + key, delta );
+		bytes += delta.length - ( null == previous ? 0 : previous.length );
+
+		final Iterator< byte[] > eldest = deltas.values().iterator();
+		while ( bytes > maxBytes && eldest.hasNext() )
+		{
+			bytes -= eldest.next().length;
+			eldest.remove();
+		}
+	}
+
+	/**
+	 * Remove the deltas of a dataset, e.g. when it is deactivated or modified
+	 */
+	public synchronized void remove( final long dataSet )
+	{
+		final String prefix = dataSet + "/";
+		final Iterator< Map.Entry< String, byte[] > > it = deltas.entrySet().iterator();
+		while ( it.hasNext() )
+		{
+			final Map.Entry< String, byte[] > entry = it.next();
+			if ( entry.getKey().startsWith( prefix ) )
+			{
+				bytes -= entry.getValue().length;
+				it.remove();
+			}
+		}
+	}
+
+	public synchronized long getBytes()
+	{
+		return bytes;
+	}
+}
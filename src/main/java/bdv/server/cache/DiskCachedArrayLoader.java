@@ -0,0 +1,66 @@
+package bdv.server.cache;
+
+import bdv.img.cache.CacheArrayLoader;
+import bdv.server.CellRequest;
+import net.imglib2.img.basictypeaccess.volatiles.array.VolatileShortArray;
+
+import java.nio.ByteBuffer;
+
+/**
+ * CacheArrayLoader wrapper looking up the cells in a {@link DiskCellCache} before loading them with the wrapped loader.
+ * Loaded cells are stored in the disk cache encoded as big-endian shorts, like they are sent to the clients.
+ *
+ * Author: HongKee Moon (moon@mpi-cbg.de), Scientific Computing Facility
+ * Organization: MPI-CBG Dresden
+ * Date: October 2026
+ */
+public class DiskCachedArrayLoader implements CacheArrayLoader< VolatileShortArray >
+{
+	private final CacheArrayLoader< VolatileShortArray > loader;
+
+	private final DiskCellCache cache;
+
+	private final long dataSet;
+
+	private final long fingerprint;
+
+	/**
+	 * @param loader the wrapped loader
+	 * @param cache the disk cache
+	 * @param dataSet the dataset index, which is part of the cell keys
+	 * @param fingerprint the fingerprint of the dataset files, see {@link DiskCellCache#fingerprint(java.util.List)}
+	 */
+	public DiskCachedArrayLoader( final CacheArrayLoader< VolatileShortArray > loader, final DiskCellCache cache, final long dataSet, final long fingerprint )
+	{
+		this.loader = loader;
+		this.cache = cache;
+		this.dataSet = dataSet;
+		this.fingerprint = fingerprint;
+	}
+
+	@Override
+	public int getBytesPerElement()
+	{
+		return loader.getBytesPerElement();
+	}
+
+	@Override
+	public VolatileShortArray loadArray( final int timepoint, final int setup, final int level, final int[] dimensions, final long[] min ) throws InterruptedException
+	{
+		final String key = dataSet + "/" + timepoint + "/" + setup + "/" + level + "/"
+				+ dimensions[ 0 ] + "/" + dimensions[ 1 ] + "/" + dimensions[ 2 ] + "/"
+				+ min[ 0 ] + "/" + min[ 1 ] + "/" + min[ 2 ];
+
+		final byte[] cached = cache.get( key, fingerprint );
+		if ( null != cached )
+		{
+			final short[] data = new short[ cached.length / 2 ];
+			ByteBuffer.wrap( cached ).asShortBuffer().get( data );
+			return new VolatileShortArray( data, true );
+		}
+
+		final VolatileShortArray array = loader.loadArray( timepoint, setup, level, dimensions, min );
+		cache.put( key, fingerprint, CellRequest.encode( array.getCurrentStorageArray() ) );
+		return array;
+	}
+}
@@ -0,0 +1,421 @@
+package bdv.server.cache;
+
+import bdv.metrics.Metrics;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+
+/**
+ * DiskCellCache is a persistent cache of encoded cells on a local disk, placed between the in-memory cell cache and
+ * the image files, which may be slow to read from a network filesystem.
+ *
+ * Cells are appended to segment files of {@link #SEGMENT_BYTES}. Every record holds its key, the fingerprint of the
+ * dataset files it was read from, the data and a checksum, so the index is rebuilt by scanning the segments when the
+ * cache is opened again and the cache stays warm over restarts. A record whose fingerprint differs from the current
+ * one, i.e. its dataset files were modified since, is dropped instead of served.
+ *
+ * When the cache exceeds its byte budget, the oldest segment is deleted. To keep the eviction close to LRU, a hit on a
+ * record in the older half of the segments appends the record again to the current segment, so the recently used
+ * cells survive the deletion of their old segment.
+ *
+ * Author: HongKee Moon (moon@mpi-cbg.de), Scientific Computing Facility
+ * Organization: MPI-CBG Dresden
+ * Date: October 2026
+ */
+public class DiskCellCache
+{
+	static final long SEGMENT_BYTES = 64L << 20;
+
+	private static final int MAGIC = 0x62647663;
+
+	private static final String SEGMENT_PREFIX = "segment-";
+
+	private static final String SEGMENT_SUFFIX = ".dat";
+
+	private final Path directory;
+
+	private final long maxBytes;
+
+	/**
+	 * Key to the location of its latest record, in access order
+	 */
+	private final LinkedHashMap< String, Entry > index = new LinkedHashMap<>( 1024, 0.75f, true );
+
+	/**
+	 * Open segments by number, the last one is appended to
+	 */
+	private final TreeMap< Integer, FileChannel > segments = new TreeMap<>();
+
+	private long bytes;
+
+	private final AtomicLong hits = new AtomicLong();
+
+	private final AtomicLong misses = new AtomicLong();
+
+	private static DiskCellCache instance;
+
+	private static boolean configured;
+
+	/**
+	 * Get the disk cell cache shared by the datasets, configured with the system properties
+	 * "bdv.cache.disk.dir" and "bdv.cache.disk.size" (MB, default 10240)
+	 * @return the disk cell cache, null if no directory is configured or it cannot be opened
+	 */
+	public static synchronized DiskCellCache getInstance()
+	{
+		if ( !configured )
+		{
+			configured = true;
+			final String dir = System.getProperty( "bdv.cache.disk.dir" );
+			if ( null != dir )
+			{
+				try
+				{
+					instance = new DiskCellCache( Paths.get( dir ), Long.getLong( "bdv.cache.disk.size", 10240 ) << 20 );
+					instance.registerMetrics();
+				}
+				catch ( final IOException e )
+				{
+					System.err.println( "Disk cell cache is disabled: " + e.getMessage() );
+				}
+			}
+		}
+		return instance;
+	}
+
+	/**
+	 * @param directory the directory of the segment files
+	 * @param maxBytes the byte budget, at least two segments are kept
+	 */
+	public DiskCellCache( final Path directory, final long maxBytes ) throws IOException
+	{
+		this.directory = Files.createDirectories( directory );
+		this.maxBytes = maxBytes;
+
+		final List< Path > files = new ArrayList<>();
+		try ( DirectoryStream< Path > stream = Files.newDirectoryStream( directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX ) )
+		{
+			stream.forEach( files::add );
+		}
+
+		for ( final Path file : files )
+		{
+			final String name = file.getFileName().toString();
+			final int number = Integer.parseInt( name.substring( SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length() ) );
+			segments.put( number, FileChannel.open( file, StandardOpenOption.READ, StandardOpenOption.WRITE ) );
+		}
+
+		for ( final Map.Entry< Integer, FileChannel > segment : segments.entrySet() )
+			scan( segment.getKey(), segment.getValue() );
+
+		if ( segments.isEmpty() )
+			addSegment();
+	}
+
+	/**
+	 * Register the hit, miss and size metrics of the cache
+	 */
+	public void registerMetrics()
+	{
+		registerMetrics( "bdv_disk_cache" );
+	}
+
+	/**
+	 * Register the hit, miss and size metrics of the cache under another name, e.g. for a second cache
+	 * @param name the prefix of the metric names
+	 */
+	public void registerMetrics( final String name )
+	{
+		Metrics.registerGauge( name + "_bytes", "Bytes of the disk cell cache.", this::getBytes );
+		Metrics.registerCounter( name + "_hits_total", "Cells found in the disk cache.", hits::get );
+		Metrics.registerCounter( name + "_misses_total", "Cells not found in the disk cache.", misses::get );
+	}
+
+	/**
+	 * Get the encoded cell
+	 * @param key the key of the cell
+	 * @param fingerprint the current fingerprint of the dataset files
+	 * @return the encoded cell, null if it is not cached or was cached from modified dataset files
+	 */
+	public byte[] get( final String key, final long fingerprint )
+	{
+		final Entry entry;
+		final FileChannel channel;
+		synchronized ( this )
+		{
+			entry = index.get( key );
+			if ( null == entry || entry.fingerprint != fingerprint )
+			{
+				if ( null != entry )
+					index.remove( key );
+				misses.incrementAndGet();
+				return null;
+			}
+			channel = segments.get( entry.segment );
+		}
+
+		final byte[] data = new byte[ entry.length ];
+		try
+		{
+			final ByteBuffer buffer = ByteBuffer.wrap( data );
+			long position = entry.offset;
+			while ( buffer.hasRemaining() )
+			{
+				final int n = channel.read( buffer, position );
+				if ( n < 0 )
+					throw new EOFException();
+				position += n;
+			}
+		}
+		catch ( final IOException e )
+		{
+			// The segment was evicted in the meantime
+			misses.incrementAndGet();
+			return null;
+		}
+
+		if ( crc( data ) != entry.crc )
+		{
+			synchronized ( this )
+			{
+				index.remove( key, entry );
+			}
+			misses.incrementAndGet();
+			return null;
+		}
+
+		hits.incrementAndGet();
+
+		synchronized ( this )
+		{
+			// Keep the recently used cells from being evicted with their old segment
+			if ( index.get( key ) == entry && entry.segment < segments.firstKey() + segments.size() / 2 )
+				append( key, fingerprint, data );
+		}
+
+		return data;
+	}
+
+	/**
+	 * Store the encoded cell
+	 * @param key the key of the cell
+	 * @param fingerprint the fingerprint of the dataset files the cell was read from
+	 * @param data the encoded cell
+	 */
+	public synchronized void put( final String key, final long fingerprint, final byte[] data )
+	{
+		append( key, fingerprint, data );
+	}
+
+	public synchronized long getBytes()
+	{
+		return bytes;
+	}
+
+	public synchronized int size()
+	{
+		return index.size();
+	}
+
+	/**
+	 * Close the segment files
+	 */
+	public synchronized void close() throws IOException
+	{
+		for ( final FileChannel channel : segments.values() )
+			channel.close();
+		segments.clear();
+		index.clear();
+	}
+
+	/**
+	 * Compute the fingerprint of dataset files from their paths, sizes and modification times
+	 */
+	public static long fingerprint( final List< Path > files ) throws IOException
+	{
+		long h = 1125899906842597L;
+		for ( final Path file : files )
+		{
+			h = 31 * h + file.toAbsolutePath().toString().hashCode();
+			if ( Files.exists( file ) )
+			{
+				h = 31 * h + Files.size( file );
+				h = 31 * h + Files.getLastModifiedTime( file ).toMillis();
+			}
+		}
+		return h;
+	}
+
+	/**
+	 * Record layout: magic, key length, key, fingerprint, data length, crc, data
+	 */
+	private void append( final String key, final long fingerprint, final byte[] data )
+	{
+		try
+		{
+			final byte[] keyBytes = key.getBytes( StandardCharsets.UTF_8 );
+			final int crc = crc( data );
+
+			final ByteBuffer header = ByteBuffer.allocate( 4 + 4 + keyBytes.length + 8 + 4 + 4 );
+			header.putInt( MAGIC ).putInt( keyBytes.length ).put( keyBytes ).putLong( fingerprint ).putInt( data.length ).putInt( crc );
+			header.flip();
+
+			int number = segments.lastKey();
+			FileChannel channel = segments.get( number );
+			if ( channel.size() + header.remaining() + data.length > SEGMENT_BYTES && channel.size() > 0 )
+			{
+				number = addSegment();
+				channel = segments.get( number );
+			}
+
+			final long start = channel.size();
+			final ByteBuffer record = ByteBuffer.allocate( header.remaining() + data.length );
+			record.put( header ).put( data );
+			record.flip();
+			long position = start;
+			while ( record.hasRemaining() )
+				position += channel.write( record, position );
+
+			index.put( key, new Entry( number, start + record.capacity() - data.length, data.length, fingerprint, crc ) );
+			bytes += record.capacity();
+
+			evict();
+		}
+		catch ( final IOException e )
+		{
+			System.err.println( "Disk cell cache write failed: " + e.getMessage() );
+		}
+	}
+
+	private int addSegment() throws IOException
+	{
+		final int number = segments.isEmpty() ? 0 : segments.lastKey() + 1;
+		segments.put( number, FileChannel.open( segmentPath( number ), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE ) );
+		return number;
+	}
+
+	/**
+	 * Delete the oldest segments until the cache fits into its budget
+	 */
+	private void evict() throws IOException
+	{
+		while ( bytes > maxBytes && segments.size() > 2 )
+		{
+			final int oldest = segments.firstKey();
+			final FileChannel channel = segments.remove( oldest );
+			bytes -= channel.size();
+			channel.close();
+			Files.deleteIfExists( segmentPath( oldest ) );
+
+			final Iterator< Entry > it = index.values().iterator();
+			while ( it.hasNext() )
+				if ( it.next().segment == oldest )
+					it.remove();
+		}
+	}
+
+	/**
+	 * Add the records of the segment to the index, a truncated record at the end is cut off
+	 */
+	private void scan( final int number, final FileChannel channel ) throws IOException
+	{
+		final long size = channel.size();
+		long position = 0;
+
+		channel.position( 0 );
+		final DataInputStream in = new DataInputStream( new BufferedInputStream( Channels.newInputStream( channel ), 64 * 1024 ) );
+		try
+		{
+			while ( position < size )
+			{
+				if ( in.readInt() != MAGIC )
+					break;
+
+				final byte[] keyBytes = new byte[ in.readInt() ];
+				in.readFully( keyBytes );
+				final long fingerprint = in.readLong();
+				final int length = in.readInt();
+				final int crc = in.readInt();
+
+				final long dataOffset = position + 4 + 4 + keyBytes.length + 8 + 4 + 4;
+				if ( dataOffset + length > size )
+					break;
+
+				long skipped = 0;
+				while ( skipped < length )
+				{
+					final int n = in.skipBytes( length - ( int ) skipped );
+					if ( n <= 0 )
+						throw new EOFException();
+					skipped += n;
+				}
+
+				// Later records of the same key replace the earlier ones
+				index.put( new String( keyBytes, StandardCharsets.UTF_8 ), new Entry( number, dataOffset, length, fingerprint, crc ) );
+				position = dataOffset + length;
+			}
+		}
+		catch ( final EOFException e )
+		{
+			// Truncated record
+		}
+
+		if ( position < size )
+			channel.truncate( position );
+
+		bytes += position;
+	}
+
+	private Path segmentPath( final int number )
+	{
+		return directory.resolve( String.format( "%s%08d%s", SEGMENT_PREFIX, number, SEGMENT_SUFFIX ) );
+	}
+
+	private static int crc( final byte[] data )
+	{
+		final CRC32 crc = new CRC32();
+		crc.update( data, 0, data.length );
+		return ( int ) crc.getValue();
+	}
+
+	private static class Entry
+	{
+		final int segment;
+
+		final long offset;
+
+		final int length;
+
+		final long fingerprint;
+
+		final int crc;
+
+		Entry( final int segment, final long offset, final int length, final long fingerprint, final int crc )
+		{
+			this.segment = segment;
+			this.offset = offset;
+			this.length = length;
+			this.fingerprint = fingerprint;
+			this.crc = crc;
+		}
+	}
+}
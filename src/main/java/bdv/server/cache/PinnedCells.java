@@ -0,0 +1,107 @@
+package bdv.server.cache;
+
+import bdv.img.cache.VolatileGlobalCellCache;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * PinnedCells keeps the encoded cells of chosen resolution levels of a dataset in memory for as long as the levels
+ * are pinned. Unlike the soft references of the {@link VolatileGlobalCellCache}, the pinned cells are never evicted,
+ * so the coarse levels requested first by every BigDataViewer session are always served from memory.
+ *
+ * Author: HongKee Moon (moon@mpi-cbg.de), Scientific Computing Facility
+ * Organization: MPI-CBG Dresden
+ * Date: October 2026
+ */
+public class PinnedCells
+{
+	/**
+	 * Pinned level to its encoded cells
+	 */
+	private final Map< Integer, Map< VolatileGlobalCellCache.Key, byte[] > > levels = new ConcurrentHashMap<>();
+
+	private final AtomicLong bytes = new AtomicLong();
+
+	/**
+	 * Choose the pinned levels, the cells of levels no longer pinned are released
+	 */
+	public synchronized void setLevels( final Set< Integer > pinned )
+	{
+		for ( final Integer level : levels.keySet() )
+			if ( !pinned.contains( level ) )
+				release( levels.remove( level ) );
+
+		for ( final Integer level : pinned )
+			levels.computeIfAbsent( level, k -> new ConcurrentHashMap<>() );
+	}
+
+	/**
+	 * @return the pinned levels in ascending order
+	 */
+	public Set< Integer > getLevels()
+	{
+		return Collections.unmodifiableSet( new TreeSet<>( levels.keySet() ) );
+	}
+
+	public boolean isPinned( final int level )
+	{
+		return levels.containsKey( level );
+	}
+
+	/**
+	 * @return the encoded cell, null if it is not pinned (yet)
+	 */
+	public byte[] get( final int level, final VolatileGlobalCellCache.Key key )
+	{
+		final Map< VolatileGlobalCellCache.Key, byte[] > cells = levels.get( level );
+		return null == cells ? null : cells.get( key );
+	}
+
+	/**
+	 * Keep the encoded cell if its level is pinned
+	 */
+	public void put( final int level, final VolatileGlobalCellCache.Key key, final byte[] data )
+	{
+		final Map< VolatileGlobalCellCache.Key, byte[] > cells = levels.get( level );
+		if ( null != cells && null == cells.putIfAbsent( key, data ) )
+		{
+			bytes.addAndGet( data.length );
+
+			// The level was unpinned in the meantime
+			if ( levels.get( level ) != cells && cells.remove( key, data ) )
+				bytes.addAndGet( -data.length );
+		}
+	}
+
+	/**
+	 * Release all cells, the levels stay pinned
+	 */
+	public synchronized void clear()
+	{
+		for ( final Map< VolatileGlobalCellCache.Key, byte[] > cells : levels.values() )
+			release( cells );
+	}
+
+	/**
+	 * @return the bytes of the pinned cells
+	 */
+	public long getBytes()
+	{
+		return bytes.get();
+	}
+
+	private void release( final Map< VolatileGlobalCellCache.Key, byte[] > cells )
+	{
+		for ( final VolatileGlobalCellCache.Key key : cells.keySet() )
+		{
+			final byte[] data = cells.remove( key );
+			if ( null != data )
+				bytes.addAndGet( -data.length );
+		}
+	}
+}
@@ -0,0 +1,108 @@
+package bdv.server.cache;
+
+import bdv.metrics.Metrics;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * RenderCache keeps the encoded images of the "render" endpoint of all datasets, so thin clients panning over the same
+ * views are served without rendering again. The least recently used images are evicted beyond the byte budget given in
+ * MB by the system property bdv.render.cacheSize (default 32, 0 disables the cache).
+ *
+ * Author: HongKee Moon (moon@mpi-cbg.de), Scientific Computing Facility
+ * Organization: MPI-CBG Dresden
+ * Date: October 2026
+ */
+public class RenderCache
+{
+	private static RenderCache instance;
+
+	private final LinkedHashMap< String, byte[] > images = new LinkedHashMap<>( 256, 0.75f, true );
+
+	private final long maxBytes;
+
+	private long bytes;
+
+	private final AtomicLong hits = new AtomicLong();
+
+	private final AtomicLong misses = new AtomicLong();
+
+	public static synchronized RenderCache getInstance()
+	{
+		if ( null == instance )
+		{
+			instance = new RenderCache( Long.getLong( "bdv.render.cacheSize", 32 ) << 20 );
+			instance.registerMetrics();
+		}
+		return instance;
+	}
+
+	public RenderCache( final long maxBytes )
+	{
+		this.maxBytes = maxBytes;
+	}
+
+	public void registerMetrics()
+	{
+		Metrics.registerGauge( "bdv_render_cache_bytes", "Bytes of the rendered image cache.", this::getBytes );
+		Metrics.registerCounter( "bdv_render_cache_hits_total", "Rendered images found in the cache.", hits::get );
+		Metrics.registerCounter( "bdv_render_cache_misses_total", "Images rendered.", misses::get );
+	}
+
+	/**
+	 * @param dataSet the index of the dataset
+	 * @param query the canonical parameters of the rendering
+	 * @return the encoded image, null if it is not cached
+	 */
+	public synchronized byte[] get( final long dataSet, final String query )
+	{
+		final byte[] image = images.get( dataSet + "?" + query );
+		if ( null == image )
+			misses.incrementAndGet();
+		else
+			hits.incrementAndGet();
+		return image;
+	}
+
+	public synchronized void put( final long dataSet, final String query, final byte[] image )
+	{
+		if ( image.length > maxBytes )
+			return;
+
+		final byte[] previous = images.put( dataSet + "?" + query, image );
+		bytes += image.length - ( null == previous ? 0 : previous.length );
+
+		final Iterator< byte[] > eldest = images.values().iterator();
+		while ( bytes > maxBytes && eldest.hasNext() )
+		{
+			bytes -= eldest.next().length;
+			eldest.remove();
+		}
+	}
+
+	/**
+	 * Remove the images of a dataset, e.g. when it is deactivated or modified
+	 */
+	public synchronized void remove( final long dataSet )
+	{
+		final String prefix = dataSet + "?";
+		final Iterator< Map.Entry< String, byte[] > > it = images.entrySet().iterator();
+		while ( it.hasNext() )
+		{
+			final Map.Entry< String, byte[] > entry = it.next();
+			if ( entry.getKey().startsWith( prefix ) )
+			{
+				bytes -= entry.getValue().length;
+				it.remove();
+			}
+		}
+	}
+
+	public synchronized long getBytes()
+	{
+		return bytes;
+	}
+}
@@ -0,0 +1,40 @@
+package bdv.server.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event covering the load of a cell from the HDF5 file after a cache miss
+ *
+ * Author: HongKee Moon (moon@mpi-cbg.de), Scientific Computing Facility
+ * Organization: MPI-CBG Dresden
+ * Date: October 2026
+ */
+@Name( "bdv.CellLoad" )
+@Label( "Cell Load" )
+@Category( { "BigDataServer", "Cell" } )
+@Description( "Cell loaded from the image file" )
+@StackTrace( false )
+public class CellLoadEvent extends Event
+{
+	@Label( "Dataset" )
+	public long dataSet;
+
+	@Label( "Timepoint" )
+	public int timepoint;
+
+	@Label( "Setup" )
+	public int setup;
+
+	@Label( "Level" )
+	public int level;
+
+	@Label( "Bytes Loaded" )
+	@DataAmount
+	public long bytes;
+}
@@ -0,0 +1,48 @@
+package bdv.server.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event covering a cell request from parsing to the written response
+ *
+ * Author: HongKee Moon (moon@mpi-cbg.de), Scientific Computing Facility
+ * Organization: MPI-CBG Dresden
+ * Date: October 2026
+ */
+@Name( "bdv.CellRequest" )
+@Label( "Cell Request" )
+@Category( { "BigDataServer", "Cell" } )
+@Description( "Cell request served by a CellHandler" )
+@StackTrace( false )
+public class CellRequestEvent extends Event
+{
+	@Label( "Dataset" )
+	public long dataSet;
+
+	@Label( "Timepoint" )
+	public int timepoint;
+
+	@Label( "Setup" )
+	public int setup;
+
+	@Label( "Level" )
+	public int level;
+
+	@Label( "Cache Hit" )
+	@Description( "True if the cell was in the cache, false if it was loaded" )
+	public boolean cacheHit;
+
+	@Label( "Stored" )
+	@Description( "True if the cell was sent as stored, without decoding it" )
+	public boolean stored;
+
+	@Label( "Bytes Written" )
+	@DataAmount
+	public long bytes;
+}
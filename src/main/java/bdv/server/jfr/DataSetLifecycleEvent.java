@@ -0,0 +1,41 @@
+package bdv.server.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event covering the deployment, the removal, the activation or the deactivation of a CellHandler
+ *
+ * Author: HongKee Moon (moon@mpi-cbg.de), Scientific Computing Facility
+ * Organization: MPI-CBG Dresden
+ * Date: October 2026
+ */
+@Name( "bdv.DataSetLifecycle" )
+@Label( "Dataset Lifecycle" )
+@Category( { "BigDataServer", "Dataset" } )
+@Description( "CellHandler deployed, removed, activated or deactivated" )
+public class DataSetLifecycleEvent extends Event
+{
+	public static final String DEPLOY = "deploy";
+
+	public static final String UNDEPLOY = "undeploy";
+
+	public static final String ACTIVATE = "activate";
+
+	public static final String DEACTIVATE = "deactivate";
+
+	@Label( "Dataset" )
+	public long dataSet;
+
+	@Label( "Dataset Name" )
+	public String dataSetName;
+
+	@Label( "Action" )
+	public String action;
+
+	@Label( "Succeeded" )
+	public boolean succeeded;
+}
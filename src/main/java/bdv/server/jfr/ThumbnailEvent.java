@@ -0,0 +1,30 @@
+package bdv.server.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event covering the rendering of a dataset thumbnail
+ *
+ * Author: HongKee Moon (moon@mpi-cbg.de), Scientific Computing Facility
+ * Organization: MPI-CBG Dresden
+ * Date: October 2026
+ */
+@Name( "bdv.Thumbnail" )
+@Label( "Thumbnail Render" )
+@Category( { "BigDataServer", "Dataset" } )
+@Description( "Thumbnail rendered for a dataset" )
+public class ThumbnailEvent extends Event
+{
+	@Label( "Dataset Name" )
+	public String dataSetName;
+
+	@Label( "Width" )
+	public int width;
+
+	@Label( "Height" )
+	public int height;
+}
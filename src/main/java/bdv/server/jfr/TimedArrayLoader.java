@@ -0,0 +1,55 @@
+package bdv.server.jfr;
+
+import bdv.img.cache.CacheArrayLoader;
+import net.imglib2.img.basictypeaccess.volatiles.VolatileAccess;
+
+/**
+ * CacheArrayLoader wrapper emitting a {@link CellLoadEvent} for every cell loaded by the wrapped loader
+ *
+ * Author: HongKee Moon (moon@mpi-cbg.de), Scientific Computing Facility
+ * Organization: MPI-CBG Dresden
+ * Date: October 2026
+ */
+public class TimedArrayLoader< A extends VolatileAccess > implements CacheArrayLoader< A >
+{
+	private final CacheArrayLoader< A > loader;
+
+	private final long dataSet;
+
+	/**
+	 * @param loader the wrapped loader
+	 * @param dataSet the dataset index recorded in the events
+	 */
+	public TimedArrayLoader( final CacheArrayLoader< A > loader, final long dataSet )
+	{
+		this.loader = loader;
+		this.dataSet = dataSet;
+	}
+
+	@Override
+	public int getBytesPerElement()
+	{
+		return loader.getBytesPerElement();
+	}
+
+	@Override
+	public A loadArray( final int timepoint, final int setup, final int level, final int[] dimensions, final long[] min ) throws InterruptedException
+	{
+		final CellLoadEvent event = new CellLoadEvent();
+		event.begin();
+
+		final A array = loader.loadArray( timepoint, setup, level, dimensions, min );
+
+		if ( event.shouldCommit() )
+		{
+			event.dataSet = dataSet;
+			event.timepoint = timepoint;
+			event.setup = setup;
+			event.level = level;
+			event.bytes = ( long ) getBytesPerElement() * dimensions[ 0 ] * dimensions[ 1 ] * dimensions[ 2 ];
+			event.commit();
+		}
+
+		return array;
+	}
+}
@@ -0,0 +1,118 @@
+package bdv.server.store;
+
+import bdv.img.cache.CacheArrayLoader;
+import bdv.img.cache.VolatileGlobalCellCache;
+import bdv.img.hdf5.DimsAndExistence;
+import bdv.img.hdf5.MipmapInfo;
+import bdv.img.hdf5.ViewLevelId;
+import bdv.spimdata.SpimDataMinimal;
+import mpicbg.spim.data.SpimDataException;
+import net.imglib2.img.basictypeaccess.volatiles.array.VolatileShortArray;
+import net.imglib2.realtransform.AffineTransform3D;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * CellStore is the storage backend of a served dataset: it describes the mipmap pyramid and loads the cells requested
+ * in the "cell/..." protocol of the {@link bdv.img.remote.RemoteImageLoader}, which is the same for every backend.
+ *
+ * Author: HongKee Moon (moon@mpi-cbg.de), Scientific Computing Facility
+ * Organization: MPI-CBG Dresden
+ * Date: October 2026
+ */
+public interface CellStore
+{
+	/**
+	 * Open the dataset at the path: an N5 container or a Zarr store directory in the BigDataViewer layout, otherwise
+	 * a BigDataViewer XML file with an HDF5 image loader
+	 */
+	static CellStore open( final String path ) throws SpimDataException, IOException
+	{
+		final Path p = Paths.get( path );
+		if ( Files.isDirectory( p ) )
+		{
+			if ( path.endsWith( ".zarr" ) || Files.exists( p.resolve( ZarrCellStore.GROUP ) ) )
+				return new ZarrCellStore( p );
+			else
+				return new N5CellStore( p );
+		}
+		return new Hdf5CellStore( path );
+	}
+
+	/**
+	 * @return the sequence description and the view registrations of the dataset
+	 */
+	SpimDataMinimal getSpimData();
+
+	MipmapInfo getSetupMipmapInfo( int setup );
+
+	DimsAndExistence getDimsAndExistence( ViewLevelId id );
+
+	/**
+	 * @return the pixel type of the setup
+	 */
+	DataType getDataType( int setup );
+
+	/**
+	 * @return the loader of the cells, which packs the pixels of other types than uint16 as described in {@link DataType}
+	 */
+	CacheArrayLoader< VolatileShortArray > getShortArrayLoader();
+
+	/**
+	 * Read the stored bytes of a cell without decoding them, if the cell is stored as one chunk of big-endian pixels
+	 * which is uncompressed or compressed with one of the accepted content codings. The bytes can be sent to the
+	 * client as they are.
+	 * @param acceptedCodings the content codings accepted by the client, e.g. "gzip" or "deflate"
+	 * @return the stored cell, null if it has to be loaded by the {@link #getShortArrayLoader()}
+	 */
+	StoredCell readStoredCell( int timepoint, int setup, int level, int[] dimensions, long[] min, Collection< String > acceptedCodings ) throws IOException;
+
+	/**
+	 * @return the cell cache, which opens the store again after {@link #close()}
+	 */
+	VolatileGlobalCellCache getCacheControl();
+
+	/**
+	 * @return the metadata sent to the {@link bdv.img.remote.RemoteImageLoader} clients as JSON
+	 */
+	Object getMetaData();
+
+	/**
+	 * @return the files whose sizes and modification times tell whether the dataset was modified
+	 */
+	List< Path > getFiles();
+
+	/**
+	 * @return true if the loaded cells are kept in the {@link bdv.server.cache.DiskCellCache}, which drops them when
+	 * the sizes or modification times of {@link #getFiles()} change
+	 */
+	boolean isDiskCached();
+
+	/**
+	 * @return the bytes of the dataset on disk
+	 */
+	long getSize() throws IOException;
+
+	BufferedImage makeThumbnail( int width, int height );
+
+	/**
+	 * Render a 2D slice of the dataset for the clients of the "render" endpoint
+	 * @param viewerTransform the transform from global coordinates to the image
+	 * @param timepoint the timepoint id, -1 for the first timepoint
+	 * @param setups the ids of the shown setups, sorted, null for the visible sources of the settings
+	 * @return the image, null if the store cannot render
+	 * @throws IllegalArgumentException if the timepoint or a setup does not exist
+	 */
+	BufferedImage renderSlice( AffineTransform3D viewerTransform, int timepoint, int[] setups, int width, int height );
+
+	/**
+	 * Release the open files and the cached cells
+	 */
+	void close();
+}
@@ -0,0 +1,669 @@
+package bdv.server.store;
+
+import bdv.img.cache.CacheArrayLoader;
+import bdv.img.cache.VolatileGlobalCellCache;
+import bdv.img.hdf5.DimsAndExistence;
+import bdv.img.hdf5.MipmapInfo;
+import bdv.img.hdf5.ViewLevelId;
+import bdv.spimdata.SequenceDescriptionMinimal;
+import bdv.spimdata.SpimDataMinimal;
+import bdv.util.MipmapTransforms;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import mpicbg.spim.data.generic.sequence.BasicViewSetup;
+import mpicbg.spim.data.registration.ViewRegistration;
+import mpicbg.spim.data.registration.ViewRegistrations;
+import mpicbg.spim.data.sequence.FinalVoxelDimensions;
+import mpicbg.spim.data.sequence.MissingViews;
+import mpicbg.spim.data.sequence.TimePoint;
+import mpicbg.spim.data.sequence.TimePoints;
+import mpicbg.spim.data.sequence.ViewId;
+import net.imglib2.FinalDimensions;
+import net.imglib2.img.basictypeaccess.volatiles.array.VolatileShortArray;
+import net.imglib2.realtransform.AffineTransform3D;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * ChunkCellStore serves a directory storing one file per chunk in the layout of the BigDataViewer N5 format:
+ * "setup{id}/timepoint{id}/s{level}" arrays of one {@link DataType} per setup, and the "downsamplingFactors" of the levels as an attribute of
+ * every setup group. Optionally, the setup groups give the "voxelSize" and the "voxelUnit" of their full resolution.
+ *
+ * The cell grid of a level is its chunk grid, so every requested cell is read from one chunk file. The chunk files are
+ * read independently without any lock, so cells are loaded concurrently. Chunks of big-endian pixels can be sent to
+ * the clients as stored, without decompressing them, see {@link #readStoredCell}.
+ *
+ * Author: HongKee Moon (moon@mpi-cbg.de), Scientific Computing Facility
+ * Organization: MPI-CBG Dresden
+ * Date: October 2026
+ */
+public abstract class ChunkCellStore implements CellStore
+{
+	private static final Pattern SETUP = Pattern.compile( "setup(\\d+)" );
+
+	private static final Pattern TIMEPOINT = Pattern.compile( "timepoint(\\d+)" );
+
+	protected final Path root;
+
+	private final SpimDataMinimal spimData;
+
+	private final Map< Integer, MipmapInfo > mipmapInfos = new HashMap<>();
+
+	private final Map< ViewLevelId, ChunkAttributes > arrays = new HashMap<>();
+
+	private final Map< Integer, DataType > dataTypes = new HashMap<>();
+
+	/**
+	 * Attribute files of the groups and arrays
+	 */
+	private final List< Path > files = new ArrayList<>();
+
+	private final VolatileGlobalCellCache cache;
+
+	private final CacheArrayLoader< VolatileShortArray > loader = new ChunkArrayLoader();
+
+	protected ChunkCellStore( final Path root ) throws IOException
+	{
+		this.root = root;
+
+		final TreeMap< Integer, BasicViewSetup > setups = new TreeMap<>();
+		final TreeSet< Integer > timepoints = new TreeSet<>();
+		final Map< ViewId, ViewRegistration > registrations = new HashMap<>();
+		int maxNumLevels = 0;
+
+		for ( final Map.Entry< Integer, Path > setupGroup : listGroups( root, SETUP ).entrySet() )
+		{
+			final int setup = setupGroup.getKey();
+			final JsonObject attributes = readGroupAttributes( setupGroup.getValue() );
+			final double[][] resolutions = getDoubles2( attributes, "downsamplingFactors", new double[][] { { 1, 1, 1 } } );
+			final double[] voxelSize = getDoubles( attributes, "voxelSize", new double[] { 1, 1, 1 } );
+			final String voxelUnit = attributes.has( "voxelUnit" ) ? attributes.get( "voxelUnit" ).getAsString() : "pixel";
+
+			int[][] subdivisions = null;
+			long[] size = null;
+			for ( final Map.Entry< Integer, Path > timepointGroup : listGroups( setupGroup.getValue(), TIMEPOINT ).entrySet() )
+			{
+				final int timepoint = timepointGroup.getKey();
+				for ( int level = 0; level < resolutions.length; level++ )
+				{
+					final Path array = timepointGroup.getValue().resolve( "s" + level );
+					final ChunkAttributes chunkAttributes = Files.isDirectory( array ) ? readArrayAttributes( array ) : null;
+					if ( null == chunkAttributes )
+						continue;
+
+					final DataType dataType = dataTypes.putIfAbsent( setup, chunkAttributes.dataType );
+					if ( null != dataType && dataType != chunkAttributes.dataType )
+						throw new IOException( "Data type " + chunkAttributes.dataType.getName() + " of " + array + " differs from " + dataType.getName() );
+
+					arrays.put( new ViewLevelId( timepoint, setup, level ), chunkAttributes );
+					if ( null == subdivisions )
+						subdivisions = new int[ resolutions.length ][];
+					if ( null == subdivisions[ level ] )
+						subdivisions[ level ] = chunkAttributes.blockSize;
+					if ( level == 0 && null == size )
+						size = chunkAttributes.dimensions;
+				}
+
+				if ( arrays.containsKey( new ViewLevelId( timepoint, setup, 0 ) ) )
+				{
+					timepoints.add( timepoint );
+					final AffineTransform3D transform = new AffineTransform3D();
+					transform.set( voxelSize[ 0 ], 0, 0, 0, 0, voxelSize[ 1 ], 0, 0, 0, 0, voxelSize[ 2 ], 0 );
+					registrations.put( new ViewId( timepoint, setup ), new ViewRegistration( timepoint, setup, transform ) );
+				}
+			}
+
+			if ( null == size )
+				continue;
+
+			final AffineTransform3D[] transforms = new AffineTransform3D[ resolutions.length ];
+			for ( int level = 0; level < resolutions.length; level++ )
+			{
+				transforms[ level ] = MipmapTransforms.getMipmapTransformDefault( resolutions[ level ] );
+				if ( null == subdivisions[ level ] )
+					subdivisions[ level ] = subdivisions[ 0 ];
+			}
+			mipmapInfos.put( setup, new MipmapInfo( resolutions, transforms, subdivisions ) );
+			maxNumLevels = Math.max( maxNumLevels, resolutions.length );
+
+			setups.put( setup, new BasicViewSetup( setup, "setup" + setup, new FinalDimensions( size ), new FinalVoxelDimensions( voxelUnit, voxelSize ) ) );
+		}
+
+		if ( setups.isEmpty() )
+			throw new IOException( "No setup with arrays in " + root );
+
+		final List< TimePoint > timepointList = new ArrayList<>();
+		final List< ViewId > missing = new ArrayList<>();
+		for ( final int timepoint : timepoints )
+		{
+			timepointList.add( new TimePoint( timepoint ) );
+			for ( final int setup : setups.keySet() )
+				if ( !registrations.containsKey( new ViewId( timepoint, setup ) ) )
+					missing.add( new ViewId( timepoint, setup ) );
+		}
+
+		final SequenceDescriptionMinimal seq = new SequenceDescriptionMinimal( new TimePoints( timepointList ), setups, null, new MissingViews( missing ) );
+		spimData = new SpimDataMinimal( root.toAbsolutePath().getParent().toFile(), seq, new ViewRegistrations( registrations ) );
+
+		cache = new VolatileGlobalCellCache( maxNumLevels, 1 );
+	}
+
+	/**
+	 * Read the attributes of a group, empty if it has none
+	 */
+	protected abstract JsonObject readGroupAttributes( Path group ) throws IOException;
+
+	/**
+	 * Read the attributes of an array
+	 * @return the attributes, null if the directory is not an array
+	 * @throws IOException if the array cannot be served
+	 */
+	protected abstract ChunkAttributes readArrayAttributes( Path array ) throws IOException;
+
+	/**
+	 * Read the bytes of a chunk as they are stored, still compressed
+	 * @param array the array directory
+	 * @param attributes the attributes of the array
+	 * @param gridPosition the position of the chunk in the chunk grid, x first
+	 * @return the chunk, null if it was not written
+	 */
+	protected abstract StoredChunk readStoredChunk( Path array, ChunkAttributes attributes, long[] gridPosition ) throws IOException;
+
+	/**
+	 * The cell can be sent as stored if it is exactly one chunk of big-endian pixels, which holds for the chunks of N5
+	 * arrays and the inner chunks of big-endian or 8-bit Zarr arrays.
+	 */
+	@Override
+	public StoredCell readStoredCell( final int timepoint, final int setup, final int level, final int[] dimensions, final long[] min, final Collection< String > acceptedCodings ) throws IOException
+	{
+		final ChunkAttributes attributes = arrays.get( new ViewLevelId( timepoint, setup, level ) );
+		if ( null == attributes || !attributes.bigEndian && attributes.dataType.getBytesPerPixel() > 1 )
+			return null;
+
+		// The HTTP "deflate" content coding is the zlib format
+		final String contentCoding = attributes.compression.equals( "raw" ) ? null : attributes.compression.equals( "zlib" ) ? "deflate" : "gzip";
+		if ( null != contentCoding && !acceptedCodings.contains( contentCoding ) )
+			return null;
+
+		final long[] gridPosition = new long[ 3 ];
+		for ( int d = 0; d < 3; d++ )
+		{
+			if ( min[ d ] % attributes.blockSize[ d ] != 0 )
+				return null;
+			gridPosition[ d ] = min[ d ] / attributes.blockSize[ d ];
+		}
+
+		final StoredChunk chunk = readStoredChunk( getArray( timepoint, setup, level ), attributes, gridPosition );
+		if ( null == chunk || !Arrays.equals( chunk.size, dimensions ) )
+			return null;
+
+		return new StoredCell( contentCoding, chunk.bytes );
+	}
+
+	@Override
+	public SpimDataMinimal getSpimData()
+	{
+		return spimData;
+	}
+
+	@Override
+	public MipmapInfo getSetupMipmapInfo( final int setup )
+	{
+		return mipmapInfos.get( setup );
+	}
+
+	@Override
+	public DimsAndExistence getDimsAndExistence( final ViewLevelId id )
+	{
+		final ChunkAttributes attributes = arrays.get( id );
+		return null == attributes ? new DimsAndExistence( new long[] { 1, 1, 1 }, false ) : new DimsAndExistence( attributes.dimensions, true );
+	}
+
+	@Override
+	public CacheArrayLoader< VolatileShortArray > getShortArrayLoader()
+	{
+		return loader;
+	}
+
+	@Override
+	public DataType getDataType( final int setup )
+	{
+		return dataTypes.getOrDefault( setup, DataType.UINT16 );
+	}
+
+	@Override
+	public VolatileGlobalCellCache getCacheControl()
+	{
+		return cache;
+	}
+
+	@Override
+	public Object getMetaData()
+	{
+		return new ChunkStoreMetaData( this, spimData.getSequenceDescription() );
+	}
+
+	@Override
+	public List< Path > getFiles()
+	{
+		return files;
+	}
+
+	/**
+	 * A cell is read from one chunk file already, and rewriting chunk files does not change the attribute files of the
+	 * fingerprint, so the disk cache would serve stale cells
+	 */
+	@Override
+	public boolean isDiskCached()
+	{
+		return false;
+	}
+
+	@Override
+	public long getSize() throws IOException
+	{
+		try ( Stream< Path > stream = Files.walk( root ) )
+		{
+			return stream.filter( Files::isRegularFile ).mapToLong( file -> {
+				try
+				{
+					return Files.size( file );
+				}
+				catch ( IOException e )
+				{
+					throw new UncheckedIOException( e );
+				}
+			} ).sum();
+		}
+		catch ( UncheckedIOException e )
+		{
+			throw e.getCause();
+		}
+	}
+
+	/**
+	 * Maximum intensity projection of the coarsest level of the first setup and timepoint
+	 */
+	@Override
+	public BufferedImage makeThumbnail( final int width, final int height )
+	{
+		final BufferedImage thumbnail = new BufferedImage( width, height, BufferedImage.TYPE_INT_RGB );
+
+		final int setup = spimData.getSequenceDescription().getViewSetupsOrdered().get( 0 ).getId();
+		final int timepoint = spimData.getSequenceDescription().getTimePoints().getTimePointsOrdered().get( 0 ).getId();
+		final int level = mipmapInfos.get( setup ).getNumLevels() - 1;
+		final ChunkAttributes attributes = arrays.get( new ViewLevelId( timepoint, setup, level ) );
+		if ( null == attributes || attributes.dimensions[ 0 ] * attributes.dimensions[ 1 ] > 4096 * 4096 )
+			return thumbnail;
+
+		final int w = ( int ) attributes.dimensions[ 0 ];
+		final int h = ( int ) attributes.dimensions[ 1 ];
+		final double[] projection = new double[ w * h ];
+
+		try
+		{
+			for ( final long[] gridPosition : attributes.getGridPositions() )
+			{
+				final Chunk chunk = readChunk( getArray( timepoint, setup, level ), attributes, gridPosition );
+				if ( null == chunk )
+					continue;
+
+				final int x0 = ( int ) gridPosition[ 0 ] * attributes.blockSize[ 0 ];
+				final int y0 = ( int ) gridPosition[ 1 ] * attributes.blockSize[ 1 ];
+				for ( int z = 0, i = 0; z < chunk.size[ 2 ]; z++ )
+					for ( int y = 0; y < chunk.size[ 1 ]; y++ )
+						for ( int x = 0; x < chunk.size[ 0 ]; x++, i++ )
+							if ( x0 + x < w && y0 + y < h )
+							{
+								final int j = ( y0 + y ) * w + x0 + x;
+								projection[ j ] = Math.max( projection[ j ], attributes.dataType.getValue( chunk.data, i ) );
+							}
+			}
+		}
+		catch ( final IOException e )
+		{
+			return thumbnail;
+		}
+
+		double max = 0;
+		for ( final double value : projection )
+			max = Math.max( max, value );
+		if ( !( max > 0 ) )
+			max = 1;
+
+		final BufferedImage image = new BufferedImage( w, h, BufferedImage.TYPE_INT_RGB );
+		for ( int y = 0; y < h; y++ )
+			for ( int x = 0; x < w; x++ )
+			{
+				final int gray = ( int ) Math.max( 0, 255 * projection[ y * w + x ] / max );
+				image.setRGB( x, y, ( gray << 16 ) | ( gray << 8 ) | gray );
+			}
+
+		// Fit into the thumbnail keeping the aspect ratio
+		final double scale = Math.min( ( double ) width / w, ( double ) height / h );
+		final int sw = ( int ) Math.round( w * scale );
+		final int sh = ( int ) Math.round( h * scale );
+		final Graphics2D g = thumbnail.createGraphics();
+		g.setRenderingHint( RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR );
+		g.drawImage( image, ( width - sw ) / 2, ( height - sh ) / 2, sw, sh, null );
+		g.dispose();
+
+		return thumbnail;
+	}
+
+	/**
+	 * The store has no BigDataViewer image loader to render with
+	 */
+	@Override
+	public BufferedImage renderSlice( final AffineTransform3D viewerTransform, final int timepoint, final int[] setups, final int width, final int height )
+	{
+		return null;
+	}
+
+	@Override
+	public void close()
+	{
+		cache.clearCache();
+	}
+
+	/**
+	 * Remember an attribute file of the dataset, see {@link #getFiles()}
+	 */
+	protected void addFile( final Path file )
+	{
+		if ( Files.exists( file ) )
+			files.add( file );
+	}
+
+	private Path getArray( final int timepoint, final int setup, final int level )
+	{
+		return root.resolve( "setup" + setup ).resolve( "timepoint" + timepoint ).resolve( "s" + level );
+	}
+
+	/**
+	 * Read and decode a chunk
+	 * @return the chunk, null if it was not written
+	 */
+	private Chunk readChunk( final Path array, final ChunkAttributes attributes, final long[] gridPosition ) throws IOException
+	{
+		final StoredChunk stored = readStoredChunk( array, attributes, gridPosition );
+		if ( null == stored )
+			return null;
+
+		final byte[] data = decompress( stored.bytes, attributes.compression );
+		final int bytesPerPixel = attributes.dataType.getBytesPerPixel();
+		if ( !attributes.bigEndian )
+			for ( int i = 0; i + bytesPerPixel <= data.length; i += bytesPerPixel )
+				for ( int a = i, b = i + bytesPerPixel - 1; a < b; a++, b-- )
+				{
+					final byte tmp = data[ a ];
+					data[ a ] = data[ b ];
+					data[ b ] = tmp;
+				}
+		return new Chunk( stored.size, data );
+	}
+
+	/**
+	 * Decompress the bytes of a chunk
+	 * @param compression "raw", "gzip" or "zlib"
+	 */
+	protected static byte[] decompress( final byte[] bytes, final String compression ) throws IOException
+	{
+		if ( compression.equals( "raw" ) )
+			return bytes;
+
+		try ( InputStream in = compression.equals( "gzip" ) ? new GZIPInputStream( new ByteArrayInputStream( bytes ) ) : new InflaterInputStream( new ByteArrayInputStream( bytes ) ) )
+		{
+			final ByteArrayOutputStream out = new ByteArrayOutputStream( 4 * bytes.length );
+			final byte[] buffer = new byte[ 64 * 1024 ];
+			int n;
+			while ( ( n = in.read( buffer ) ) > 0 )
+				out.write( buffer, 0, n );
+			return out.toByteArray();
+		}
+	}
+
+	protected static long[] getLongs( final JsonObject attributes, final String key )
+	{
+		final JsonArray array = attributes.getAsJsonArray( key );
+		final long[] values = new long[ array.size() ];
+		for ( int i = 0; i < values.length; i++ )
+			values[ i ] = array.get( i ).getAsLong();
+		return values;
+	}
+
+	protected static int[] getInts( final JsonObject attributes, final String key )
+	{
+		final JsonArray array = attributes.getAsJsonArray( key );
+		final int[] values = new int[ array.size() ];
+		for ( int i = 0; i < values.length; i++ )
+			values[ i ] = array.get( i ).getAsInt();
+		return values;
+	}
+
+	private static double[] getDoubles( final JsonObject attributes, final String key, final double[] defaultValue )
+	{
+		if ( !attributes.has( key ) )
+			return defaultValue;
+
+		final JsonArray array = attributes.getAsJsonArray( key );
+		final double[] values = new double[ array.size() ];
+		for ( int i = 0; i < values.length; i++ )
+			values[ i ] = array.get( i ).getAsDouble();
+		return values;
+	}
+
+	private static double[][] getDoubles2( final JsonObject attributes, final String key, final double[][] defaultValue )
+	{
+		if ( !attributes.has( key ) )
+			return defaultValue;
+
+		final JsonArray array = attributes.getAsJsonArray( key );
+		final double[][] values = new double[ array.size() ][];
+		for ( int i = 0; i < values.length; i++ )
+		{
+			final JsonArray row = array.get( i ).getAsJsonArray();
+			values[ i ] = new double[ row.size() ];
+			for ( int d = 0; d < values[ i ].length; d++ )
+				values[ i ][ d ] = row.get( d ).getAsDouble();
+		}
+		return values;
+	}
+
+	/**
+	 * @return the sub directories named by the pattern by their number
+	 */
+	private static TreeMap< Integer, Path > listGroups( final Path parent, final Pattern pattern ) throws IOException
+	{
+		final TreeMap< Integer, Path > groups = new TreeMap<>();
+		try ( DirectoryStream< Path > stream = Files.newDirectoryStream( parent, Files::isDirectory ) )
+		{
+			for ( final Path dir : stream )
+			{
+				final Matcher m = pattern.matcher( dir.getFileName().toString() );
+				if ( m.matches() )
+					groups.put( Integer.parseInt( m.group( 1 ) ), dir );
+			}
+		}
+		return groups;
+	}
+
+	/**
+	 * Attributes of a 3D array, in x, y, z order
+	 */
+	protected static class ChunkAttributes
+	{
+		final long[] dimensions;
+
+		final int[] blockSize;
+
+		final DataType dataType;
+
+		/**
+		 * "raw", "gzip" or "zlib"
+		 */
+		final String compression;
+
+		final boolean bigEndian;
+
+		/**
+		 * Big-endian bytes of the pixels of chunks not written
+		 */
+		final byte[] fillValue;
+
+		/**
+		 * Separator of the grid position in the chunk keys
+		 */
+		final String separator;
+
+		ChunkAttributes( final long[] dimensions, final int[] blockSize, final DataType dataType, final String compression, final boolean bigEndian, final double fillValue, final String separator ) throws IOException
+		{
+			if ( dimensions.length != 3 || blockSize.length != 3 )
+				throw new IOException( "Not a 3D array" );
+			if ( !Arrays.asList( "raw", "gzip", "zlib" ).contains( compression ) )
+				throw new IOException( "Unsupported compression: " + compression );
+
+			this.dimensions = dimensions;
+			this.blockSize = blockSize;
+			this.dataType = dataType;
+			this.compression = compression;
+			this.bigEndian = bigEndian;
+			this.fillValue = dataType.toBytes( fillValue );
+			this.separator = separator;
+		}
+
+		List< long[] > getGridPositions()
+		{
+			final List< long[] > positions = new ArrayList<>();
+			for ( long z = 0; z * blockSize[ 2 ] < dimensions[ 2 ]; z++ )
+				for ( long y = 0; y * blockSize[ 1 ] < dimensions[ 1 ]; y++ )
+					for ( long x = 0; x * blockSize[ 0 ] < dimensions[ 0 ]; x++ )
+						positions.add( new long[] { x, y, z } );
+			return positions;
+		}
+	}
+
+	/**
+	 * Bytes of a chunk as they are stored
+	 */
+	protected static class StoredChunk
+	{
+		/**
+		 * Size of the chunk, x first
+		 */
+		final int[] size;
+
+		final byte[] bytes;
+
+		StoredChunk( final int[] size, final byte[] bytes )
+		{
+			this.size = size;
+			this.bytes = bytes;
+		}
+	}
+
+	/**
+	 * Big-endian bytes of the pixels of a chunk, x running fastest
+	 */
+	protected static class Chunk
+	{
+		final int[] size;
+
+		final byte[] data;
+
+		Chunk( final int[] size, final byte[] data )
+		{
+			this.size = size;
+			this.data = data;
+		}
+	}
+
+	/**
+	 * Loads a cell from the chunk at its position, cropped or padded to the cell size. The bytes of the pixels are
+	 * packed into the short array, see {@link DataType}.
+	 */
+	private class ChunkArrayLoader implements CacheArrayLoader< VolatileShortArray >
+	{
+		@Override
+		public int getBytesPerElement()
+		{
+			return 2;
+		}
+
+		@Override
+		public VolatileShortArray loadArray( final int timepoint, final int setup, final int level, final int[] dimensions, final long[] min ) throws InterruptedException
+		{
+			final int numPixels = dimensions[ 0 ] * dimensions[ 1 ] * dimensions[ 2 ];
+			final ChunkAttributes attributes = arrays.get( new ViewLevelId( timepoint, setup, level ) );
+			if ( null == attributes )
+				return new VolatileShortArray( new short[ numPixels ], true );
+
+			final long[] gridPosition = new long[ 3 ];
+			for ( int d = 0; d < 3; d++ )
+				gridPosition[ d ] = min[ d ] / attributes.blockSize[ d ];
+
+			final Chunk chunk;
+			try
+			{
+				chunk = readChunk( getArray( timepoint, setup, level ), attributes, gridPosition );
+			}
+			catch ( final IOException e )
+			{
+				throw new UncheckedIOException( e );
+			}
+
+			if ( null != chunk && Arrays.equals( chunk.size, dimensions ) )
+				return new VolatileShortArray( pack( chunk.data, attributes.dataType.getStorageLength( numPixels ) ), true );
+
+			final int bytesPerPixel = attributes.dataType.getBytesPerPixel();
+			final byte[] data = new byte[ numPixels * bytesPerPixel ];
+			for ( int i = 0; i < data.length; i += bytesPerPixel )
+				System.arraycopy( attributes.fillValue, 0, data, i, bytesPerPixel );
+
+			if ( null != chunk )
+			{
+				final int w = Math.min( dimensions[ 0 ], chunk.size[ 0 ] ) * bytesPerPixel;
+				for ( int z = 0; z < Math.min( dimensions[ 2 ], chunk.size[ 2 ] ); z++ )
+					for ( int y = 0; y < Math.min( dimensions[ 1 ], chunk.size[ 1 ] ); y++ )
+						System.arraycopy( chunk.data, ( ( z * chunk.size[ 1 ] + y ) * chunk.size[ 0 ] ) * bytesPerPixel, data, ( ( z * dimensions[ 1 ] + y ) * dimensions[ 0 ] ) * bytesPerPixel, w );
+			}
+
+			return new VolatileShortArray( pack( data, attributes.dataType.getStorageLength( numPixels ) ), true );
+		}
+
+		/**
+		 * @return the bytes as big-endian shorts, the last one padded with zero
+		 */
+		private short[] pack( final byte[] bytes, final int length )
+		{
+			final short[] data = new short[ length ];
+			final ByteBuffer buffer = ByteBuffer.wrap( Arrays.copyOf( bytes, 2 * length ) );
+			buffer.asShortBuffer().get( data );
+			return data;
+		}
+	}
+}
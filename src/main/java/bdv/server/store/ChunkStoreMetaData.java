@@ -0,0 +1,55 @@
+package bdv.server.store;
+
+import bdv.img.hdf5.DimsAndExistence;
+import bdv.img.hdf5.MipmapInfo;
+import bdv.img.hdf5.ViewLevelId;
+import mpicbg.spim.data.generic.sequence.AbstractSequenceDescription;
+import mpicbg.spim.data.generic.sequence.BasicViewSetup;
+import mpicbg.spim.data.sequence.TimePoint;
+
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Metadata of a {@link CellStore} serialized to the same JSON as the {@link bdv.img.remote.RemoteImageLoaderMetaData}
+ * of an HDF5 dataset, which can only be created from an {@link bdv.img.hdf5.Hdf5ImageLoader}
+ *
+ * Author: HongKee Moon (moon@mpi-cbg.de), Scientific Computing Facility
+ * Organization: MPI-CBG Dresden
+ * Date: October 2026
+ */
+public class ChunkStoreMetaData
+{
+	private final HashMap< Integer, MipmapInfo > perSetupMipmapInfo = new HashMap<>();
+
+	private final HashMap< ViewLevelId, DimsAndExistence > dimsAndExistence = new HashMap<>();
+
+	private final int maxNumTimepoints;
+
+	private final int maxNumSetups;
+
+	private int maxNumLevels;
+
+	public ChunkStoreMetaData( final CellStore store, final AbstractSequenceDescription< ?, ?, ? > seq )
+	{
+		final List< TimePoint > timepoints = seq.getTimePoints().getTimePointsOrdered();
+		maxNumTimepoints = timepoints.get( timepoints.size() - 1 ).getId() + 1;
+
+		final List< ? extends BasicViewSetup > setups = seq.getViewSetupsOrdered();
+		maxNumSetups = setups.get( setups.size() - 1 ).getId() + 1;
+
+		for ( final BasicViewSetup setup : setups )
+		{
+			final MipmapInfo info = store.getSetupMipmapInfo( setup.getId() );
+			perSetupMipmapInfo.put( setup.getId(), info );
+			maxNumLevels = Math.max( maxNumLevels, info.getNumLevels() );
+
+			for ( final TimePoint timepoint : timepoints )
+				for ( int level = 0; level < info.getNumLevels(); level++ )
+				{
+					final ViewLevelId id = new ViewLevelId( timepoint.getId(), setup.getId(), level );
+					dimsAndExistence.put( id, store.getDimsAndExistence( id ) );
+				}
+		}
+	}
+}
@@ -0,0 +1,134 @@
+package bdv.server.store;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Pixel type of a setup, declared to the clients in the "dataTypes" of the metadata JSON.
+ *
+ * The cells of every type are cached as short arrays holding the big-endian bytes of the pixels, so the cells are
+ * encoded by {@link bdv.server.CellRequest#encode(short[])} regardless of their type. An 8-bit cell takes half the
+ * memory and bytes of a 16-bit one this way. Clients not reading the "dataTypes" receive the cells as uint16, see
+ * {@link #toUint16(byte[], int)}.
+ *
+ * Author: HongKee Moon (moon@mpi-cbg.de), Scientific Computing Facility
+ * Organization: MPI-CBG Dresden
+ * Date: October 2026
+ */
+public enum DataType
+{
+	UINT8( "uint8", 1 ),
+	UINT16( "uint16", 2 ),
+	UINT32( "uint32", 4 ),
+	FLOAT32( "float32", 4 );
+
+	private final String name;
+
+	private final int bytesPerPixel;
+
+	DataType( final String name, final int bytesPerPixel )
+	{
+		this.name = name;
+		this.bytesPerPixel = bytesPerPixel;
+	}
+
+	/**
+	 * @return the name used in the metadata JSON, e.g. "uint8"
+	 */
+	public String getName()
+	{
+		return name;
+	}
+
+	public int getBytesPerPixel()
+	{
+		return bytesPerPixel;
+	}
+
+	/**
+	 * @return the number of shorts holding the bytes of the pixels
+	 */
+	public int getStorageLength( final int numPixels )
+	{
+		return ( numPixels * bytesPerPixel + 1 ) / 2;
+	}
+
+	/**
+	 * @return the big-endian bytes of a pixel of the value
+	 */
+	public byte[] toBytes( final double value )
+	{
+		final ByteBuffer buffer = ByteBuffer.allocate( bytesPerPixel );
+		switch ( this )
+		{
+		case UINT8:
+			buffer.put( ( byte ) value );
+			break;
+		case UINT16:
+			buffer.putShort( ( short ) value );
+			break;
+		case UINT32:
+			buffer.putInt( ( int ) ( long ) value );
+			break;
+		default:
+			buffer.putFloat( ( float ) value );
+		}
+		return buffer.array();
+	}
+
+	/**
+	 * Decode the i-th pixel with shifts, it is called for every pixel of the converted and encoded cells
+	 * @param bytes the big-endian bytes of the pixels
+	 * @return the value of the i-th pixel
+	 */
+	public double getValue( final byte[] bytes, final int i )
+	{
+		switch ( this )
+		{
+		case UINT8:
+			return bytes[ i ] & 0xff;
+		case UINT16:
+			return ( ( bytes[ 2 * i ] & 0xff ) << 8 ) | ( bytes[ 2 * i + 1 ] & 0xff );
+		case UINT32:
+			return getInt( bytes, 4 * i ) & 0xffffffffL;
+		default:
+			return Float.intBitsToFloat( getInt( bytes, 4 * i ) );
+		}
+	}
+
+	private static int getInt( final byte[] bytes, final int offset )
+	{
+		return ( bytes[ offset ] << 24 ) | ( ( bytes[ offset + 1 ] & 0xff ) << 16 ) | ( ( bytes[ offset + 2 ] & 0xff ) << 8 ) | ( bytes[ offset + 3 ] & 0xff );
+	}
+
+	/**
+	 * Convert the pixels to big-endian uint16 for the clients reading only uint16. Larger integers are clamped to
+	 * 65535, floats are rounded and clamped to 0..65535.
+	 * @param bytes the big-endian bytes of the pixels, possibly followed by padding
+	 */
+	public byte[] toUint16( final byte[] bytes, final int numPixels )
+	{
+		if ( this == UINT16 )
+			return bytes;
+
+		final byte[] uint16 = new byte[ 2 * numPixels ];
+		for ( int i = 0; i < numPixels; i++ )
+		{
+			final long value = Math.max( 0, Math.min( 65535, Math.round( getValue( bytes, i ) ) ) );
+			uint16[ 2 * i ] = ( byte ) ( value >> 8 );
+			uint16[ 2 * i + 1 ] = ( byte ) value;
+		}
+		return uint16;
+	}
+
+	/**
+	 * @return the type of the name used in the metadata JSON
+	 * @throws IllegalArgumentException if there is no such type
+	 */
+	public static DataType fromName( final String name )
+	{
+		for ( final DataType type : values() )
+			if ( type.name.equals( name ) )
+				return type;
+		throw new IllegalArgumentException( "Unknown data type " + name );
+	}
+}
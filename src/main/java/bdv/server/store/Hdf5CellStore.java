@@ -0,0 +1,161 @@
+package bdv.server.store;
+
+import bdv.img.cache.CacheArrayLoader;
+import bdv.img.cache.VolatileGlobalCellCache;
+import bdv.img.hdf5.DimsAndExistence;
+import bdv.img.hdf5.Hdf5ImageLoader;
+import bdv.img.hdf5.MipmapInfo;
+import bdv.img.hdf5.Partition;
+import bdv.img.hdf5.ViewLevelId;
+import bdv.img.remote.RemoteImageLoaderMetaData;
+import bdv.spimdata.SpimDataMinimal;
+import bdv.spimdata.XmlIoSpimDataMinimal;
+import bdv.util.ThumbnailGenerator;
+import mpicbg.spim.data.SpimDataException;
+import net.imglib2.img.basictypeaccess.volatiles.array.VolatileShortArray;
+import net.imglib2.realtransform.AffineTransform3D;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * CellStore of a BigDataViewer XML/HDF5 dataset, every read passes the global lock of the HDF5 library
+ *
+ * Author: HongKee Moon (moon@mpi-cbg.de), Scientific Computing Facility
+ * Organization: MPI-CBG Dresden
+ * Date: October 2026
+ */
+public class Hdf5CellStore implements CellStore
+{
+	private final SpimDataMinimal spimData;
+
+	private final Hdf5ImageLoader imgLoader;
+
+	/**
+	 * Full path of the dataset xml file without the ".xml" suffix
+	 */
+	private final String baseFilename;
+
+	/**
+	 * The dataset xml file followed by the HDF5 files
+	 */
+	private final List< Path > files = new ArrayList<>();
+
+	public Hdf5CellStore( final String xmlFilename ) throws SpimDataException
+	{
+		spimData = new XmlIoSpimDataMinimal().load( xmlFilename );
+		imgLoader = ( Hdf5ImageLoader ) spimData.getSequenceDescription().getImgLoader();
+		baseFilename = xmlFilename.endsWith( ".xml" ) ? xmlFilename.substring( 0, xmlFilename.length() - ".xml".length() ) : xmlFilename;
+
+		// The HDF5 file named in the ImageLoader element of the xml, which need not match the xml file name
+		files.add( Paths.get( xmlFilename ) );
+		files.add( imgLoader.getHdf5File().toPath() );
+		for ( final Partition partition : imgLoader.getPartitions() )
+			files.add( Paths.get( partition.getPath() ) );
+	}
+
+	@Override
+	public SpimDataMinimal getSpimData()
+	{
+		return spimData;
+	}
+
+	@Override
+	public MipmapInfo getSetupMipmapInfo( final int setup )
+	{
+		return imgLoader.getSetupMipmapInfo( setup );
+	}
+
+	@Override
+	public DimsAndExistence getDimsAndExistence( final ViewLevelId id )
+	{
+		return imgLoader.getDimsAndExistence( id );
+	}
+
+	/**
+	 * The image loader reads uint16 only
+	 */
+	@Override
+	public DataType getDataType( final int setup )
+	{
+		return DataType.UINT16;
+	}
+
+	@Override
+	public CacheArrayLoader< VolatileShortArray > getShortArrayLoader()
+	{
+		return imgLoader.getShortArrayLoader();
+	}
+
+	/**
+	 * The HDF5 library of the image loader reads chunks only through its filter pipeline, so the cells are always
+	 * decoded and encoded again.
+	 */
+	@Override
+	public StoredCell readStoredCell( final int timepoint, final int setup, final int level, final int[] dimensions, final long[] min, final Collection< String > acceptedCodings )
+	{
+		return null;
+	}
+
+	@Override
+	public VolatileGlobalCellCache getCacheControl()
+	{
+		return imgLoader.getCacheControl();
+	}
+
+	@Override
+	public Object getMetaData()
+	{
+		return new RemoteImageLoaderMetaData( imgLoader, spimData.getSequenceDescription() );
+	}
+
+	@Override
+	public List< Path > getFiles()
+	{
+		return files;
+	}
+
+	/**
+	 * Reading a cell from the HDF5 files is serialized and slow, and rewriting a dataset changes the files
+	 */
+	@Override
+	public boolean isDiskCached()
+	{
+		return true;
+	}
+
+	/**
+	 * Calculate dataset size based on the HDF5 file and its partitions
+	 */
+	@Override
+	public long getSize()
+	{
+		long size = 0;
+		for ( final Path file : files.subList( 1, files.size() ) )
+			size += new File( file.toString() ).length();
+		return size;
+	}
+
+	@Override
+	public BufferedImage makeThumbnail( final int width, final int height )
+	{
+		return ThumbnailGenerator.makeThumbnail( spimData, baseFilename, width, height );
+	}
+
+	@Override
+	public BufferedImage renderSlice( final AffineTransform3D viewerTransform, final int timepoint, final int[] setups, final int width, final int height )
+	{
+		return ThumbnailGenerator.renderSlice( spimData, baseFilename, viewerTransform, timepoint, setups, width, height );
+	}
+
+	@Override
+	public void close()
+	{
+		imgLoader.close();
+	}
+}
@@ -0,0 +1,107 @@
+package bdv.server.store;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * CellStore of an N5 container, see https://github.com/saalfeldlab/n5
+ *
+ * The attributes of the groups and arrays are kept in "attributes.json", a chunk in the file "x/y/z" of its array
+ * with a big-endian header giving the chunk size, followed by the big-endian data. Edge chunks are stored truncated.
+ * Raw and gzip compressed arrays of uint8, (u)int16, uint32 and float32 are supported.
+ *
+ * Author: HongKee Moon (moon@mpi-cbg.de), Scientific Computing Facility
+ * Organization: MPI-CBG Dresden
+ * Date: October 2026
+ */
+public class N5CellStore extends ChunkCellStore
+{
+	static final String ATTRIBUTES = "attributes.json";
+
+	public N5CellStore( final Path root ) throws IOException
+	{
+		super( root );
+	}
+
+	@Override
+	protected JsonObject readGroupAttributes( final Path group ) throws IOException
+	{
+		final Path file = group.resolve( ATTRIBUTES );
+		if ( !Files.exists( file ) )
+			return new JsonObject();
+
+		addFile( file );
+		try ( Reader reader = Files.newBufferedReader( file, StandardCharsets.UTF_8 ) )
+		{
+			return new JsonParser().parse( reader ).getAsJsonObject();
+		}
+	}
+
+	@Override
+	protected ChunkAttributes readArrayAttributes( final Path array ) throws IOException
+	{
+		final JsonObject attributes = readGroupAttributes( array );
+		if ( !attributes.has( "dimensions" ) )
+			return null;
+
+		// int16 is served as uint16, as the HDF5 datasets
+		final String dataType = attributes.get( "dataType" ).getAsString();
+		final DataType type;
+		try
+		{
+			type = DataType.fromName( dataType.equals( "int16" ) ? "uint16" : dataType );
+		}
+		catch ( final IllegalArgumentException e )
+		{
+			throw new IOException( "Unsupported data type " + dataType + " of " + array );
+		}
+
+		// Before N5 1.0, the compression was given by "compressionType", and earlier by "useZlib" meaning gzip
+		String compression = "raw";
+		final JsonElement c = attributes.get( "compression" );
+		if ( null != c && c.isJsonObject() )
+			compression = c.getAsJsonObject().get( "type" ).getAsString();
+		else if ( attributes.has( "compressionType" ) )
+			compression = attributes.get( "compressionType" ).getAsString();
+		else if ( attributes.has( "useZlib" ) && attributes.get( "useZlib" ).getAsBoolean() )
+			compression = "gzip";
+
+		return new ChunkAttributes( getLongs( attributes, "dimensions" ), getInts( attributes, "blockSize" ), type, compression, true, 0, "/" );
+	}
+
+	@Override
+	protected StoredChunk readStoredChunk( final Path array, final ChunkAttributes attributes, final long[] gridPosition ) throws IOException
+	{
+		final Path file = array.resolve( Long.toString( gridPosition[ 0 ] ) ).resolve( Long.toString( gridPosition[ 1 ] ) ).resolve( Long.toString( gridPosition[ 2 ] ) );
+		if ( !Files.exists( file ) )
+			return null;
+
+		// Header: mode, number of dimensions, size per dimension, the number of elements in mode 1
+		final ByteBuffer buffer = ByteBuffer.wrap( Files.readAllBytes( file ) );
+		final short mode = buffer.getShort();
+		final int numDimensions = buffer.getShort();
+		final int[] size = new int[] { 1, 1, 1 };
+		for ( int d = 0; d < numDimensions; d++ )
+		{
+			final int s = buffer.getInt();
+			if ( d < 3 )
+				size[ d ] = s;
+		}
+		if ( mode == 1 )
+			buffer.getInt();
+		else if ( mode != 0 )
+			throw new IOException( "Unsupported chunk mode " + mode + " of " + file );
+
+		final byte[] bytes = new byte[ buffer.remaining() ];
+		buffer.get( bytes );
+		return new StoredChunk( size, bytes );
+	}
+}
@@ -0,0 +1,24 @@
+package bdv.server.store;
+
+/**
+ * Bytes of a cell as they are stored, which are big-endian pixels possibly compressed with an HTTP content coding
+ *
+ * Author: HongKee Moon (moon@mpi-cbg.de), Scientific Computing Facility
+ * Organization: MPI-CBG Dresden
+ * Date: October 2026
+ */
+public class StoredCell
+{
+	/**
+	 * "gzip", "deflate" or null if the bytes are not compressed
+	 */
+	public final String contentCoding;
+
+	public final byte[] bytes;
+
+	public StoredCell( final String contentCoding, final byte[] bytes )
+	{
+		this.contentCoding = contentCoding;
+		this.bytes = bytes;
+	}
+}
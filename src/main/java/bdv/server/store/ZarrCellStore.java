@@ -0,0 +1,132 @@
+package bdv.server.store;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * CellStore of a Zarr (version 2) store, see https://zarr.readthedocs.io/en/stable/spec/v2.html
+ *
+ * The arrays are described by ".zarray", the attributes of the groups are kept in ".zattrs". The shapes are given in C
+ * order, i.e. z, y, x, so a chunk is stored in the file "z.y.x" of its array, and edge chunks are stored full size.
+ * Uncompressed, zlib and gzip compressed arrays of u1, u2, i2, u4 and f4 without filters are supported.
+ *
+ * Author: HongKee Moon (moon@mpi-cbg.de), Scientific Computing Facility
+ * Organization: MPI-CBG Dresden
+ * Date: October 2026
+ */
+public class ZarrCellStore extends ChunkCellStore
+{
+	static final String GROUP = ".zgroup";
+
+	private static final String ARRAY = ".zarray";
+
+	private static final String ATTRIBUTES = ".zattrs";
+
+	public ZarrCellStore( final Path root ) throws IOException
+	{
+		super( root );
+	}
+
+	@Override
+	protected JsonObject readGroupAttributes( final Path group ) throws IOException
+	{
+		final Path file = group.resolve( ATTRIBUTES );
+		return Files.exists( file ) ? readJson( file ) : new JsonObject();
+	}
+
+	@Override
+	protected ChunkAttributes readArrayAttributes( final Path array ) throws IOException
+	{
+		final Path file = array.resolve( ARRAY );
+		if ( !Files.exists( file ) )
+			return null;
+
+		final JsonObject attributes = readJson( file );
+
+		// i2 is served as uint16, as the HDF5 datasets
+		final String dtype = attributes.get( "dtype" ).getAsString();
+		final DataType type;
+		switch ( dtype.substring( 1 ) )
+		{
+		case "u1":
+			type = DataType.UINT8;
+			break;
+		case "u2":
+		case "i2":
+			type = DataType.UINT16;
+			break;
+		case "u4":
+			type = DataType.UINT32;
+			break;
+		case "f4":
+			type = DataType.FLOAT32;
+			break;
+		default:
+			throw new IOException( "Unsupported data type " + dtype + " of " + array );
+		}
+
+		if ( attributes.has( "order" ) && !attributes.get( "order" ).getAsString().equals( "C" ) )
+			throw new IOException( "Unsupported order " + attributes.get( "order" ) + " of " + array );
+
+		if ( attributes.has( "filters" ) && !attributes.get( "filters" ).isJsonNull() && attributes.getAsJsonArray( "filters" ).size() > 0 )
+			throw new IOException( "Unsupported filters of " + array );
+
+		String compression = "raw";
+		final JsonElement compressor = attributes.get( "compressor" );
+		if ( null != compressor && !compressor.isJsonNull() )
+			compression = compressor.getAsJsonObject().get( "id" ).getAsString();
+
+		// The fill value of floats may also be "NaN" or "Infinity"
+		final JsonElement fill = attributes.get( "fill_value" );
+		final double fillValue = null == fill || fill.isJsonNull() ? 0 : fill.getAsJsonPrimitive().isString() ? Double.parseDouble( fill.getAsString() ) : fill.getAsDouble();
+
+		final String separator = attributes.has( "dimension_separator" ) ? attributes.get( "dimension_separator" ).getAsString() : ".";
+
+		return new ChunkAttributes( reverse( getLongs( attributes, "shape" ) ), reverse( getInts( attributes, "chunks" ) ),
+				type, compression, dtype.charAt( 0 ) == '>', fillValue, separator );
+	}
+
+	@Override
+	protected StoredChunk readStoredChunk( final Path array, final ChunkAttributes attributes, final long[] gridPosition ) throws IOException
+	{
+		final String key = gridPosition[ 2 ] + attributes.separator + gridPosition[ 1 ] + attributes.separator + gridPosition[ 0 ];
+		final Path file = array.resolve( key );
+		if ( !Files.exists( file ) )
+			return null;
+
+		// The chunks at the upper borders are padded to the block size
+		return new StoredChunk( attributes.blockSize.clone(), Files.readAllBytes( file ) );
+	}
+
+	private JsonObject readJson( final Path file ) throws IOException
+	{
+		addFile( file );
+		try ( Reader reader = Files.newBufferedReader( file, StandardCharsets.UTF_8 ) )
+		{
+			return new JsonParser().parse( reader ).getAsJsonObject();
+		}
+	}
+
+	private static long[] reverse( final long[] values )
+	{
+		final long[] reversed = new long[ values.length ];
+		for ( int i = 0; i < values.length; i++ )
+			reversed[ i ] = values[ values.length - 1 - i ];
+		return reversed;
+	}
+
+	private static int[] reverse( final int[] values )
+	{
+		final int[] reversed = new int[ values.length ];
+		for ( int i = 0; i < values.length; i++ )
+			reversed[ i ] = values[ values.length - 1 - i ];
+		return reversed;
+	}
+}
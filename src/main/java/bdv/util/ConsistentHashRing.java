@@ -0,0 +1,90 @@
+package bdv.util;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * ConsistentHashRing assigns datasets to the nodes of a cluster.
+ *
+ * Every node is placed on the ring at several virtual positions, and a dataset belongs to the first node found
+ * clockwise from the hash of its index. When a node joins or leaves, only the datasets between its positions and
+ * the preceding ones change their owner, all the others stay where they are.
+ *
+ * The ring is immutable, a new ring is built whenever the set of nodes changes.
+ *
+ * Author: HongKee Moon (moon@mpi-cbg.de), Scientific Computing Facility
+ * Organization: MPI-CBG Dresden
+ * Date: October 2026
+ */
+public class ConsistentHashRing
+{
+	public static final int DEFAULT_VIRTUAL_NODES = 64;
+
+	private final TreeMap< Long, String > ring = new TreeMap<>();
+
+	private final Set< String > nodes;
+
+	public ConsistentHashRing( final Collection< String > nodes )
+	{
+		this( nodes, DEFAULT_VIRTUAL_NODES );
+	}
+
+	/**
+	 * @param nodes the node ids
+	 * @param virtualNodes the number of positions of every node on the ring
+	 */
+	public ConsistentHashRing( final Collection< String > nodes, final int virtualNodes )
+	{
+		this.nodes = Collections.unmodifiableSet( new TreeSet<>( nodes ) );
+
+		for ( final String node : this.nodes )
+			for ( int i = 0; i < virtualNodes; i++ )
+				ring.put( hash( node + "#" + i ), node );
+	}
+
+	/**
+	 * @param dataSetIndex the index of the dataset
+	 * @return the id of the node owning the dataset, null if the ring is empty
+	 */
+	public String getOwner( final long dataSetIndex )
+	{
+		if ( ring.isEmpty() )
+			return null;
+
+		final Map.Entry< Long, String > entry = ring.ceilingEntry( hash( Long.toString( dataSetIndex ) ) );
+		return null != entry ? entry.getValue() : ring.firstEntry().getValue();
+	}
+
+	public Set< String > getNodes()
+	{
+		return nodes;
+	}
+
+	/**
+	 * @return the first 8 bytes of the MD5 digest, which spreads similar keys like "node#1" and "node#2" evenly
+	 */
+	static long hash( final String key )
+	{
+		final byte[] digest;
+		try
+		{
+			digest = MessageDigest.getInstance( "MD5" ).digest( key.getBytes( StandardCharsets.UTF_8 ) );
+		}
+		catch ( final NoSuchAlgorithmException e )
+		{
+			throw new IllegalStateException( e );
+		}
+
+		long h = 0;
+		for ( int i = 0; i < 8; i++ )
+			h = ( h << 8 ) | ( digest[ i ] & 0xff );
+		return h;
+	}
+}
@@ -0,0 +1,61 @@
+package bdv.util;
+
+import javax.servlet.http.HttpServletRequest;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Helper functions for the offset based pagination of dataset lists
+ *
+ * Author: HongKee Moon (moon@mpi-cbg.de), Scientific Computing Facility
+ * Organization: MPI-CBG Dresden
+ * Date: October 2026
+ */
+public class Paging
+{
+	/**
+	 * Maximum number of items in one page
+	 */
+	public static final int MAX_LIMIT = 1000;
+
+	/**
+	 * Get the non-negative integer parameter of the request
+	 * @param request the http request
+	 * @param name the parameter name
+	 * @param defaultValue returned if the parameter is missing or malformed
+	 * @return the parameter value
+	 */
+	public static int getIntParameter( final HttpServletRequest request, final String name, final int defaultValue )
+	{
+		final String value = request.getParameter( name );
+
+		if ( null == value || value.isEmpty() )
+			return defaultValue;
+
+		try
+		{
+			return Math.max( 0, Integer.parseInt( value ) );
+		}
+		catch ( NumberFormatException e )
+		{
+			return defaultValue;
+		}
+	}
+
+	/**
+	 * Get the page of the given list
+	 * @param list the whole list
+	 * @param offset the index of the first item
+	 * @param limit the maximum number of the items, clamped to {@link #MAX_LIMIT}
+	 * @return the view of the list for the page
+	 */
+	public static < T > List< T > page( final List< T > list, final int offset, final int limit )
+	{
+		if ( offset >= list.size() )
+			return Collections.emptyList();
+
+		final int end = ( int ) Math.min( list.size(), ( long ) offset + Math.min( limit, MAX_LIMIT ) );
+		return list.subList( offset, end );
+	}
+}
@@ -2,6 +2,8 @@ package bdv.util;
 
 import bdv.model.DataSet;
 import org.stringtemplate.v4.ST;
+import org.stringtemplate.v4.STGroup;
+import org.stringtemplate.v4.STRawGroupDir;
 
 /**
  * Author: HongKee Moon (moon@mpi-cbg.de), Scientific Computing Facility
@@ -10,13 +12,54 @@ import org.stringtemplate.v4.ST;
  */
 public class Render
 {
+	/**
+	 * Templates using '$' delimiters, loaded and compiled only once
+	 */
+	private static final STGroup templates = load( '$', "indexPage", "publicDataSetTr", "privateDataSetTr", "sharedDataSetTr",
+			"userPage", "userToBeRemoved", "serverInfo", "tagsLabel" );
+
+	/**
+	 * Templates for JavaScript using '~' delimiters, loaded and compiled only once
+	 */
+	private static final STGroup jsTemplates = load( '~', "userPageJS" );
+
+	/**
+	 * Load the template group and compile the given templates in advance
+	 * so that the group is only read by the request threads
+	 */
+	private static STGroup load( final char delimiter, final String... names )
+	{
+		final STGroup g = new STRawGroupDir( "templates", delimiter, delimiter );
+
+		for ( String name : names )
+			g.getInstanceOf( name );
+
+		return g;
+	}
+
+	/**
+	 * Get the compiled templates using '$' delimiters
+	 */
+	public static STGroup getTemplates()
+	{
+		return templates;
+	}
+
+	/**
+	 * Get the compiled templates using '~' delimiters
+	 */
+	public static STGroup getJsTemplates()
+	{
+		return jsTemplates;
+	}
+
 	public static String createTagsLabel( final DataSet ds )
 	{
 		String ret = "";
 
 		if ( ds.getTags().size() > 0 )
 		{
-			ST s = new ST( "<tags:{ tag | \\<span class=\"label label-info\"> <tag> \\</span>&nbsp; }>" );
+			ST s = templates.getInstanceOf( "tagsLabel" );
 			s.add( "tags", ds.getTags() );
 
 			ret = s.render();
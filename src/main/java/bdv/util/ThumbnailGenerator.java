@@ -3,6 +3,7 @@ package bdv.util;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import javax.imageio.ImageIO;
@@ -20,6 +21,7 @@ import bdv.tools.brightness.ConverterSetup;
 import bdv.tools.brightness.SetupAssignments;
 import bdv.tools.transformation.TransformedSource;
 import bdv.tools.transformation.XmlIoTransformedSources;
+import bdv.viewer.DisplayMode;
 import bdv.viewer.Source;
 import bdv.viewer.SourceAndConverter;
 import bdv.viewer.render.AccumulateProjectorARGB;
@@ -28,6 +30,8 @@ import bdv.viewer.state.SourceGroup;
 import bdv.viewer.state.SourceState;
 import bdv.viewer.state.ViewerState;
 import bdv.viewer.state.XmlIoViewerState;
+import mpicbg.spim.data.generic.sequence.BasicViewSetup;
+import mpicbg.spim.data.sequence.TimePoint;
 import net.imglib2.realtransform.AffineTransform3D;
 import net.imglib2.ui.PainterThread;
 import net.imglib2.ui.RenderTarget;
@@ -69,6 +73,79 @@ public class ThumbnailGenerator
 		if ( !generator.tryLoadSettings( baseFilename, setupAssignments ) )
 			InitializeViewerState.initBrightness( 0.001, 0.999, state, setupAssignments );
 
+		return paint( state, width, height );
+	}
+
+	/**
+	 * Render a 2D slice of a dataset, as shown by BigDataViewer with the
+	 * given viewer transform. If there is a settings.xml file for the
+	 * dataset, its brightness and color settings are used.
+	 *
+	 * @param spimData
+	 *            the dataset.
+	 * @param baseFilename
+	 *            full path of dataset xml file, without the ".xml" extension.
+	 * @param viewerTransform
+	 *            transform from global coordinates to the image.
+	 * @param timepoint
+	 *            timepoint id, -1 for the first timepoint.
+	 * @param setups
+	 *            ids of the shown setups, null for the visible sources of the
+	 *            settings.
+	 * @param width
+	 *            width of the image.
+	 * @param height
+	 *            height of the image.
+	 * @return the rendered image
+	 * @throws IllegalArgumentException
+	 *             if the timepoint or a setup does not exist
+	 */
+	public static BufferedImage renderSlice( final SpimDataMinimal spimData, final String baseFilename, final AffineTransform3D viewerTransform, final int timepoint, final int[] setups, final int width, final int height )
+	{
+		final List< TimePoint > timepoints = spimData.getSequenceDescription().getTimePoints().getTimePointsOrdered();
+		int timepointIndex = 0;
+		if ( timepoint >= 0 )
+		{
+			while ( timepointIndex < timepoints.size() && timepoints.get( timepointIndex ).getId() != timepoint )
+				++timepointIndex;
+			if ( timepointIndex == timepoints.size() )
+				throw new IllegalArgumentException( "Unknown timepoint " + timepoint );
+		}
+
+		final List< BasicViewSetup > viewSetups = spimData.getSequenceDescription().getViewSetupsOrdered();
+		if ( null != setups )
+			for ( final int setup : setups )
+				if ( viewSetups.stream().noneMatch( s -> s.getId() == setup ) )
+					throw new IllegalArgumentException( "Unknown setup " + setup );
+
+		final ArrayList< ConverterSetup > converterSetups = new ArrayList< ConverterSetup >();
+		final ArrayList< SourceAndConverter< ? > > sources = new ArrayList< SourceAndConverter< ? > >();
+		BigDataViewer.initSetups( spimData, converterSetups, sources );
+
+		final ThumbnailGenerator generator = new ThumbnailGenerator( sources, timepoints.size() );
+		final ViewerState state = generator.state;
+
+		final SetupAssignments setupAssignments = new SetupAssignments( converterSetups, 0, 65535 );
+		final boolean hasSettings = generator.tryLoadSettings( baseFilename, setupAssignments );
+
+		// The settings may restore another timepoint
+		state.setViewerTransform( viewerTransform );
+		state.setCurrentTimepoint( timepointIndex );
+		if ( null != setups )
+		{
+			state.setDisplayMode( DisplayMode.FUSED );
+			for ( int i = 0; i < viewSetups.size(); ++i )
+				state.getSources().get( i ).setActive( Arrays.binarySearch( setups, viewSetups.get( i ).getId() ) >= 0 );
+		}
+
+		if ( !hasSettings )
+			InitializeViewerState.initBrightness( 0.001, 0.999, state, setupAssignments );
+
+		return paint( state, width, height );
+	}
+
+	private static BufferedImage paint( final ViewerState state, final int width, final int height )
+	{
 		class ThumbnailTarget implements RenderTarget
 		{
 			BufferedImage bi;
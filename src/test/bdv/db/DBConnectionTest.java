@@ -213,4 +213,17 @@ public class DBConnectionTest
 		// 10. delete the user
 		conn.removeUser( normalTagUser, normalTagUser );
 	}
-}
\ No newline at end of file
+
+	@Test
+	public void testSchemaIndexes() throws Exception
+	{
+		// 1. the schema is migrated to the latest version
+		assertTrue( conn.getSchemaVersion() >= 1 );
+
+		// 2. the indexes of the migration exist, H2 also indexes the foreign key columns under other names
+		assertTrue( conn.getIndexNames( "DATASET" ).contains( "DATASET_OWNER_ID_INDEX" ) );
+		assertTrue( conn.getIndexNames( "DATASET" ).contains( "DATASET_PUBLIC_INDEX" ) );
+		assertTrue( conn.getIndexNames( "USER_DATASET_PERMISSION" ).contains( "USER_DATASET_PERMISSION_DATASET_ID_INDEX" ) );
+		assertTrue( conn.getIndexNames( "TAG_DATASET" ).contains( "TAG_DATASET_DATASET_ID_INDEX" ) );
+	}
+}
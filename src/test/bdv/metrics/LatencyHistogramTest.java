@@ -0,0 +1,47 @@
+package bdv.metrics;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Author: HongKee Moon (moon@mpi-cbg.de), Scientific Computing Facility
+ * Organization: MPI-CBG Dresden
+ * Date: October 2026
+ */
+public class LatencyHistogramTest
+{
+	@Test
+	public void testBuckets()
+	{
+		for ( long value = 0; value < 1 << 20; value++ )
+		{
+			final int index = LatencyHistogram.bucketIndex( value );
+			assertTrue( value < LatencyHistogram.upperBound( index ) );
+			assertTrue( index == 0 || value >= LatencyHistogram.upperBound( index - 1 ) );
+		}
+
+		assertEquals( LatencyHistogram.bucketIndex( LatencyHistogram.MAX_VALUE ), LatencyHistogram.bucketIndex( LatencyHistogram.MAX_VALUE - 1 ) );
+	}
+
+	@Test
+	public void testQuantiles()
+	{
+		final LatencyHistogram histogram = new LatencyHistogram();
+		assertEquals( 0, histogram.getValueAtQuantile( 0.99 ) );
+
+		for ( long micros = 1; micros <= 10000; micros++ )
+			histogram.record( micros );
+
+		assertEquals( 10000, histogram.getCount() );
+		assertEquals( 10000L * 10001 / 2, histogram.getSum() );
+
+		// The relative error is bounded by the sub-bucket resolution
+		assertEquals( 5000, histogram.getValueAtQuantile( 0.5 ), 5000 / 8 );
+		assertEquals( 9900, histogram.getValueAtQuantile( 0.99 ), 9900 / 8 );
+		assertEquals( 10000, histogram.getValueAtQuantile( 1 ), 10000 / 8 );
+
+		assertEquals( 7, histogram.getCountAtOrBelow( 7 ) );
+		assertEquals( 10000, histogram.getCountAtOrBelow( LatencyHistogram.MAX_VALUE ) );
+	}
+}
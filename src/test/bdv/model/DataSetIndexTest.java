@@ -0,0 +1,114 @@
+package bdv.model;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Author: HongKee Moon (moon@mpi-cbg.de), Scientific Computing Facility
+ * Organization: MPI-CBG Dresden
+ * Date: October 2026
+ */
+public class DataSetIndexTest
+{
+	DataSetIndex index;
+
+	DataSet embryo;
+
+	DataSet wing;
+
+	DataSet privateEmbryo;
+
+	@Before
+	public void setUp() throws Exception
+	{
+		index = new DataSetIndex();
+
+		embryo = new DataSet( 1, "Drosophila_embryo", "/xml/embryo.xml", "Lightsheet recording of an embryo", "alice", true, null );
+		embryo.addTag( "drosophila" );
+		embryo.addTag( "lightsheet" );
+
+		wing = new DataSet( 2, "Wing disc", "/xml/wing.xml", "Confocal stack", "bob", true, null );
+		wing.addTag( "drosophila" );
+		wing.addTag( "confocal" );
+
+		privateEmbryo = new DataSet( 3, "Zebrafish embryo", "/xml/zebrafish.xml", "Not yet published", "bob", false, null );
+		privateEmbryo.addTag( "zebrafish" );
+
+		index.add( embryo );
+		index.add( wing );
+		index.add( privateEmbryo );
+	}
+
+	@Test
+	public void testPrefixQuery() throws Exception
+	{
+		// 1. prefix of a term in the name
+		assertEquals( Arrays.asList( embryo ), search( "emb", null, true ) );
+
+		// 2. all the query terms should match
+		assertEquals( Arrays.asList( wing ), search( "conf BOB", null, true ) );
+
+		// 3. nothing matches
+		assertTrue( search( "mouse", null, true ).isEmpty() );
+	}
+
+	@Test
+	public void testTagsAndFacets() throws Exception
+	{
+		// 1. all the tags
+		assertEquals( Arrays.asList( embryo ), search( null, Arrays.asList( "drosophila", "lightsheet" ), true ) );
+
+		// 2. any of the tags
+		assertEquals( Arrays.asList( embryo, wing ), search( null, Arrays.asList( "lightsheet", "confocal" ), false ) );
+
+		// 3. facets count the matching datasets per tag
+		final DataSetIndex.Result result = index.search( "drosophila", null, true, DataSet::isPublic );
+		assertEquals( Integer.valueOf( 2 ), result.getFacets().get( "drosophila" ) );
+		assertEquals( Integer.valueOf( 1 ), result.getFacets().get( "confocal" ) );
+		assertNull( result.getFacets().get( "zebrafish" ) );
+	}
+
+	@Test
+	public void testTagPostings() throws Exception
+	{
+		// 1. the datasets with the tag
+		final List< DataSet > tagged = index.getDataSets( "drosophila", DataSet::isPublic );
+		tagged.sort( DataSet.getComparator( "index" ) );
+		assertEquals( Arrays.asList( embryo, wing ), tagged );
+
+		// 2. the filter applies to the tagged datasets
+		assertTrue( index.getDataSets( "zebrafish", DataSet::isPublic ).isEmpty() );
+		assertEquals( Arrays.asList( privateEmbryo ), index.getDataSets( "zebrafish", ds -> true ) );
+
+		// 3. unknown tag
+		assertTrue( index.getDataSets( "mouse", ds -> true ).isEmpty() );
+	}
+
+	@Test
+	public void testUpdateAndRemove() throws Exception
+	{
+		// 1. the changed dataset is found by the new terms only
+		wing.setName( "Haltere disc" );
+		wing.getTags().remove( "confocal" );
+		index.update( wing );
+
+		assertTrue( search( "wing", null, true ).isEmpty() );
+		assertEquals( Arrays.asList( wing ), search( "halt", null, true ) );
+		assertTrue( search( null, Arrays.asList( "confocal" ), true ).isEmpty() );
+
+		// 2. the removed dataset is not found anymore
+		index.remove( embryo.getIndex() );
+		assertEquals( Arrays.asList( wing ), search( "drosophila", null, true ) );
+		assertNull( index.get( embryo.getIndex() ) );
+	}
+
+	private List< DataSet > search( String query, List< String > tags, boolean allTags )
+	{
+		return index.search( query, tags, allTags, DataSet::isPublic ).getDataSets();
+	}
+}
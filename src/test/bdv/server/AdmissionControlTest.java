@@ -0,0 +1,51 @@
+package bdv.server;
+
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Author: HongKee Moon (moon@mpi-cbg.de), Scientific Computing Facility
+ * Organization: MPI-CBG Dresden
+ * Date: October 2026
+ */
+public class AdmissionControlTest
+{
+	@Test
+	public void testFineCellsShedFirst()
+	{
+		final AdmissionControl admission = new AdmissionControl( 4, 50, 1, 1 );
+
+		// Fine cells get half of the capacity
+		assertTrue( admission.tryAcquireCell( 0 ) );
+		assertTrue( admission.tryAcquireCell( 0 ) );
+		assertFalse( admission.tryAcquireCell( 0 ) );
+
+		// Coarse cells are still admitted up to the capacity
+		assertTrue( admission.tryAcquireCell( 1 ) );
+		assertTrue( admission.tryAcquireCell( 2 ) );
+		assertFalse( admission.tryAcquireCell( 1 ) );
+		assertEquals( 4, admission.getPendingCells() );
+
+		admission.release();
+		assertFalse( admission.tryAcquireCell( 0 ) );
+		assertTrue( admission.tryAcquireCell( 1 ) );
+	}
+
+	@Test
+	public void testCapacityFromThreadPool()
+	{
+		final AdmissionControl admission = new AdmissionControl( 0, 75, 1, 1 );
+		admission.setThreadPool( new QueuedThreadPool( 64, 8 ) );
+
+		// 64 threads less the 24 reserved ones
+		assertEquals( 40, admission.getMaxPendingCells() );
+		for ( int i = 0; i < 30; i++ )
+			assertTrue( admission.tryAcquireCell( 0 ) );
+		assertFalse( admission.tryAcquireCell( 0 ) );
+		for ( int i = 0; i < 10; i++ )
+			assertTrue( admission.tryAcquireCell( 1 ) );
+		assertFalse( admission.tryAcquireCell( 1 ) );
+	}
+}
@@ -0,0 +1,45 @@
+package bdv.server;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Author: HongKee Moon (moon@mpi-cbg.de), Scientific Computing Facility
+ * Organization: MPI-CBG Dresden
+ * Date: October 2026
+ */
+public class CellDeltaTest
+{
+	@Test
+	public void testRoundTrip() throws Exception
+	{
+		final Random random = new Random( 42 );
+		final ByteBuffer reference = ByteBuffer.allocate( 2 * 4096 );
+		final ByteBuffer cell = ByteBuffer.allocate( 2 * 4096 );
+		for ( int i = 0; i < 4096; i++ )
+		{
+			final int value = 1000 + random.nextInt( 5000 );
+			reference.putShort( ( short ) value );
+			// Small changes, and wrapping around at both ends
+			cell.putShort( ( short ) ( i == 0 ? 65535 : i == 1 ? 0 : value + random.nextInt( 9 ) - 4 ) );
+		}
+
+		final byte[] delta = CellDelta.encode( reference.array(), cell.array() );
+		assertArrayEquals( cell.array(), CellDelta.decode( reference.array(), delta ) );
+
+		// The small differences compress far below the size of the cell
+		assertTrue( delta.length < cell.array().length / 3 );
+	}
+
+	@Test( expected = IOException.class )
+	public void testWrongReference() throws Exception
+	{
+		final byte[] delta = CellDelta.encode( new byte[ 8 ], new byte[ 8 ] );
+		CellDelta.decode( new byte[ 16 ], delta );
+	}
+}
@@ -0,0 +1,80 @@
+package bdv.server;
+
+import org.junit.Test;
+
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Author: HongKee Moon (moon@mpi-cbg.de), Scientific Computing Facility
+ * Organization: MPI-CBG Dresden
+ * Date: October 2026
+ */
+public class CellEncodingTest
+{
+	@Test
+	public void testQuantize() throws Exception
+	{
+		final double[] values = { 100, 150, 200, 1000 };
+		assertArrayEquals( new double[] { 100, 1000 }, CellEncoding.getRange( values ), 0 );
+
+		// Clamped to the display range
+		assertArrayEquals( new byte[] { 0, ( byte ) 128, ( byte ) 255, ( byte ) 255 }, CellEncoding.quantize( values, 100, 200 ) );
+
+		// A constant cell
+		assertArrayEquals( new byte[] { 0, 0 }, CellEncoding.quantize( new double[] { 7, 7 }, 7, 7 ) );
+
+		// float32 values within the display range 0..1, NaN is ignored by the range
+		final double[] floats = { 0, 0.25f, 1, Double.NaN };
+		assertArrayEquals( new double[] { 0, 1 }, CellEncoding.getRange( floats ), 0 );
+		assertArrayEquals( new byte[] { 0, 64, ( byte ) 255, 0 }, CellEncoding.quantize( floats, 0, 1 ) );
+	}
+
+	@Test
+	public void testPack() throws Exception
+	{
+		// The 4 most significant bits of 0xabcd, 0x1234, 0xffff
+		assertArrayEquals( new byte[] { ( byte ) 0xa1, ( byte ) 0xf0 }, CellEncoding.pack( new int[] { 0xabcd, 0x1234, 0xffff }, 4 ) );
+
+		// 12 bits per pixel take a byte and a half
+		assertArrayEquals( new byte[] { ( byte ) 0xab, ( byte ) 0xc1, 0x23 }, CellEncoding.pack( new int[] { 0xabcd, 0x1234 }, 12 ) );
+	}
+
+	@Test
+	public void testFromParameter() throws Exception
+	{
+		assertNull( CellEncoding.fromParameter( null ) );
+		assertNotNull( CellEncoding.fromParameter( "display" ) );
+		assertNotNull( CellEncoding.fromParameter( "bits10" ) );
+
+		for ( final String enc : new String[] { "bits0", "bits16", "bitsx", "jpeg" } )
+		{
+			try
+			{
+				CellEncoding.fromParameter( enc );
+				fail( enc );
+			}
+			catch ( final IllegalArgumentException e )
+			{
+				// Expected
+			}
+		}
+	}
+
+	@Test
+	public void testReadDisplayRanges() throws Exception
+	{
+		final String settings = "<Settings><SetupAssignments><ConverterSetups>"
+				+ "<ConverterSetup><id>0</id><min>90.0</min><max>1200.0</max><color>-1</color><groupId>0</groupId></ConverterSetup>"
+				+ "<ConverterSetup><id>1</id><min>0.0</min><max>255.0</max><color>-1</color><groupId>0</groupId></ConverterSetup>"
+				+ "</ConverterSetups></SetupAssignments></Settings>";
+
+		final Map< Integer, double[] > ranges = CellEncoding.readDisplayRanges( settings );
+		assertArrayEquals( new double[] { 90, 1200 }, ranges.get( 0 ), 0 );
+		assertArrayEquals( new double[] { 0, 255 }, ranges.get( 1 ), 0 );
+
+		assertTrue( CellEncoding.readDisplayRanges( null ).isEmpty() );
+		assertTrue( CellEncoding.readDisplayRanges( "<Settings" ).isEmpty() );
+	}
+}
@@ -0,0 +1,162 @@
+package bdv.server;
+
+import bdv.model.DataSet;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Author: HongKee Moon (moon@mpi-cbg.de), Scientific Computing Facility
+ * Organization: MPI-CBG Dresden
+ * Date: October 2026
+ */
+public class MemoryGovernorTest
+{
+	@Test
+	public void testReleasedCellsAreReturned() throws Exception
+	{
+		final MemoryGovernor governor = new MemoryGovernor( 1 << 20, 60 );
+		final TestHandler handler = new TestHandler( 1 );
+		governor.register( handler );
+
+		short[] data = new short[ 1000 ];
+		governor.charge( handler, data );
+		assertEquals( 2000, governor.getBytes( handler ) );
+		assertEquals( 2000, governor.getBytes() );
+
+		// The bytes are returned once the garbage collector takes the cell
+		data = null;
+		assertTrue( awaitReleased( governor, 0 ) );
+		assertEquals( 0, governor.getBytes( handler ) );
+	}
+
+	@Test
+	public void testCellsChargedBeforeResetAreNotReturned() throws Exception
+	{
+		final MemoryGovernor governor = new MemoryGovernor( 1 << 20, 60 );
+		final TestHandler handler = new TestHandler( 1 );
+		governor.register( handler );
+
+		short[] before = new short[ 1000 ];
+		governor.charge( handler, before );
+		governor.cleared( handler );
+		assertEquals( 0, governor.getBytes( handler ) );
+
+		final short[] after = new short[ 500 ];
+		governor.charge( handler, after );
+
+		// The cell of the cleared cache does not reduce the cells charged later
+		before = null;
+		assertFalse( awaitReleased( governor, 0 ) );
+		assertEquals( 1000, governor.getBytes( handler ) );
+		assertEquals( 1000, governor.getBytes() );
+		assertEquals( 500, after.length );
+	}
+
+	@Test
+	public void testColdestCacheIsEvicted() throws Exception
+	{
+		final MemoryGovernor governor = new MemoryGovernor( 10000, 60 );
+		final TestHandler hot = new TestHandler( 1 );
+		final TestHandler cold = new TestHandler( 2 );
+		final TestHandler warm = new TestHandler( 3 );
+		governor.register( hot );
+		governor.register( cold );
+		governor.register( warm );
+
+		for ( int i = 0; i < 5; i++ )
+			governor.touch( hot );
+		governor.touch( cold );
+		for ( int i = 0; i < 3; i++ )
+			governor.touch( warm );
+
+		final short[] hotCell = new short[ 1500 ];
+		final short[] coldCell = new short[ 1500 ];
+		final short[] warmCell = new short[ 1500 ];
+		governor.charge( hot, hotCell );
+		governor.charge( cold, coldCell );
+		governor.charge( warm, warmCell );
+		assertEquals( 0, governor.getEvictions() );
+
+		// Exceeding the budget clears the cache of the dataset with the fewest requests
+		final short[] hotCell2 = new short[ 1000 ];
+		governor.charge( hot, hotCell2 );
+		assertEquals( 1, governor.getEvictions() );
+		assertEquals( 1, cold.cleared );
+		assertEquals( 0, warm.cleared );
+		assertEquals( 0, hot.cleared );
+		assertEquals( 8000, governor.getBytes() );
+
+		// The charged handler is never cleared for its own cells
+		final short[] hotCell3 = new short[ 2000 ];
+		governor.charge( hot, hotCell3 );
+		assertEquals( 1, warm.cleared );
+		assertEquals( 0, hot.cleared );
+	}
+
+	@Test
+	public void testChargesDoNotScore() throws Exception
+	{
+		final MemoryGovernor governor = new MemoryGovernor( 10000, 60 );
+		final TestHandler requested = new TestHandler( 1 );
+		final TestHandler warmedUp = new TestHandler( 2 );
+		governor.register( requested );
+		governor.register( warmedUp );
+
+		// Many cells loaded by the warm-up, without requests
+		final short[][] warmUpCells = new short[ 10 ][];
+		for ( int i = 0; i < warmUpCells.length; i++ )
+		{
+			warmUpCells[ i ] = new short[ 300 ];
+			governor.charge( warmedUp, warmUpCells[ i ] );
+		}
+
+		governor.touch( requested );
+		final short[] requestedCell = new short[ 1000 ];
+		governor.charge( requested, requestedCell );
+
+		final short[] other = new short[ 1500 ];
+		final TestHandler third = new TestHandler( 3 );
+		governor.register( third );
+		governor.touch( third );
+		governor.touch( third );
+		governor.charge( third, other );
+
+		// The warmed up dataset is the coldest one
+		assertEquals( 1, warmedUp.cleared );
+		assertEquals( 0, requested.cleared );
+	}
+
+	/**
+	 * Run the garbage collector until the governor accounts the expected bytes
+	 * @return true if the bytes were reached
+	 */
+	private static boolean awaitReleased( final MemoryGovernor governor, final long expected ) throws InterruptedException
+	{
+		for ( int i = 0; i < 20; i++ )
+		{
+			System.gc();
+			Thread.sleep( 50 );
+			governor.pollReleased();
+			if ( governor.getBytes() == expected )
+				return true;
+		}
+		return false;
+	}
+
+	private static class TestHandler extends CellHandler
+	{
+		int cleared;
+
+		TestHandler( final long index )
+		{
+			super( "http://localhost/" + index + "/", new DataSet( index, "dataset" + index, "/xml/" + index + ".xml", "", "owner", true, null ), "", "{}", null, null );
+		}
+
+		@Override
+		public void clearCache()
+		{
+			++cleared;
+		}
+	}
+}
@@ -0,0 +1,170 @@
+package bdv.server;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+/**
+ * Author: HongKee Moon (moon@mpi-cbg.de), Scientific Computing Facility
+ * Organization: MPI-CBG Dresden
+ * Date: October 2026
+ */
+public class PriorityGateTest
+{
+	private final AtomicLong clock = new AtomicLong();
+
+	private final List< String > granted = Collections.synchronizedList( new ArrayList<>() );
+
+	@Test
+	public void testEarliestDeadlineFirst() throws Exception
+	{
+		// Slack of 800 ms at level 0, 400 ms at level 1 and 100 ms at level 3
+		final PriorityGate gate = new PriorityGate( 1, 800, clock::get );
+		gate.acquire( 0 );
+
+		final Thread fine = startLoad( gate, "fine", 0, 1 );
+		final Thread coarsest = startLoad( gate, "coarsest", 3, 2 );
+		final Thread coarse = startLoad( gate, "coarse", 1, 3 );
+		assertEquals( 1, gate.getActive() );
+
+		// Every load releases the gate to the next one
+		gate.release();
+		join( fine, coarsest, coarse );
+
+		assertEquals( Arrays.asList( "coarsest", "coarse", "fine" ), granted );
+		assertEquals( 0, gate.getActive() );
+	}
+
+	@Test
+	public void testFineLoadIsNotStarved() throws Exception
+	{
+		final PriorityGate gate = new PriorityGate( 1, 800, clock::get );
+		gate.acquire( 0 );
+
+		// Deadline 800 ms
+		final Thread fine = startLoad( gate, "fine", 0, 1 );
+
+		// Deadline 600 + 100 ms, ahead of the fine load
+		clock.set( TimeUnit.MILLISECONDS.toNanos( 600 ) );
+		final Thread early = startLoad( gate, "early", 3, 2 );
+
+		// Deadline 750 + 100 ms, the fine load waited long enough to precede it
+		clock.set( TimeUnit.MILLISECONDS.toNanos( 750 ) );
+		final Thread late = startLoad( gate, "late", 3, 3 );
+
+		gate.release();
+		join( fine, early, late );
+
+		assertEquals( Arrays.asList( "early", "fine", "late" ), granted );
+	}
+
+	@Test
+	public void testIdleLoadsKeepAPermit() throws Exception
+	{
+		final PriorityGate gate = new PriorityGate( 3, 800, clock::get );
+
+		// One permit is left over for the next request
+		assertTrue( gate.tryAcquireIdle() );
+		assertTrue( gate.tryAcquireIdle() );
+		assertFalse( gate.tryAcquireIdle() );
+
+		gate.acquire( 0 );
+		assertEquals( 3, gate.getActive() );
+		assertFalse( gate.tryAcquireIdle() );
+
+		gate.release();
+		assertFalse( gate.tryAcquireIdle() );
+		gate.release();
+		assertTrue( gate.tryAcquireIdle() );
+
+		// A single permit is used by background loads while the gate is idle
+		final PriorityGate single = new PriorityGate( 1, 800, clock::get );
+		assertTrue( single.tryAcquireIdle() );
+		assertFalse( single.tryAcquireIdle() );
+		single.release();
+		assertTrue( single.tryAcquireIdle() );
+	}
+
+	@Test
+	public void testInterruptedWaiterLeavesTheQueue() throws Exception
+	{
+		final PriorityGate gate = new PriorityGate( 1, 800, clock::get );
+		gate.acquire( 0 );
+
+		final AtomicReference< Throwable > thrown = new AtomicReference<>();
+		final Thread waiting = new Thread( () -> {
+			try
+			{
+				gate.acquire( 0 );
+				granted.add( "waiting" );
+			}
+			catch ( final InterruptedException e )
+			{
+				thrown.set( e );
+			}
+		} );
+		waiting.start();
+		awaitQueued( gate, 1 );
+
+		waiting.interrupt();
+		join( waiting );
+		assertTrue( thrown.get() instanceof InterruptedException );
+		assertEquals( 0, gate.getQueued() );
+
+		// The permit is returned instead of being handed to the interrupted waiter
+		gate.release();
+		assertEquals( 0, gate.getActive() );
+		assertTrue( granted.isEmpty() );
+		assertTrue( gate.tryAcquireIdle() );
+	}
+
+	/**
+	 * Start a thread loading a cell of the level and wait until it is queued
+	 * @param queued the number of waiting loads after the thread is queued
+	 */
+	private Thread startLoad( final PriorityGate gate, final String name, final int level, final int queued ) throws InterruptedException
+	{
+		final Thread thread = new Thread( () -> {
+			try
+			{
+				gate.acquire( level );
+				granted.add( name );
+				gate.release();
+			}
+			catch ( final InterruptedException e )
+			{
+				Thread.currentThread().interrupt();
+			}
+		}, name );
+		thread.start();
+		awaitQueued( gate, queued );
+		return thread;
+	}
+
+	private static void awaitQueued( final PriorityGate gate, final int queued ) throws InterruptedException
+	{
+		final long timeout = System.currentTimeMillis() + 5000;
+		while ( gate.getQueued() < queued )
+		{
+			assertTrue( "load not queued", System.currentTimeMillis() < timeout );
+			Thread.sleep( 1 );
+		}
+	}
+
+	private static void join( final Thread... threads ) throws InterruptedException
+	{
+		for ( final Thread thread : threads )
+		{
+			thread.join( 5000 );
+			assertFalse( thread.getName() + " still waiting", thread.isAlive() );
+		}
+	}
+}
@@ -0,0 +1,293 @@
+package bdv.server;
+
+import bdv.model.DataSet;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.eclipse.jetty.server.LocalConnector;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.handler.ContextHandlerCollection;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.Assert.*;
+
+/**
+ * Author: HongKee Moon (moon@mpi-cbg.de), Scientific Computing Facility
+ * Organization: MPI-CBG Dresden
+ * Date: October 2026
+ */
+public class ProxyCellHandlerTest
+{
+	private static final String CELL = "cell/0/0/0/0/4/4/4/0/0/0";
+
+	private static final String XML = "<SpimData><SequenceDescription><ImageLoader format=\"bdv.remote\">"
+			+ "<baseUrl>http://upstream/</baseUrl></ImageLoader></SequenceDescription></SpimData>";
+
+	@ClassRule
+	public static TemporaryFolder cacheFolder = new TemporaryFolder();
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	/**
+	 * Every test proxies its own upstream dataset, the disk cache is shared
+	 */
+	private static final AtomicInteger dataSets = new AtomicInteger();
+
+	private HttpServer upstream;
+
+	private ExecutorService executor;
+
+	private String upstreamUrl;
+
+	private final AtomicInteger cellRequests = new AtomicInteger();
+
+	private volatile int cellStatus = 200;
+
+	private volatile byte[] cell = createCell( 1 );
+
+	private volatile String etag = "\"1\"";
+
+	/**
+	 * Cell responses wait for the latch if not null
+	 */
+	private volatile CountDownLatch cellGate;
+
+	@BeforeClass
+	public static void setUpClass()
+	{
+		ProxyCellHandler.setCacheDirectory( cacheFolder.getRoot().getAbsolutePath() );
+	}
+
+	@Before
+	public void setUp() throws IOException
+	{
+		final String path = "/dataset" + dataSets.incrementAndGet() + "/";
+		executor = Executors.newCachedThreadPool();
+		upstream = HttpServer.create( new InetSocketAddress( "localhost", 0 ), 0 );
+		upstream.setExecutor( executor );
+		upstream.createContext( path, this::handleUpstream );
+		upstream.start();
+		upstreamUrl = "http://localhost:" + upstream.getAddress().getPort() + path;
+	}
+
+	@After
+	public void tearDown()
+	{
+		upstream.stop( 0 );
+		executor.shutdownNow();
+	}
+
+	@Test
+	public void testMemoryAndDiskTiers() throws Exception
+	{
+		final ProxyCellHandler proxy = createProxy();
+		assertNull( proxy.getCachedCell( CELL ) );
+		assertArrayEquals( cell, proxy.fetchCell( CELL ) );
+		assertEquals( 1, cellRequests.get() );
+
+		// From the memory cache
+		assertArrayEquals( cell, proxy.getCachedCell( CELL ) );
+
+		// From the disk cache, once the memory cache is cleared
+		proxy.clearCache();
+		assertArrayEquals( cell, proxy.getCachedCell( CELL ) );
+
+		// The disk cache is kept for a new handler of the same upstream dataset, e.g. after a restart
+		assertArrayEquals( cell, createProxy().getCachedCell( CELL ) );
+		assertEquals( 1, cellRequests.get() );
+	}
+
+	@Test
+	public void testConcurrentMissesShareOneRequest() throws Exception
+	{
+		final ProxyCellHandler proxy = createProxy();
+		cellGate = new CountDownLatch( 1 );
+
+		final List< byte[] > fetched = new CopyOnWriteArrayList<>();
+		final List< Thread > threads = new ArrayList<>();
+		for ( int i = 0; i < 4; i++ )
+		{
+			final Thread thread = new Thread( () -> {
+				try
+				{
+					fetched.add( proxy.fetchCell( CELL ) );
+				}
+				catch ( final IOException e )
+				{
+					fetched.add( new byte[ 0 ] );
+				}
+			} );
+			threads.add( thread );
+			thread.start();
+
+			// The first thread sends the upstream request, the others wait for it
+			if ( i == 0 )
+				await( () -> cellRequests.get() == 1 );
+			else
+				await( () -> thread.getState() == Thread.State.WAITING );
+		}
+
+		cellGate.countDown();
+		for ( final Thread thread : threads )
+		{
+			thread.join( 5000 );
+			assertFalse( thread.isAlive() );
+		}
+
+		assertEquals( 4, fetched.size() );
+		for ( final byte[] buf : fetched )
+			assertArrayEquals( cell, buf );
+		assertEquals( 1, cellRequests.get() );
+	}
+
+	@Test
+	public void testUpstreamFailureIsBadGateway() throws Exception
+	{
+		final ProxyCellHandler proxy = createProxy();
+		proxy.setContextPath( "/proxy" );
+
+		final Server server = new Server();
+		final LocalConnector connector = new LocalConnector( server );
+		server.addConnector( connector );
+		final ContextHandlerCollection handlers = new ContextHandlerCollection();
+		handlers.addHandler( proxy );
+		server.setHandler( handlers );
+		server.start();
+
+		final String request = "GET /proxy/?p=" + CELL + " HTTP/1.1\r\n"
+				+ "Host: localhost\r\n"
+				+ "Connection: close\r\n"
+				+ "\r\n";
+		try
+		{
+			cellStatus = 500;
+			final String response = connector.getResponses( request );
+			assertTrue( response, response.startsWith( "HTTP/1.1 502" ) );
+			assertNull( proxy.getCachedCell( CELL ) );
+
+			// The failure is not cached, the cell is fetched once the upstream recovers
+			cellStatus = 200;
+			final String recovered = connector.getResponses( request );
+			assertTrue( recovered, recovered.startsWith( "HTTP/1.1 200" ) );
+			assertArrayEquals( cell, proxy.getCachedCell( CELL ) );
+			assertEquals( 2, cellRequests.get() );
+		}
+		finally
+		{
+			server.stop();
+		}
+	}
+
+	@Test
+	public void testChangedUpstreamDropsCells() throws Exception
+	{
+		final ProxyCellHandler proxy = createProxy();
+		proxy.fetchCell( CELL );
+
+		// An unchanged upstream dataset keeps the cells
+		assertFalse( proxy.validate() );
+		assertArrayEquals( cell, proxy.getCachedCell( CELL ) );
+
+		// The ETag changes with the files of the upstream dataset
+		etag = "\"2\"";
+		cell = createCell( 2 );
+		assertTrue( proxy.validate() );
+		assertNull( proxy.getCachedCell( CELL ) );
+
+		assertArrayEquals( cell, proxy.fetchCell( CELL ) );
+		assertEquals( 2, cellRequests.get() );
+	}
+
+	private ProxyCellHandler createProxy() throws IOException
+	{
+		final long index = 1000 + dataSets.get();
+		final DataSet dataSet = new DataSet( index, "proxy" + index, upstreamUrl, "", "owner", true, null );
+		return new ProxyCellHandler( "http://localhost/proxy/", dataSet, folder.getRoot().getAbsolutePath() );
+	}
+
+	/**
+	 * Serve the dataset XML, the metadata with the ETag and the cells, the settings and the thumbnail are missing
+	 */
+	private void handleUpstream( final HttpExchange exchange ) throws IOException
+	{
+		final String query = exchange.getRequestURI().getQuery();
+		final boolean root = exchange.getRequestURI().getPath().equals( exchange.getHttpContext().getPath() );
+		int status = 200;
+		byte[] body;
+		if ( root && null == query )
+			body = XML.getBytes( StandardCharsets.UTF_8 );
+		else if ( root && query.equals( "p=init" ) )
+		{
+			body = "{}".getBytes( StandardCharsets.UTF_8 );
+			if ( null != etag )
+				exchange.getResponseHeaders().set( "ETag", etag );
+		}
+		else if ( root && query.startsWith( "p=cell/" ) )
+		{
+			cellRequests.incrementAndGet();
+			final CountDownLatch gate = cellGate;
+			if ( null != gate )
+			{
+				try
+				{
+					gate.await();
+				}
+				catch ( final InterruptedException e )
+				{
+					Thread.currentThread().interrupt();
+				}
+			}
+			status = cellStatus;
+			body = cell;
+		}
+		else
+		{
+			status = 404;
+			body = new byte[ 0 ];
+		}
+
+		exchange.sendResponseHeaders( status, 0 == body.length ? -1 : body.length );
+		try ( OutputStream os = exchange.getResponseBody() )
+		{
+			os.write( body );
+		}
+	}
+
+	private static byte[] createCell( final int value )
+	{
+		// 4x4x4 big-endian uint16 pixels
+		final byte[] buf = new byte[ 128 ];
+		for ( int i = 1; i < buf.length; i += 2 )
+			buf[ i ] = ( byte ) value;
+		return buf;
+	}
+
+	private static void await( final BooleanSupplier condition ) throws InterruptedException
+	{
+		final long timeout = System.currentTimeMillis() + 5000;
+		while ( !condition.getAsBoolean() )
+		{
+			assertTrue( "condition not met", System.currentTimeMillis() < timeout );
+			Thread.sleep( 1 );
+		}
+	}
+}
@@ -0,0 +1,75 @@
+package bdv.server;
+
+import org.junit.Test;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Author: HongKee Moon (moon@mpi-cbg.de), Scientific Computing Facility
+ * Organization: MPI-CBG Dresden
+ * Date: October 2026
+ */
+public class RenderPoolTest
+{
+	@Test
+	public void testRejectWhenFull() throws Exception
+	{
+		final RenderPool pool = new RenderPool( 1, 1 );
+		final CountDownLatch started = new CountDownLatch( 1 );
+		final CountDownLatch release = new CountDownLatch( 1 );
+
+		// One rendering on the thread, one in the queue
+		final Thread running = new Thread( () -> render( pool, () -> {
+			started.countDown();
+			release.await();
+			return "running";
+		} ) );
+		running.start();
+		assertTrue( started.await( 10, TimeUnit.SECONDS ) );
+		final Thread queued = new Thread( () -> render( pool, () -> "queued" ) );
+		queued.start();
+		while ( queued.getState() != Thread.State.WAITING )
+			Thread.sleep( 1 );
+
+		try
+		{
+			pool.render( () -> "rejected" );
+			fail( "The pool is full" );
+		}
+		catch ( final RejectedExecutionException e )
+		{
+			// Answered with 503
+		}
+
+		release.countDown();
+		running.join();
+		queued.join();
+		assertEquals( "accepted", pool.render( () -> "accepted" ) );
+	}
+
+	@Test( expected = ExecutionException.class )
+	public void testFailure() throws Exception
+	{
+		new RenderPool( 1, 1 ).render( () -> {
+			throw new IllegalArgumentException( "Unknown timepoint" );
+		} );
+	}
+
+	private static void render( final RenderPool pool, final Callable< String > rendering )
+	{
+		try
+		{
+			pool.render( rendering );
+		}
+		catch ( final Exception e )
+		{
+			throw new RuntimeException( e );
+		}
+	}
+}
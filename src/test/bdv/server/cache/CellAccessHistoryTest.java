@@ -0,0 +1,61 @@
+package bdv.server.cache;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+/**
+ * Author: HongKee Moon (moon@mpi-cbg.de), Scientific Computing Facility
+ * Organization: MPI-CBG Dresden
+ * Date: October 2026
+ */
+public class CellAccessHistoryTest
+{
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void testTopCells() throws Exception
+	{
+		final CellAccessHistory history = new CellAccessHistory( 100 );
+
+		record( history, 1, "0/0/0/2/16/16/16/0/0/0", 3 );
+		record( history, 1, "1/0/0/2/16/16/16/16/0/0", 5 );
+		record( history, 1, "2/0/0/2/16/16/16/32/0/0", 1 );
+		record( history, 2, "0/0/0/2/16/16/16/0/0/0", 10 );
+
+		assertEquals( Arrays.asList( "1/0/0/2/16/16/16/16/0/0", "0/0/0/2/16/16/16/0/0/0" ), history.getTopCells( 1, 2 ) );
+		assertEquals( 3, history.getTopCells( 1, 10 ).size() );
+		assertTrue( history.getTopCells( 3, 10 ).isEmpty() );
+	}
+
+	@Test
+	public void testSaveLoad() throws Exception
+	{
+		final Path file = folder.getRoot().toPath().resolve( "history.gz" );
+
+		final CellAccessHistory history = new CellAccessHistory( 2 );
+		record( history, 1, "a", 3 );
+		record( history, 1, "b", 5 );
+		record( history, 1, "c", 4 );
+		history.save( file );
+
+		// Trimmed to the two most requested cells and their counts halved
+		assertEquals( Arrays.asList( "b", "c" ), history.getTopCells( 1, 10 ) );
+
+		final CellAccessHistory loaded = new CellAccessHistory( 2 );
+		loaded.load( file );
+		assertEquals( Arrays.asList( "b", "c" ), loaded.getTopCells( 1, 10 ) );
+	}
+
+	private static void record( final CellAccessHistory history, final long dataSet, final String cell, final int times )
+	{
+		for ( int i = 0; i < times; i++ )
+			history.record( dataSet, cell );
+	}
+}
@@ -0,0 +1,45 @@
+package bdv.server.cache;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Author: HongKee Moon (moon@mpi-cbg.de), Scientific Computing Facility
+ * Organization: MPI-CBG Dresden
+ * Date: October 2026
+ */
+public class DeltaCacheTest
+{
+	@Test
+	public void testEviction() throws Exception
+	{
+		final DeltaCache cache = new DeltaCache( 100 );
+		cache.put( 1, "a", new byte[ 40 ] );
+		cache.put( 1, "b", new byte[ 40 ] );
+
+		// "a" is used more recently than "b", which is evicted
+		assertNotNull( cache.get( 1, "a" ) );
+		cache.put( 2, "a", new byte[ 40 ] );
+		assertNull( cache.get( 1, "b" ) );
+		assertNotNull( cache.get( 1, "a" ) );
+		assertEquals( 80, cache.getBytes() );
+
+		// Larger than the budget
+		cache.put( 1, "c", new byte[ 200 ] );
+		assertNull( cache.get( 1, "c" ) );
+	}
+
+	@Test
+	public void testRemoveDataSet() throws Exception
+	{
+		final DeltaCache cache = new DeltaCache( 1000 );
+		cache.put( 1, "a", new byte[ 10 ] );
+		cache.put( 12, "a", new byte[ 20 ] );
+
+		cache.remove( 1 );
+		assertNull( cache.get( 1, "a" ) );
+		assertNotNull( cache.get( 12, "a" ) );
+		assertEquals( 20, cache.getBytes() );
+	}
+}
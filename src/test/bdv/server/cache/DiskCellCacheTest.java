@@ -0,0 +1,106 @@
+package bdv.server.cache;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+/**
+ * Author: HongKee Moon (moon@mpi-cbg.de), Scientific Computing Facility
+ * Organization: MPI-CBG Dresden
+ * Date: October 2026
+ */
+public class DiskCellCacheTest
+{
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void testPutGet() throws Exception
+	{
+		final DiskCellCache cache = new DiskCellCache( folder.getRoot().toPath(), 1L << 30 );
+
+		assertNull( cache.get( "1/0/0/0", 42 ) );
+
+		cache.put( "1/0/0/0", 42, new byte[] { 1, 2, 3 } );
+		cache.put( "1/0/0/1", 42, new byte[] { 4, 5 } );
+
+		assertArrayEquals( new byte[] { 1, 2, 3 }, cache.get( "1/0/0/0", 42 ) );
+		assertArrayEquals( new byte[] { 4, 5 }, cache.get( "1/0/0/1", 42 ) );
+		assertEquals( 2, cache.size() );
+
+		cache.close();
+	}
+
+	@Test
+	public void testReopen() throws Exception
+	{
+		final Path dir = folder.getRoot().toPath();
+
+		DiskCellCache cache = new DiskCellCache( dir, 1L << 30 );
+		cache.put( "1/0/0/0", 42, new byte[] { 1, 2, 3 } );
+		cache.put( "1/0/0/0", 42, new byte[] { 6, 7, 8 } );
+		final long bytes = cache.getBytes();
+		cache.close();
+
+		cache = new DiskCellCache( dir, 1L << 30 );
+		assertEquals( bytes, cache.getBytes() );
+		assertEquals( 1, cache.size() );
+		assertArrayEquals( new byte[] { 6, 7, 8 }, cache.get( "1/0/0/0", 42 ) );
+		cache.close();
+	}
+
+	@Test
+	public void testTruncatedRecord() throws Exception
+	{
+		final Path dir = folder.getRoot().toPath();
+
+		DiskCellCache cache = new DiskCellCache( dir, 1L << 30 );
+		cache.put( "1/0/0/0", 42, new byte[] { 1, 2, 3 } );
+		final long bytes = cache.getBytes();
+		cache.close();
+
+		// A record cut off by a crash
+		Files.write( dir.resolve( "segment-00000000.dat" ), new byte[] { 0x62, 0x64, 0x76, 0x63, 0, 0 }, StandardOpenOption.APPEND );
+
+		cache = new DiskCellCache( dir, 1L << 30 );
+		assertEquals( bytes, cache.getBytes() );
+		assertArrayEquals( new byte[] { 1, 2, 3 }, cache.get( "1/0/0/0", 42 ) );
+
+		cache.put( "1/0/0/1", 42, new byte[] { 4 } );
+		assertArrayEquals( new byte[] { 4 }, cache.get( "1/0/0/1", 42 ) );
+		cache.close();
+	}
+
+	@Test
+	public void testModifiedDataSet() throws Exception
+	{
+		final DiskCellCache cache = new DiskCellCache( folder.getRoot().toPath(), 1L << 30 );
+
+		cache.put( "1/0/0/0", 42, new byte[] { 1, 2, 3 } );
+
+		assertNull( cache.get( "1/0/0/0", 43 ) );
+		assertEquals( 0, cache.size() );
+
+		cache.close();
+	}
+
+	@Test
+	public void testFingerprint() throws Exception
+	{
+		final Path file = folder.newFile( "dataset.h5" ).toPath();
+		Files.write( file, new byte[] { 1 } );
+
+		final long fingerprint = DiskCellCache.fingerprint( Collections.singletonList( file ) );
+		assertEquals( fingerprint, DiskCellCache.fingerprint( Collections.singletonList( file ) ) );
+
+		Files.write( file, new byte[] { 1, 2 } );
+		assertNotEquals( fingerprint, DiskCellCache.fingerprint( Collections.singletonList( file ) ) );
+	}
+}
@@ -0,0 +1,57 @@
+package bdv.server.cache;
+
+import bdv.img.cache.VolatileGlobalCellCache;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import static org.junit.Assert.*;
+
+/**
+ * Author: HongKee Moon (moon@mpi-cbg.de), Scientific Computing Facility
+ * Organization: MPI-CBG Dresden
+ * Date: October 2026
+ */
+public class PinnedCellsTest
+{
+	@Test
+	public void testPinnedLevels() throws Exception
+	{
+		final PinnedCells pinned = new PinnedCells();
+		pinned.setLevels( new HashSet<>( Arrays.asList( 2, 3 ) ) );
+
+		final VolatileGlobalCellCache.Key coarse = new VolatileGlobalCellCache.Key( 0, 0, 3, 0 );
+		final VolatileGlobalCellCache.Key fine = new VolatileGlobalCellCache.Key( 0, 0, 0, 0 );
+
+		pinned.put( 3, coarse, new byte[ 10 ] );
+		pinned.put( 0, fine, new byte[ 100 ] );
+
+		assertNotNull( pinned.get( 3, coarse ) );
+		assertNull( pinned.get( 0, fine ) );
+		assertEquals( 10, pinned.getBytes() );
+
+		// The first cell is kept
+		pinned.put( 3, coarse, new byte[ 20 ] );
+		assertEquals( 10, pinned.getBytes() );
+	}
+
+	@Test
+	public void testUnpin() throws Exception
+	{
+		final PinnedCells pinned = new PinnedCells();
+		pinned.setLevels( new HashSet<>( Arrays.asList( 2, 3 ) ) );
+
+		pinned.put( 2, new VolatileGlobalCellCache.Key( 0, 0, 2, 0 ), new byte[ 10 ] );
+		pinned.put( 3, new VolatileGlobalCellCache.Key( 0, 0, 3, 0 ), new byte[ 5 ] );
+
+		pinned.setLevels( Collections.singleton( 3 ) );
+		assertEquals( Collections.singleton( 3 ), pinned.getLevels() );
+		assertEquals( 5, pinned.getBytes() );
+
+		pinned.clear();
+		assertEquals( 0, pinned.getBytes() );
+		assertTrue( pinned.isPinned( 3 ) );
+	}
+}
@@ -0,0 +1,268 @@
+package bdv.server.store;
+
+import bdv.img.hdf5.ViewLevelId;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.Assert.*;
+
+/**
+ * Author: HongKee Moon (moon@mpi-cbg.de), Scientific Computing Facility
+ * Organization: MPI-CBG Dresden
+ * Date: October 2026
+ */
+public class ChunkCellStoreTest
+{
+	private static final int[] SIZE = { 5, 4, 3 };
+
+	private static final int[] BLOCK = { 2, 2, 2 };
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void testN5() throws Exception
+	{
+		final Path root = folder.newFolder( "dataset.n5" ).toPath();
+		writeN5( root, "{\"dimensions\":[5,4,3],\"blockSize\":[2,2,2],\"dataType\":\"uint16\",\"compression\":{\"type\":\"gzip\"}}" );
+
+		final CellStore store = CellStore.open( root.toString() );
+		assertTrue( store instanceof N5CellStore );
+		assertFalse( store.isDiskCached() );
+		assertCells( store, -1 );
+		store.close();
+	}
+
+	@Test
+	public void testN5LegacyUseZlib() throws Exception
+	{
+		// Before N5 1.0, gzip compression was given by "useZlib"
+		final Path root = folder.newFolder( "legacy.n5" ).toPath();
+		writeN5( root, "{\"dimensions\":[5,4,3],\"blockSize\":[2,2,2],\"dataType\":\"uint16\",\"useZlib\":true}" );
+
+		final CellStore store = CellStore.open( root.toString() );
+		assertCells( store, -1 );
+		store.close();
+	}
+
+	@Test
+	public void testN5StoredCell() throws Exception
+	{
+		final Path root = folder.newFolder( "stored.n5" ).toPath();
+		write( root.resolve( "setup0/attributes.json" ), "{\"downsamplingFactors\":[[1,1,1]],\"dataType\":\"uint16\"}" );
+		write( root.resolve( "setup0/timepoint0/s0/attributes.json" ), "{\"dimensions\":[5,4,3],\"blockSize\":[2,2,2],\"dataType\":\"uint16\",\"compression\":{\"type\":\"gzip\"}}" );
+
+		final int[] size = getChunkSize( 2, 0, 0, false );
+		final ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+		try ( GZIPOutputStream gzip = new GZIPOutputStream( compressed ) )
+		{
+			gzip.write( getChunk( 2, 0, 0, size, ByteOrder.BIG_ENDIAN ) );
+		}
+		final ByteBuffer header = ByteBuffer.allocate( 16 );
+		header.putShort( ( short ) 0 ).putShort( ( short ) 3 ).putInt( size[ 0 ] ).putInt( size[ 1 ] ).putInt( size[ 2 ] );
+		final ByteArrayOutputStream file = new ByteArrayOutputStream();
+		file.write( header.array() );
+		file.write( compressed.toByteArray() );
+		write( root.resolve( "setup0/timepoint0/s0/2/0/0" ), file.toByteArray() );
+
+		final CellStore store = CellStore.open( root.toString() );
+		final long[] min = { 4, 0, 0 };
+
+		final StoredCell cell = store.readStoredCell( 0, 0, 0, size, min, Collections.singleton( "gzip" ) );
+		assertEquals( "gzip", cell.contentCoding );
+		assertArrayEquals( compressed.toByteArray(), cell.bytes );
+
+		// Not accepted by the client, a different cell size, or not written
+		assertNull( store.readStoredCell( 0, 0, 0, size, min, Collections.emptySet() ) );
+		assertNull( store.readStoredCell( 0, 0, 0, new int[] { 2, 2, 2 }, min, Collections.singleton( "gzip" ) ) );
+		assertNull( store.readStoredCell( 0, 0, 0, new int[] { 2, 2, 2 }, new long[] { 0, 0, 0 }, Collections.singleton( "gzip" ) ) );
+		store.close();
+	}
+
+	@Test
+	public void testZarr() throws Exception
+	{
+		final Path root = folder.newFolder( "dataset.zarr" ).toPath();
+		write( root.resolve( ".zgroup" ), "{\"zarr_format\":2}" );
+		write( root.resolve( "setup0/.zgroup" ), "{\"zarr_format\":2}" );
+		write( root.resolve( "setup0/.zattrs" ), "{\"downsamplingFactors\":[[1,1,1]]}" );
+
+		final Path array = root.resolve( "setup0/timepoint0/s0" );
+		write( array.resolve( ".zarray" ), "{\"zarr_format\":2,\"shape\":[3,4,5],\"chunks\":[2,2,2],\"dtype\":\"<u2\","
+				+ "\"compressor\":{\"id\":\"zlib\",\"level\":1},\"fill_value\":7,\"order\":\"C\",\"filters\":null}" );
+
+		for ( int gz = 0; gz < 2; gz++ )
+			for ( int gy = 0; gy < 2; gy++ )
+				for ( int gx = 0; gx < 3; gx++ )
+				{
+					// The last chunk is missing and read as the fill value
+					if ( gx == 2 && gy == 1 && gz == 1 )
+						continue;
+
+					final ByteArrayOutputStream out = new ByteArrayOutputStream();
+					try ( DeflaterOutputStream zlib = new DeflaterOutputStream( out ) )
+					{
+						zlib.write( getChunk( gx, gy, gz, getChunkSize( gx, gy, gz, true ), ByteOrder.LITTLE_ENDIAN ) );
+					}
+					write( array.resolve( gz + "." + gy + "." + gx ), out.toByteArray() );
+				}
+
+		final CellStore store = CellStore.open( root.toString() );
+		assertTrue( store instanceof ZarrCellStore );
+		assertCells( store, 7 );
+
+		// Little-endian chunks have to be decoded
+		assertNull( store.readStoredCell( 0, 0, 0, BLOCK, new long[] { 0, 0, 0 }, Collections.singleton( "deflate" ) ) );
+		store.close();
+	}
+
+	@Test
+	public void testUint8() throws Exception
+	{
+		final Path root = folder.newFolder( "uint8.zarr" ).toPath();
+		write( root.resolve( ".zgroup" ), "{\"zarr_format\":2}" );
+		write( root.resolve( "setup0/.zattrs" ), "{\"downsamplingFactors\":[[1,1,1]]}" );
+		write( root.resolve( "setup0/timepoint0/s0/.zarray" ), "{\"zarr_format\":2,\"shape\":[1,1,3],\"chunks\":[1,1,3],\"dtype\":\"|u1\","
+				+ "\"compressor\":null,\"fill_value\":0,\"order\":\"C\",\"filters\":null}" );
+		write( root.resolve( "setup0/timepoint0/s0/0.0.0" ), new byte[] { 1, 2, ( byte ) 255 } );
+
+		final CellStore store = CellStore.open( root.toString() );
+		assertEquals( DataType.UINT8, store.getDataType( 0 ) );
+
+		// Three pixels are packed into two shorts
+		final short[] data = store.getShortArrayLoader().loadArray( 0, 0, 0, new int[] { 3, 1, 1 }, new long[] { 0, 0, 0 } ).getCurrentStorageArray();
+		assertArrayEquals( new short[] { 0x0102, ( short ) 0xff00 }, data );
+
+		// Uncompressed 8-bit chunks have no byte order and are sent as stored
+		assertArrayEquals( new byte[] { 1, 2, ( byte ) 255 }, store.readStoredCell( 0, 0, 0, new int[] { 3, 1, 1 }, new long[] { 0, 0, 0 }, Collections.emptySet() ).bytes );
+		store.close();
+	}
+
+	@Test
+	public void testToUint16() throws Exception
+	{
+		final ByteBuffer floats = ByteBuffer.allocate( 12 ).putFloat( -1.5f ).putFloat( 2.6f ).putFloat( 1e6f );
+		assertArrayEquals( new byte[] { 0, 0, 0, 3, ( byte ) 0xff, ( byte ) 0xff }, DataType.FLOAT32.toUint16( floats.array(), 3 ) );
+
+		// Padding of the packed shorts is ignored
+		assertArrayEquals( new byte[] { 0, 1, 0, ( byte ) 200 }, DataType.UINT8.toUint16( new byte[] { 1, ( byte ) 200 }, 2 ) );
+	}
+
+	@Test( expected = IOException.class )
+	public void testUnsupportedCompression() throws Exception
+	{
+		final Path root = folder.newFolder( "blosc.zarr" ).toPath();
+		write( root.resolve( ".zgroup" ), "{\"zarr_format\":2}" );
+		write( root.resolve( "setup0/.zattrs" ), "{\"downsamplingFactors\":[[1,1,1]]}" );
+		write( root.resolve( "setup0/timepoint0/s0/.zarray" ), "{\"zarr_format\":2,\"shape\":[3,4,5],\"chunks\":[2,2,2],\"dtype\":\"<u2\","
+				+ "\"compressor\":{\"id\":\"blosc\"},\"fill_value\":0,\"order\":\"C\",\"filters\":null}" );
+
+		CellStore.open( root.toString() );
+	}
+
+	/**
+	 * Write an N5 container of gzip compressed chunks of the voxel values x + 10 y + 100 z
+	 * @param arrayAttributes the attributes of the level 0 array
+	 */
+	private static void writeN5( final Path root, final String arrayAttributes ) throws IOException
+	{
+		write( root.resolve( "attributes.json" ), "{\"n5\":\"2.0.0\"}" );
+		write( root.resolve( "setup0/attributes.json" ), "{\"downsamplingFactors\":[[1,1,1]],\"dataType\":\"uint16\"}" );
+
+		final Path array = root.resolve( "setup0/timepoint0/s0" );
+		write( array.resolve( "attributes.json" ), arrayAttributes );
+
+		for ( int gz = 0; gz < 2; gz++ )
+			for ( int gy = 0; gy < 2; gy++ )
+				for ( int gx = 0; gx < 3; gx++ )
+				{
+					final int[] size = getChunkSize( gx, gy, gz, false );
+					final ByteBuffer header = ByteBuffer.allocate( 16 );
+					header.putShort( ( short ) 0 ).putShort( ( short ) 3 ).putInt( size[ 0 ] ).putInt( size[ 1 ] ).putInt( size[ 2 ] );
+
+					final ByteArrayOutputStream out = new ByteArrayOutputStream();
+					out.write( header.array() );
+					try ( GZIPOutputStream gzip = new GZIPOutputStream( out ) )
+					{
+						gzip.write( getChunk( gx, gy, gz, size, ByteOrder.BIG_ENDIAN ) );
+					}
+					write( array.resolve( gx + "/" + gy + "/" + gz ), out.toByteArray() );
+				}
+	}
+
+	/**
+	 * Load every cell and compare it with the voxel values x + 10 y + 100 z
+	 * @param fillValue the value of the missing last chunk, -1 if it exists
+	 */
+	private static void assertCells( final CellStore store, final int fillValue ) throws Exception
+	{
+		assertArrayEquals( BLOCK, store.getSetupMipmapInfo( 0 ).getSubdivisions()[ 0 ] );
+		assertArrayEquals( new long[] { 5, 4, 3 }, store.getDimsAndExistence( new ViewLevelId( 0, 0, 0 ) ).getDimensions() );
+
+		for ( int gz = 0; gz < 2; gz++ )
+			for ( int gy = 0; gy < 2; gy++ )
+				for ( int gx = 0; gx < 3; gx++ )
+				{
+					final int[] size = getChunkSize( gx, gy, gz, false );
+					final short[] data = store.getShortArrayLoader().loadArray( 0, 0, 0, size, new long[] { gx * 2, gy * 2, gz * 2 } ).getCurrentStorageArray();
+					assertEquals( size[ 0 ] * size[ 1 ] * size[ 2 ], data.length );
+
+					final boolean missing = fillValue >= 0 && gx == 2 && gy == 1 && gz == 1;
+					int i = 0;
+					for ( int z = 0; z < size[ 2 ]; z++ )
+						for ( int y = 0; y < size[ 1 ]; y++ )
+							for ( int x = 0; x < size[ 0 ]; x++ )
+								assertEquals( missing ? fillValue : value( gx * 2 + x, gy * 2 + y, gz * 2 + z ), data[ i++ ] );
+				}
+	}
+
+	/**
+	 * @param padded whether the chunks at the border are padded to the block size, as in Zarr
+	 */
+	private static int[] getChunkSize( final int gx, final int gy, final int gz, final boolean padded )
+	{
+		final int[] position = { gx, gy, gz };
+		final int[] size = new int[ 3 ];
+		for ( int d = 0; d < 3; d++ )
+			size[ d ] = padded ? BLOCK[ d ] : Math.min( BLOCK[ d ], SIZE[ d ] - position[ d ] * BLOCK[ d ] );
+		return size;
+	}
+
+	private static byte[] getChunk( final int gx, final int gy, final int gz, final int[] size, final ByteOrder order )
+	{
+		final ByteBuffer buffer = ByteBuffer.allocate( 2 * size[ 0 ] * size[ 1 ] * size[ 2 ] ).order( order );
+		for ( int z = 0; z < size[ 2 ]; z++ )
+			for ( int y = 0; y < size[ 1 ]; y++ )
+				for ( int x = 0; x < size[ 0 ]; x++ )
+					buffer.putShort( ( short ) value( gx * 2 + x, gy * 2 + y, gz * 2 + z ) );
+		return buffer.array();
+	}
+
+	private static int value( final int x, final int y, final int z )
+	{
+		return x >= SIZE[ 0 ] || y >= SIZE[ 1 ] || z >= SIZE[ 2 ] ? 0 : x + 10 * y + 100 * z;
+	}
+
+	private static void write( final Path path, final String json ) throws IOException
+	{
+		write( path, json.getBytes( StandardCharsets.UTF_8 ) );
+	}
+
+	private static void write( final Path path, final byte[] bytes ) throws IOException
+	{
+		Files.createDirectories( path.getParent() );
+		Files.write( path, bytes );
+	}
+}
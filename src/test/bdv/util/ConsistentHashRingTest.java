@@ -0,0 +1,95 @@
+package bdv.util;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Author: HongKee Moon (moon@mpi-cbg.de), Scientific Computing Facility
+ * Organization: MPI-CBG Dresden
+ * Date: October 2026
+ */
+public class ConsistentHashRingTest
+{
+	private static final int DATASETS = 10000;
+
+	@Test
+	public void testEmptyRing() throws Exception
+	{
+		assertNull( new ConsistentHashRing( Collections.emptyList() ).getOwner( 1 ) );
+	}
+
+	@Test
+	public void testSingleNode() throws Exception
+	{
+		final ConsistentHashRing ring = new ConsistentHashRing( Collections.singletonList( "node1" ) );
+
+		for ( long i = 0; i < 100; i++ )
+			assertEquals( "node1", ring.getOwner( i ) );
+	}
+
+	@Test
+	public void testBalance() throws Exception
+	{
+		final ConsistentHashRing ring = new ConsistentHashRing( Arrays.asList( "node1", "node2", "node3", "node4" ) );
+
+		final Map< String, Integer > counts = new HashMap<>();
+		for ( long i = 0; i < DATASETS; i++ )
+			counts.merge( ring.getOwner( i ), 1, Integer::sum );
+
+		assertEquals( 4, counts.size() );
+		for ( int count : counts.values() )
+			assertTrue( "Unbalanced ring: " + counts, count > DATASETS / 4 / 2 && count < DATASETS / 4 * 2 );
+	}
+
+	@Test
+	public void testNodeLeaving() throws Exception
+	{
+		final ConsistentHashRing before = new ConsistentHashRing( Arrays.asList( "node1", "node2", "node3" ) );
+		final ConsistentHashRing after = new ConsistentHashRing( Arrays.asList( "node1", "node3" ) );
+
+		for ( long i = 0; i < DATASETS; i++ )
+		{
+			// Only the datasets of the leaving node are moved
+			if ( !before.getOwner( i ).equals( "node2" ) )
+				assertEquals( before.getOwner( i ), after.getOwner( i ) );
+			else
+				assertNotEquals( "node2", after.getOwner( i ) );
+		}
+	}
+
+	@Test
+	public void testNodeJoining() throws Exception
+	{
+		final ConsistentHashRing before = new ConsistentHashRing( Arrays.asList( "node1", "node2" ) );
+		final ConsistentHashRing after = new ConsistentHashRing( Arrays.asList( "node1", "node2", "node3" ) );
+
+		int moved = 0;
+		for ( long i = 0; i < DATASETS; i++ )
+		{
+			if ( !before.getOwner( i ).equals( after.getOwner( i ) ) )
+			{
+				// Datasets only move to the joining node
+				assertEquals( "node3", after.getOwner( i ) );
+				moved++;
+			}
+		}
+
+		assertTrue( "Too many datasets moved: " + moved, moved < DATASETS / 2 );
+	}
+
+	@Test
+	public void testOrderIndependence() throws Exception
+	{
+		final ConsistentHashRing ring1 = new ConsistentHashRing( Arrays.asList( "a", "b", "c" ) );
+		final ConsistentHashRing ring2 = new ConsistentHashRing( Arrays.asList( "c", "a", "b" ) );
+
+		for ( long i = 0; i < 1000; i++ )
+			assertEquals( ring1.getOwner( i ), ring2.getOwner( i ) );
+	}
+}